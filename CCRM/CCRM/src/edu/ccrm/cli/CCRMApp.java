@@ -2,12 +2,35 @@ package edu.ccrm.cli;
 
 import edu.ccrm.service.*;
 import edu.ccrm.domain.*;
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.io.BackupJob;
+import edu.ccrm.io.BackupManifest;
+import edu.ccrm.io.BackupUsage;
+import edu.ccrm.io.ColumnarReader;
+import edu.ccrm.io.CsvWriter;
+import edu.ccrm.io.DirectoryIngester;
+import edu.ccrm.io.ExportJob;
 import edu.ccrm.io.FileOperationService;
+import edu.ccrm.io.ImportOptions;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.io.ReportFormat;
+import edu.ccrm.io.ReportSink;
+import edu.ccrm.io.ReportSinks;
+import edu.ccrm.io.SnapshotInfo;
+import edu.ccrm.io.Storage;
 import edu.ccrm.util.ValidationUtils;
 import edu.ccrm.exceptions.*;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.DoubleSummaryStatistics;
 import java.util.Scanner;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Main CLI Application for Campus Course & Records Manager
@@ -21,19 +44,99 @@ public class CCRMApp {
     private final TranscriptService transcriptService;
     private final ReportService reportService;
     private final FileOperationService fileService;
+    private final Storage storage;
+    // Held while the menu works with the services; released while waiting for input
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final DirectoryIngester ingester;
+    private BackupJob lastBackupJob;
+    private final List<ExportJob> exportJobs = new ArrayList<>();
    
     
     public CCRMApp() {
         this.scanner = new Scanner(System.in);
+        this.storage = openStorage();
        
-        this.studentService = new StudentService();
-        this.courseService = new CourseService();
-        this.enrollmentService = new EnrollmentService();
+        this.studentService = new StudentService(storage.getStudents());
+        this.courseService = new CourseService(storage.getCourses());
+        this.enrollmentService = new EnrollmentService(storage.getEnrollments());
         this.transcriptService = new TranscriptService(enrollmentService, courseService);
         this.reportService = new ReportService();
         this.fileService = new FileOperationService();
         
-        initializeSampleData();
+        // A persistent backend that already has records is the state to start from
+        if (storage.isPersistent() && !storage.isEmpty()) {
+            System.out.println("Using storage: " + storage);
+            // Removals made before this start were journaled in memory only, so the next backup must be full
+            studentService.getChangeJournal().recordReset();
+            courseService.getChangeJournal().recordReset();
+            enrollmentService.getChangeJournal().recordReset();
+        } else if (!loadSnapshot()) {
+            initializeSampleData();
+        }
+        this.ingester = startIngester();
+    }
+    
+    private static Storage openStorage() {
+        AppConfig config = AppConfig.getInstance();
+        try {
+            return Storage.open(config);
+        } catch (IOException e) {
+            System.err.println("Could not open " + config.getStorageBackend().getDescription().toLowerCase()
+                + ", using in-memory storage: " + e.getMessage());
+            return Storage.inMemory();
+        }
+    }
+    
+    /**
+     * Watch the data directory for CSV drops unless disabled with -Dccrm.ingest=false
+     */
+    private DirectoryIngester startIngester() {
+        if (!AppConfig.getInstance().isIngestEnabled()) {
+            return null;
+        }
+        DirectoryIngester watcher = fileService.createIngester(studentService, courseService, enrollmentService,
+            stateLock);
+        try {
+            watcher.start();
+            return watcher;
+        } catch (IOException e) {
+            System.err.println("Could not watch " + watcher.getDirectory() + " for CSV files: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private void closeIngester() {
+        if (ingester == null) {
+            return;
+        }
+        try {
+            ingester.close();
+        } catch (IOException e) {
+            System.err.println("Could not stop ingester: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Read a line of input, letting the ingester apply records while waiting
+     */
+    private String readLine() {
+        if (!stateLock.isHeldByCurrentThread()) {
+            return scanner.nextLine();
+        }
+        stateLock.unlock();
+        try {
+            return scanner.nextLine();
+        } finally {
+            stateLock.lock();
+        }
+    }
+    
+    private void closeStorage() {
+        try {
+            storage.close();
+        } catch (IOException e) {
+            System.err.println("Could not close storage: " + e.getMessage());
+        }
     }
     
     public static void main(String[] args) {
@@ -107,15 +210,65 @@ public class CCRMApp {
         }
     }
     
+    /**
+     * Start from the saved snapshot when there is one
+     * @return false if there was no usable snapshot
+     */
+    private boolean loadSnapshot() {
+        if (!fileService.hasSnapshot()) {
+            return false;
+        }
+        try {
+            SnapshotInfo info = fileService.loadSnapshot(studentService, courseService, enrollmentService);
+            System.out.println("Loaded snapshot: " + info);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not load snapshot, starting with sample data: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void awaitExports() {
+        if (fileService.getRunningExportCount() > 0) {
+            System.out.println("Waiting for exports to finish...");
+        }
+        try {
+            fileService.awaitExports();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void awaitBackups() {
+        if (lastBackupJob != null && !lastBackupJob.isDone()) {
+            System.out.println("Waiting for backups to finish...");
+        }
+        try {
+            fileService.awaitBackups();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void saveSnapshot() {
+        try {
+            SnapshotInfo info = fileService.saveSnapshot(studentService, courseService, enrollmentService);
+            System.out.println("Saved snapshot: " + info);
+        } catch (IOException e) {
+            System.err.println("Could not save snapshot: " + e.getMessage());
+        }
+    }
+    
     public void run() {
         boolean running = true;
+        stateLock.lock();
         
         // Demonstrate while loop and labeled break
         mainLoop: while (running) {
             displayMainMenu();
             
             try {
-                int choice = Integer.parseInt(scanner.nextLine());
+                int choice = Integer.parseInt(readLine());
                 
                 // Enhanced switch statement (Java 14+ style)
                 switch (choice) {
@@ -127,7 +280,6 @@ public class CCRMApp {
                     case 6 -> handleReports();
                     case 7 -> handleBackupOperations();
                     case 8 -> {
-                        System.out.println("Thank you for using CCRM!");
                         running = false;
                         break mainLoop; // Labeled break demonstration
                     }
@@ -140,6 +292,15 @@ public class CCRMApp {
             }
         }
         
+        stateLock.unlock();
+        closeIngester();
+        awaitExports();
+        awaitBackups();
+        if (!storage.isPersistent()) {
+            saveSnapshot();
+        }
+        closeStorage();
+        System.out.println("Thank you for using CCRM!");
         scanner.close();
     }
     
@@ -174,7 +335,7 @@ public class CCRMApp {
             System.out.print("Enter choice: ");
             
             try {
-                int choice = Integer.parseInt(scanner.nextLine());
+                int choice = Integer.parseInt(readLine());
                 
                 switch (choice) {
                     case 1 -> addStudent();
@@ -194,16 +355,16 @@ public class CCRMApp {
     private void addStudent() {
         try {
             System.out.print("Enter student ID: ");
-            String id = scanner.nextLine().trim();
+            String id = readLine().trim();
             
             System.out.print("Enter registration number: ");
-            String regNo = scanner.nextLine().trim();
+            String regNo = readLine().trim();
             
             System.out.print("Enter full name: ");
-            String fullName = scanner.nextLine().trim();
+            String fullName = readLine().trim();
             
             System.out.print("Enter email: ");
-            String email = scanner.nextLine().trim();
+            String email = readLine().trim();
             
             // Assertion for non-null values
             assert id != null && !id.isEmpty() : "Student ID cannot be empty";
@@ -249,7 +410,7 @@ public class CCRMApp {
     
     private void searchStudents() {
         System.out.print("Enter name to search: ");
-        String searchTerm = scanner.nextLine().trim();
+        String searchTerm = readLine().trim();
         
         if (searchTerm.isEmpty()) {
             System.out.println("Search term cannot be empty.");
@@ -268,7 +429,7 @@ public class CCRMApp {
     
     private void updateStudent() {
         System.out.print("Enter student ID to update: ");
-        String id = scanner.nextLine().trim();
+        String id = readLine().trim();
         
         try {
             Student student = studentService.findStudentById(id);
@@ -280,13 +441,13 @@ public class CCRMApp {
             System.out.println("Current details: " + student);
             
             System.out.print("Enter new full name (press Enter to keep current): ");
-            String newName = scanner.nextLine().trim();
+            String newName = readLine().trim();
             if (!newName.isEmpty()) {
                 student.setFullName(newName);
             }
             
             System.out.print("Enter new email (press Enter to keep current): ");
-            String newEmail = scanner.nextLine().trim();
+            String newEmail = readLine().trim();
             if (!newEmail.isEmpty()) {
                 if (ValidationUtils.isValidEmail(newEmail)) {
                     student.setEmail(newEmail);
@@ -305,7 +466,7 @@ public class CCRMApp {
     
     private void viewStudentProfileAndTranscript() {
         System.out.print("Enter student ID: ");
-        String id = scanner.nextLine().trim();
+        String id = readLine().trim();
         
         try {
             Student student = studentService.findStudentById(id);
@@ -318,7 +479,7 @@ public class CCRMApp {
             System.out.println("\n" + student.getDetailedProfile());
             
             // Generate and display transcript using Builder pattern
-            Transcript transcript = transcriptService.generateTranscript(student);
+            Transcript transcript = transcriptService.getTranscript(student);
             System.out.println(transcript.toString());
             
         } catch (Exception e) {
@@ -335,7 +496,7 @@ public class CCRMApp {
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             
             switch (choice) {
                 case 1 -> addCourse();
@@ -351,27 +512,27 @@ public class CCRMApp {
     private void addCourse() {
         try {
             System.out.print("Enter course code (e.g., CS101): ");
-            String code = scanner.nextLine().trim().toUpperCase();
+            String code = readLine().trim().toUpperCase();
             
             if (!ValidationUtils.isValidCourseCode(code)) {
                 throw new InvalidDataException("Invalid course code format. Use format like CS101 or MATH1001");
             }
             
             System.out.print("Enter course title: ");
-            String title = scanner.nextLine().trim();
+            String title = readLine().trim();
             
             System.out.print("Enter credits (1-6): ");
-            int credits = Integer.parseInt(scanner.nextLine());
+            int credits = Integer.parseInt(readLine());
             
             if (!ValidationUtils.isValidCreditRange(credits)) {
                 throw new InvalidDataException("Credits must be between 1 and 6");
             }
             
             System.out.print("Enter instructor name: ");
-            String instructorName = scanner.nextLine().trim();
+            String instructorName = readLine().trim();
             
             System.out.print("Enter department: ");
-            String department = scanner.nextLine().trim();
+            String department = readLine().trim();
             
             // Display semester options using enum values
             System.out.println("Select semester:");
@@ -380,7 +541,7 @@ public class CCRMApp {
                 System.out.printf("%d. %s%n", i + 1, semesters[i]);
             }
             
-            int semChoice = Integer.parseInt(scanner.nextLine()) - 1;
+            int semChoice = Integer.parseInt(readLine()) - 1;
             if (semChoice < 0 || semChoice >= semesters.length) {
                 throw new InvalidDataException("Invalid semester selection");
             }
@@ -435,18 +596,18 @@ public class CCRMApp {
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             List<Course> results;
             
             switch (choice) {
                 case 1 -> {
                     System.out.print("Enter department: ");
-                    String dept = scanner.nextLine().trim();
+                    String dept = readLine().trim();
                     results = courseService.searchByDepartment(dept);
                 }
                 case 2 -> {
                     System.out.print("Enter instructor name: ");
-                    String instructor = scanner.nextLine().trim();
+                    String instructor = readLine().trim();
                     results = courseService.searchByInstructor(instructor);
                 }
                 case 3 -> {
@@ -455,7 +616,7 @@ public class CCRMApp {
                     for (int i = 0; i < semesters.length; i++) {
                         System.out.printf("%d. %s%n", i + 1, semesters[i]);
                     }
-                    int semChoice = Integer.parseInt(scanner.nextLine()) - 1;
+                    int semChoice = Integer.parseInt(readLine()) - 1;
                     results = courseService.searchBySemester(semesters[semChoice]);
                 }
                 default -> {
@@ -484,7 +645,7 @@ public class CCRMApp {
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             
             switch (choice) {
                 case 1 -> enrollStudent();
@@ -499,10 +660,10 @@ public class CCRMApp {
     private void enrollStudent() {
         try {
             System.out.print("Enter student ID: ");
-            String studentId = scanner.nextLine().trim();
+            String studentId = readLine().trim();
             
             System.out.print("Enter course code: ");
-            String courseCode = scanner.nextLine().trim().toUpperCase();
+            String courseCode = readLine().trim().toUpperCase();
             
             Student student = studentService.findStudentById(studentId);
             Course course = courseService.findCourseByCode(courseCode);
@@ -531,7 +692,7 @@ public class CCRMApp {
     
     private void viewStudentEnrollments() {
         System.out.print("Enter student ID: ");
-        String studentId = scanner.nextLine().trim();
+        String studentId = readLine().trim();
         
         try {
             Student student = studentService.findStudentById(studentId);
@@ -574,7 +735,7 @@ public class CCRMApp {
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             
             switch (choice) {
                 case 1 -> recordGrade();
@@ -589,13 +750,13 @@ public class CCRMApp {
     private void recordGrade() {
         try {
             System.out.print("Enter student ID: ");
-            String studentId = scanner.nextLine().trim();
+            String studentId = readLine().trim();
             
             System.out.print("Enter course code: ");
-            String courseCode = scanner.nextLine().trim().toUpperCase();
+            String courseCode = readLine().trim().toUpperCase();
             
             System.out.print("Enter marks (0-100): ");
-            double marks = Double.parseDouble(scanner.nextLine());
+            double marks = Double.parseDouble(readLine());
             
             if (!ValidationUtils.isValidMarks(marks)) {
                 throw new InvalidDataException("Marks must be between 0 and 100");
@@ -618,7 +779,7 @@ public class CCRMApp {
     
     private void viewCourseGrades() {
         System.out.print("Enter course code: ");
-        String courseCode = scanner.nextLine().trim().toUpperCase();
+        String courseCode = readLine().trim().toUpperCase();
         
         try {
             Course course = courseService.findCourseByCode(courseCode);
@@ -673,34 +834,55 @@ public class CCRMApp {
         System.out.println("2. Import Courses from CSV");
         System.out.println("3. Export Students to CSV");
         System.out.println("4. Export Courses to CSV");
+        System.out.println("5. Import Enrollments from CSV");
+        System.out.println("6. Export Enrollments to CSV");
+        System.out.println("7. Show Directory Ingest Status");
+        System.out.println("8. Export Columnar Analytics Files");
+        System.out.println("9. Marks by Course from Analytics Files");
+        System.out.println("10. Show Background Exports");
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             
             switch (choice) {
                 case 1 -> {
                     System.out.print("Enter CSV file path (default: test-data/students.csv): ");
-                    String path = scanner.nextLine().trim();
+                    String path = readLine().trim();
                     if (path.isEmpty()) path = "test-data/students.csv";
-                    fileService.importStudents(path, studentService);
-                    System.out.println(" Students imported successfully!");
+                    ImportReport report = fileService.importStudents(path, studentService, promptImportOptions(true));
+                    System.out.println(" " + report);
                 }
                 case 2 -> {
                     System.out.print("Enter CSV file path (default: test-data/courses.csv): ");
-                    String path = scanner.nextLine().trim();
+                    String path = readLine().trim();
                     if (path.isEmpty()) path = "test-data/courses.csv";
-                    fileService.importCourses(path, courseService);
-                    System.out.println(" Courses imported successfully!");
+                    ImportReport report = fileService.importCourses(path, courseService, promptImportOptions(false));
+                    System.out.println(" " + report);
                 }
-                case 3 -> {
-                    fileService.exportStudents(studentService.getAllStudents(), "exports/students_export.csv");
-                    System.out.println(" Students exported to exports/students_export.csv");
+                case 3 -> startExport(fileService.exportStudentsAsync(studentService.getAllStudents(),
+                    "exports/students_export.csv" + promptGzipExtension()));
+                case 4 -> startExport(fileService.exportCoursesAsync(courseService.getAllCourses(),
+                    "exports/courses_export.csv" + promptGzipExtension()));
+                case 5 -> {
+                    System.out.print("Enter CSV file path (default: test-data/enrollments.csv): ");
+                    String path = readLine().trim();
+                    if (path.isEmpty()) path = "test-data/enrollments.csv";
+                    ImportReport report = fileService.importEnrollments(path, studentService, courseService,
+                        enrollmentService, promptImportOptions(false));
+                    System.out.println(" " + report);
                 }
-                case 4 -> {
-                    fileService.exportCourses(courseService.getAllCourses(), "exports/courses_export.csv");
-                    System.out.println(" Courses exported to exports/courses_export.csv");
+                case 6 -> startExport(fileService.exportEnrollmentsAsync(enrollmentService.getAllEnrollments(),
+                    "exports/enrollments_export.csv" + promptGzipExtension()));
+                case 7 -> System.out.println(ingester != null ? " " + ingester
+                    : " Directory ingest is off (enable with -Dccrm.ingest=true)");
+                case 8 -> {
+                    SnapshotInfo info = fileService.exportColumnar(studentService, courseService,
+                        enrollmentService, AppConfig.getInstance().getAnalyticsPath());
+                    System.out.println(" Exported " + info);
                 }
+                case 9 -> showColumnarMarks();
+                case 10 -> showExports();
                 default -> System.out.println("Invalid choice.");
             }
             
@@ -709,6 +891,98 @@ public class CCRMApp {
         }
     }
     
+    /**
+     * Marks per course, read from the courseCode and marks columns of the analytics export
+     */
+    private void showColumnarMarks() throws IOException {
+        Path file = AppConfig.getInstance().getAnalyticsPath().resolve("enrollments.ccol");
+        if (!Files.exists(file)) {
+            System.out.println(" No analytics export yet (" + file + ")");
+            return;
+        }
+        System.out.print("Course code (blank for all): ");
+        String code = readLine().trim();
+        try (ColumnarReader reader = ColumnarReader.open(file)) {
+            BitSet blocks = code.isEmpty() ? reader.allBlocks() : reader.blocksContaining("courseCode", code);
+            String[] courses = reader.getDictionary("courseCode");
+            int[] courseOf = reader.readCodes("courseCode", blocks);
+            double[] marks = reader.readDoubles("marks", blocks);
+            DoubleSummaryStatistics[] stats = new DoubleSummaryStatistics[courses.length];
+            for (int i = 0; i < courseOf.length; i++) {
+                int course = courseOf[i];
+                if (course < 0 || Double.isNaN(marks[i]) || !code.isEmpty() && !courses[course].equals(code)) {
+                    continue;
+                }
+                if (stats[course] == null) {
+                    stats[course] = new DoubleSummaryStatistics();
+                }
+                stats[course].accept(marks[i]);
+            }
+            
+            System.out.printf("%-10s %6s %8s %8s %8s%n", "Course", "Marked", "Average", "Min", "Max");
+            for (int course = 0; course < courses.length; course++) {
+                if (stats[course] != null) {
+                    System.out.printf("%-10s %6d %8.2f %8.2f %8.2f%n", courses[course], stats[course].getCount(),
+                        stats[course].getAverage(), stats[course].getMin(), stats[course].getMax());
+                }
+            }
+            System.out.printf(" Read %d of %d blocks, %s of %s%n", blocks.cardinality(), reader.getBlockCount(),
+                fileService.formatFileSize(reader.getBytesRead()), fileService.formatFileSize(reader.getFileSize()));
+        }
+    }
+    
+    private void startExport(ExportJob job) {
+        exportJobs.add(job);
+        System.out.println(" Exporting " + job.getTotalRecords() + " " + job.getRecordType() + " to " + job.getFile()
+            + " in the background; you can keep working meanwhile.");
+        job.getFuture().whenComplete((file, failure) -> {
+            if (failure != null) {
+                System.out.println("\n Export failed: " + failure.getMessage());
+            } else {
+                System.out.println("\n " + job);
+            }
+        });
+    }
+    
+    private void showExports() {
+        if (exportJobs.isEmpty()) {
+            System.out.println("No exports started yet.");
+            return;
+        }
+        for (ExportJob job : exportJobs) {
+            System.out.println(" " + job);
+        }
+        exportJobs.removeIf(ExportJob::isDone);
+    }
+    
+    private String promptGzipExtension() {
+        System.out.print("Compress with gzip? (y/N): ");
+        return readLine().trim().equalsIgnoreCase("y") ? CsvWriter.GZIP_EXTENSION : "";
+    }
+    
+    private ImportOptions promptImportOptions(boolean students) {
+        System.out.print("Import mode (1. Streaming [default], 2. Parallel pipeline, 3. Memory-mapped): ");
+        ImportOptions.Mode mode = switch (readLine().trim()) {
+            case "2" -> ImportOptions.Mode.PIPELINE;
+            case "3" -> ImportOptions.Mode.MAPPED;
+            default -> ImportOptions.Mode.STREAMING;
+        };
+        ImportOptions.Builder options = new ImportOptions.Builder().setMode(mode);
+        if (storage.isPersistent()) {
+            // Committed records survive a crash, so a rerun can continue where this one stopped
+            options.setCheckpointDirectory(AppConfig.getInstance().getImportCheckpointPath());
+        }
+        if (students) {
+            System.out.print("Existing students (1. Reject [default], 2. Skip, 3. Update name and email): ");
+            options.setDuplicatePolicy(switch (readLine().trim()) {
+                case "2" -> DuplicatePolicy.SKIP;
+                case "3" -> DuplicatePolicy.UPSERT;
+                default -> DuplicatePolicy.REJECT;
+            });
+        }
+        return options.build();
+    }
+    
     // Reports
     private void handleReports() {
         System.out.println("\n=== REPORTS & ANALYTICS ===");
@@ -716,16 +990,22 @@ public class CCRMApp {
         System.out.println("2. GPA Distribution");
         System.out.println("3. Course Enrollment Statistics");
         System.out.println("4. Department Summary");
+        System.out.println("5. Export Report to File");
+        System.out.println("6. Generate All Transcripts (Department Archives)");
+        System.out.println("7. Transcript Cache Statistics");
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             
             switch (choice) {
                 case 1 -> reportService.showTopStudentsByGPA(studentService.getAllStudents(), enrollmentService);
                 case 2 -> reportService.showGPADistribution(studentService.getAllStudents(), enrollmentService);
                 case 3 -> reportService.showCourseEnrollmentStats(courseService.getAllCourses(), enrollmentService);
                 case 4 -> reportService.showDepartmentSummary(courseService.getAllCourses());
+                case 5 -> exportReport();
+                case 6 -> generateAllTranscripts();
+                case 7 -> System.out.println(transcriptService.getCache());
                 default -> System.out.println("Invalid choice.");
             }
             
@@ -734,27 +1014,86 @@ public class CCRMApp {
         }
     }
     
+    private void generateAllTranscripts() throws Exception {
+        Map<String, Path> archives = transcriptService.generateAll(
+            studentService.getAllStudents(),
+            progress -> System.out.println("  " + progress));
+        
+        System.out.println(" Transcripts generated:");
+        archives.forEach((department, path) -> System.out.println("  " + department + " -> " + path));
+    }
+    
+    private void exportReport() throws Exception {
+        System.out.println("Select report:");
+        System.out.println("1. Top Students by GPA");
+        System.out.println("2. GPA Distribution");
+        System.out.println("3. Course Enrollment Statistics");
+        System.out.println("4. Department Summary");
+        int reportChoice = Integer.parseInt(readLine());
+        
+        String[] reportNames = {"top_students", "gpa_distribution", "course_enrollments", "department_summary"};
+        if (reportChoice < 1 || reportChoice > reportNames.length) {
+            System.out.println("Invalid choice.");
+            return;
+        }
+        
+        System.out.println("Select format:");
+        ReportFormat[] formats = {ReportFormat.CSV, ReportFormat.JSON_LINES, ReportFormat.TEXT};
+        for (int i = 0; i < formats.length; i++) {
+            System.out.printf("%d. %s%n", i + 1, formats[i]);
+        }
+        int formatChoice = Integer.parseInt(readLine()) - 1;
+        if (formatChoice < 0 || formatChoice >= formats.length) {
+            System.out.println("Invalid format selection.");
+            return;
+        }
+        
+        Path target = ReportSinks.exportFileFor(formats[formatChoice], reportNames[reportChoice - 1]);
+        try (ReportSink sink = ReportSinks.open(formats[formatChoice], target)) {
+            switch (reportChoice) {
+                case 1 -> reportService.writeTopStudentsByGPA(studentService.getAllStudents(), enrollmentService, sink);
+                case 2 -> reportService.writeGPADistribution(studentService.getAllStudents(), enrollmentService, sink);
+                case 3 -> reportService.writeCourseEnrollmentStats(courseService.getAllCourses(), enrollmentService, sink);
+                default -> reportService.writeDepartmentSummary(courseService.getAllCourses(), sink);
+            }
+        }
+        System.out.println(" Report exported to " + target);
+    }
+    
     // Backup Operations
     private void handleBackupOperations() {
         System.out.println("\n=== BACKUP OPERATIONS ===");
         System.out.println("1. Create Backup");
-        System.out.println("2. Show Backup Directory Size (Recursive)");
+        System.out.println("2. Show Backup Directory Size (Logical vs Physical)");
         System.out.println("3. List Backup Files");
+        System.out.println("4. Save Snapshot Now");
+        System.out.println("5. Create Full Backup");
+        System.out.println("6. Compact Latest Backup Chain");
+        System.out.println("7. Restore Backup");
+        System.out.println("8. Prune Old Backups");
+        System.out.println("9. Show Backup Progress");
         System.out.print("Enter choice: ");
         
         try {
-            int choice = Integer.parseInt(scanner.nextLine());
+            int choice = Integer.parseInt(readLine());
             
             switch (choice) {
-                case 1 -> {
-                    fileService.createBackup(studentService, courseService, enrollmentService);
-                    System.out.println(" Backup created successfully!");
-                }
+                case 1 -> startBackup(fileService.startBackup(studentService, courseService, enrollmentService));
                 case 2 -> {
-                    long size = fileService.calculateBackupDirectorySize();
-                    System.out.println("Total backup directory size: " + fileService.formatFileSize(size));
+                    BackupUsage usage = fileService.calculateBackupDirectorySize();
+                    System.out.println("Backups: " + usage.getBackups());
+                    System.out.println("Logical size: " + fileService.formatFileSize(usage.getLogicalBytes()));
+                    System.out.println("Physical size: " + fileService.formatFileSize(usage.getPhysicalBytes())
+                        + String.format(" (%.1fx deduplication, %d chunks)",
+                            usage.getDeduplicationRatio(), usage.getChunkCount()));
                 }
                 case 3 -> fileService.listBackupFiles();
+                case 4 -> saveSnapshot();
+                case 5 -> startBackup(fileService.startFullBackup(studentService, courseService, enrollmentService));
+                case 6 -> System.out.println(" Compacted: " + fileService.compactBackups());
+                case 7 -> restoreBackup();
+                case 8 -> pruneBackups();
+                case 9 -> System.out.println(lastBackupJob != null ? lastBackupJob : "No backup started yet.");
                 default -> System.out.println("Invalid choice.");
             }
             
@@ -762,4 +1101,51 @@ public class CCRMApp {
             System.out.println(" Backup operation failed: " + e.getMessage());
         }
     }
+    
+    private void startBackup(BackupJob job) {
+        lastBackupJob = job;
+        System.out.println(" Backup started from the state at " + job.getSnapshotTime()
+            + "; you can keep working while it is written.");
+        job.getFuture().whenComplete((manifest, failure) -> {
+            if (failure != null) {
+                System.out.println("\n Backup failed: " + failure.getMessage());
+            } else {
+                System.out.println("\n Backup created successfully! " + manifest);
+            }
+        });
+    }
+    
+    private void pruneBackups() throws IOException {
+        System.out.println("Retention policy: " + fileService.getRetentionPolicy());
+        List<BackupManifest> removed = fileService.pruneBackups();
+        for (BackupManifest backup : removed) {
+            System.out.println("  Deleted " + backup);
+        }
+        System.out.println(" Pruned " + removed.size() + " backups; "
+            + fileService.formatFileSize(fileService.calculateBackupDirectorySize().getPhysicalBytes()) + " on disk");
+    }
+    
+    private void restoreBackup() throws IOException, BackupRestoreException {
+        List<BackupManifest> backups = fileService.listBackups();
+        if (backups.isEmpty()) {
+            System.out.println("No backups found.");
+            return;
+        }
+        System.out.println("\nAvailable backups:");
+        for (BackupManifest backup : backups) {
+            System.out.println("  " + backup);
+        }
+        String latest = backups.get(backups.size() - 1).getName();
+        System.out.print("Backup to restore [" + latest + "]: ");
+        String name = readLine().trim();
+        
+        System.out.print("This replaces all current data. Continue? (y/N): ");
+        if (!readLine().trim().equalsIgnoreCase("y")) {
+            System.out.println("Restore cancelled.");
+            return;
+        }
+        SnapshotInfo info = fileService.restoreBackup(Path.of(name.isEmpty() ? latest : name),
+            studentService, courseService, enrollmentService);
+        System.out.println(" Restored " + info);
+    }
 }
\ No newline at end of file
@@ -14,12 +14,47 @@ public class AppConfig {
     private final String exportDirectory;
     private final String backupDirectory;
     private final int maxCreditsPerSemester;
+    private final int transcriptCacheSize;
+    private final int importBatchSize;
+    private final String snapshotFile;
+    private final int fullBackupInterval;
+    private final int backupKeepDaily;
+    private final int backupKeepWeekly;
+    private final long backupSizeCap;
+    private final String storeFile;
+    private final int pageCacheSize;
+    private final StorageBackend storageBackend;
+    private final String jdbcUrl;
+    private final int jdbcPoolSize;
+    private final boolean ingestEnabled;
+    private final long ingestDebounceMillis;
+    private final String ingestOffsetsFile;
+    private final String importCheckpointDirectory;
+    private final String analyticsDirectory;
     
     private AppConfig() {
         this.dataDirectory = "test-data";
         this.exportDirectory = "exports";
         this.backupDirectory = "backups";
         this.maxCreditsPerSemester = 24;
+        this.transcriptCacheSize = 1000;
+        this.importBatchSize = 1000;
+        this.snapshotFile = "ccrm.snapshot";
+        this.fullBackupInterval = 7;
+        this.backupKeepDaily = 7;
+        this.backupKeepWeekly = 4;
+        this.backupSizeCap = 0; // Bytes; 0 means no cap
+        this.storeFile = "ccrm.db";
+        this.pageCacheSize = 2048; // 4KB pages, so 8MB
+        // Chosen per deployment, e.g. java -Dccrm.storage=jdbc -cp bin:lib/h2.jar ...
+        this.storageBackend = parseStorageBackend(System.getProperty("ccrm.storage", "memory"));
+        this.jdbcUrl = System.getProperty("ccrm.jdbc.url", "jdbc:h2:./" + dataDirectory + "/ccrm");
+        this.jdbcPoolSize = 4;
+        this.ingestEnabled = Boolean.parseBoolean(System.getProperty("ccrm.ingest", "true"));
+        this.ingestDebounceMillis = 500; // Quiet time after the last change before a file is read
+        this.ingestOffsetsFile = ".ingest-offsets";
+        this.importCheckpointDirectory = "import-checkpoints";
+        this.analyticsDirectory = "analytics";
         
         // Create directories if they don't exist
         createDirectories();
@@ -36,6 +71,15 @@ public class AppConfig {
         return instance;
     }
     
+    private static StorageBackend parseStorageBackend(String name) {
+        try {
+            return StorageBackend.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown storage backend '" + name + "', using memory");
+            return StorageBackend.MEMORY;
+        }
+    }
+    
     private void createDirectories() {
         try {
             java.nio.file.Files.createDirectories(Paths.get(dataDirectory));
@@ -51,7 +95,26 @@ public class AppConfig {
     public String getExportDirectory() { return exportDirectory; }
     public String getBackupDirectory() { return backupDirectory; }
     public int getMaxCreditsPerSemester() { return maxCreditsPerSemester; }
+    public int getTranscriptCacheSize() { return transcriptCacheSize; }
+    public int getImportBatchSize() { return importBatchSize; }
+    public String getSnapshotFile() { return snapshotFile; }
+    public int getFullBackupInterval() { return fullBackupInterval; }
+    public int getBackupKeepDaily() { return backupKeepDaily; }
+    public int getBackupKeepWeekly() { return backupKeepWeekly; }
+    public long getBackupSizeCap() { return backupSizeCap; }
+    public String getStoreFile() { return storeFile; }
+    public int getPageCacheSize() { return pageCacheSize; }
+    public StorageBackend getStorageBackend() { return storageBackend; }
+    public String getJdbcUrl() { return jdbcUrl; }
+    public int getJdbcPoolSize() { return jdbcPoolSize; }
+    public boolean isIngestEnabled() { return ingestEnabled; }
+    public long getIngestDebounceMillis() { return ingestDebounceMillis; }
     public Path getDataPath() { return Paths.get(dataDirectory); }
     public Path getExportPath() { return Paths.get(exportDirectory); }
     public Path getBackupPath() { return Paths.get(backupDirectory); }
+    public Path getSnapshotPath() { return Paths.get(dataDirectory, snapshotFile); }
+    public Path getStorePath() { return Paths.get(dataDirectory, storeFile); }
+    public Path getIngestOffsetsPath() { return Paths.get(dataDirectory, ingestOffsetsFile); }
+    public Path getImportCheckpointPath() { return Paths.get(dataDirectory, importCheckpointDirectory); }
+    public Path getAnalyticsPath() { return Paths.get(exportDirectory, analyticsDirectory); }
 }
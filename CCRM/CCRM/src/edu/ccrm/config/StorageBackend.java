@@ -0,0 +1,25 @@
+package edu.ccrm.config;
+
+/**
+ * Where the services keep their records
+ */
+public enum StorageBackend {
+    MEMORY("In-memory collections"),
+    PAGED("Disk-backed B+tree page store"),
+    JDBC("Embedded database over JDBC");
+    
+    private final String description;
+    
+    StorageBackend(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() { return description; }
+    
+    /**
+     * Whether records outlive the process without a snapshot
+     */
+    public boolean isPersistent() {
+        return this != MEMORY;
+    }
+}
@@ -0,0 +1,43 @@
+package edu.ccrm.domain;
+
+import java.util.Locale;
+
+/**
+ * Immutable class rank of a student within their department and overall
+ */
+public class ClassStanding {
+    private final String department;
+    private final int departmentRank;
+    private final int departmentSize;
+    private final int overallRank;
+    private final int overallSize;
+    private final double percentile;
+    
+    public ClassStanding(String department, int departmentRank, int departmentSize,
+                         int overallRank, int overallSize, double percentile) {
+        this.department = department;
+        this.departmentRank = departmentRank;
+        this.departmentSize = departmentSize;
+        this.overallRank = overallRank;
+        this.overallSize = overallSize;
+        this.percentile = percentile;
+    }
+    
+    // Getters
+    public String getDepartment() { return department; }
+    public int getDepartmentRank() { return departmentRank; }
+    public int getDepartmentSize() { return departmentSize; }
+    public int getOverallRank() { return overallRank; }
+    public int getOverallSize() { return overallSize; }
+    
+    /**
+     * Overall percentile rank: share of students below plus half of those tied
+     */
+    public double getPercentile() { return percentile; }
+    
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%d of %d in %s, %d of %d overall (Percentile: %.2f)",
+            departmentRank, departmentSize, department, overallRank, overallSize, percentile);
+    }
+}
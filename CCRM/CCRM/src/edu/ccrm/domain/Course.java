@@ -23,8 +23,8 @@ public class Course {
         this.instructor = builder.instructor;
         this.department = builder.department;
         this.semester = builder.semester;
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
+        this.createdAt = builder.createdAt != null ? builder.createdAt : LocalDateTime.now();
+        this.updatedAt = builder.updatedAt != null ? builder.updatedAt : LocalDateTime.now();
     }
     
     // Getters
@@ -95,6 +95,8 @@ public class Course {
         private Instructor instructor;
         private String department;
         private Semester semester;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
         
         public Builder setCode(String code) {
             this.code = code;
@@ -126,6 +128,15 @@ public class Course {
             return this;
         }
         
+        /**
+         * Keep original timestamps when restoring a saved course
+         */
+        public Builder setTimestamps(LocalDateTime createdAt, LocalDateTime updatedAt) {
+            this.createdAt = createdAt;
+            this.updatedAt = updatedAt;
+            return this;
+        }
+        
         public Course build() {
             // Validation
             if (code == null || code.trim().isEmpty()) {
@@ -12,12 +12,33 @@ public class Enrollment {
     private final LocalDateTime enrollmentDate;
     private Grade grade;
     private Double marks;
+    private LocalDateTime updatedAt;
     
     public Enrollment(String studentId, String courseCode) {
         this.enrollmentId = generateEnrollmentId(studentId, courseCode);
         this.studentId = studentId;
         this.courseCode = courseCode;
         this.enrollmentDate = LocalDateTime.now();
+        this.updatedAt = enrollmentDate;
+    }
+    
+    /**
+     * Restore a saved enrollment with its original ID, date and grade
+     */
+    public Enrollment(String enrollmentId, String studentId, String courseCode, LocalDateTime enrollmentDate,
+                      Grade grade, Double marks) {
+        this(enrollmentId, studentId, courseCode, enrollmentDate, grade, marks, enrollmentDate);
+    }
+    
+    public Enrollment(String enrollmentId, String studentId, String courseCode, LocalDateTime enrollmentDate,
+                      Grade grade, Double marks, LocalDateTime updatedAt) {
+        this.enrollmentId = enrollmentId;
+        this.studentId = studentId;
+        this.courseCode = courseCode;
+        this.enrollmentDate = enrollmentDate;
+        this.grade = grade;
+        this.marks = marks;
+        this.updatedAt = updatedAt;
     }
     
     private String generateEnrollmentId(String studentId, String courseCode) {
@@ -31,11 +52,13 @@ public class Enrollment {
     public LocalDateTime getEnrollmentDate() { return enrollmentDate; }
     public Grade getGrade() { return grade; }
     public Double getMarks() { return marks; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
     
     // Setters for grade and marks
     public void setGrade(Grade grade, Double marks) {
         this.grade = grade;
         this.marks = marks;
+        this.updatedAt = LocalDateTime.now();
     }
     
     @Override
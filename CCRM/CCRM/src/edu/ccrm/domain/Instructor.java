@@ -1,5 +1,6 @@
 package edu.ccrm.domain;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +21,16 @@ public class Instructor extends Person {
         this.department = department;
     }
     
+    /**
+     * Restore a saved instructor with its timestamps and assigned courses
+     */
+    public Instructor(String id, String regNo, String fullName, String email, String department,
+                      LocalDateTime createdAt, LocalDateTime updatedAt, List<String> assignedCourseIds) {
+        super(id, regNo, fullName, email, createdAt, updatedAt);
+        this.department = department;
+        this.assignedCourseIds = new ArrayList<>(assignedCourseIds);
+    }
+    
     // Getters and Setters
     public String getDepartment() { return department; }
     public void setDepartment(String department) { this.department = department; }
@@ -22,6 +22,19 @@ public abstract class Person {
         this.updatedAt = LocalDateTime.now();
     }
     
+    /**
+     * Restore a person with its original timestamps (snapshots, backups)
+     */
+    protected Person(String id, String regNo, String fullName, String email,
+                     LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.regNo = regNo;
+        this.fullName = fullName;
+        this.email = email;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+    
     // Getters
     public String getId() { return id; }
     public String getRegNo() { return regNo; }
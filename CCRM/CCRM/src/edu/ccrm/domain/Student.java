@@ -1,6 +1,7 @@
 package edu.ccrm.domain;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,9 +25,24 @@ public class Student extends Person {
         this.enrolledCourseIds = new ArrayList<>();
     }
     
+    /**
+     * Restore a saved student with its status, dates and enrolled courses
+     */
+    public Student(String id, String regNo, String fullName, String email, StudentStatus status,
+                   LocalDate enrollmentDate, LocalDateTime createdAt, LocalDateTime updatedAt,
+                   List<String> enrolledCourseIds) {
+        super(id, regNo, fullName, email, createdAt, updatedAt);
+        this.status = status;
+        this.enrollmentDate = enrollmentDate;
+        this.enrolledCourseIds = new ArrayList<>(enrolledCourseIds);
+    }
+    
     // Getters and Setters
     public StudentStatus getStatus() { return status; }
-    public void setStatus(StudentStatus status) { this.status = status; }
+    public void setStatus(StudentStatus status) {
+        this.status = status;
+        this.updatedAt = LocalDateTime.now();
+    }
     public LocalDate getEnrollmentDate() { return enrollmentDate; }
     public List<String> getEnrolledCourseIds() { return new ArrayList<>(enrolledCourseIds); }
     
@@ -1,25 +1,42 @@
 package edu.ccrm.domain;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Transcript class with Builder pattern
  */
 public class Transcript {
+    public static final String UNDECLARED_DEPARTMENT = "Undeclared";
+    
     private final Student student;
     private final List<TranscriptEntry> entries;
     private final LocalDateTime generatedAt;
     private final double overallGPA;
     private final int totalCredits;
+    private final ClassStanding standing;
     
     private Transcript(Builder builder) {
         this.student = builder.student;
         this.entries = new ArrayList<>(builder.entries);
         this.generatedAt = LocalDateTime.now();
-        this.overallGPA = builder.calculateGPA();
+        this.overallGPA = calculateGPA(entries);
         this.totalCredits = builder.calculateTotalCredits();
+        this.standing = builder.standing;
+    }
+    
+    // Copy sharing the (immutable) entries of another transcript
+    private Transcript(Transcript source, ClassStanding standing) {
+        this.student = source.student;
+        this.entries = source.entries;
+        this.generatedAt = source.generatedAt;
+        this.overallGPA = source.overallGPA;
+        this.totalCredits = source.totalCredits;
+        this.standing = standing;
     }
     
     // Getters
@@ -28,6 +45,78 @@ public class Transcript {
     public LocalDateTime getGeneratedAt() { return generatedAt; }
     public double getOverallGPA() { return overallGPA; }
     public int getTotalCredits() { return totalCredits; }
+    public ClassStanding getStanding() { return standing; }
+    
+    /**
+     * Same transcript with the given class standing attached (null removes it)
+     */
+    public Transcript withStanding(ClassStanding standing) {
+        return standing == this.standing ? this : new Transcript(this, standing);
+    }
+    
+    /**
+     * Department the student takes the most credits in
+     */
+    public String getPrimaryDepartment() {
+        return primaryDepartment(entries);
+    }
+    
+    /**
+     * Whether any entry carries a grade
+     */
+    public boolean hasGrades() {
+        return hasGrades(entries);
+    }
+    
+    /**
+     * Credit-weighted GPA over graded entries
+     */
+    public static double calculateGPA(List<TranscriptEntry> entries) {
+        double totalGradePoints = 0.0;
+        int totalCredits = 0;
+        
+        for (TranscriptEntry entry : entries) {
+            if (entry.getGrade() != null) {
+                totalGradePoints += entry.getGrade().getGradePoints() * entry.getCredits();
+                totalCredits += entry.getCredits();
+            }
+        }
+        
+        return totalCredits > 0 ? totalGradePoints / totalCredits : 0.0;
+    }
+    
+    public static boolean hasGrades(List<TranscriptEntry> entries) {
+        for (TranscriptEntry entry : entries) {
+            if (entry.getGrade() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Department with the most credits among the entries
+     * Ties go to the alphabetically first department; "Undeclared" when unknown
+     */
+    public static String primaryDepartment(List<TranscriptEntry> entries) {
+        Map<String, Integer> creditsByDepartment = new HashMap<>();
+        for (TranscriptEntry entry : entries) {
+            if (entry.getDepartment() != null) {
+                creditsByDepartment.merge(entry.getDepartment(), entry.getCredits(), Integer::sum);
+            }
+        }
+        
+        String primary = null;
+        int bestCredits = -1;
+        for (Map.Entry<String, Integer> entry : creditsByDepartment.entrySet()) {
+            int credits = entry.getValue();
+            if (credits > bestCredits || (credits == bestCredits && entry.getKey().compareTo(primary) < 0)) {
+                primary = entry.getKey();
+                bestCredits = credits;
+            }
+        }
+        return primary != null ? primary : UNDECLARED_DEPARTMENT;
+    }
     
     @Override
     public String toString() {
@@ -36,8 +125,12 @@ public class Transcript {
         sb.append("Student: ").append(student.getFullName()).append("\n");
         sb.append("Registration No: ").append(student.getRegNo()).append("\n");
         sb.append("Generated: ").append(generatedAt).append("\n");
-        sb.append("Overall GPA: ").append(String.format("%.2f", overallGPA)).append("\n");
-        sb.append("Total Credits: ").append(totalCredits).append("\n\n");
+        sb.append("Overall GPA: ").append(String.format(Locale.ROOT, "%.2f", overallGPA)).append("\n");
+        sb.append("Total Credits: ").append(totalCredits).append("\n");
+        if (standing != null) {
+            sb.append("Class Rank: ").append(standing).append("\n");
+        }
+        sb.append("\n");
         
         sb.append("Course Details:\n");
         sb.append("================\n");
@@ -52,6 +145,7 @@ public class Transcript {
     public static class Builder {
         private Student student;
         private List<TranscriptEntry> entries = new ArrayList<>();
+        private ClassStanding standing;
         
         public Builder setStudent(Student student) {
             this.student = student;
@@ -68,20 +162,9 @@ public class Transcript {
             return this;
         }
         
-        private double calculateGPA() {
-            if (entries.isEmpty()) return 0.0;
-            
-            double totalGradePoints = 0.0;
-            int totalCredits = 0;
-            
-            for (TranscriptEntry entry : entries) {
-                if (entry.getGrade() != null) {
-                    totalGradePoints += entry.getGrade().getGradePoints() * entry.getCredits();
-                    totalCredits += entry.getCredits();
-                }
-            }
-            
-            return totalCredits > 0 ? totalGradePoints / totalCredits : 0.0;
+        public Builder setStanding(ClassStanding standing) {
+            this.standing = standing;
+            return this;
         }
         
         private int calculateTotalCredits() {
@@ -103,13 +186,20 @@ public class Transcript {
         private final int credits;
         private final Grade grade;
         private final Double marks;
+        private final String department;
         
         public TranscriptEntry(String courseCode, String courseTitle, int credits, Grade grade, Double marks) {
+            this(courseCode, courseTitle, credits, grade, marks, null);
+        }
+        
+        public TranscriptEntry(String courseCode, String courseTitle, int credits, Grade grade, Double marks,
+                               String department) {
             this.courseCode = courseCode;
             this.courseTitle = courseTitle;
             this.credits = credits;
             this.grade = grade;
             this.marks = marks;
+            this.department = department;
         }
         
         // Getters
@@ -118,13 +208,14 @@ public class Transcript {
         public int getCredits() { return credits; }
         public Grade getGrade() { return grade; }
         public Double getMarks() { return marks; }
+        public String getDepartment() { return department; }
         
         @Override
         public String toString() {
             String gradeInfo = grade != null ? 
-                String.format("%s (%.2f) - %.1f points", grade.name(), marks, grade.getGradePoints()) 
+                String.format(Locale.ROOT, "%s (%.2f) - %.1f points", grade.name(), marks, grade.getGradePoints()) 
                 : "Not Graded";
-            return String.format("%-10s | %-30s | %d credits | %s", 
+            return String.format(Locale.ROOT, "%-10s | %-30s | %d credits | %s", 
                 courseCode, courseTitle, credits, gradeInfo);
         }
     }
@@ -0,0 +1,36 @@
+package edu.ccrm.exceptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thrown when a backup cannot be restored because its records are invalid
+ * or inconsistent (e.g. enrollments referring to missing students)
+ */
+public class BackupRestoreException extends CCRMException {
+    private static final int MAX_LISTED = 10;
+    
+    private final List<String> problems;
+    
+    public BackupRestoreException(String backupName, List<String> problems) {
+        super(describe(backupName, problems));
+        this.problems = new ArrayList<>(problems);
+    }
+    
+    public List<String> getProblems() {
+        return new ArrayList<>(problems);
+    }
+    
+    private static String describe(String backupName, List<String> problems) {
+        StringBuilder message = new StringBuilder();
+        message.append("Backup ").append(backupName).append(" failed verification with ")
+            .append(problems.size()).append(problems.size() == 1 ? " problem" : " problems");
+        for (int i = 0; i < Math.min(MAX_LISTED, problems.size()); i++) {
+            message.append("\n  ").append(problems.get(i));
+        }
+        if (problems.size() > MAX_LISTED) {
+            message.append("\n  ... ").append(problems.size() - MAX_LISTED).append(" more");
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,11 @@
+package edu.ccrm.exceptions;
+
+/**
+ * A record that the storage backend cannot hold, such as one larger than a page
+ * Services turn it into InvalidDataException for the record being added.
+ */
+public class RecordTooLargeException extends RepositoryException {
+    public RecordTooLargeException(String message) {
+        super(message, null);
+    }
+}
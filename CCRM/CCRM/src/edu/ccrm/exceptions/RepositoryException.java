@@ -0,0 +1,12 @@
+package edu.ccrm.exceptions;
+
+/**
+ * Failure of a storage backend behind a repository
+ * Unchecked, as the services call repositories from methods that cannot fail
+ * with in-memory storage; the cause is the SQLException or IOException.
+ */
+public class RepositoryException extends RuntimeException {
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
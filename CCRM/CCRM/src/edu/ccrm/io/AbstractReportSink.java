@@ -0,0 +1,102 @@
+package edu.ccrm.io;
+
+import edu.ccrm.util.FormatUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Base class for report sinks writing text through a buffered Writer
+ * Each row is assembled in one reusable StringBuilder and written in a single call
+ */
+public abstract class AbstractReportSink implements ReportSink {
+    protected final Writer writer;
+    protected final StringBuilder row = new StringBuilder(256);
+    protected Column[] columns = new Column[0];
+    protected int cellIndex;
+    
+    protected AbstractReportSink(Writer writer) {
+        this.writer = writer;
+    }
+    
+    @Override
+    public void beginReport(String title, Column... columns) throws IOException {
+        this.columns = columns;
+        this.cellIndex = 0;
+        row.setLength(0);
+        writeHeader(title);
+    }
+    
+    @Override
+    public void cell(String value) throws IOException {
+        appendText(value != null ? value : "");
+        cellIndex++;
+    }
+    
+    @Override
+    public void cell(long value) throws IOException {
+        int start = row.length();
+        beforeCell();
+        row.append(value);
+        afterNumber(start);
+        cellIndex++;
+    }
+    
+    @Override
+    public void cell(double value, int decimals) throws IOException {
+        int start = row.length();
+        beforeCell();
+        FormatUtils.appendFixed(row, value, decimals);
+        afterNumber(start);
+        cellIndex++;
+    }
+    
+    @Override
+    public void endRow() throws IOException {
+        finishRow();
+        row.append('\n');
+        writer.append(row);
+        row.setLength(0);
+        cellIndex = 0;
+    }
+    
+    @Override
+    public void endReport() throws IOException {
+        writer.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+    
+    protected int columnWidth() {
+        return cellIndex < columns.length ? columns[cellIndex].getWidth() : 0;
+    }
+    
+    /**
+     * Write the report preamble (header row, title line)
+     */
+    protected abstract void writeHeader(String title) throws IOException;
+    
+    /**
+     * Append a text cell including any separator, quoting or padding
+     */
+    protected abstract void appendText(String value);
+    
+    /**
+     * Append the separator that precedes a numeric cell
+     */
+    protected abstract void beforeCell();
+    
+    /**
+     * Post-process a numeric cell that starts at the given row offset
+     */
+    protected abstract void afterNumber(int start);
+    
+    /**
+     * Append anything that closes the row (before the newline)
+     */
+    protected void finishRow() {
+    }
+}
@@ -0,0 +1,163 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongConsumer;
+
+/**
+ * Output stream that writes a file through an AsynchronousFileChannel with two buffers
+ *
+ * Bytes are copied into one buffer while the other is being written, so the caller
+ * keeps encoding while the disk write is in flight. At most one write is pending;
+ * write() only waits when the caller fills its buffer before that write has finished.
+ * Not thread-safe.
+ */
+final class AsyncFileOutput extends OutputStream {
+    static final int BUFFER_SIZE = 256 * 1024;
+    
+    private final AsynchronousFileChannel channel;
+    private final LongConsumer onWritten;
+    private ByteBuffer filling = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+    private long position;
+    private boolean closed;
+    
+    private AsyncFileOutput(AsynchronousFileChannel channel, LongConsumer onWritten) {
+        this.channel = channel;
+        this.onWritten = onWritten;
+    }
+    
+    /**
+     * Create or truncate the file, creating parent directories
+     * @param onWritten Told the size of each write once it has completed (on a channel thread)
+     */
+    static AsyncFileOutput open(Path file, LongConsumer onWritten) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        return new AsyncFileOutput(AsynchronousFileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), onWritten);
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (!filling.hasRemaining()) {
+            submit();
+        }
+        filling.put((byte) b);
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (!filling.hasRemaining()) {
+                submit();
+            }
+            int length = Math.min(len, filling.remaining());
+            filling.put(b, off, length);
+            off += length;
+            len -= length;
+        }
+    }
+    
+    /**
+     * Start writing what is buffered; does not wait for it
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (filling.position() > 0) {
+            submit();
+        }
+    }
+    
+    /**
+     * Write what is buffered and wait for every write to complete
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (filling.position() > 0) {
+                submit();
+            }
+            await(pending);
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+    
+    /**
+     * Wait for the buffer being written, then swap buffers and start writing the full one
+     */
+    private void submit() throws IOException {
+        await(pending);
+        ByteBuffer full = filling;
+        filling = writing;
+        writing = full;
+        filling.clear();
+        writing.flip();
+        long length = writing.remaining();
+        pending = writeFully(channel, writing, position).thenRun(() -> onWritten.accept(length));
+        position += length;
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+    
+    /**
+     * Write all of the buffer at the position, issuing further writes after a partial one
+     */
+    static CompletableFuture<Void> writeFully(AsynchronousFileChannel channel, ByteBuffer buffer, long position) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        channel.write(buffer, position, position, new CompletionHandler<Integer, Long>() {
+            @Override
+            public void completed(Integer written, Long at) {
+                if (buffer.hasRemaining()) {
+                    channel.write(buffer, at + written, at + written, this);
+                } else {
+                    done.complete(null);
+                }
+            }
+            
+            @Override
+            public void failed(Throwable failure, Long at) {
+                done.completeExceptionally(failure);
+            }
+        });
+        return done;
+    }
+    
+    /**
+     * Wait for an asynchronous write, rethrowing its IOException
+     */
+    static void await(CompletableFuture<?> write) throws IOException {
+        try {
+            write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a write");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException("Write failed: " + cause, cause);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * B+tree of byte-string keys and values stored in PageCache pages
+ *
+ * Page layout: byte type (leaf or internal), short entry count, int link, then the
+ * entries. A leaf entry is short key length, key, short value length, value, and its
+ * link is the next leaf; an internal entry is short key length, key, int child, and
+ * its link is the child for keys below the first key. Keys are compared as unsigned
+ * bytes. Nodes are decoded into copies, changed and encoded back, so a page never
+ * has to be parsed in place. Deleting only removes the entry; the space is reused
+ * by later inserts into the same leaf, and pages are not merged.
+ */
+final class BPlusTree {
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int NODE_HEADER = 1 + Short.BYTES + Integer.BYTES;
+    private static final int CAPACITY = PageFile.PAGE_SIZE - NODE_HEADER;
+    
+    /**
+     * Largest key, so internal pages always hold many separators
+     */
+    static final int MAX_KEY = 255;
+    
+    /**
+     * Largest leaf entry (key, value and their lengths); at most a third of a page
+     * so that splitting an overfull page always yields two pages that fit
+     */
+    static final int MAX_ENTRY = CAPACITY / 3;
+    
+    private final PageCache cache;
+    private final PageAllocator allocator;
+    private int root;
+    private long size;
+    
+    /**
+     * Hands out pages that were never used before
+     */
+    @FunctionalInterface
+    interface PageAllocator {
+        int allocate() throws IOException;
+    }
+    
+    /**
+     * Receives entries in key order; returning false stops the scan
+     */
+    @FunctionalInterface
+    interface EntryVisitor {
+        boolean visit(byte[] key, byte[] value) throws IOException;
+    }
+    
+    private BPlusTree(PageCache cache, PageAllocator allocator, int root, long size) {
+        this.cache = cache;
+        this.allocator = allocator;
+        this.root = root;
+        this.size = size;
+    }
+    
+    /**
+     * Create an empty tree with a single leaf as its root
+     */
+    static BPlusTree create(PageCache cache, PageAllocator allocator) throws IOException {
+        int root = allocator.allocate();
+        new Node(true).write(cache, root);
+        return new BPlusTree(cache, allocator, root, 0);
+    }
+    
+    static BPlusTree open(PageCache cache, PageAllocator allocator, int root, long size) {
+        return new BPlusTree(cache, allocator, root, size);
+    }
+    
+    // Getters
+    int getRoot() { return root; }
+    long size() { return size; }
+    
+    byte[] get(byte[] key) throws IOException {
+        Node node = Node.read(cache, root);
+        while (!node.leaf) {
+            node = Node.read(cache, node.childFor(key));
+        }
+        int index = node.search(key);
+        return index >= 0 ? node.values.get(index) : null;
+    }
+    
+    /**
+     * Insert or replace an entry
+     * @return true if the key was not present before
+     */
+    boolean put(byte[] key, byte[] value) throws IOException {
+        if (!fits(key, value)) {
+            throw new IllegalArgumentException("Entry too large for a page: key " + key.length
+                + " bytes, value " + value.length + " bytes");
+        }
+        boolean[] inserted = new boolean[1];
+        Split split = insert(root, key, value, inserted);
+        if (split != null) {
+            Node newRoot = new Node(false);
+            newRoot.link = root;
+            newRoot.keys.add(split.key);
+            newRoot.children.add(split.page);
+            root = allocator.allocate();
+            newRoot.write(cache, root);
+        }
+        if (inserted[0]) {
+            size++;
+        }
+        return inserted[0];
+    }
+    
+    /**
+     * @return true if the key was present
+     */
+    boolean delete(byte[] key) throws IOException {
+        int page = root;
+        Node node = Node.read(cache, page);
+        while (!node.leaf) {
+            page = node.childFor(key);
+            node = Node.read(cache, page);
+        }
+        int index = node.search(key);
+        if (index < 0) {
+            return false;
+        }
+        node.keys.remove(index);
+        node.values.remove(index);
+        node.write(cache, page);
+        size--;
+        return true;
+    }
+    
+    /**
+     * Visit entries in key order, starting at the first key not below the given one
+     * The tree must not be changed during the scan.
+     */
+    void scan(byte[] from, EntryVisitor visitor) throws IOException {
+        Node node = Node.read(cache, root);
+        while (!node.leaf) {
+            node = Node.read(cache, node.childFor(from));
+        }
+        int index = node.search(from);
+        index = index >= 0 ? index : -index - 1;
+        while (true) {
+            for (; index < node.keys.size(); index++) {
+                if (!visitor.visit(node.keys.get(index), node.values.get(index))) {
+                    return;
+                }
+            }
+            if (node.link < 0) {
+                return;
+            }
+            node = Node.read(cache, node.link);
+            index = 0;
+        }
+    }
+    
+    private Split insert(int page, byte[] key, byte[] value, boolean[] inserted) throws IOException {
+        Node node = Node.read(cache, page);
+        if (node.leaf) {
+            int index = node.search(key);
+            if (index >= 0) {
+                node.values.set(index, value);
+            } else {
+                node.keys.add(-index - 1, key);
+                node.values.add(-index - 1, value);
+                inserted[0] = true;
+            }
+        } else {
+            int slot = node.slotFor(key);
+            Split split = insert(slot == 0 ? node.link : node.children.get(slot - 1), key, value, inserted);
+            if (split == null) {
+                return null;
+            }
+            node.keys.add(slot, split.key);
+            node.children.add(slot, split.page);
+        }
+        if (node.encodedSize() <= PageFile.PAGE_SIZE) {
+            node.write(cache, page);
+            return null;
+        }
+        return split(page, node);
+    }
+    
+    /**
+     * Move the upper half of an overfull node, by bytes, to a new page
+     */
+    private Split split(int page, Node node) throws IOException {
+        int total = node.encodedSize() - NODE_HEADER;
+        int at = 0;
+        for (int bytes = 0; at < node.keys.size(); at++) {
+            bytes += node.entrySize(at);
+            if (bytes > total / 2) {
+                break;
+            }
+        }
+        at = Math.max(at, 1);
+        int rightPage = allocator.allocate();
+        Node right = new Node(node.leaf);
+        byte[] separator;
+        if (node.leaf) {
+            right.keys.addAll(node.keys.subList(at, node.keys.size()));
+            right.values.addAll(node.values.subList(at, node.values.size()));
+            right.link = node.link;
+            node.link = rightPage;
+            separator = right.keys.get(0);
+        } else {
+            // The middle key moves up; its child becomes the new node's leftmost child
+            separator = node.keys.get(at);
+            right.link = node.children.get(at);
+            right.keys.addAll(node.keys.subList(at + 1, node.keys.size()));
+            right.children.addAll(node.children.subList(at + 1, node.children.size()));
+            node.children.subList(at, node.children.size()).clear();
+        }
+        node.keys.subList(at, node.keys.size()).clear();
+        if (node.leaf) {
+            node.values.subList(at, node.values.size()).clear();
+        }
+        node.write(cache, page);
+        right.write(cache, rightPage);
+        return new Split(separator, rightPage);
+    }
+    
+    /**
+     * Whether put() accepts the entry
+     */
+    static boolean fits(byte[] key, byte[] value) {
+        return key.length <= MAX_KEY && leafEntrySize(key, value) <= MAX_ENTRY;
+    }
+    
+    private static int leafEntrySize(byte[] key, byte[] value) {
+        return Short.BYTES + key.length + Short.BYTES + value.length;
+    }
+    
+    private static final class Split {
+        private final byte[] key;
+        private final int page;
+        
+        Split(byte[] key, int page) {
+            this.key = key;
+            this.page = page;
+        }
+    }
+    
+    /**
+     * Decoded copy of a page
+     */
+    private static final class Node {
+        private final boolean leaf;
+        private int link = -1;
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private final List<Integer> children = new ArrayList<>();
+        
+        Node(boolean leaf) {
+            this.leaf = leaf;
+        }
+        
+        static Node read(PageCache cache, int page) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(cache.read(page));
+            byte type = buffer.get();
+            if (type != LEAF && type != INTERNAL) {
+                throw new IOException("Page " + page + " is not a B+tree node (type " + type + ")");
+            }
+            Node node = new Node(type == LEAF);
+            int count = buffer.getShort() & 0xFFFF;
+            node.link = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                node.keys.add(readBytes(buffer));
+                if (node.leaf) {
+                    node.values.add(readBytes(buffer));
+                } else {
+                    node.children.add(buffer.getInt());
+                }
+            }
+            return node;
+        }
+        
+        void write(PageCache cache, int page) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+            buffer.put(leaf ? LEAF : INTERNAL).putShort((short) keys.size()).putInt(link);
+            for (int i = 0; i < keys.size(); i++) {
+                writeBytes(buffer, keys.get(i));
+                if (leaf) {
+                    writeBytes(buffer, values.get(i));
+                } else {
+                    buffer.putInt(children.get(i));
+                }
+            }
+            cache.write(page, buffer.array());
+        }
+        
+        int encodedSize() {
+            int size = NODE_HEADER;
+            for (int i = 0; i < keys.size(); i++) {
+                size += entrySize(i);
+            }
+            return size;
+        }
+        
+        int entrySize(int index) {
+            return leaf ? leafEntrySize(keys.get(index), values.get(index))
+                : Short.BYTES + keys.get(index).length + Integer.BYTES;
+        }
+        
+        /**
+         * Index of the key, or -(insertion point) - 1 as in Arrays.binarySearch
+         */
+        int search(byte[] key) {
+            int low = 0;
+            int high = keys.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int order = Arrays.compareUnsigned(keys.get(mid), key);
+                if (order < 0) {
+                    low = mid + 1;
+                } else if (order > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+        
+        /**
+         * Number of separators not above the key: 0 means the leftmost child
+         */
+        int slotFor(byte[] key) {
+            int index = search(key);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+        
+        int childFor(byte[] key) {
+            int slot = slotFor(key);
+            return slot == 0 ? link : children.get(slot - 1);
+        }
+        
+        private static byte[] readBytes(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            return bytes;
+        }
+        
+        private static void writeBytes(ByteBuffer buffer, byte[] bytes) {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+}
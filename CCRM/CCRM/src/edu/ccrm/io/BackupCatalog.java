@@ -0,0 +1,305 @@
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes of everything in the backup directory, gathered in one walkFileTree pass
+ *
+ * Sizes come from the attributes the walk already reads, so no file is stat'ed twice.
+ * Per-directory results are cached in an index file (.catalog) keyed by the
+ * directory's modification time: backup directories and chunk fan-out directories
+ * only change by files being added or removed, which updates that time, so an
+ * unchanged directory is skipped without visiting its files.
+ */
+final class BackupCatalog {
+    static final String INDEX_FILE = ".catalog";
+    
+    // Directories modified this recently may still change within the same timestamp tick
+    private static final long SETTLE_NANOS = TimeUnit.SECONDS.toNanos(2);
+    
+    private final Path root;
+    private final Map<String, DirectoryInfo> directories;
+    private final Map<String, DirectoryInfo> chunkDirectories;
+    private final List<FileInfo> rootFiles;
+    private int directoriesReused;
+    
+    /**
+     * One file directly inside a backup directory or the backup root
+     */
+    static final class FileInfo {
+        private final String name;
+        private final long size;
+        
+        FileInfo(String name, long size) {
+            this.name = name;
+            this.size = size;
+        }
+        
+        String getName() { return name; }
+        long getSize() { return size; }
+    }
+    
+    /**
+     * A backup directory (with its files) or a chunk fan-out directory (totals only)
+     */
+    static final class DirectoryInfo {
+        private final String name;
+        private final long modified;
+        private final List<FileInfo> files = new ArrayList<>();
+        private long fileCount;
+        private long bytes;
+        private long logicalBytes = -1;
+        
+        DirectoryInfo(String name, long modified) {
+            this.name = name;
+            this.modified = modified;
+        }
+        
+        String getName() { return name; }
+        List<FileInfo> getFiles() { return files; }
+        long getFileCount() { return fileCount; }
+        long getBytes() { return bytes; }
+        
+        /**
+         * Bytes the backup represents: its own files plus the chunked data its manifest
+         * lists, or -1 without a manifest
+         */
+        long getLogicalBytes() { return logicalBytes; }
+        boolean hasManifest() { return logicalBytes >= 0; }
+        
+        private void add(String fileName, long size, boolean keepFile) {
+            fileCount++;
+            bytes += size;
+            if (keepFile) {
+                files.add(new FileInfo(fileName, size));
+            }
+        }
+    }
+    
+    private BackupCatalog(Path root) {
+        this.root = root;
+        this.directories = new TreeMap<>();
+        this.chunkDirectories = new TreeMap<>();
+        this.rootFiles = new ArrayList<>();
+    }
+    
+    /**
+     * Walk the backup directory, reusing cached results for unchanged directories,
+     * and refresh the index file
+     */
+    static BackupCatalog scan(Path root) throws IOException {
+        BackupCatalog catalog = new BackupCatalog(root);
+        if (!Files.isDirectory(root)) {
+            return catalog;
+        }
+        long scanStart = System.currentTimeMillis() * 1_000_000L;
+        BackupCatalog cached = readIndex(root);
+        catalog.walk(cached);
+        catalog.writeIndex(scanStart);
+        return catalog;
+    }
+    
+    // Getters
+    Collection<DirectoryInfo> getDirectories() { return directories.values(); }
+    List<FileInfo> getRootFiles() { return rootFiles; }
+    int getDirectoriesReused() { return directoriesReused; }
+    
+    long getChunkCount() {
+        return chunkDirectories.values().stream().mapToLong(DirectoryInfo::getFileCount).sum();
+    }
+    
+    long getChunkBytes() {
+        return chunkDirectories.values().stream().mapToLong(DirectoryInfo::getBytes).sum();
+    }
+    
+    /**
+     * Bytes of every file under the backup directory
+     */
+    long getTotalBytes() {
+        long total = getChunkBytes();
+        for (DirectoryInfo directory : directories.values()) {
+            total += directory.getBytes();
+        }
+        for (FileInfo file : rootFiles) {
+            total += file.getSize();
+        }
+        return total;
+    }
+    
+    private void walk(BackupCatalog cached) throws IOException {
+        Path chunkRoot = root.resolve(ChunkStore.DIRECTORY);
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            private DirectoryInfo current;
+            
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(root) || dir.equals(chunkRoot)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path parent = dir.getParent();
+                if (!parent.equals(root) && !parent.equals(chunkRoot)) {
+                    return FileVisitResult.CONTINUE; // Nested deeper: counted toward the enclosing directory
+                }
+                boolean chunks = parent.equals(chunkRoot);
+                String name = dir.getFileName().toString();
+                long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                Map<String, DirectoryInfo> target = chunks ? chunkDirectories : directories;
+                
+                DirectoryInfo previous = (chunks ? cached.chunkDirectories : cached.directories).get(name);
+                if (previous != null && previous.modified == modified) {
+                    target.put(name, previous);
+                    directoriesReused++;
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                current = new DirectoryInfo(name, modified);
+                target.put(name, current);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (file.getParent().equals(root)) {
+                    if (!file.getFileName().toString().startsWith(INDEX_FILE)) {
+                        rootFiles.add(new FileInfo(file.getFileName().toString(), attrs.size()));
+                    }
+                } else if (current != null) {
+                    boolean inBackup = directories.get(current.name) == current;
+                    String name = inBackup ? root.resolve(current.name).relativize(file).toString() : null;
+                    current.add(name, attrs.size(), inBackup);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                if (e instanceof NoSuchFileException) {
+                    return FileVisitResult.CONTINUE; // Removed while walking, e.g. by pruning
+                }
+                throw e;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null && !(e instanceof NoSuchFileException)) {
+                    throw e;
+                }
+                if (current != null && dir.getParent() != null && dir.getParent().equals(root)
+                        && dir.getFileName().toString().equals(current.name)) {
+                    readLogicalSize(dir, current);
+                    current = null;
+                } else if (current != null && dir.getParent() != null && dir.getParent().equals(chunkRoot)) {
+                    current = null;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    private static void readLogicalSize(Path dir, DirectoryInfo info) {
+        if (!Files.isRegularFile(dir.resolve(BackupManifest.FILE_NAME))) {
+            return;
+        }
+        try {
+            long logical = info.bytes;
+            for (BackupManifest.FileEntry entry : BackupManifest.read(dir).getFiles().values()) {
+                if (entry.isChunked()) {
+                    logical += entry.getSize();
+                }
+            }
+            info.logicalBytes = logical;
+        } catch (IOException e) {
+            System.err.println("Skipping manifest of " + dir.getFileName() + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Index lines (tab-separated):
+     *   D name modified fileCount bytes logicalBytes - a backup directory, followed by its F lines
+     *   F fileName size
+     *   C name modified fileCount bytes - a chunk fan-out directory
+     */
+    private void writeIndex(long scanStart) throws IOException {
+        Path tempFile = root.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writer.write("# CCRM backup catalog\n");
+            for (DirectoryInfo directory : directories.values()) {
+                if (isSettled(directory, scanStart)) {
+                    writer.write("D\t" + directory.name + '\t' + directory.modified + '\t' + directory.fileCount
+                        + '\t' + directory.bytes + '\t' + directory.logicalBytes + '\n');
+                    for (FileInfo file : directory.files) {
+                        writer.write("F\t" + file.name + '\t' + file.size + '\n');
+                    }
+                }
+            }
+            for (DirectoryInfo directory : chunkDirectories.values()) {
+                if (isSettled(directory, scanStart)) {
+                    writer.write("C\t" + directory.name + '\t' + directory.modified + '\t' + directory.fileCount
+                        + '\t' + directory.bytes + '\n');
+                }
+            }
+        }
+        Files.move(tempFile, root.resolve(INDEX_FILE),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static boolean isSettled(DirectoryInfo directory, long scanStart) {
+        return directory.modified < scanStart - SETTLE_NANOS;
+    }
+    
+    /**
+     * The cached catalog, or an empty one if the index is missing or unreadable
+     */
+    private static BackupCatalog readIndex(Path root) {
+        BackupCatalog cached = new BackupCatalog(root);
+        Path index = root.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(index)) {
+            return cached;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            DirectoryInfo directory = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                switch (fields[0]) {
+                    case "D" -> {
+                        directory = new DirectoryInfo(fields[1], Long.parseLong(fields[2]));
+                        directory.fileCount = Long.parseLong(fields[3]);
+                        directory.bytes = Long.parseLong(fields[4]);
+                        directory.logicalBytes = Long.parseLong(fields[5]);
+                        cached.directories.put(directory.name, directory);
+                    }
+                    case "F" -> {
+                        if (directory != null) {
+                            directory.files.add(new FileInfo(fields[1], Long.parseLong(fields[2])));
+                        }
+                    }
+                    case "C" -> {
+                        DirectoryInfo chunks = new DirectoryInfo(fields[1], Long.parseLong(fields[2]));
+                        chunks.fileCount = Long.parseLong(fields[3]);
+                        chunks.bytes = Long.parseLong(fields[4]);
+                        cached.chunkDirectories.put(chunks.name, chunks);
+                    }
+                    default -> {
+                        // Comment or unknown line
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable backup catalog: " + e.getMessage());
+            return new BackupCatalog(root);
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,109 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle on a backup being written in the background
+ * The state was captured when the job was created; progress counts records
+ * written across all files of the backup.
+ */
+public class BackupJob {
+    private final LocalDateTime snapshotTime;
+    private final CompletableFuture<BackupManifest> future = new CompletableFuture<>();
+    private final LongAdder recordsWritten = new LongAdder();
+    private volatile long totalRecords = -1;
+    
+    BackupJob(LocalDateTime snapshotTime) {
+        this.snapshotTime = snapshotTime;
+    }
+    
+    // Getters
+    public LocalDateTime getSnapshotTime() { return snapshotTime; }
+    public long getRecordsWritten() { return recordsWritten.sum(); }
+    
+    /**
+     * Records this backup writes, or -1 until it has decided between full and incremental
+     */
+    public long getTotalRecords() { return totalRecords; }
+    
+    /**
+     * Completes with the new backup's manifest, or exceptionally if writing it failed
+     */
+    public CompletableFuture<BackupManifest> getFuture() {
+        return future;
+    }
+    
+    public boolean isDone() {
+        return future.isDone();
+    }
+    
+    /**
+     * Fraction of records written, from 0 to 1
+     */
+    public double getProgress() {
+        if (future.isDone()) {
+            return 1.0;
+        }
+        long total = totalRecords;
+        return total <= 0 ? 0.0 : Math.min(1.0, (double) recordsWritten.sum() / total);
+    }
+    
+    /**
+     * Wait for the backup to finish
+     * @throws IOException if writing the backup failed
+     */
+    public BackupManifest await() throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for backup");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Backup failed: " + cause, cause);
+        }
+    }
+    
+    void start(long totalRecords) {
+        this.totalRecords = totalRecords;
+    }
+    
+    void recordsWritten(long count) {
+        recordsWritten.add(count);
+    }
+    
+    void complete(BackupManifest manifest) {
+        future.complete(manifest);
+    }
+    
+    void fail(Throwable failure) {
+        future.completeExceptionally(failure);
+    }
+    
+    @Override
+    public String toString() {
+        String state;
+        if (future.isCompletedExceptionally()) {
+            state = "failed";
+        } else if (future.isDone()) {
+            state = "done - " + future.join().getName();
+        } else if (totalRecords < 0) {
+            state = "waiting";
+        } else {
+            state = String.format("%d of %d records (%.0f%%)", getRecordsWritten(), totalRecords, getProgress() * 100);
+        }
+        return "Backup of state at " + snapshotTime + ": " + state;
+    }
+}
@@ -0,0 +1,666 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.BackupRestoreException;
+import edu.ccrm.service.ChangeJournal;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Full and incremental backups chained through manifests
+ *
+ * A full backup exports every record. An incremental backup exports only records
+ * whose updatedAt is at or after its base's watermark, plus removals from the
+ * services' change journals (removed.csv). Every fullBackupInterval-th backup,
+ * and any backup after a wholesale replace, is full again. Compaction replays a
+ * chain into a new full backup without touching the live services.
+ * Data files go to the shared ChunkStore, so unchanged data is stored only once
+ * however many backups refer to it. Old backups are pruned by a RetentionPolicy,
+ * normally on a background thread after each backup; all operations that write
+ * or delete backups hold this manager's lock.
+ *
+ * Backups are written in the background from a StateSnapshot taken when they are
+ * started: one coordinator thread runs backups in order, and the files of each are
+ * written concurrently on a small writer pool. A backup is assembled in a
+ * "<name>.tmp" directory that is renamed into place once its manifest is written.
+ */
+class BackupManager {
+    static final String STUDENTS_FILE = "students.csv";
+    static final String COURSES_FILE = "courses.csv";
+    static final String ENROLLMENTS_FILE = "enrollments.csv";
+    static final String REMOVED_FILE = "removed.csv";
+    
+    // Record types used in change journals, mapped to the file holding them
+    private static final Map<String, String> REMOVAL_FILES = Map.of(
+        "student", STUDENTS_FILE, "course", COURSES_FILE, "enrollment", ENROLLMENTS_FILE);
+    
+    private static final DateTimeFormatter DIRECTORY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS");
+    private static final String STAGING_SUFFIX = ".tmp";
+    private static final String[] REMOVED_HEADER = {"RecordType", "Key", "RemovedAt"};
+    // Records written between progress updates
+    private static final int PROGRESS_BATCH = 1000;
+    
+    private final AppConfig config;
+    private final ExecutorService coordinator = daemonExecutor("backup-coordinator", 1);
+    private final ExecutorService writers = daemonExecutor("backup-writer", 4);
+    private final ExecutorService pruner = daemonExecutor("backup-pruner", 1);
+    
+    /**
+     * Writes rows of one record type to a CSV
+     */
+    @FunctionalInterface
+    interface RowWriter<T> {
+        void write(List<T> rows, CsvWriter csv) throws IOException;
+    }
+    
+    BackupManager(AppConfig config) {
+        this.config = config;
+    }
+    
+    static ExecutorService daemonExecutor(String name, int threads) {
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Capture the services now and back them up in the background,
+     * incrementally on top of the latest backup when possible
+     * Must be called on the thread that modifies the services; see StateSnapshot.
+     */
+    BackupJob startBackup(StudentService studentService, CourseService courseService,
+                          EnrollmentService enrollmentService, boolean forceFull) {
+        StateSnapshot snapshot = StateSnapshot.capture(studentService, courseService, enrollmentService);
+        BackupJob job = new BackupJob(snapshot.getTakenAt());
+        coordinator.execute(() -> {
+            try {
+                job.complete(writeBackup(snapshot, forceFull, job));
+            } catch (IOException | RuntimeException e) {
+                job.fail(e);
+            }
+        });
+        return job;
+    }
+    
+    /**
+     * Wait until every backup started so far has finished
+     */
+    void awaitBackups() throws InterruptedException {
+        try {
+            coordinator.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    private synchronized BackupManifest writeBackup(StateSnapshot snapshot, boolean forceFull, BackupJob job)
+            throws IOException {
+        LocalDateTime watermark = snapshot.getTakenAt();
+        BackupManifest latest = findLatest();
+        boolean full = forceFull || latest == null
+            || latest.getChainLength() >= config.getFullBackupInterval()
+            || snapshot.wasResetSince(latest.getCreated());
+        
+        String name = "backup_" + watermark.format(DIRECTORY_FORMAT);
+        List<Student> students = snapshot.getStudents();
+        List<Course> courses = snapshot.getCourses();
+        List<Enrollment> enrollments = snapshot.getEnrollments();
+        List<ChangeJournal.Removal> removals = null;
+        BackupManifest manifest;
+        if (full) {
+            manifest = new BackupManifest(name, BackupManifest.Type.FULL, watermark, null, 1, null);
+        } else {
+            LocalDateTime since = latest.getCreated();
+            manifest = new BackupManifest(name, BackupManifest.Type.INCREMENTAL,
+                watermark, latest.getName(), latest.getChainLength() + 1, null);
+            students = students.stream()
+                .filter(student -> changedSince(student.getUpdatedAt(), since))
+                .collect(Collectors.toList());
+            // A course row also carries its instructor's name
+            courses = courses.stream()
+                .filter(course -> changedSince(course.getUpdatedAt(), since) || (course.getInstructor() != null
+                    && changedSince(course.getInstructor().getUpdatedAt(), since)))
+                .collect(Collectors.toList());
+            enrollments = enrollments.stream()
+                .filter(enrollment -> changedSince(enrollment.getUpdatedAt(), since))
+                .collect(Collectors.toList());
+            removals = snapshot.getRemovalsSince(since);
+        }
+        job.start(students.size() + courses.size() + enrollments.size() + (removals != null ? removals.size() : 0));
+        
+        Path backupRoot = config.getBackupPath();
+        Path staging = backupRoot.resolve(name + STAGING_SUFFIX);
+        Files.createDirectories(staging);
+        try {
+            ChunkStore store = ChunkStore.in(backupRoot);
+            Map<String, CompletableFuture<BackupManifest.FileEntry>> files = new LinkedHashMap<>();
+            files.put(STUDENTS_FILE, writeAsync(store, FileOperationService.STUDENT_HEADER, students,
+                FileOperationService::writeStudentRows, job));
+            files.put(COURSES_FILE, writeAsync(store, FileOperationService.COURSE_HEADER, courses,
+                FileOperationService::writeCourseRows, job));
+            files.put(ENROLLMENTS_FILE, writeAsync(store, FileOperationService.ENROLLMENT_HEADER, enrollments,
+                FileOperationService::writeEnrollmentRows, job));
+            if (removals != null) {
+                files.put(REMOVED_FILE, writeAsync(store, REMOVED_HEADER, removals, BackupManager::writeRemovalRows, job));
+            }
+            // Every file is written before the manifest lists any of them, in a fixed order
+            for (Map.Entry<String, CompletableFuture<BackupManifest.FileEntry>> file : files.entrySet()) {
+                manifest.addFile(file.getKey(), await(file.getValue()));
+            }
+            manifest.write(staging);
+            Files.move(staging, backupRoot.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteBackup(staging);
+            throw e;
+        }
+        
+        if (full) {
+            // Removals before the snapshot are reflected in this full backup
+            snapshot.compactJournals();
+        }
+        return manifest;
+    }
+    
+    /**
+     * Write one CSV straight into the chunk store on the writer pool
+     */
+    private <T> CompletableFuture<BackupManifest.FileEntry> writeAsync(ChunkStore store, String[] header,
+                                                                       List<T> rows, RowWriter<T> rowWriter,
+                                                                       BackupJob job) {
+        return CompletableFuture.supplyAsync(() -> {
+            ChunkStore.ChunkWriter out = store.newWriter();
+            try (CsvWriter csv = new CsvWriter(out)) {
+                csv.writeRecord(header);
+                for (int from = 0; from < rows.size(); from += PROGRESS_BATCH) {
+                    List<T> batch = rows.subList(from, Math.min(rows.size(), from + PROGRESS_BATCH));
+                    rowWriter.write(batch, csv);
+                    job.recordsWritten(batch.size());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toFileEntry(rows.size());
+        }, writers);
+    }
+    
+    private static void writeRemovalRows(List<ChangeJournal.Removal> removals, CsvWriter csv) throws IOException {
+        for (ChangeJournal.Removal removal : removals) {
+            csv.field(removal.getRecordType()).field(removal.getKey()).field(removal.getRemovedAt());
+            csv.endRecord();
+        }
+    }
+    
+    private static <T> T await(CompletableFuture<T> task) throws IOException {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Backup file could not be written: " + e.getCause(), e.getCause());
+        }
+    }
+    
+    /**
+     * Replay the latest backup chain into a new full backup
+     * The compacted backup keeps the chain's watermark, so later incrementals build on it.
+     * @return The new full backup, or the latest backup if it already is a full one
+     */
+    synchronized BackupManifest compactLatestChain() throws IOException {
+        BackupManifest latest = findLatest();
+        if (latest == null) {
+            throw new IOException("No backups to compact");
+        }
+        if (latest.getType() == BackupManifest.Type.FULL) {
+            return latest;
+        }
+        
+        Path backupRoot = config.getBackupPath();
+        List<BackupManifest> chain = resolveChain(latest);
+        Map<String, CsvTable> tables = new LinkedHashMap<>();
+        for (String fileName : List.of(STUDENTS_FILE, COURSES_FILE, ENROLLMENTS_FILE)) {
+            tables.put(fileName, new CsvTable());
+        }
+        
+        for (BackupManifest manifest : chain) {
+            Path directory = backupRoot.resolve(manifest.getName());
+            // Files are checksummed as they are read
+            for (Map.Entry<String, CsvTable> table : tables.entrySet()) {
+                if (manifest.getFiles().containsKey(table.getKey())) {
+                    try (InputStream in = manifest.openFile(directory, table.getKey())) {
+                        table.getValue().upsertAll(in, table.getKey());
+                    }
+                }
+            }
+            if (manifest.getFiles().containsKey(REMOVED_FILE)) {
+                try (InputStream in = manifest.openFile(directory, REMOVED_FILE)) {
+                    applyRemovals(in, tables);
+                }
+            }
+        }
+        
+        String name = "backup_" + LocalDateTime.now().format(DIRECTORY_FORMAT);
+        BackupManifest compacted = new BackupManifest(name, BackupManifest.Type.FULL, latest.getCreated(),
+            null, 1, latest.getName());
+        Path staging = backupRoot.resolve(name + STAGING_SUFFIX);
+        Files.createDirectories(staging);
+        try {
+            ChunkStore store = ChunkStore.in(backupRoot);
+            for (Map.Entry<String, CsvTable> table : tables.entrySet()) {
+                ChunkStore.ChunkWriter out = store.newWriter();
+                try (CsvWriter csv = new CsvWriter(out)) {
+                    table.getValue().write(csv);
+                }
+                compacted.addFile(table.getKey(), out.toFileEntry(table.getValue().rows.size()));
+            }
+            compacted.write(staging);
+            Files.move(staging, backupRoot.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteBackup(staging);
+            throw e;
+        }
+        return compacted;
+    }
+    
+    /**
+     * All complete backups (with a readable manifest), oldest first
+     */
+    List<BackupManifest> listBackups() throws IOException {
+        return listBackups(config.getBackupPath());
+    }
+    
+    /**
+     * Complete backups in the given directory, oldest first
+     */
+    static List<BackupManifest> listBackups(Path backupRoot) throws IOException {
+        List<BackupManifest> manifests = new ArrayList<>();
+        if (!Files.isDirectory(backupRoot)) {
+            return manifests;
+        }
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(backupRoot, Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (Files.isRegularFile(directory.resolve(BackupManifest.FILE_NAME))) {
+                    try {
+                        manifests.add(BackupManifest.read(directory));
+                    } catch (IOException e) {
+                        System.err.println("Skipping backup " + directory.getFileName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        manifests.sort(Comparator.comparing(BackupManifest::getCreated).thenComparing(BackupManifest::getName));
+        return manifests;
+    }
+    
+    /**
+     * The backups needed to restore the given one: its full base first, then each incremental
+     */
+    List<BackupManifest> resolveChain(BackupManifest tip) throws IOException {
+        return resolveChain(tip, config.getBackupPath());
+    }
+    
+    /**
+     * Resolve a chain whose bases live in the given backup directory
+     */
+    static List<BackupManifest> resolveChain(BackupManifest tip, Path backupRoot) throws IOException {
+        Map<String, BackupManifest> byName = new HashMap<>();
+        for (BackupManifest manifest : listBackups(backupRoot)) {
+            byName.put(manifest.getName(), manifest);
+        }
+        
+        LinkedList<BackupManifest> chain = new LinkedList<>();
+        BackupManifest current = tip;
+        while (true) {
+            chain.addFirst(current);
+            if (current.getType() == BackupManifest.Type.FULL) {
+                return chain;
+            }
+            if (chain.size() > byName.size()) {
+                throw new IOException("Backup chain of " + tip.getName() + " contains a cycle");
+            }
+            BackupManifest base = byName.get(current.getBase());
+            if (base == null) {
+                throw new IOException("Backup " + current.getName() + " refers to missing base " + current.getBase());
+            }
+            current = base;
+        }
+    }
+    
+    /**
+     * Restore a backup into the services; see BackupRestore
+     */
+    synchronized SnapshotInfo restore(Path directory, StudentService studentService, CourseService courseService,
+                                      EnrollmentService enrollmentService) throws IOException, BackupRestoreException {
+        return BackupRestore.restore(directory, studentService, courseService, enrollmentService);
+    }
+    
+    /**
+     * Catalog of the backup directory, refreshing its cached index
+     */
+    BackupCatalog scanCatalog() throws IOException {
+        return BackupCatalog.scan(config.getBackupPath());
+    }
+    
+    /**
+     * Logical size of every backup against the bytes on disk
+     */
+    BackupUsage measureUsage() throws IOException {
+        BackupCatalog catalog = scanCatalog();
+        int backups = 0;
+        long logicalBytes = 0;
+        for (BackupCatalog.DirectoryInfo directory : catalog.getDirectories()) {
+            if (directory.hasManifest()) {
+                backups++;
+                logicalBytes += directory.getLogicalBytes();
+            } else {
+                logicalBytes += directory.getBytes();
+            }
+        }
+        for (BackupCatalog.FileInfo file : catalog.getRootFiles()) {
+            logicalBytes += file.getSize();
+        }
+        return new BackupUsage(backups, logicalBytes, catalog.getTotalBytes(), catalog.getChunkCount());
+    }
+    
+    /**
+     * Prune on the background thread; failures are reported on System.err
+     */
+    void pruneInBackground(RetentionPolicy policy) {
+        pruner.execute(() -> {
+            try {
+                prune(policy);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Background backup pruning failed: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Delete the backups the policy does not keep, then the chunks no remaining backup uses
+     * Directories without a manifest (older or unfinished backups) are left alone.
+     * @return The deleted backups, oldest first
+     */
+    synchronized List<BackupManifest> prune(RetentionPolicy policy) throws IOException {
+        FileTime cutoff = FileTime.fromMillis(System.currentTimeMillis());
+        Path backupRoot = config.getBackupPath();
+        List<BackupManifest> manifests = listBackups(backupRoot);
+        if (manifests.isEmpty()) {
+            return List.of();
+        }
+        Map<String, BackupManifest> byName = new HashMap<>();
+        manifests.forEach(manifest -> byName.put(manifest.getName(), manifest));
+        ChunkStore store = ChunkStore.in(backupRoot);
+        
+        Set<String> kept = selectRetained(manifests, byName, policy);
+        if (policy.getSizeCap() > 0) {
+            applySizeCap(manifests, byName, kept, policy.getSizeCap(), store);
+        }
+        
+        List<BackupManifest> removed = new ArrayList<>();
+        Set<String> referenced = new HashSet<>();
+        for (BackupManifest manifest : manifests) {
+            if (kept.contains(manifest.getName())) {
+                referencedChunks(manifest, referenced);
+            } else {
+                deleteBackup(backupRoot.resolve(manifest.getName()));
+                removed.add(manifest);
+            }
+        }
+        deleteStaleStaging(backupRoot);
+        store.sweep(referenced, cutoff);
+        return removed;
+    }
+    
+    /**
+     * Newest backup per day and per week as the policy allows, the newest backup,
+     * and every base those build on
+     */
+    private static Set<String> selectRetained(List<BackupManifest> manifests, Map<String, BackupManifest> byName,
+                                              RetentionPolicy policy) {
+        Set<String> kept = new HashSet<>();
+        Set<LocalDate> days = new HashSet<>();
+        Set<LocalDate> weeks = new HashSet<>();
+        for (int i = manifests.size() - 1; i >= 0; i--) {
+            BackupManifest manifest = manifests.get(i);
+            LocalDate day = manifest.getCreated().toLocalDate();
+            LocalDate week = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            boolean keep = i == manifests.size() - 1;
+            if (days.size() < policy.getKeepDaily() && days.add(day)) {
+                keep = true;
+            }
+            if (weeks.size() < policy.getKeepWeekly() && weeks.add(week)) {
+                keep = true;
+            }
+            if (keep) {
+                kept.addAll(chainNames(manifest, byName));
+            }
+        }
+        return kept;
+    }
+    
+    /**
+     * Drop the oldest full backups and everything built on them until the kept
+     * backups fit the cap; the newest backup's chain is never dropped
+     */
+    private void applySizeCap(List<BackupManifest> manifests, Map<String, BackupManifest> byName,
+                              Set<String> kept, long sizeCap, ChunkStore store) throws IOException {
+        BackupCatalog catalog = scanCatalog();
+        Map<String, Long> directoryBytes = new HashMap<>();
+        long fixedBytes = catalog.getTotalBytes() - catalog.getChunkBytes();
+        for (BackupCatalog.DirectoryInfo directory : catalog.getDirectories()) {
+            if (byName.containsKey(directory.getName())) {
+                directoryBytes.put(directory.getName(), directory.getBytes());
+                fixedBytes -= directory.getBytes();
+            }
+        }
+        Map<String, Long> chunkSizes = new HashMap<>();
+        Set<String> newestChain = chainNames(manifests.get(manifests.size() - 1), byName);
+        
+        while (true) {
+            long size = fixedBytes;
+            Set<String> referenced = new HashSet<>();
+            for (String name : kept) {
+                size += directoryBytes.getOrDefault(name, 0L);
+                referencedChunks(byName.get(name), referenced);
+            }
+            for (String chunk : referenced) {
+                size += chunkSize(store, chunk, chunkSizes);
+            }
+            if (size <= sizeCap) {
+                return;
+            }
+            
+            BackupManifest oldest = manifests.stream()
+                .filter(manifest -> kept.contains(manifest.getName()) && !newestChain.contains(manifest.getName()))
+                .findFirst().orElse(null);
+            if (oldest == null) {
+                System.err.println("Backups take " + size + " bytes; the newest backup alone exceeds the "
+                    + sizeCap + " byte cap");
+                return;
+            }
+            kept.removeIf(name -> chainNames(byName.get(name), byName).contains(oldest.getName()));
+        }
+    }
+    
+    private static long chunkSize(ChunkStore store, String chunk, Map<String, Long> chunkSizes) throws IOException {
+        Long size = chunkSizes.get(chunk);
+        if (size == null) {
+            try {
+                size = store.sizeOf(chunk);
+            } catch (NoSuchFileException e) {
+                size = 0L;
+            }
+            chunkSizes.put(chunk, size);
+        }
+        return size;
+    }
+    
+    /**
+     * The backup and every base it builds on, as far as they exist
+     */
+    private static Set<String> chainNames(BackupManifest tip, Map<String, BackupManifest> byName) {
+        Set<String> names = new HashSet<>();
+        BackupManifest current = tip;
+        while (current != null && names.add(current.getName())) {
+            current = current.getBase() != null ? byName.get(current.getBase()) : null;
+        }
+        return names;
+    }
+    
+    private static void referencedChunks(BackupManifest manifest, Set<String> referenced) {
+        for (BackupManifest.FileEntry entry : manifest.getFiles().values()) {
+            if (entry.isChunked()) {
+                referenced.addAll(entry.getChunks());
+            }
+        }
+    }
+    
+    /**
+     * Remove staging directories left by backups that failed or were cut short
+     * Only called with the lock held, so no backup is being staged right now.
+     */
+    private static void deleteStaleStaging(Path backupRoot) throws IOException {
+        try (DirectoryStream<Path> staged = Files.newDirectoryStream(backupRoot, "*" + STAGING_SUFFIX)) {
+            for (Path directory : staged) {
+                if (Files.isDirectory(directory)) {
+                    deleteBackup(directory);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Delete a backup directory, manifest first so a partial delete leaves an incomplete backup
+     */
+    private static void deleteBackup(Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(BackupManifest.FILE_NAME));
+        Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null) {
+                    throw e;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    private BackupManifest findLatest() throws IOException {
+        List<BackupManifest> manifests = listBackups();
+        return manifests.isEmpty() ? null : manifests.get(manifests.size() - 1);
+    }
+    
+    private static boolean changedSince(LocalDateTime updatedAt, LocalDateTime since) {
+        return updatedAt == null || !updatedAt.isBefore(since);
+    }
+    
+    /**
+     * Apply removed.csv to whichever of the tables (keyed by file name) are present
+     */
+    static void applyRemovals(InputStream in, Map<String, CsvTable> tables) throws IOException {
+        try (CSVParser parser = new CSVParser(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+            parser.setTrimUnquoted(false);
+            parser.nextRecord(); // Skip header
+            while (parser.nextRecord()) {
+                CsvTable table = tables.get(REMOVAL_FILES.get(parser.getField(0)));
+                if (table != null) {
+                    table.rows.remove(parser.getField(1));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Rows of one backup CSV keyed by their first column, in first-seen order
+     */
+    static final class CsvTable {
+        private String[] header;
+        private final Map<String, String[]> rows = new LinkedHashMap<>();
+        
+        /**
+         * Current rows by key, in first-seen order
+         */
+        Collection<String[]> getRows() {
+            return rows.values();
+        }
+        
+        void upsertAll(Path file) throws IOException {
+            upsertAll(Files.newInputStream(file), file.toString());
+        }
+        
+        /**
+         * Add or replace rows from a CSV stream, which is closed afterwards
+         */
+        void upsertAll(InputStream in, String source) throws IOException {
+            try (CSVParser parser = new CSVParser(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))) {
+                parser.setTrimUnquoted(false);
+                if (!parser.nextRecord()) {
+                    return;
+                }
+                String[] fileHeader = parser.getFieldArray();
+                if (header == null) {
+                    header = fileHeader;
+                } else if (!Arrays.equals(header, fileHeader)) {
+                    throw new IOException("Column layout of " + source + " differs from its base");
+                }
+                while (parser.nextRecord()) {
+                    String[] row = parser.getFieldArray();
+                    rows.put(row[0], row);
+                }
+            }
+        }
+        
+        void write(CsvWriter csv) throws IOException {
+            if (header != null) {
+                csv.writeRecord(header);
+            }
+            for (String[] row : rows.values()) {
+                csv.writeRecord(row);
+            }
+        }
+    }
+}
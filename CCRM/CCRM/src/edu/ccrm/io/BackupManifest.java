@@ -0,0 +1,371 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Manifest of one backup directory (manifest.properties)
+ * Records the backup type, its change watermark, the base backup it builds on
+ * and a SHA-256 checksum per data file. Data files are normally kept as chunks in
+ * the shared ChunkStore, making the manifest the only file in the directory; older
+ * backups keep them next to it. Written last, so a directory without a manifest
+ * is an incomplete backup.
+ */
+public class BackupManifest {
+    public static final String FILE_NAME = "manifest.properties";
+    private static final int FORMAT = 2; // 2 adds sizes and chunk lists
+    
+    /**
+     * FULL backups hold every record; INCREMENTAL ones only changes since their base
+     */
+    public enum Type {
+        FULL, INCREMENTAL
+    }
+    
+    private final String name;
+    private final Type type;
+    private final LocalDateTime created;
+    private final String base;
+    private final int chainLength;
+    private final String compactedFrom;
+    private final Map<String, FileEntry> files = new LinkedHashMap<>();
+    
+    /**
+     * Checksum, record count and storage of one data file
+     */
+    public static class FileEntry {
+        private final long records;
+        private final String sha256;
+        private final long size;
+        private final List<String> chunks;
+        
+        public FileEntry(long records, String sha256) {
+            this(records, sha256, -1, null);
+        }
+        
+        /**
+         * @param size File length in bytes, or -1 if not recorded
+         * @param chunks Hashes of the chunks holding the file, or null if it is stored as a plain file
+         */
+        public FileEntry(long records, String sha256, long size, List<String> chunks) {
+            this.records = records;
+            this.sha256 = sha256;
+            this.size = size;
+            this.chunks = chunks != null ? List.copyOf(chunks) : null;
+        }
+        
+        public long getRecords() { return records; }
+        public String getSha256() { return sha256; }
+        public long getSize() { return size; }
+        public List<String> getChunks() { return chunks; }
+        public boolean isChunked() { return chunks != null; }
+    }
+    
+    /**
+     * @param name Backup directory name
+     * @param created Change watermark: records updated at or after it belong to the next backup
+     * @param base Directory name of the backup this one builds on, or null for a full backup
+     * @param chainLength Backups from the last full one up to and including this one
+     * @param compactedFrom Incremental backup this full backup was compacted from, or null
+     */
+    public BackupManifest(String name, Type type, LocalDateTime created, String base, int chainLength,
+                          String compactedFrom) {
+        this.name = name;
+        this.type = type;
+        this.created = created;
+        this.base = base;
+        this.chainLength = chainLength;
+        this.compactedFrom = compactedFrom;
+    }
+    
+    // Getters
+    public String getName() { return name; }
+    public Type getType() { return type; }
+    public LocalDateTime getCreated() { return created; }
+    public String getBase() { return base; }
+    public int getChainLength() { return chainLength; }
+    public String getCompactedFrom() { return compactedFrom; }
+    public Map<String, FileEntry> getFiles() { return new LinkedHashMap<>(files); }
+    
+    public long getRecords(String fileName) {
+        FileEntry entry = files.get(fileName);
+        return entry != null ? entry.getRecords() : 0;
+    }
+    
+    /**
+     * Checksum a data file that was written into the backup directory and list it
+     */
+    public void addFile(Path file, long records) throws IOException {
+        files.put(file.getFileName().toString(), new FileEntry(records, sha256(file)));
+    }
+    
+    /**
+     * List a data file written elsewhere, e.g. straight into the chunk store
+     */
+    void addFile(String fileName, FileEntry entry) {
+        files.put(fileName, entry);
+    }
+    
+    /**
+     * Open a listed data file, whether chunked or stored as a plain file
+     * Chunks are looked up in the store next to the backup directory. The content is
+     * checksummed as it is read; reaching its end throws IOException if it does not match.
+     */
+    public InputStream openFile(Path directory, String fileName) throws IOException {
+        FileEntry entry = files.get(fileName);
+        if (entry == null) {
+            throw new IOException("Backup " + name + " does not list " + fileName);
+        }
+        InputStream in;
+        if (entry.isChunked()) {
+            in = ChunkStore.in(directory.toAbsolutePath().getParent()).open(entry.getChunks());
+        } else {
+            Path file = directory.resolve(fileName);
+            if (!Files.isRegularFile(file)) {
+                throw new IOException("Backup " + name + " is missing " + fileName);
+            }
+            in = Files.newInputStream(file);
+        }
+        return new VerifyingInputStream(in, fileName, entry.getSha256());
+    }
+    
+    /**
+     * Length in bytes of a listed data file, however it is stored
+     */
+    public long getFileSize(Path directory, String fileName) throws IOException {
+        FileEntry entry = files.get(fileName);
+        if (entry == null) {
+            throw new IOException("Backup " + name + " does not list " + fileName);
+        }
+        return entry.getSize() >= 0 ? entry.getSize() : Files.size(directory.resolve(fileName));
+    }
+    
+    /**
+     * Check every listed file against its checksum
+     * @throws IOException naming the first missing or modified file
+     */
+    public void verify(Path directory) throws IOException {
+        for (String fileName : files.keySet()) {
+            verifyFile(directory, fileName);
+        }
+    }
+    
+    /**
+     * Check one listed file against its checksum
+     */
+    public void verifyFile(Path directory, String fileName) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = openFile(directory, fileName)) {
+            while (in.read(buffer) != -1) {
+                // Checked at the end of the stream
+            }
+        }
+    }
+    
+    /**
+     * Write the manifest atomically into the backup directory
+     */
+    public void write(Path directory) throws IOException {
+        Path tempFile = directory.resolve(FILE_NAME + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.ISO_8859_1)) {
+            writer.write("# CCRM backup manifest\n");
+            writer.write("format=" + FORMAT + "\n");
+            writer.write("type=" + type + "\n");
+            writer.write("created=" + created + "\n");
+            writer.write("chainLength=" + chainLength + "\n");
+            if (base != null) {
+                writer.write("base=" + base + "\n");
+            }
+            if (compactedFrom != null) {
+                writer.write("compactedFrom=" + compactedFrom + "\n");
+            }
+            for (Map.Entry<String, FileEntry> entry : files.entrySet()) {
+                writer.write("file." + entry.getKey() + ".records=" + entry.getValue().getRecords() + "\n");
+                writer.write("file." + entry.getKey() + ".sha256=" + entry.getValue().getSha256() + "\n");
+                if (entry.getValue().getSize() >= 0) {
+                    writer.write("file." + entry.getKey() + ".size=" + entry.getValue().getSize() + "\n");
+                }
+                if (entry.getValue().isChunked()) {
+                    writer.write("file." + entry.getKey() + ".chunks="
+                        + String.join(",", entry.getValue().getChunks()) + "\n");
+                }
+            }
+        }
+        Files.move(tempFile, directory.resolve(FILE_NAME),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Read the manifest of a backup directory
+     * @throws IOException if it is missing or malformed
+     */
+    public static BackupManifest read(Path directory) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(directory.resolve(FILE_NAME), StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+        
+        String name = directory.getFileName().toString();
+        try {
+            int format = Integer.parseInt(properties.getProperty("format", "0"));
+            if (format < 1 || format > FORMAT) {
+                throw new IOException("Unsupported manifest format in backup " + name);
+            }
+            BackupManifest manifest = new BackupManifest(name,
+                Type.valueOf(properties.getProperty("type")),
+                LocalDateTime.parse(properties.getProperty("created")),
+                properties.getProperty("base"),
+                Integer.parseInt(properties.getProperty("chainLength")),
+                properties.getProperty("compactedFrom"));
+            
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith("file.") && key.endsWith(".sha256")) {
+                    String fileName = key.substring("file.".length(), key.length() - ".sha256".length());
+                    String prefix = "file." + fileName;
+                    long records = Long.parseLong(properties.getProperty(prefix + ".records", "0"));
+                    long size = Long.parseLong(properties.getProperty(prefix + ".size", "-1"));
+                    String chunkList = properties.getProperty(prefix + ".chunks");
+                    List<String> chunks = chunkList == null ? null
+                        : chunkList.isEmpty() ? List.of() : Arrays.asList(chunkList.split(","));
+                    manifest.files.put(fileName, new FileEntry(records, properties.getProperty(key), size, chunks));
+                }
+            }
+            return manifest;
+        } catch (IllegalArgumentException | NullPointerException | DateTimeParseException e) {
+            throw new IOException("Malformed manifest in backup " + name + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Hex SHA-256 of a file, streamed
+     */
+    public static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return sha256(in);
+        }
+    }
+    
+    /**
+     * Hex SHA-256 of the rest of a stream; the stream is not closed
+     */
+    static String sha256(InputStream in) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest.digest());
+    }
+    
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+    
+    /**
+     * Checksums a data file as it is read and fails at its end on a mismatch
+     */
+    private final class VerifyingInputStream extends FilterInputStream {
+        private final String fileName;
+        private final String expected;
+        private final MessageDigest digest = newSha256();
+        private boolean checked;
+        
+        VerifyingInputStream(InputStream in, String fileName, String expected) {
+            super(in);
+            this.fileName = fileName;
+            this.expected = expected;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                check();
+            } else {
+                digest.update((byte) b);
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                check();
+            } else {
+                digest.update(b, off, n);
+            }
+            return n;
+        }
+        
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must still be digested
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+        
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+        
+        private void check() throws IOException {
+            if (!checked) {
+                checked = true;
+                if (!toHex(digest.digest()).equals(expected)) {
+                    throw new IOException("Checksum mismatch for " + fileName + " in backup " + name);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(type).append(" backup ").append(name);
+        if (base != null) {
+            sb.append(" (base ").append(base).append(", chain ").append(chainLength).append(")");
+        }
+        if (compactedFrom != null) {
+            sb.append(" (compacted from ").append(compactedFrom).append(")");
+        }
+        sb.append(':');
+        String separator = " ";
+        for (Map.Entry<String, FileEntry> entry : files.entrySet()) {
+            sb.append(separator).append(entry.getValue().getRecords()).append(' ').append(entry.getKey());
+            separator = ", ";
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,283 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.BackupRestoreException;
+import edu.ccrm.exceptions.InvalidDataException;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Restores the services from a backup directory
+ *
+ * The students, courses and enrollments files are checksummed, replayed across the
+ * backup chain and mapped on three threads. Referential integrity is then checked
+ * across all three; only when every record is valid is the restored state swapped
+ * into the services, so a failed restore leaves the live data untouched.
+ */
+class BackupRestore {
+    private BackupRestore() {
+        // Static utility
+    }
+    
+    /**
+     * Restore a backup (full or incremental) into the services
+     * Directories without a manifest (older backups) are read as a single unverified full backup.
+     * @return Counts of the restored records and the bytes read
+     */
+    static SnapshotInfo restore(Path directory, StudentService studentService, CourseService courseService,
+                                EnrollmentService enrollmentService) throws IOException, BackupRestoreException {
+        long startNanos = System.nanoTime();
+        if (!Files.isDirectory(directory)) {
+            throw new NoSuchFileException(directory.toString(), null, "Backup directory not found");
+        }
+        String name = directory.getFileName().toString();
+        List<Level> chain = resolveLevels(directory);
+        
+        ExecutorService executor = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "backup-restore");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Loaded<Student> students;
+        Loaded<Course> courses;
+        Loaded<Enrollment> enrollments;
+        try {
+            Future<Loaded<Student>> studentTask = executor.submit(
+                () -> load(chain, BackupManager.STUDENTS_FILE, BackupRestore::toStudent));
+            Future<Loaded<Course>> courseTask = executor.submit(
+                () -> load(chain, BackupManager.COURSES_FILE, new CourseMapper()));
+            Future<Loaded<Enrollment>> enrollmentTask = executor.submit(
+                () -> load(chain, BackupManager.ENROLLMENTS_FILE, FileOperationService::toEnrollment));
+            students = await(studentTask);
+            courses = await(courseTask);
+            enrollments = await(enrollmentTask);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        List<String> problems = new ArrayList<>();
+        problems.addAll(students.problems);
+        problems.addAll(courses.problems);
+        problems.addAll(enrollments.problems);
+        checkIntegrity(students.records, courses.records, enrollments.records, problems);
+        if (!problems.isEmpty()) {
+            throw new BackupRestoreException(name, problems);
+        }
+        
+        for (Enrollment enrollment : enrollments.records.values()) {
+            students.records.get(enrollment.getStudentId()).enrollInCourse(enrollment.getCourseCode());
+        }
+        
+        // Nothing below can fail, so the services switch over together
+        courseService.replaceAll(courses.records.values());
+        studentService.replaceAll(students.records.values());
+        enrollmentService.replaceAll(enrollments.records.values());
+        
+        int instructors = (int) courses.records.values().stream()
+            .map(Course::getInstructor).filter(Objects::nonNull).distinct().count();
+        long bytes = students.bytes + courses.bytes + enrollments.bytes;
+        return new SnapshotInfo(directory, students.records.size(), courses.records.size(), instructors,
+            enrollments.records.size(), bytes, System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * The directories to replay, full base first
+     */
+    private static List<Level> resolveLevels(Path directory) throws IOException {
+        List<Level> levels = new ArrayList<>();
+        if (!Files.isRegularFile(directory.resolve(BackupManifest.FILE_NAME))) {
+            System.err.println("Warning: backup " + directory.getFileName()
+                + " has no manifest; restoring it without checksum verification");
+            levels.add(new Level(directory, null));
+            return levels;
+        }
+        
+        BackupManifest tip = BackupManifest.read(directory);
+        Path backupRoot = directory.toAbsolutePath().getParent();
+        for (BackupManifest manifest : BackupManager.resolveChain(tip, backupRoot)) {
+            levels.add(new Level(backupRoot.resolve(manifest.getName()), manifest));
+        }
+        return levels;
+    }
+    
+    /**
+     * Replay and map one file across the chain, checksumming each copy as it is read
+     */
+    private static <T> Loaded<T> load(List<Level> chain, String fileName, RecordMapper<T> mapper)
+            throws IOException {
+        BackupManager.CsvTable table = new BackupManager.CsvTable();
+        Map<String, BackupManager.CsvTable> tables = Map.of(fileName, table);
+        long bytes = 0;
+        for (Level level : chain) {
+            Path file = level.directory.resolve(fileName);
+            boolean present;
+            if (level.manifest != null) {
+                present = level.manifest.getFiles().containsKey(fileName);
+            } else {
+                present = Files.isRegularFile(file);
+            }
+            if (present && level.manifest != null) {
+                try (InputStream in = level.manifest.openFile(level.directory, fileName)) {
+                    table.upsertAll(in, fileName);
+                }
+                bytes += level.manifest.getFileSize(level.directory, fileName);
+            } else if (present) {
+                table.upsertAll(file);
+                bytes += Files.size(file);
+            }
+            if (level.manifest != null && level.manifest.getFiles().containsKey(BackupManager.REMOVED_FILE)) {
+                try (InputStream in = level.manifest.openFile(level.directory, BackupManager.REMOVED_FILE)) {
+                    BackupManager.applyRemovals(in, tables);
+                }
+            }
+        }
+        
+        Loaded<T> loaded = new Loaded<>(bytes);
+        for (String[] row : table.getRows()) {
+            try {
+                loaded.records.put(row[0], mapper.map(row));
+            } catch (InvalidDataException e) {
+                loaded.problems.add(fileName + " row " + row[0] + ": " + e.getMessage());
+            }
+        }
+        return loaded;
+    }
+    
+    private static void checkIntegrity(Map<String, Student> students, Map<String, Course> courses,
+                                       Map<String, Enrollment> enrollments, List<String> problems) {
+        Map<String, String> regNos = new HashMap<>();
+        for (Student student : students.values()) {
+            String other = regNos.putIfAbsent(student.getRegNo(), student.getId());
+            if (other != null) {
+                problems.add("Students " + other + " and " + student.getId()
+                    + " share registration number " + student.getRegNo());
+            }
+        }
+        
+        Set<String> pairs = new HashSet<>();
+        for (Enrollment enrollment : enrollments.values()) {
+            String id = enrollment.getEnrollmentId();
+            if (!students.containsKey(enrollment.getStudentId())) {
+                problems.add("Enrollment " + id + " refers to missing student " + enrollment.getStudentId());
+            }
+            if (!courses.containsKey(enrollment.getCourseCode())) {
+                problems.add("Enrollment " + id + " refers to missing course " + enrollment.getCourseCode());
+            }
+            if (!pairs.add(enrollment.getStudentId() + '\u0000' + enrollment.getCourseCode())) {
+                problems.add("Enrollment " + id + " duplicates student " + enrollment.getStudentId()
+                    + " in course " + enrollment.getCourseCode());
+            }
+        }
+    }
+    
+    /**
+     * Map ID,RegNo,FullName,Email,Status,EnrollmentDate to a student
+     */
+    private static Student toStudent(String[] fields) throws InvalidDataException {
+        requireFields(fields, 6);
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            return new Student(fields[0], fields[1], fields[2], fields[3],
+                Student.StudentStatus.valueOf(fields[4]), LocalDate.parse(fields[5]), now, now, List.of());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidDataException(e.getMessage());
+        }
+    }
+    
+    private static void requireFields(String[] fields, int count) throws InvalidDataException {
+        if (fields.length < count) {
+            throw new InvalidDataException("Expected " + count + " fields but found " + fields.length);
+        }
+    }
+    
+    private static <T> T await(Future<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Restore interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Restore failed: " + e.getCause(), e.getCause());
+        }
+    }
+    
+    /**
+     * Maps Code,Title,Credits,Instructor,Department,Semester to a course
+     * Backups carry only the instructor's name, so one instructor is recreated per distinct name.
+     */
+    private static final class CourseMapper implements RecordMapper<Course> {
+        private final Map<String, Instructor> instructors = new HashMap<>();
+        
+        @Override
+        public Course map(String[] fields) throws InvalidDataException {
+            requireFields(fields, 6);
+            try {
+                LocalDateTime now = LocalDateTime.now();
+                return new Course.Builder()
+                    .setCode(fields[0])
+                    .setTitle(fields[1])
+                    .setCredits(Integer.parseInt(fields[2]))
+                    .setInstructor(fields[3].isEmpty() ? null : instructor(fields[3], fields[0]))
+                    .setDepartment(fields[4].isEmpty() ? null : fields[4])
+                    .setSemester(fields[5].isEmpty() ? null : Semester.valueOf(fields[5].toUpperCase()))
+                    .setTimestamps(now, now)
+                    .build();
+            } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                throw new InvalidDataException(e.getMessage());
+            }
+        }
+        
+        private Instructor instructor(String fullName, String courseCode) {
+            Instructor instructor = instructors.computeIfAbsent(fullName, name -> {
+                int number = instructors.size() + 1;
+                return new Instructor("INST_" + number, "I" + number, name,
+                    name.toLowerCase().replace(" ", ".") + "@university.edu");
+            });
+            instructor.assignCourse(courseCode);
+            return instructor;
+        }
+    }
+    
+    private static final class Level {
+        private final Path directory;
+        private final BackupManifest manifest; // null for a backup without a manifest
+        
+        Level(Path directory, BackupManifest manifest) {
+            this.directory = directory;
+            this.manifest = manifest;
+        }
+    }
+    
+    private static final class Loaded<T> {
+        private final Map<String, T> records = new LinkedHashMap<>();
+        private final List<String> problems = new ArrayList<>();
+        private final long bytes;
+        
+        Loaded(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.ccrm.io;
+
+/**
+ * Disk usage of the backup directory
+ * Logical size is what the backups would take as full copies of their files;
+ * physical size is what is actually on disk after chunks are shared.
+ */
+public class BackupUsage {
+    private final int backups;
+    private final long logicalBytes;
+    private final long physicalBytes;
+    private final long chunkCount;
+    
+    public BackupUsage(int backups, long logicalBytes, long physicalBytes, long chunkCount) {
+        this.backups = backups;
+        this.logicalBytes = logicalBytes;
+        this.physicalBytes = physicalBytes;
+        this.chunkCount = chunkCount;
+    }
+    
+    // Getters
+    public int getBackups() { return backups; }
+    public long getLogicalBytes() { return logicalBytes; }
+    public long getPhysicalBytes() { return physicalBytes; }
+    public long getChunkCount() { return chunkCount; }
+    
+    /**
+     * Logical over physical size; 1.0 when nothing is shared
+     */
+    public double getDeduplicationRatio() {
+        return physicalBytes == 0 ? 1.0 : (double) logicalBytes / physicalBytes;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d backups: %d bytes logical, %d bytes physical (%.1fx) in %d chunks",
+            backups, logicalBytes, physicalBytes, getDeduplicationRatio(), chunkCount);
+    }
+}
@@ -0,0 +1,19 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exceptions.CCRMException;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Applies a batch of imported objects to a service
+ */
+@FunctionalInterface
+public interface BatchCommitter<T> {
+    /**
+     * @param batch Objects to add, in file order
+     * @param onError Receives every object that was rejected and why
+     * @return Number of objects added
+     */
+    int commit(List<T> batch, BiConsumer<T, CCRMException> onError);
+}
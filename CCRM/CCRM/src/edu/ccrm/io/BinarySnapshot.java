@@ -0,0 +1,575 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Compact binary snapshot of the full application state
+ *
+ * Layout (version 2; version 1 lacks enrollment updatedAt):
+ *   "CCRMSNAP" magic, int version,
+ *   varint counts of strings, instructors, courses, students and enrollments,
+ *   string dictionary (varint byte length + UTF-8),
+ *   instructor, course, student and enrollment records (generated enrollment
+ *   IDs are stored as their millis suffix only),
+ *   int CRC32 of everything before it.
+ *
+ * Every string is stored once in the dictionary and referenced by varint index
+ * (0 = null). Enums are stored as ordinal + 1 and dates as zig-zag varints, with
+ * updatedAt relative to createdAt (enrollmentDate for enrollments). Written
+ * through a FileChannel to a temporary file that replaces the snapshot
+ * atomically; loaded through a memory mapping.
+ */
+public class BinarySnapshot {
+    private static final byte[] MAGIC = "CCRMSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 2;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    
+    private static final int HAS_GRADE = 1;
+    private static final int HAS_MARKS = 2;
+    private static final int DERIVED_ID = 4;
+    private static final String ENROLLMENT_ID_PREFIX = "ENR_";
+    
+    /**
+     * Write students, courses (with their instructors) and enrollments to the file
+     */
+    public SnapshotInfo save(Path file, StudentService studentService, CourseService courseService,
+                             EnrollmentService enrollmentService) throws IOException {
+        long startNanos = System.nanoTime();
+        List<Student> students = studentService.getAllStudents();
+        List<Course> courses = courseService.getAllCourses();
+        List<Enrollment> enrollments = enrollmentService.getAllEnrollments();
+        
+        // Pass 1: build the string dictionary and the distinct instructors
+        Dictionary dictionary = new Dictionary();
+        Map<Instructor, Integer> instructorIndex = new IdentityHashMap<>();
+        List<Instructor> instructors = new ArrayList<>();
+        for (Course course : courses) {
+            Instructor instructor = course.getInstructor();
+            if (instructor != null && !instructorIndex.containsKey(instructor)) {
+                instructorIndex.put(instructor, instructors.size());
+                instructors.add(instructor);
+                dictionary.add(instructor.getId(), instructor.getRegNo(), instructor.getFullName(),
+                    instructor.getEmail(), instructor.getDepartment());
+                instructor.getAssignedCourseIds().forEach(dictionary::add);
+            }
+            dictionary.add(course.getCode(), course.getTitle(), course.getDepartment());
+        }
+        for (Student student : students) {
+            dictionary.add(student.getId(), student.getRegNo(), student.getFullName(), student.getEmail());
+            student.getEnrolledCourseIds().forEach(dictionary::add);
+        }
+        for (Enrollment enrollment : enrollments) {
+            dictionary.add(enrollment.getStudentId(), enrollment.getCourseCode());
+            if (derivedIdMillis(enrollment) < 0) {
+                dictionary.add(enrollment.getEnrollmentId());
+            }
+        }
+        
+        // Pass 2: write to a temporary file, then swap it in
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putBytes(MAGIC);
+            out.putInt(VERSION);
+            out.putVarint(dictionary.strings.size());
+            out.putVarint(instructors.size());
+            out.putVarint(courses.size());
+            out.putVarint(students.size());
+            out.putVarint(enrollments.size());
+            
+            for (String value : dictionary.strings) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.putVarint(bytes.length);
+                out.putBytes(bytes);
+            }
+            
+            for (Instructor instructor : instructors) {
+                out.putVarint(dictionary.ref(instructor.getId()));
+                out.putVarint(dictionary.ref(instructor.getRegNo()));
+                out.putVarint(dictionary.ref(instructor.getFullName()));
+                out.putVarint(dictionary.ref(instructor.getEmail()));
+                out.putVarint(dictionary.ref(instructor.getDepartment()));
+                out.putTimestamps(instructor.getCreatedAt(), instructor.getUpdatedAt());
+                out.putRefs(dictionary, instructor.getAssignedCourseIds());
+            }
+            
+            for (Course course : courses) {
+                out.putVarint(dictionary.ref(course.getCode()));
+                out.putVarint(dictionary.ref(course.getTitle()));
+                out.putVarint(course.getCredits());
+                out.putVarint(course.getInstructor() != null ? instructorIndex.get(course.getInstructor()) + 1 : 0);
+                out.putVarint(dictionary.ref(course.getDepartment()));
+                out.putVarint(course.getSemester() != null ? course.getSemester().ordinal() + 1 : 0);
+                out.putTimestamps(course.getCreatedAt(), course.getUpdatedAt());
+            }
+            
+            for (Student student : students) {
+                out.putVarint(dictionary.ref(student.getId()));
+                out.putVarint(dictionary.ref(student.getRegNo()));
+                out.putVarint(dictionary.ref(student.getFullName()));
+                out.putVarint(dictionary.ref(student.getEmail()));
+                out.putVarint(student.getStatus() != null ? student.getStatus().ordinal() + 1 : 0);
+                out.putDate(student.getEnrollmentDate());
+                out.putTimestamps(student.getCreatedAt(), student.getUpdatedAt());
+                out.putRefs(dictionary, student.getEnrolledCourseIds());
+            }
+            
+            for (Enrollment enrollment : enrollments) {
+                long idMillis = derivedIdMillis(enrollment);
+                int flags = (enrollment.getGrade() != null ? HAS_GRADE : 0)
+                    | (enrollment.getMarks() != null ? HAS_MARKS : 0)
+                    | (idMillis >= 0 ? DERIVED_ID : 0);
+                out.putVarint(flags);
+                out.putVarint(dictionary.ref(enrollment.getStudentId()));
+                out.putVarint(dictionary.ref(enrollment.getCourseCode()));
+                if (idMillis >= 0) {
+                    out.putVarlong(idMillis);
+                } else {
+                    out.putVarint(dictionary.ref(enrollment.getEnrollmentId()));
+                }
+                out.putTimestamps(enrollment.getEnrollmentDate(), enrollment.getUpdatedAt());
+                if (enrollment.getGrade() != null) {
+                    out.putVarint(enrollment.getGrade().ordinal());
+                }
+                if (enrollment.getMarks() != null) {
+                    out.putLong(Double.doubleToLongBits(enrollment.getMarks()));
+                }
+            }
+            
+            out.finish();
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        return new SnapshotInfo(file, students.size(), courses.size(), instructors.size(), enrollments.size(),
+            Files.size(file), System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Verify the snapshot and replace the contents of the services with it
+     * Nothing is replaced if the file is truncated, corrupt or of an unknown version
+     */
+    public SnapshotInfo load(Path file, StudentService studentService, CourseService courseService,
+                             EnrollmentService enrollmentService) throws IOException {
+        long startNanos = System.nanoTime();
+        MappedByteBuffer buffer;
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + file);
+            }
+            if (size < MAGIC.length + Integer.BYTES * 2) {
+                throw new IOException("Snapshot is truncated: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a CCRM snapshot: " + file);
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        
+        int bodyEnd = (int) size - Integer.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(bodyEnd));
+        if ((int) crc.getValue() != buffer.getInt(bodyEnd)) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+        
+        try {
+            Input in = new Input(buffer.limit(bodyEnd));
+            String[] strings = new String[in.getCount() + 1];
+            Instructor[] instructors = new Instructor[in.getCount()];
+            int courseCount = in.getCount();
+            int studentCount = in.getCount();
+            int enrollmentCount = in.getCount();
+            
+            byte[] scratch = new byte[256];
+            for (int i = 1; i < strings.length; i++) {
+                int length = in.getCount();
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            in.strings = strings;
+            
+            for (int i = 0; i < instructors.length; i++) {
+                String id = in.getString();
+                String regNo = in.getString();
+                String fullName = in.getString();
+                String email = in.getString();
+                String department = in.getString();
+                LocalDateTime createdAt = in.getDateTime();
+                LocalDateTime updatedAt = in.getUpdatedAt(createdAt);
+                instructors[i] = new Instructor(id, regNo, fullName, email, department,
+                    createdAt, updatedAt, in.getStrings());
+            }
+            
+            Semester[] semesters = Semester.values();
+            List<Course> courses = new ArrayList<>(courseCount);
+            for (int i = 0; i < courseCount; i++) {
+                String code = in.getString();
+                String title = in.getString();
+                int credits = in.getVarint();
+                int instructor = in.getVarint();
+                String department = in.getString();
+                int semester = in.getVarint();
+                LocalDateTime createdAt = in.getDateTime();
+                LocalDateTime updatedAt = in.getUpdatedAt(createdAt);
+                courses.add(new Course.Builder()
+                    .setCode(code)
+                    .setTitle(title)
+                    .setCredits(credits)
+                    .setInstructor(instructor > 0 ? instructors[instructor - 1] : null)
+                    .setDepartment(department)
+                    .setSemester(semester > 0 ? semesters[semester - 1] : null)
+                    .setTimestamps(createdAt, updatedAt)
+                    .build());
+            }
+            
+            Student.StudentStatus[] statuses = Student.StudentStatus.values();
+            List<Student> students = new ArrayList<>(studentCount);
+            for (int i = 0; i < studentCount; i++) {
+                String id = in.getString();
+                String regNo = in.getString();
+                String fullName = in.getString();
+                String email = in.getString();
+                int status = in.getVarint();
+                LocalDate enrollmentDate = in.getDate();
+                LocalDateTime createdAt = in.getDateTime();
+                LocalDateTime updatedAt = in.getUpdatedAt(createdAt);
+                students.add(new Student(id, regNo, fullName, email, status > 0 ? statuses[status - 1] : null,
+                    enrollmentDate, createdAt, updatedAt, in.getStrings()));
+            }
+            
+            Grade[] grades = Grade.values();
+            List<Enrollment> enrollments = new ArrayList<>(enrollmentCount);
+            for (int i = 0; i < enrollmentCount; i++) {
+                int flags = in.getVarint();
+                String studentId = in.getString();
+                String courseCode = in.getString();
+                String id = (flags & DERIVED_ID) != 0
+                    ? ENROLLMENT_ID_PREFIX + studentId + "_" + courseCode + "_" + in.getVarlong()
+                    : in.getString();
+                LocalDateTime enrollmentDate = in.getDateTime();
+                LocalDateTime updatedAt = version >= 2 ? in.getUpdatedAt(enrollmentDate) : enrollmentDate;
+                Grade grade = (flags & HAS_GRADE) != 0 ? grades[in.getVarint()] : null;
+                Double marks = (flags & HAS_MARKS) != 0 ? Double.longBitsToDouble(buffer.getLong()) : null;
+                enrollments.add(new Enrollment(id, studentId, courseCode, enrollmentDate, grade, marks, updatedAt));
+            }
+            
+            if (buffer.hasRemaining()) {
+                throw new IOException("Unexpected data after the last record in " + file);
+            }
+            
+            // Courses first: replacing enrollments rebuilds rank data that looks up course credits
+            courseService.replaceAll(courses);
+            studentService.replaceAll(students);
+            enrollmentService.replaceAll(enrollments);
+            
+            return new SnapshotInfo(file, students.size(), courses.size(), instructors.length, enrollments.size(),
+                size, System.nanoTime() - startNanos);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt snapshot " + file + ": " + e, e);
+        }
+    }
+    
+    /**
+     * Millis suffix of an ID generated as ENR_studentId_courseCode_millis, or -1
+     * Such IDs are stored as the number alone instead of a dictionary string
+     */
+    private static long derivedIdMillis(Enrollment enrollment) {
+        String id = enrollment.getEnrollmentId();
+        String studentId = enrollment.getStudentId();
+        String courseCode = enrollment.getCourseCode();
+        if (id == null || studentId == null || courseCode == null) {
+            return -1;
+        }
+        int prefixLength = ENROLLMENT_ID_PREFIX.length() + studentId.length() + courseCode.length() + 2;
+        int digits = id.length() - prefixLength;
+        if (digits < 1 || digits > 18 || !id.startsWith(ENROLLMENT_ID_PREFIX)
+                || !id.startsWith(studentId, ENROLLMENT_ID_PREFIX.length())
+                || id.charAt(ENROLLMENT_ID_PREFIX.length() + studentId.length()) != '_'
+                || !id.startsWith(courseCode, ENROLLMENT_ID_PREFIX.length() + studentId.length() + 1)
+                || id.charAt(prefixLength - 1) != '_'
+                || (digits > 1 && id.charAt(prefixLength) == '0')) {
+            return -1;
+        }
+        long millis = 0;
+        for (int i = prefixLength; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            millis = millis * 10 + (c - '0');
+        }
+        return millis;
+    }
+    
+    /**
+     * String dictionary assigning indexes in first-seen order (0 = null)
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        
+        void add(String... values) {
+            for (String value : values) {
+                add(value);
+            }
+        }
+        
+        void add(String value) {
+            if (value != null && !index.containsKey(value)) {
+                strings.add(value);
+                index.put(value, strings.size());
+            }
+        }
+        
+        int ref(String value) {
+            return value != null ? index.get(value) : 0;
+        }
+    }
+    
+    /**
+     * Buffered channel writer that checksums everything it writes
+     */
+    private static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        void putVarint(int value) throws IOException {
+            putVarlong(value & 0xFFFFFFFFL);
+        }
+        
+        void putVarlong(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+        
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+        
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+        
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+        
+        void putRefs(Dictionary dictionary, List<String> values) throws IOException {
+            putVarint(values.size());
+            for (String value : values) {
+                putVarint(dictionary.ref(value));
+            }
+        }
+        
+        /**
+         * Zig-zag epoch day + 1, or 0 for null
+         */
+        void putDate(LocalDate date) throws IOException {
+            putVarlong(date != null ? zigZag(date.toEpochDay()) + 1 : 0);
+        }
+        
+        /**
+         * Zig-zag epoch second + 1 (0 for null), then nanos
+         */
+        void putDateTime(LocalDateTime dateTime) throws IOException {
+            if (dateTime == null) {
+                putVarlong(0);
+                return;
+            }
+            putVarlong(zigZag(dateTime.toEpochSecond(ZoneOffset.UTC)) + 1);
+            putVarint(dateTime.getNano());
+        }
+        
+        /**
+         * createdAt in full, updatedAt as seconds and nanos relative to it
+         */
+        void putTimestamps(LocalDateTime createdAt, LocalDateTime updatedAt) throws IOException {
+            putDateTime(createdAt);
+            if (createdAt == null || updatedAt == null) {
+                putDateTime(updatedAt);
+                return;
+            }
+            putVarlong(zigZag(updatedAt.toEpochSecond(ZoneOffset.UTC) - createdAt.toEpochSecond(ZoneOffset.UTC)) + 1);
+            putVarint(updatedAt.getNano());
+        }
+        
+        /**
+         * Flush the buffer and append the CRC of everything written
+         */
+        void finish() throws IOException {
+            drain();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+        
+        private void drain() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+    
+    /**
+     * Decoder over the mapped snapshot body
+     */
+    private static final class Input {
+        private final ByteBuffer buffer;
+        private String[] strings;
+        
+        Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        int getVarint() throws IOException {
+            long value = getVarlong();
+            if (value > 0xFFFFFFFFL) {
+                throw new IOException("Varint out of range");
+            }
+            return (int) value;
+        }
+        
+        long getVarlong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+        
+        /**
+         * Count or length, bounded by the bytes left so corrupt input cannot force huge allocations
+         */
+        int getCount() throws IOException {
+            int count = getVarint();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IOException("Count " + count + " exceeds remaining snapshot data");
+            }
+            return count;
+        }
+        
+        String getString() throws IOException {
+            return strings[getVarint()];
+        }
+        
+        List<String> getStrings() throws IOException {
+            int count = getVarint();
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(getString());
+            }
+            return values;
+        }
+        
+        LocalDate getDate() throws IOException {
+            long value = getVarlong();
+            return value == 0 ? null : LocalDate.ofEpochDay(unZigZag(value - 1));
+        }
+        
+        LocalDateTime getDateTime() throws IOException {
+            long value = getVarlong();
+            if (value == 0) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(unZigZag(value - 1), getVarint(), ZoneOffset.UTC);
+        }
+        
+        LocalDateTime getUpdatedAt(LocalDateTime createdAt) throws IOException {
+            if (createdAt == null) {
+                return getDateTime();
+            }
+            long value = getVarlong();
+            if (value == 0) {
+                return null;
+            }
+            long seconds = createdAt.toEpochSecond(ZoneOffset.UTC) + unZigZag(value - 1);
+            return LocalDateTime.ofEpochSecond(seconds, getVarint(), ZoneOffset.UTC);
+        }
+        
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
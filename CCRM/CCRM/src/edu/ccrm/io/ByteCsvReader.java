@@ -0,0 +1,120 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads CSV records from a file channel in chunks, tracking the byte offset after each record
+ * The offset is where reading can resume later without rescanning the file. A chunk
+ * only yields records that end inside it; a record longer than a chunk makes the
+ * next read larger. A CRLF split across chunks, or across a resume, is counted once.
+ */
+final class ByteCsvReader {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    
+    private final FileChannel channel;
+    private final long end;
+    private final boolean completeLinesOnly;
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+    private ByteCsvTokenizer tokenizer;
+    private long bufferOffset;
+    private long offset;
+    private long lineNumber;
+    private int chunkSize = CHUNK_SIZE;
+    
+    /**
+     * @param start Byte offset of the first record to read
+     * @param lineBase Lines before that offset, for record line numbers
+     * @param end Offset to stop at, usually the file size
+     * @param completeLinesOnly Leave a last record without a line break unread
+     */
+    ByteCsvReader(FileChannel channel, long start, long lineBase, long end, boolean completeLinesOnly) {
+        this.channel = channel;
+        this.offset = start;
+        this.bufferOffset = start;
+        this.lineNumber = lineBase;
+        this.end = end;
+        this.completeLinesOnly = completeLinesOnly;
+    }
+    
+    /**
+     * Advance to the next non-blank record
+     * @return false when no further (complete) record is left before the end
+     */
+    boolean nextRecord() throws IOException {
+        while (true) {
+            if (tokenizer != null) {
+                if (tokenizer.nextRecord()) {
+                    offset = bufferOffset + tokenizer.getPosition();
+                    lineNumber = tokenizer.getLineNumber();
+                    return true;
+                }
+                boolean progressed = tokenizer.getPosition() > buffer.position();
+                offset = bufferOffset + tokenizer.getPosition();
+                lineNumber = tokenizer.getLineNumber();
+                if (!progressed) {
+                    if (bufferOffset + buffer.limit() >= end) {
+                        return false; // Only an unfinished record is left
+                    }
+                    chunkSize *= 2; // A single record longer than the chunk
+                }
+            }
+            if (offset >= end) {
+                return false;
+            }
+            fill();
+        }
+    }
+    
+    String[] getFieldArray() {
+        return tokenizer.getFieldArray();
+    }
+    
+    long getRecordLineNumber() {
+        return tokenizer.getRecordLineNumber();
+    }
+    
+    /**
+     * Byte offset just after the last record returned (or skipped blank line)
+     */
+    long getOffset() {
+        return offset;
+    }
+    
+    /**
+     * Lines up to the offset
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+    
+    private void fill() throws IOException {
+        boolean afterCarriageReturn;
+        if (tokenizer != null) {
+            afterCarriageReturn = tokenizer.getPosition() > 0 && buffer.get(tokenizer.getPosition() - 1) == '\r';
+        } else {
+            // Resuming at an offset: the record before may have ended with CR
+            ByteBuffer previous = ByteBuffer.allocate(1);
+            afterCarriageReturn = offset > 0 && channel.read(previous, offset - 1) == 1 && previous.get(0) == '\r';
+        }
+        int length = (int) Math.min(chunkSize, end - offset);
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(length);
+        }
+        buffer.clear().limit(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        bufferOffset = offset;
+        if (afterCarriageReturn && buffer.hasRemaining() && buffer.get(0) == '\n') {
+            buffer.position(1); // LF of a CRLF that ended the previous chunk
+        }
+        tokenizer = new ByteCsvTokenizer(buffer);
+        tokenizer.setRequireTerminator(completeLinesOnly || bufferOffset + buffer.limit() < end);
+        tokenizer.setLineBase(lineNumber);
+    }
+}
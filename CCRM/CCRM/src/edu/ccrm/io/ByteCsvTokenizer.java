@@ -0,0 +1,233 @@
+package edu.ccrm.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV tokenizer working directly on UTF-8 bytes
+ * Delimiters, quotes and line breaks are ASCII and never occur inside a multi-byte
+ * UTF-8 sequence, so records can be split on bytes and only field values decoded.
+ * Reads the buffer from its position to its limit without changing either.
+ * Same rules as CSVParser: unquoted fields trimmed, blank lines skipped.
+ */
+public class ByteCsvTokenizer {
+    private static final byte QUOTE = '"';
+    
+    private final ByteBuffer buffer;
+    private final byte delimiter;
+    private final int limit;
+    private int position;
+    
+    // Reusable record storage: unescaped field bytes back to back plus end offsets
+    private byte[] data = new byte[256];
+    private int dataLength;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private boolean lastFieldQuoted;
+    
+    private long lineNumber;
+    private long recordLineNumber;
+    private int recordStart;
+    private boolean lastWasCarriageReturn;
+    private boolean requireTerminator;
+    
+    public ByteCsvTokenizer(ByteBuffer buffer) {
+        this(buffer, ',');
+    }
+    
+    public ByteCsvTokenizer(ByteBuffer buffer, char delimiter) {
+        if (delimiter > 0x7F || delimiter == QUOTE || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Delimiter must be an ASCII character other than quote or newline");
+        }
+        this.buffer = buffer;
+        this.delimiter = (byte) delimiter;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+    
+    /**
+     * Only return records that end with a line break; a trailing partial record
+     * is left unread (its start is available from getPosition)
+     */
+    public void setRequireTerminator(boolean requireTerminator) {
+        this.requireTerminator = requireTerminator;
+    }
+    
+    /**
+     * Line number given to the first line of the buffer minus one
+     */
+    public void setLineBase(long lineBase) {
+        this.lineNumber = lineBase;
+    }
+    
+    /**
+     * Advance to the next non-blank record
+     * @return false when the buffer holds no further (complete) record
+     */
+    public boolean nextRecord() {
+        while (readRecord()) {
+            if (!(fieldCount == 1 && fieldEnds[0] == 0 && !lastFieldQuoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public int getFieldCount() {
+        return fieldCount;
+    }
+    
+    /**
+     * Decode a field of the current record
+     */
+    public String getField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        return new String(data, start, fieldEnds[index] - start, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * All fields of the current record as a new array
+     */
+    public String[] getFieldArray() {
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = getField(i);
+        }
+        return fields;
+    }
+    
+    /**
+     * Line on which the current record starts (1-based, plus the line base)
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+    
+    /**
+     * Line terminators consumed so far (plus the line base)
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+    
+    /**
+     * Absolute buffer index just after the last record returned
+     */
+    public int getPosition() {
+        return position;
+    }
+    
+    /**
+     * Absolute buffer index where the current record starts
+     */
+    public int getRecordStart() {
+        return recordStart;
+    }
+    
+    private boolean readRecord() {
+        fieldCount = 0;
+        dataLength = 0;
+        lastFieldQuoted = false;
+        
+        // Skip the LF of a CRLF that ended the previous record
+        if (lastWasCarriageReturn && position < limit && buffer.get(position) == '\n') {
+            position++;
+        }
+        lastWasCarriageReturn = false;
+        if (position >= limit) {
+            return false;
+        }
+        
+        recordStart = position;
+        recordLineNumber = lineNumber + 1;
+        long startLine = lineNumber;
+        int p = position;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        boolean fieldStarted = false;
+        
+        while (p < limit) {
+            byte b = buffer.get(p++);
+            if (inQuotes) {
+                if (b == QUOTE) {
+                    if (p < limit && buffer.get(p) == QUOTE) {
+                        append(QUOTE); // Escaped quote
+                        p++;
+                    } else if (p >= limit && requireTerminator) {
+                        return rollback(startLine); // Cannot tell yet whether "" follows
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    if (b == '\n' && !(p >= 2 && buffer.get(p - 2) == '\r') || b == '\r') {
+                        lineNumber++;
+                    }
+                    append(b);
+                }
+            } else if (b == delimiter) {
+                endField(quoted);
+                quoted = false;
+                fieldStarted = false;
+            } else if (b == '\n' || b == '\r') {
+                lineNumber++;
+                lastWasCarriageReturn = b == '\r';
+                endField(quoted);
+                position = p;
+                return true;
+            } else if (b == QUOTE && !fieldStarted) {
+                quoted = true;
+                inQuotes = true;
+                fieldStarted = true;
+            } else if (!fieldStarted && (b == ' ' || b == '\t')) {
+                // Leading whitespace of a field
+            } else if (quoted && (b == ' ' || b == '\t')) {
+                // Whitespace after a closing quote
+            } else {
+                fieldStarted = true;
+                append(b);
+            }
+        }
+        
+        // End of buffer without a line break
+        if (requireTerminator) {
+            return rollback(startLine);
+        }
+        endField(quoted);
+        position = p;
+        return true;
+    }
+    
+    private boolean rollback(long startLine) {
+        lineNumber = startLine;
+        fieldCount = 0;
+        return false;
+    }
+    
+    private void append(byte b) {
+        if (dataLength == data.length) {
+            byte[] grown = new byte[data.length * 2];
+            System.arraycopy(data, 0, grown, 0, dataLength);
+            data = grown;
+        }
+        data[dataLength++] = b;
+    }
+    
+    private void endField(boolean quoted) {
+        if (!quoted) {
+            int start = fieldCount == 0 ? 0 : fieldEnds[fieldCount - 1];
+            while (dataLength > start && (data[dataLength - 1] == ' ' || data[dataLength - 1] == '\t')) {
+                dataLength--;
+            }
+        }
+        if (fieldCount == fieldEnds.length) {
+            int[] grown = new int[fieldCount * 2];
+            System.arraycopy(fieldEnds, 0, grown, 0, fieldCount);
+            fieldEnds = grown;
+        }
+        lastFieldQuoted = quoted;
+        fieldEnds[fieldCount++] = dataLength;
+    }
+}
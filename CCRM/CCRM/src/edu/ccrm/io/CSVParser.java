@@ -1,17 +1,330 @@
 package edu.ccrm.io;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
- * Simple CSV parser utility
- * Demonstrates string operations and collections
+ * Streaming RFC 4180 CSV parser
+ * A char-level state machine that reads records from a Reader. It handles quoted
+ * fields with delimiters, escaped quotes ("") and embedded line breaks. Field
+ * characters are kept in one reusable buffer, so strings are only created when a
+ * field is requested. Unquoted fields are trimmed and blank lines are skipped.
  */
-public class CSVParser {
+public class CSVParser implements Closeable {
+    private static final char DEFAULT_DELIMITER_CHAR = ',';
     private static final String DEFAULT_DELIMITER = ",";
+    private static final char QUOTE = '"';
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
     
-    private CSVParser() {} // Utility class
+    // Parser states
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+    
+    private final Reader reader;
+    private final char delimiter;
+    private final char[] input = new char[READ_BUFFER_SIZE];
+    private int inputPosition;
+    private int inputLimit;
+    private boolean endOfInput;
+    
+    // Reusable record storage: all field chars back to back plus end offsets
+    private char[] data = new char[256];
+    private int dataLength;
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldQuoted = new boolean[16];
+    private int fieldCount;
+    
+    private long lineNumber;
+    private long recordLineNumber;
+    private long recordCount;
+    private boolean lastWasCarriageReturn;
+    private boolean trimUnquoted = true;
+    
+    public CSVParser(Reader reader) {
+        this(reader, DEFAULT_DELIMITER_CHAR);
+    }
+    
+    public CSVParser(Reader reader, char delimiter) {
+        if (delimiter == QUOTE || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Invalid CSV delimiter: " + delimiter);
+        }
+        this.reader = reader;
+        this.delimiter = delimiter;
+    }
+    
+    /**
+     * Whether leading/trailing whitespace of unquoted fields is removed (default true)
+     */
+    public void setTrimUnquoted(boolean trimUnquoted) {
+        this.trimUnquoted = trimUnquoted;
+    }
+    
+    /**
+     * Advance to the next non-blank record
+     * @return false at end of input
+     */
+    public boolean nextRecord() throws IOException {
+        while (readRecord()) {
+            if (!isBlankRecord()) {
+                recordCount++;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Number of fields in the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+    
+    /**
+     * Field value of the current record
+     */
+    public String getField(int index) {
+        checkIndex(index);
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        return new String(data, start, fieldEnds[index] - start);
+    }
+    
+    /**
+     * Length of a field of the current record without creating a String
+     */
+    public int getFieldLength(int index) {
+        checkIndex(index);
+        return fieldEnds[index] - (index == 0 ? 0 : fieldEnds[index - 1]);
+    }
+    
+    /**
+     * Append a field of the current record to a builder without creating a String
+     */
+    public void appendField(int index, StringBuilder target) {
+        checkIndex(index);
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        target.append(data, start, fieldEnds[index] - start);
+    }
+    
+    /**
+     * All fields of the current record
+     */
+    public List<String> getFields() {
+        List<String> fields = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add(getField(i));
+        }
+        return fields;
+    }
+    
+    /**
+     * All fields of the current record as a new array
+     */
+    public String[] getFieldArray() {
+        String[] fields = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            fields[i] = getField(i);
+        }
+        return fields;
+    }
+    
+    /**
+     * Physical line (1-based) on which the current record starts
+     */
+    public long getRecordLineNumber() {
+        return recordLineNumber;
+    }
+    
+    /**
+     * Number of non-blank records read so far
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+    
+    private boolean readRecord() throws IOException {
+        fieldCount = 0;
+        dataLength = 0;
+        recordLineNumber = lineNumber + 1;
+        
+        int state = FIELD_START;
+        boolean quoted = false;
+        boolean started = false;
+        
+        while (true) {
+            if (inputPosition >= inputLimit && !fill()) {
+                if (!started) {
+                    return false;
+                }
+                endField(quoted);
+                return true;
+            }
+            char c = input[inputPosition++];
+            
+            boolean afterCarriageReturn = lastWasCarriageReturn;
+            lastWasCarriageReturn = c == '\r';
+            if (c == '\r' || (c == '\n' && !afterCarriageReturn)) {
+                lineNumber++;
+            }
+            
+            switch (state) {
+                case FIELD_START:
+                    if (c == '\n' && afterCarriageReturn && !started) {
+                        continue; // Second half of a CRLF that ended the previous record
+                    }
+                    started = true;
+                    if (c == QUOTE) {
+                        quoted = true;
+                        state = QUOTED;
+                    } else if (c == delimiter) {
+                        endField(false);
+                    } else if (c == '\n' || c == '\r') {
+                        endField(false);
+                        return true;
+                    } else if (!(trimUnquoted && isWhitespace(c))) {
+                        append(c);
+                        state = UNQUOTED;
+                    }
+                    break;
+                    
+                case UNQUOTED:
+                    if (c == delimiter) {
+                        endField(quoted);
+                        quoted = false;
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        endField(quoted);
+                        return true;
+                    } else {
+                        append(c);
+                    }
+                    break;
+                    
+                case QUOTED:
+                    if (c == QUOTE) {
+                        state = QUOTE_IN_QUOTED;
+                    } else {
+                        append(c);
+                    }
+                    break;
+                    
+                default: // QUOTE_IN_QUOTED
+                    if (c == QUOTE) {
+                        append(QUOTE); // Escaped quote
+                        state = QUOTED;
+                    } else if (c == delimiter) {
+                        endField(true);
+                        quoted = false;
+                        state = FIELD_START;
+                    } else if (c == '\n' || c == '\r') {
+                        endField(true);
+                        return true;
+                    } else if (!isWhitespace(c)) {
+                        append(c); // Lenient: text after the closing quote is kept
+                        state = UNQUOTED;
+                    }
+                    break;
+            }
+            
+            // Fast path: copy runs of ordinary characters in bulk
+            if (state == UNQUOTED || state == QUOTED) {
+                int start = inputPosition;
+                int position = start;
+                char stop = state == QUOTED ? QUOTE : delimiter;
+                while (position < inputLimit) {
+                    char next = input[position];
+                    if (next == stop || next == '\n' || next == '\r') {
+                        break;
+                    }
+                    position++;
+                }
+                if (position > start) {
+                    appendRun(start, position - start);
+                    inputPosition = position;
+                    lastWasCarriageReturn = false;
+                }
+            }
+        }
+    }
+    
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int read = reader.read(input, 0, input.length);
+        if (read <= 0) {
+            endOfInput = read < 0;
+            inputPosition = 0;
+            inputLimit = 0;
+            return !endOfInput && fill();
+        }
+        inputPosition = 0;
+        inputLimit = read;
+        return true;
+    }
+    
+    private void append(char c) {
+        if (dataLength == data.length) {
+            char[] grown = new char[data.length * 2];
+            System.arraycopy(data, 0, grown, 0, dataLength);
+            data = grown;
+        }
+        data[dataLength++] = c;
+    }
+    
+    private void appendRun(int start, int length) {
+        if (dataLength + length > data.length) {
+            char[] grown = new char[Math.max(data.length * 2, dataLength + length)];
+            System.arraycopy(data, 0, grown, 0, dataLength);
+            data = grown;
+        }
+        System.arraycopy(input, start, data, dataLength, length);
+        dataLength += length;
+    }
+    
+    private void endField(boolean quoted) {
+        if (!quoted && trimUnquoted) {
+            int start = fieldCount == 0 ? 0 : fieldEnds[fieldCount - 1];
+            while (dataLength > start && isWhitespace(data[dataLength - 1])) {
+                dataLength--;
+            }
+        }
+        if (fieldCount == fieldEnds.length) {
+            int[] grownEnds = new int[fieldCount * 2];
+            boolean[] grownQuoted = new boolean[fieldCount * 2];
+            System.arraycopy(fieldEnds, 0, grownEnds, 0, fieldCount);
+            System.arraycopy(fieldQuoted, 0, grownQuoted, 0, fieldCount);
+            fieldEnds = grownEnds;
+            fieldQuoted = grownQuoted;
+        }
+        fieldQuoted[fieldCount] = quoted;
+        fieldEnds[fieldCount++] = dataLength;
+    }
+    
+    private boolean isBlankRecord() {
+        return fieldCount == 1 && fieldEnds[0] == 0 && !fieldQuoted[0];
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+    }
+    
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
     
     /**
      * Parse CSV line into fields
@@ -21,26 +334,34 @@ public class CSVParser {
     }
     
     /**
-     * Parse CSV line with custom delimiter
+     * Parse CSV line with custom single-character delimiter
      */
     public static List<String> parseLine(String line, String delimiter) {
         if (line == null || line.trim().isEmpty()) {
             return new ArrayList<>();
         }
+        if (delimiter == null || delimiter.length() != 1) {
+            throw new IllegalArgumentException("Delimiter must be a single character");
+        }
         
-        return Arrays.stream(line.split(delimiter))
-            .map(String::trim)
-            .map(field -> field.replaceAll("^\"|\"$", "")) // Remove quotes
-            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        try (CSVParser parser = new CSVParser(new StringReader(line), delimiter.charAt(0))) {
+            return parser.nextRecord() ? parser.getFields() : new ArrayList<>();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected I/O error reading a string", e); // StringReader never fails
+        }
     }
     
     /**
      * Convert fields to CSV line
      */
     public static String toCsvLine(List<String> fields) {
-        return String.join(DEFAULT_DELIMITER, 
-            fields.stream()
-                .map(field -> field.contains(",") ? "\"" + field + "\"" : field)
-                .toArray(String[]::new));
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                line.append(DEFAULT_DELIMITER_CHAR);
+            }
+            CsvWriter.appendEscaped(line, fields.get(i), DEFAULT_DELIMITER_CHAR);
+        }
+        return line.toString();
     }
 }
@@ -0,0 +1,316 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Content-addressed store of backup file chunks
+ *
+ * Files are split with content-defined chunking: a gear rolling hash over the bytes
+ * picks the cut points, so an edit only changes the chunks around it and the rest
+ * keep their names. Each chunk is stored once as chunks/ab/abcd... named by its
+ * SHA-256; chunks that already exist are not written again.
+ */
+class ChunkStore {
+    static final String DIRECTORY = "chunks";
+    
+    private static final int MIN_CHUNK = 2 * 1024;
+    private static final int MAX_CHUNK = 64 * 1024;
+    // Cut when the top 13 bits of the hash are zero: about 8KB past MIN_CHUNK on average
+    private static final long CUT_MASK = 0xFFF8_0000_0000_0000L;
+    private static final int READ_BUFFER = 256 * 1024;
+    
+    // Fixed seed: cut points must stay the same across runs for chunks to be shared
+    private static final long[] GEAR = new long[256];
+    
+    static {
+        SplittableRandom random = new SplittableRandom(0x43_43_52_4D_43_44_43L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+    
+    private final Path root;
+    
+    /**
+     * @param root Directory holding the chunks, created on first write
+     */
+    ChunkStore(Path root) {
+        this.root = root;
+    }
+    
+    /**
+     * The store shared by all backups in the given backup directory
+     */
+    static ChunkStore in(Path backupRoot) {
+        return new ChunkStore(backupRoot.resolve(DIRECTORY));
+    }
+    
+    /**
+     * Open a writer that splits what is written into chunks, storing the ones not yet present
+     */
+    ChunkWriter newWriter() {
+        return new ChunkWriter();
+    }
+    
+    /**
+     * Stream the concatenation of the given chunks
+     * @throws NoSuchFileException if any chunk is missing
+     */
+    InputStream open(List<String> chunks) throws IOException {
+        for (String chunk : chunks) {
+            if (!Files.isRegularFile(pathOf(chunk))) {
+                throw new NoSuchFileException(pathOf(chunk).toString(), null, "Backup chunk is missing");
+            }
+        }
+        return new ChunkInputStream(chunks.iterator());
+    }
+    
+    /**
+     * Size of a stored chunk in bytes
+     */
+    long sizeOf(String hash) throws IOException {
+        return Files.size(pathOf(hash));
+    }
+    
+    /**
+     * Delete chunks no backup refers to any more
+     * Chunks modified after the cutoff are kept: a backup being written may not have
+     * listed them in its manifest yet.
+     * @param referenced Hashes of every chunk a remaining manifest lists
+     * @return Bytes freed
+     */
+    long sweep(Set<String> referenced, FileTime cutoff) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        long[] freed = {0};
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String name = file.getFileName().toString();
+                if (!referenced.contains(name) && attrs.lastModifiedTime().compareTo(cutoff) < 0) {
+                    Files.deleteIfExists(file);
+                    freed[0] += attrs.size();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return freed[0];
+    }
+    
+    private static String hash(byte[] chunk, int length) {
+        MessageDigest digest = BackupManifest.newSha256();
+        digest.update(chunk, 0, length);
+        return BackupManifest.toHex(digest.digest());
+    }
+    
+    /**
+     * Start writing a chunk that is not stored yet through an AsynchronousFileChannel
+     * The chunk array must not change until the returned future completes.
+     */
+    private CompletableFuture<Void> store(String hash, byte[] chunk, int length) throws IOException {
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Files.createDirectories(target.getParent());
+        Path tempFile = Files.createTempFile(target.getParent(), hash, ".tmp");
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(tempFile, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return AsyncFileOutput.writeFully(channel, ByteBuffer.wrap(chunk, 0, length), 0)
+            .handle((ignored, failure) -> {
+                try {
+                    channel.close();
+                    if (failure == null) {
+                        // Another backup may store the same chunk concurrently; the content is identical either way
+                        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    }
+                } catch (IOException e) {
+                    failure = failure != null ? failure : e;
+                } finally {
+                    try {
+                        Files.deleteIfExists(tempFile);
+                    } catch (IOException e) {
+                        // Left for the next cleanup of the store
+                    }
+                }
+                if (failure != null) {
+                    throw new CompletionException(failure);
+                }
+                return null;
+            });
+    }
+    
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+    
+    /**
+     * Splits written bytes into content-defined chunks as they arrive
+     * Two chunk buffers alternate: a finished chunk is written asynchronously while
+     * the next one fills. Not thread-safe; the store itself may be written by
+     * several writers at once.
+     */
+    final class ChunkWriter extends OutputStream {
+        private final byte[][] buffers = {new byte[MAX_CHUNK], new byte[MAX_CHUNK]};
+        private final CompletableFuture<?>[] storing = new CompletableFuture<?>[2];
+        private int current;
+        private byte[] chunk = buffers[0];
+        private final MessageDigest fileDigest = BackupManifest.newSha256();
+        private final List<String> chunks = new ArrayList<>();
+        private int chunkLength;
+        private long hash;
+        private long size;
+        private String sha256;
+        
+        private ChunkWriter() {
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (sha256 != null) {
+                throw new IOException("Chunk writer is closed");
+            }
+            fileDigest.update(b, off, len);
+            size += len;
+            byte[] chunk = this.chunk;
+            int chunkLength = this.chunkLength;
+            long hash = this.hash;
+            for (int i = off, end = off + len; i < end; i++) {
+                byte value = b[i];
+                chunk[chunkLength++] = value;
+                hash = (hash << 1) + GEAR[value & 0xFF];
+                if ((chunkLength >= MIN_CHUNK && (hash & CUT_MASK) == 0) || chunkLength == MAX_CHUNK) {
+                    chunk = cut(chunkLength);
+                    chunkLength = 0;
+                    hash = 0;
+                }
+            }
+            this.chunkLength = chunkLength;
+            this.hash = hash;
+        }
+        
+        /**
+         * Store the last partial chunk; further writes fail
+         */
+        @Override
+        public void close() throws IOException {
+            if (sha256 == null) {
+                if (chunkLength > 0) {
+                    cut(chunkLength);
+                    chunkLength = 0;
+                }
+                for (CompletableFuture<?> store : storing) {
+                    if (store != null) {
+                        AsyncFileOutput.await(store);
+                    }
+                }
+                sha256 = BackupManifest.toHex(fileDigest.digest());
+            }
+        }
+        
+        /**
+         * Name the filled chunk and start storing it, then switch to the other buffer
+         * once its own store has finished
+         * @return The buffer to fill next
+         */
+        private byte[] cut(int length) throws IOException {
+            String name = hash(chunk, length);
+            chunks.add(name);
+            storing[current] = store(name, chunk, length);
+            current ^= 1;
+            if (storing[current] != null) {
+                AsyncFileOutput.await(storing[current]);
+            }
+            chunk = buffers[current];
+            return chunk;
+        }
+        
+        /**
+         * Manifest entry for everything written, once closed
+         */
+        BackupManifest.FileEntry toFileEntry(long records) {
+            if (sha256 == null) {
+                throw new IllegalStateException("Chunk writer is still open");
+            }
+            return new BackupManifest.FileEntry(records, sha256, size, chunks);
+        }
+    }
+    
+    /**
+     * Reads chunk files one after another
+     */
+    private final class ChunkInputStream extends InputStream {
+        private final Iterator<String> remaining;
+        private InputStream current;
+        
+        ChunkInputStream(Iterator<String> remaining) {
+            this.remaining = remaining;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == -1 ? -1 : single[0] & 0xFF;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            while (true) {
+                if (current == null) {
+                    if (!remaining.hasNext()) {
+                        return -1;
+                    }
+                    current = Files.newInputStream(pathOf(remaining.next()));
+                }
+                int n = current.read(b, off, len);
+                if (n != -1) {
+                    return n;
+                }
+                current.close();
+                current = null;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
+    }
+}
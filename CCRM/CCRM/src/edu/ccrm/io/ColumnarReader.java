@@ -0,0 +1,400 @@
+package edu.ccrm.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Reads single columns of a columnar table file written by ColumnarWriter
+ *
+ * Layout: "CCRMCOL1" magic, the column data, a footer, then int footer length,
+ * int CRC32 of the footer and the magic again. The footer holds the row count,
+ * rows per block and, per column, its type, dictionary location and every block's
+ * offset, length, bit width, null count and min/max. Blocks are read with
+ * positional reads only when a column is asked for, and the min/max lets a caller
+ * skip blocks that cannot match, so a scan of two columns reads just those bytes.
+ *
+ * STRING columns are dictionary-encoded: the distinct values are stored once,
+ * sorted, and each row is a bit-packed dictionary index. LONG columns (dates,
+ * timestamps, counts) are bit-packed as the offset from the block minimum, so a
+ * block where every value is equal takes no space. DOUBLE columns are plain, with
+ * NaN for null.
+ */
+public class ColumnarReader implements Closeable {
+    static final byte[] MAGIC = "CCRMCOL1".getBytes(StandardCharsets.US_ASCII);
+    static final int VERSION = 1;
+    static final int TRAILER_BYTES = Integer.BYTES * 2 + 8;
+    
+    /**
+     * Value returned for a null LONG, or for a row in a block that was not read
+     */
+    public static final long NULL_LONG = Long.MIN_VALUE;
+    
+    public enum ColumnType { STRING, LONG, DOUBLE }
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final long rowCount;
+    private final int blockRows;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private long bytesRead;
+    
+    private ColumnarReader(Path file, FileChannel channel, DataInputStream footer) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        int version = footer.readInt();
+        if (version != VERSION) {
+            throw new IOException(file + " has unsupported columnar version " + version);
+        }
+        rowCount = footer.readLong();
+        blockRows = footer.readInt();
+        int columnCount = footer.readInt();
+        int blockCount = (int) ((rowCount + blockRows - 1) / blockRows);
+        for (int c = 0; c < columnCount; c++) {
+            Column column = new Column(footer.readUTF(), ColumnType.values()[footer.readByte()], blockCount);
+            column.dictionaryOffset = footer.readLong();
+            column.dictionaryLength = footer.readInt();
+            column.dictionarySize = footer.readInt();
+            for (int b = 0; b < blockCount; b++) {
+                column.offsets[b] = footer.readLong();
+                column.lengths[b] = footer.readInt();
+                column.widths[b] = footer.readByte();
+                column.nullCounts[b] = footer.readInt();
+                column.mins[b] = footer.readLong();
+                column.maxes[b] = footer.readLong();
+            }
+            columns.put(column.name, column);
+        }
+    }
+    
+    /**
+     * Open a table file and read its footer
+     */
+    public static ColumnarReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < MAGIC.length + TRAILER_BYTES) {
+                throw new IOException(file + " is too short to be a columnar file");
+            }
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            int footerLength = trailer.getInt();
+            int footerCrc = trailer.getInt();
+            byte[] magic = new byte[MAGIC.length];
+            trailer.get(magic);
+            if (!Arrays.equals(magic, MAGIC) || footerLength <= 0
+                    || footerLength > size - MAGIC.length - TRAILER_BYTES) {
+                throw new IOException(file + " is not a columnar file");
+            }
+            ByteBuffer footer = read(channel, size - TRAILER_BYTES - footerLength, footerLength);
+            CRC32 crc = new CRC32();
+            crc.update(footer.duplicate());
+            if ((int) crc.getValue() != footerCrc) {
+                throw new IOException(file + " has a corrupt footer");
+            }
+            ColumnarReader reader = new ColumnarReader(file, channel,
+                new DataInputStream(new ByteArrayInputStream(footer.array())));
+            reader.bytesRead = TRAILER_BYTES + footerLength;
+            return reader;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    // Getters
+    public Path getFile() { return file; }
+    public long getRowCount() { return rowCount; }
+    public int getBlockRows() { return blockRows; }
+    public int getBlockCount() { return (int) ((rowCount + blockRows - 1) / blockRows); }
+    public List<String> getColumnNames() { return new ArrayList<>(columns.keySet()); }
+    public ColumnType getColumnType(String name) { return column(name).type; }
+    
+    /**
+     * Bytes read from the file so far, footer included
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    public long getFileSize() throws IOException {
+        return channel.size();
+    }
+    
+    /**
+     * Every block, for reading a whole column
+     */
+    public BitSet allBlocks() {
+        BitSet blocks = new BitSet();
+        blocks.set(0, getBlockCount());
+        return blocks;
+    }
+    
+    /**
+     * Blocks of a STRING column that may contain the value, judged from their min/max alone
+     */
+    public BitSet blocksContaining(String name, String value) throws IOException {
+        Column column = column(name, ColumnType.STRING);
+        int code = Arrays.binarySearch(dictionary(column), value);
+        BitSet blocks = new BitSet();
+        if (code >= 0) {
+            for (int b = 0; b < column.offsets.length; b++) {
+                if (column.hasValues(b) && column.mins[b] <= code && code <= column.maxes[b]) {
+                    blocks.set(b);
+                }
+            }
+        }
+        return blocks;
+    }
+    
+    /**
+     * Blocks of a LONG or DOUBLE column that may hold values in [min, max]
+     */
+    public BitSet blocksInRange(String name, double min, double max) {
+        Column column = column(name);
+        if (column.type == ColumnType.STRING) {
+            throw new IllegalArgumentException("Column " + name + " holds strings; use blocksContaining");
+        }
+        BitSet blocks = new BitSet();
+        for (int b = 0; b < column.offsets.length; b++) {
+            if (column.hasValues(b) && column.min(b) <= max && column.max(b) >= min) {
+                blocks.set(b);
+            }
+        }
+        return blocks;
+    }
+    
+    /**
+     * The sorted distinct values of a STRING column; readCodes indexes into it
+     */
+    public String[] getDictionary(String name) throws IOException {
+        return dictionary(column(name, ColumnType.STRING)).clone();
+    }
+    
+    public int[] readCodes(String name) throws IOException {
+        return readCodes(name, allBlocks());
+    }
+    
+    /**
+     * Dictionary indexes of a STRING column, -1 for null and for rows of blocks not read
+     */
+    public int[] readCodes(String name, BitSet blocks) throws IOException {
+        long[] values = readPacked(column(name, ColumnType.STRING), blocks);
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            codes[i] = values[i] == NULL_LONG ? -1 : (int) values[i];
+        }
+        return codes;
+    }
+    
+    public String[] readStrings(String name) throws IOException {
+        return readStrings(name, allBlocks());
+    }
+    
+    /**
+     * Values of a STRING column; null for nulls and for rows of blocks not read
+     */
+    public String[] readStrings(String name, BitSet blocks) throws IOException {
+        String[] dictionary = dictionary(column(name, ColumnType.STRING));
+        int[] codes = readCodes(name, blocks);
+        String[] values = new String[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            values[i] = codes[i] >= 0 ? dictionary[codes[i]] : null;
+        }
+        return values;
+    }
+    
+    public long[] readLongs(String name) throws IOException {
+        return readLongs(name, allBlocks());
+    }
+    
+    /**
+     * Values of a LONG column; NULL_LONG for nulls and for rows of blocks not read
+     */
+    public long[] readLongs(String name, BitSet blocks) throws IOException {
+        return readPacked(column(name, ColumnType.LONG), blocks);
+    }
+    
+    public double[] readDoubles(String name) throws IOException {
+        return readDoubles(name, allBlocks());
+    }
+    
+    /**
+     * Values of a DOUBLE column; NaN for nulls and for rows of blocks not read
+     */
+    public double[] readDoubles(String name, BitSet blocks) throws IOException {
+        Column column = column(name, ColumnType.DOUBLE);
+        double[] values = new double[(int) rowCount];
+        Arrays.fill(values, Double.NaN);
+        for (int b = blocks.nextSetBit(0); b >= 0 && b < column.offsets.length; b = blocks.nextSetBit(b + 1)) {
+            ByteBuffer block = readBlock(column, b);
+            int first = b * blockRows;
+            int rows = rowsIn(b);
+            for (int i = 0; i < rows; i++) {
+                values[first + i] = block.getDouble();
+            }
+        }
+        return values;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d rows in %d blocks of %d, columns %s", file.getFileName(), rowCount,
+            getBlockCount(), blockRows, columns.keySet());
+    }
+    
+    private long[] readPacked(Column column, BitSet blocks) throws IOException {
+        long[] values = new long[(int) rowCount];
+        Arrays.fill(values, NULL_LONG);
+        for (int b = blocks.nextSetBit(0); b >= 0 && b < column.offsets.length; b = blocks.nextSetBit(b + 1)) {
+            int first = b * blockRows;
+            int rows = rowsIn(b);
+            if (!column.hasValues(b)) {
+                continue;
+            }
+            int width = column.widths[b];
+            boolean nullable = column.nullCounts[b] > 0;
+            long min = column.mins[b];
+            if (width == 0) {
+                Arrays.fill(values, first, first + rows, min); // Every row equal (nulls need a width)
+                continue;
+            }
+            ByteBuffer block = readBlock(column, b);
+            long mask = -1L >>> (Long.SIZE - width);
+            for (int i = 0; i < rows; i++) {
+                long bit = (long) i * width;
+                long raw = (block.getLong((int) (bit >>> 3)) >>> (bit & 7)) & mask;
+                if (nullable) {
+                    values[first + i] = raw == 0 ? NULL_LONG : min + raw - 1;
+                } else {
+                    values[first + i] = min + raw;
+                }
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * A block's bytes, little-endian and padded so a bit-packed value can always be read as one long
+     */
+    private ByteBuffer readBlock(Column column, int block) throws IOException {
+        int length = column.lengths[block];
+        ByteBuffer buffer = ByteBuffer.allocate(length + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.limit(length);
+        readFully(channel, buffer, column.offsets[block]);
+        bytesRead += length;
+        return buffer.clear().limit(length + Long.BYTES);
+    }
+    
+    private String[] dictionary(Column column) throws IOException {
+        if (column.dictionary == null) {
+            ByteBuffer buffer = read(channel, column.dictionaryOffset, column.dictionaryLength);
+            bytesRead += column.dictionaryLength;
+            String[] strings = new String[column.dictionarySize];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            column.dictionary = strings;
+        }
+        return column.dictionary;
+    }
+    
+    private int rowsIn(int block) {
+        return (int) Math.min(blockRows, rowCount - (long) block * blockRows);
+    }
+    
+    private Column column(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("No column " + name + " in " + file.getFileName()
+                + "; columns are " + Collections.unmodifiableSet(columns.keySet()));
+        }
+        return column;
+    }
+    
+    private Column column(String name, ColumnType type) {
+        Column column = column(name);
+        if (column.type != type) {
+            throw new IllegalArgumentException("Column " + name + " holds " + column.type + ", not " + type);
+        }
+        return column;
+    }
+    
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position);
+        return buffer.flip();
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Columnar file ends before byte " + (position + buffer.limit()));
+            }
+        }
+    }
+    
+    /**
+     * Footer entry of one column; min/max of a DOUBLE column are raw double bits
+     */
+    private static final class Column {
+        private final String name;
+        private final ColumnType type;
+        private final long[] offsets;
+        private final int[] lengths;
+        private final byte[] widths;
+        private final int[] nullCounts;
+        private final long[] mins;
+        private final long[] maxes;
+        private long dictionaryOffset;
+        private int dictionaryLength;
+        private int dictionarySize;
+        private String[] dictionary;
+        
+        Column(String name, ColumnType type, int blockCount) {
+            this.name = name;
+            this.type = type;
+            this.offsets = new long[blockCount];
+            this.lengths = new int[blockCount];
+            this.widths = new byte[blockCount];
+            this.nullCounts = new int[blockCount];
+            this.mins = new long[blockCount];
+            this.maxes = new long[blockCount];
+        }
+        
+        boolean hasValues(int block) {
+            // An all-null block has min above max, or NaN for DOUBLE
+            return type == ColumnType.DOUBLE ? !Double.isNaN(min(block)) : mins[block] <= maxes[block];
+        }
+        
+        double min(int block) {
+            return type == ColumnType.DOUBLE ? Double.longBitsToDouble(mins[block]) : mins[block];
+        }
+        
+        double max(int block) {
+            return type == ColumnType.DOUBLE ? Double.longBitsToDouble(maxes[block]) : maxes[block];
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package edu.ccrm.io;
+
+import edu.ccrm.io.ColumnarReader.ColumnType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Builds one columnar table file from a list of rows, a column at a time
+ * Each column is encoded into blocks as it is added; write() lays them out with
+ * the footer described in ColumnarReader.
+ */
+final class ColumnarWriter<T> {
+    static final int DEFAULT_BLOCK_ROWS = 4096;
+    
+    // Widest bit-packed value; wider ones could not be read as a single unaligned long
+    private static final int MAX_WIDTH = Long.SIZE - 7;
+    
+    private final List<T> rows;
+    private final int blockRows;
+    private final List<EncodedColumn> columns = new ArrayList<>();
+    
+    ColumnarWriter(List<T> rows, int blockRows) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("Rows per block must be positive: " + blockRows);
+        }
+        this.rows = rows;
+        this.blockRows = blockRows;
+    }
+    
+    /**
+     * Dictionary-encode a string column; the dictionary is sorted so block min/max apply to values
+     */
+    ColumnarWriter<T> addStrings(String name, Function<T, String> getter) {
+        String[] values = new String[rows.size()];
+        TreeSet<String> distinct = new TreeSet<>();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getter.apply(rows.get(i));
+            if (values[i] != null) {
+                distinct.add(values[i]);
+            }
+        }
+        Map<String, Integer> codes = new HashMap<>(distinct.size() * 2);
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        for (String value : distinct) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dictionary.writeBytes(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+            dictionary.writeBytes(bytes);
+            codes.put(value, codes.size());
+        }
+        long[] indexes = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            indexes[i] = values[i] != null ? codes.get(values[i]) : ColumnarReader.NULL_LONG;
+        }
+        EncodedColumn column = packed(name, ColumnType.STRING, indexes);
+        column.dictionary = dictionary.toByteArray();
+        column.dictionarySize = distinct.size();
+        columns.add(column);
+        return this;
+    }
+    
+    /**
+     * Bit-pack a column of whole numbers; the getter returns NULL_LONG for null
+     */
+    ColumnarWriter<T> addLongs(String name, ToLongFunction<T> getter) {
+        long[] values = new long[rows.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getter.applyAsLong(rows.get(i));
+        }
+        columns.add(packed(name, ColumnType.LONG, values));
+        return this;
+    }
+    
+    /**
+     * Store a column of doubles as is; the getter returns NaN for null
+     */
+    ColumnarWriter<T> addDoubles(String name, ToDoubleFunction<T> getter) {
+        EncodedColumn column = new EncodedColumn(name, ColumnType.DOUBLE, blockCount());
+        for (int b = 0; b < column.blocks.length; b++) {
+            int first = b * blockRows;
+            int count = Math.min(blockRows, rows.size() - first);
+            ByteBuffer block = ByteBuffer.allocate(count * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            double min = Double.NaN;
+            double max = Double.NaN;
+            int nulls = 0;
+            for (int i = 0; i < count; i++) {
+                double value = getter.applyAsDouble(rows.get(first + i));
+                block.putDouble(value);
+                if (Double.isNaN(value)) {
+                    nulls++;
+                } else {
+                    min = Double.isNaN(min) ? value : Math.min(min, value);
+                    max = Double.isNaN(max) ? value : Math.max(max, value);
+                }
+            }
+            column.set(b, block.array(), Double.SIZE, nulls, Double.doubleToLongBits(min),
+                Double.doubleToLongBits(max));
+        }
+        columns.add(column);
+        return this;
+    }
+    
+    /**
+     * Write the table to the file through a temporary file that replaces it
+     * @return Size of the file in bytes
+     */
+    long write(Path file) throws IOException {
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = writeFully(channel, ByteBuffer.wrap(ColumnarReader.MAGIC), 0);
+            for (EncodedColumn column : columns) {
+                column.dictionaryOffset = position;
+                if (column.dictionary != null) {
+                    position = writeFully(channel, ByteBuffer.wrap(column.dictionary), position);
+                }
+                for (int b = 0; b < column.blocks.length; b++) {
+                    column.offsets[b] = position;
+                    position = writeFully(channel, ByteBuffer.wrap(column.blocks[b]), position);
+                }
+            }
+            
+            byte[] footer = footer();
+            CRC32 crc = new CRC32();
+            crc.update(footer);
+            ByteBuffer trailer = ByteBuffer.allocate(ColumnarReader.TRAILER_BYTES);
+            trailer.putInt(footer.length).putInt((int) crc.getValue()).put(ColumnarReader.MAGIC).flip();
+            position = writeFully(channel, ByteBuffer.wrap(footer), position);
+            writeFully(channel, trailer, position);
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(file);
+    }
+    
+    /**
+     * Epoch milliseconds (UTC) of a timestamp, for addLongs
+     */
+    static long millis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC).toEpochMilli() : ColumnarReader.NULL_LONG;
+    }
+    
+    /**
+     * Epoch day of a date, for addLongs
+     */
+    static long epochDay(LocalDate date) {
+        return date != null ? date.toEpochDay() : ColumnarReader.NULL_LONG;
+    }
+    
+    private int blockCount() {
+        return (rows.size() + blockRows - 1) / blockRows;
+    }
+    
+    /**
+     * Frame-of-reference bit packing: each value is stored as its distance from the
+     * block minimum, plus one if the block has nulls (which are stored as 0)
+     */
+    private EncodedColumn packed(String name, ColumnType type, long[] values) {
+        EncodedColumn column = new EncodedColumn(name, type, blockCount());
+        for (int b = 0; b < column.blocks.length; b++) {
+            int first = b * blockRows;
+            int count = Math.min(blockRows, values.length - first);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            int nulls = 0;
+            for (int i = first; i < first + count; i++) {
+                if (values[i] == ColumnarReader.NULL_LONG) {
+                    nulls++;
+                } else {
+                    min = Math.min(min, values[i]);
+                    max = Math.max(max, values[i]);
+                }
+            }
+            if (nulls == count) {
+                column.set(b, new byte[0], 0, nulls, 0, -1);
+                continue;
+            }
+            int bias = nulls > 0 ? 1 : 0;
+            long range = max - min + bias;
+            if (max - min < 0 || range < 0 || Long.SIZE - Long.numberOfLeadingZeros(range) > MAX_WIDTH) {
+                throw new IllegalArgumentException("Values of column " + name + " span too wide a range to pack: "
+                    + min + " to " + max);
+            }
+            int width = Long.SIZE - Long.numberOfLeadingZeros(range);
+            int length = (int) (((long) count * width + 7) / 8);
+            ByteBuffer block = ByteBuffer.allocate(length + Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (width > 0) {
+                for (int i = 0; i < count; i++) {
+                    long raw = values[first + i] == ColumnarReader.NULL_LONG ? 0 : values[first + i] - min + bias;
+                    long bit = (long) i * width;
+                    int index = (int) (bit >>> 3);
+                    block.putLong(index, block.getLong(index) | raw << (bit & 7));
+                }
+            }
+            column.set(b, Arrays.copyOf(block.array(), length), width, nulls, min, max);
+        }
+        return column;
+    }
+    
+    private byte[] footer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(ColumnarReader.VERSION);
+        out.writeLong(rows.size());
+        out.writeInt(blockRows);
+        out.writeInt(columns.size());
+        for (EncodedColumn column : columns) {
+            out.writeUTF(column.name);
+            out.writeByte(column.type.ordinal());
+            out.writeLong(column.dictionaryOffset);
+            out.writeInt(column.dictionary != null ? column.dictionary.length : 0);
+            out.writeInt(column.dictionarySize);
+            for (int b = 0; b < column.blocks.length; b++) {
+                out.writeLong(column.offsets[b]);
+                out.writeInt(column.blocks[b].length);
+                out.writeByte(column.widths[b]);
+                out.writeInt(column.nullCounts[b]);
+                out.writeLong(column.mins[b]);
+                out.writeLong(column.maxes[b]);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        return position;
+    }
+    
+    private static final class EncodedColumn {
+        private final String name;
+        private final ColumnType type;
+        private final byte[][] blocks;
+        private final long[] offsets;
+        private final int[] widths;
+        private final int[] nullCounts;
+        private final long[] mins;
+        private final long[] maxes;
+        private byte[] dictionary;
+        private int dictionarySize;
+        private long dictionaryOffset;
+        
+        EncodedColumn(String name, ColumnType type, int blockCount) {
+            this.name = name;
+            this.type = type;
+            this.blocks = new byte[blockCount][];
+            this.offsets = new long[blockCount];
+            this.widths = new int[blockCount];
+            this.nullCounts = new int[blockCount];
+            this.mins = new long[blockCount];
+            this.maxes = new long[blockCount];
+        }
+        
+        void set(int block, byte[] bytes, int width, int nulls, long min, long max) {
+            blocks[block] = bytes;
+            widths[block] = width;
+            nullCounts[block] = nulls;
+            mins[block] = min;
+            maxes[block] = max;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exceptions.RepositoryException;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fixed-size pool of JDBC connections
+ * Connections are opened on demand up to the pool size and reused afterwards; a
+ * caller borrows one for a unit of work and it is returned when the work ends.
+ * SQLExceptions surface as RepositoryException.
+ */
+final class ConnectionPool implements Closeable {
+    private final String url;
+    private final Semaphore permits;
+    private final BlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+    private volatile boolean closed;
+    
+    /**
+     * Work done with one borrowed connection
+     */
+    @FunctionalInterface
+    interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+    
+    ConnectionPool(String url, int size) {
+        this.url = url;
+        this.permits = new Semaphore(size, true);
+    }
+    
+    String getUrl() { return url; }
+    
+    <T> T withConnection(SqlWork<T> work) {
+        Connection connection = borrow();
+        boolean broken = false;
+        try {
+            return work.run(connection);
+        } catch (SQLException e) {
+            broken = isBroken(connection);
+            throw new RepositoryException("Database error: " + e.getMessage(), e);
+        } finally {
+            release(connection, broken);
+        }
+    }
+    
+    /**
+     * Run the work in one transaction, rolled back if it fails
+     */
+    <T> T inTransaction(SqlWork<T> work) {
+        return withConnection(connection -> {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+    
+    private Connection borrow() {
+        if (closed) {
+            throw new IllegalStateException("Connection pool is closed: " + url);
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for a database connection", e);
+        }
+        Connection connection = idle.poll();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            return DriverManager.getConnection(url);
+        } catch (SQLException e) {
+            permits.release();
+            throw new RepositoryException("Cannot connect to " + url + ": " + e.getMessage(), e);
+        }
+    }
+    
+    private void release(Connection connection, boolean broken) {
+        if (broken || closed) {
+            closeQuietly(connection);
+        } else {
+            idle.add(connection);
+        }
+        permits.release();
+    }
+    
+    private static boolean isBroken(Connection connection) {
+        try {
+            return connection.isClosed() || !connection.isValid(1);
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+    
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Close the idle connections; borrowed ones are closed as they come back
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            closeQuietly(connection);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package edu.ccrm.io;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Fixed-width report sink for the console
+ * Writes to stdout through a large private buffer instead of synchronized System.out calls
+ */
+public class ConsoleReportSink extends TextReportSink {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    public ConsoleReportSink() {
+        super(new BufferedWriter(
+            new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset()),
+            BUFFER_SIZE));
+    }
+    
+    @Override
+    public void beginReport(String title, Column... columns) throws IOException {
+        System.out.flush(); // Keep ordering with anything already printed
+        super.beginReport(title, columns);
+    }
+    
+    /**
+     * Flush only - stdout must stay open for the rest of the application
+     */
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,40 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * CSV report sink with a header row and RFC 4180 quoting
+ */
+public class CsvReportSink extends AbstractReportSink {
+    
+    public CsvReportSink(Writer writer) {
+        super(writer);
+    }
+    
+    @Override
+    protected void writeHeader(String title) throws IOException {
+        for (Column column : columns) {
+            appendText(column.getName());
+            cellIndex++;
+        }
+        endRow();
+    }
+    
+    @Override
+    protected void appendText(String value) {
+        beforeCell();
+        CsvWriter.appendEscaped(row, value);
+    }
+    
+    @Override
+    protected void beforeCell() {
+        if (cellIndex > 0) {
+            row.append(',');
+        }
+    }
+    
+    @Override
+    protected void afterNumber(int start) {
+    }
+}
@@ -0,0 +1,547 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exceptions.InvalidDataException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Imports CSV files dropped into or appended to a directory, on its own thread
+ *
+ * A WatchService reports changes; a file is read once it has been quiet for the
+ * debounce time (or has kept changing for ten times that), so a burst of writes is
+ * imported in one pass. Only the bytes after the file's tracked offset are read,
+ * and only up to the last complete line, so a record still being written is picked
+ * up on the next pass. The record type is recognised from the header line. Offsets
+ * are kept in a file in the directory, so appends made while the application was
+ * not running are imported at the next start; files that were already there with
+ * no offset are taken as already imported. A file whose bytes before the offset
+ * changed (by the same CRC32s an ImportCheckpoint keeps) was truncated or replaced,
+ * and is read again from the start. Batches are committed while holding the given
+ * lock, which serialises them with other users of the services.
+ */
+public class DirectoryIngester implements Closeable {
+    private static final int MAX_DELAY_FACTOR = 10;
+    private static final int ERROR_LOG_LIMIT = 10;
+    private static final String UNKNOWN_TYPE = "-";
+    private static final String IGNORED_TYPE = "!";
+    
+    private final Path directory;
+    private final Path offsetsFile;
+    private final Lock stateLock;
+    private final long debounceNanos;
+    private final int batchSize;
+    private final List<RecordType<?>> recordTypes = new ArrayList<>();
+    
+    // Only touched by the ingest thread once it is started
+    private final Map<Path, TrackedFile> tracked = new HashMap<>();
+    private final Map<Path, long[]> pending = new HashMap<>(); // {first event, last event} in nanos
+    
+    private final AtomicLong filesRead = new AtomicLong();
+    private final AtomicLong recordsImported = new AtomicLong();
+    private final AtomicLong recordsRejected = new AtomicLong();
+    private volatile String lastIngest = "none yet";
+    private WatchService watcher;
+    private Thread thread;
+    private volatile boolean running;
+    
+    /**
+     * A kind of record the ingester recognises by its header
+     */
+    static final class RecordType<T> {
+        private final String name;
+        private final String[] header;
+        private final RecordMapper<T> mapper;
+        private final BatchCommitter<T> committer;
+        
+        /**
+         * @param header Leading header fields that identify the file (ignoring case)
+         */
+        RecordType(String name, String[] header, RecordMapper<T> mapper, BatchCommitter<T> committer) {
+            this.name = name;
+            this.header = header;
+            this.mapper = mapper;
+            this.committer = committer;
+        }
+        
+        boolean matches(String[] fields) {
+            if (fields.length < header.length) {
+                return false;
+            }
+            for (int i = 0; i < header.length; i++) {
+                if (!header[i].equalsIgnoreCase(fields[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Map and commit rows in batches, holding the lock for each batch
+         * @return Records added
+         */
+        int load(List<String[]> rows, List<Long> lines, int batchSize, Lock lock, RejectHandler rejects) {
+            int added = 0;
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                int to = Math.min(rows.size(), from + batchSize);
+                List<T> batch = new ArrayList<>(to - from);
+                Map<T, Integer> rowOf = new IdentityHashMap<>();
+                lock.lock();
+                try {
+                    for (int i = from; i < to; i++) {
+                        try {
+                            T record = mapper.map(rows.get(i));
+                            batch.add(record);
+                            rowOf.put(record, i);
+                        } catch (InvalidDataException e) {
+                            rejects.reject(lines.get(i), rows.get(i), e.getMessage());
+                        }
+                    }
+                    added += committer.commit(batch, (record, e) -> {
+                        int row = rowOf.get(record);
+                        rejects.reject(lines.get(row), rows.get(row), e.getMessage());
+                    });
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return added;
+        }
+    }
+    
+    /**
+     * How far a file has been imported
+     */
+    private static final class TrackedFile {
+        private long offset;
+        private long lines;
+        private RecordType<?> type;
+        private boolean ignored;
+        private long headCrc = -1; // Of the first bytes before the offset, -1 if not taken yet
+        private long tailCrc = -1; // Of the last bytes before the offset
+    }
+    
+    /**
+     * @param offsetsFile Where the offsets are kept between runs
+     * @param stateLock Held while a batch is applied to the services
+     */
+    DirectoryIngester(Path directory, Path offsetsFile, Lock stateLock, long debounceMillis, int batchSize) {
+        this.directory = directory;
+        this.offsetsFile = offsetsFile;
+        this.stateLock = stateLock;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.batchSize = batchSize;
+    }
+    
+    void addRecordType(RecordType<?> type) {
+        recordTypes.add(type);
+    }
+    
+    /**
+     * Start watching; changes made while the ingester was stopped are queued at once
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        boolean firstRun = !Files.isRegularFile(offsetsFile);
+        loadOffsets();
+        for (Path file : listCandidates()) {
+            TrackedFile state = tracked.get(file);
+            if (state == null && firstRun) {
+                tracked.put(file, baseline(file));
+            } else if (state == null || changedSince(file, state)) {
+                schedule(file);
+            }
+        }
+        saveOffsets();
+        running = true;
+        WatchService events = watcher;
+        thread = new Thread(() -> watchLoop(events), "ccrm-ingest");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    public long getRecordsImported() {
+        return recordsImported.get();
+    }
+    
+    public long getRecordsRejected() {
+        return recordsRejected.get();
+    }
+    
+    private void watchLoop(WatchService events) {
+        try {
+            while (running) {
+                long wait = nanosUntilDue();
+                WatchKey key = wait < 0 ? events.take() : events.poll(wait, TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                    if (!key.reset()) {
+                        System.err.println("Stopped watching " + directory + ": directory is no longer accessible");
+                        running = false;
+                    }
+                }
+                ingestDue();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        } finally {
+            running = false;
+            saveOffsetsQuietly();
+        }
+    }
+    
+    private void handleEvents(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost: look at every file
+                listCandidatesQuietly().forEach(this::schedule);
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (!isCandidateName(file)) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                pending.remove(file);
+                tracked.remove(file);
+                saveOffsetsQuietly();
+            } else {
+                schedule(file);
+            }
+        }
+    }
+    
+    private void schedule(Path file) {
+        long now = System.nanoTime();
+        long[] times = pending.get(file);
+        if (times == null) {
+            pending.put(file, new long[] {now, now});
+        } else {
+            times[1] = now;
+        }
+    }
+    
+    /**
+     * Nanos until the next pending file is due, or -1 if none is pending
+     */
+    private long nanosUntilDue() {
+        if (pending.isEmpty()) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        for (long[] times : pending.values()) {
+            next = Math.min(next, dueAt(times) - now);
+        }
+        return Math.max(1, next);
+    }
+    
+    private long dueAt(long[] times) {
+        return Math.min(times[1] + debounceNanos, times[0] + debounceNanos * MAX_DELAY_FACTOR);
+    }
+    
+    private void ingestDue() {
+        long now = System.nanoTime();
+        List<Path> due = new ArrayList<>();
+        for (Map.Entry<Path, long[]> entry : pending.entrySet()) {
+            if (dueAt(entry.getValue()) <= now) {
+                due.add(entry.getKey());
+            }
+        }
+        for (Path file : due) {
+            pending.remove(file);
+            try {
+                if (Files.isRegularFile(file)) {
+                    ingest(file);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error ingesting " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+        if (!due.isEmpty()) {
+            saveOffsetsQuietly();
+        }
+    }
+    
+    /**
+     * Import the complete records after the file's offset
+     */
+    private void ingest(Path file) throws IOException {
+        TrackedFile state = tracked.computeIfAbsent(file, f -> new TrackedFile());
+        String name = file.getFileName().toString();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!matches(channel, state)) {
+                System.out.println("[ingest] " + name + " was truncated or replaced; reading it from the start");
+                state.offset = 0;
+                state.lines = 0;
+                state.type = null;
+                state.ignored = false;
+                state.headCrc = -1;
+            }
+            if (state.ignored) {
+                moveTo(channel, state, size);
+                return;
+            }
+            
+            long startLine = state.lines + 1;
+            int imported = 0;
+            int[] rejected = {0};
+            RejectHandler rejects = (lineNumber, fields, reason) -> {
+                if (++rejected[0] <= ERROR_LOG_LIMIT) {
+                    System.err.println("Error ingesting " + name + " line " + lineNumber + ": " + reason);
+                }
+            };
+            ByteCsvReader reader = new ByteCsvReader(channel, state.offset, state.lines, size, true);
+            List<String[]> rows = new ArrayList<>(batchSize);
+            List<Long> lines = new ArrayList<>(batchSize);
+            while (true) {
+                boolean more = reader.nextRecord();
+                if (more && state.type == null) {
+                    state.type = detectType(reader.getFieldArray());
+                    if (state.type == null) {
+                        System.out.println("[ingest] Ignoring " + name + ": header not recognised");
+                        state.ignored = true;
+                        moveTo(channel, state, size);
+                        return;
+                    }
+                } else if (more) {
+                    rows.add(reader.getFieldArray());
+                    lines.add(reader.getRecordLineNumber());
+                }
+                if (rows.size() >= batchSize || !more) {
+                    imported += state.type != null ? state.type.load(rows, lines, batchSize, stateLock, rejects) : 0;
+                    rows.clear();
+                    lines.clear();
+                    moveTo(channel, state, reader.getOffset());
+                    state.lines = reader.getLineNumber();
+                }
+                if (!more) {
+                    break;
+                }
+            }
+            
+            if (imported > 0 || rejected[0] > 0) {
+                filesRead.incrementAndGet();
+                recordsImported.addAndGet(imported);
+                recordsRejected.addAndGet(rejected[0]);
+                lastIngest = String.format("%s lines %d-%d: %d %ss imported, %d rejected at %s", name, startLine,
+                    state.lines, imported, state.type.name, rejected[0], LocalDateTime.now().withNano(0));
+                System.out.println("[ingest] " + lastIngest);
+            }
+        }
+    }
+    
+    /**
+     * Whether the bytes before the file's offset are the ones that were imported
+     */
+    private static boolean matches(FileChannel channel, TrackedFile state) throws IOException {
+        if (channel.size() < state.offset) {
+            return false;
+        }
+        if (state.headCrc < 0) {
+            return true; // Offset saved before CRCs were kept
+        }
+        return ImportCheckpoint.crc(channel, 0, Math.min(ImportCheckpoint.FINGERPRINT_BYTES, state.offset))
+                == state.headCrc
+            && ImportCheckpoint.crc(channel, Math.max(0, state.offset - ImportCheckpoint.FINGERPRINT_BYTES),
+                state.offset) == state.tailCrc;
+    }
+    
+    /**
+     * Whether the file grew or changed since it was last read
+     */
+    private static boolean changedSince(Path file, TrackedFile state) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.size() != state.offset || !matches(channel, state);
+        }
+    }
+    
+    /**
+     * Move the offset forward, taking the CRCs of the bytes before it
+     */
+    private static void moveTo(FileChannel channel, TrackedFile state, long offset) throws IOException {
+        if (state.headCrc < 0 || state.offset < ImportCheckpoint.FINGERPRINT_BYTES) {
+            state.headCrc = ImportCheckpoint.crc(channel, 0, Math.min(ImportCheckpoint.FINGERPRINT_BYTES, offset));
+        }
+        state.tailCrc = ImportCheckpoint.crc(channel, Math.max(0, offset - ImportCheckpoint.FINGERPRINT_BYTES), offset);
+        state.offset = offset;
+    }
+    
+    private RecordType<?> detectType(String[] header) {
+        for (RecordType<?> type : recordTypes) {
+            if (type.matches(header)) {
+                return type;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Treat a file that was there before tracking began as already imported
+     */
+    private TrackedFile baseline(Path file) throws IOException {
+        TrackedFile state = new TrackedFile();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            long position = 0;
+            long complete = 0; // Up to the last complete line
+            int read;
+            while ((read = channel.read(buffer, position)) > 0) {
+                buffer.flip();
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        state.lines++;
+                        complete = position + i + 1;
+                    }
+                }
+                if (position == 0) {
+                    ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(buffer);
+                    tokenizer.setRequireTerminator(true);
+                    if (tokenizer.nextRecord()) {
+                        state.type = detectType(tokenizer.getFieldArray());
+                        state.ignored = state.type == null;
+                    }
+                }
+                position += read;
+                buffer.clear();
+            }
+            moveTo(channel, state, complete);
+        }
+        return state;
+    }
+    
+    private List<Path> listCandidates() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(this::isCandidateName).filter(Files::isRegularFile).sorted()
+                .collect(Collectors.toList());
+        }
+    }
+    
+    private List<Path> listCandidatesQuietly() {
+        try {
+            return listCandidates();
+        } catch (IOException e) {
+            System.err.println("Error listing " + directory + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+    
+    private boolean isCandidateName(Path file) {
+        String name = file.getFileName().toString();
+        return !name.startsWith(".") && name.toLowerCase(Locale.ROOT).endsWith(".csv");
+    }
+    
+    /**
+     * Offsets file: one "name=offset,lines,type,headCrc,tailCrc" entry per tracked file
+     */
+    private void loadOffsets() throws IOException {
+        if (!Files.isRegularFile(offsetsFile)) {
+            return;
+        }
+        Properties offsets = new Properties();
+        try (InputStream in = Files.newInputStream(offsetsFile)) {
+            offsets.load(in);
+        }
+        for (String name : offsets.stringPropertyNames()) {
+            String[] parts = offsets.getProperty(name).split(",");
+            try {
+                TrackedFile state = new TrackedFile();
+                state.offset = Long.parseLong(parts[0]);
+                state.lines = Long.parseLong(parts[1]);
+                state.ignored = IGNORED_TYPE.equals(parts[2]);
+                if (parts.length > 4) {
+                    state.headCrc = Long.parseLong(parts[3]);
+                    state.tailCrc = Long.parseLong(parts[4]);
+                }
+                for (RecordType<?> type : recordTypes) {
+                    if (type.name.equals(parts[2])) {
+                        state.type = type;
+                    }
+                }
+                tracked.put(directory.resolve(name), state);
+            } catch (RuntimeException e) {
+                System.err.println("Ignoring bad ingest offset for " + name + ": " + offsets.getProperty(name));
+            }
+        }
+    }
+    
+    private void saveOffsets() throws IOException {
+        Properties offsets = new Properties();
+        for (Map.Entry<Path, TrackedFile> entry : tracked.entrySet()) {
+            TrackedFile state = entry.getValue();
+            String type = state.ignored ? IGNORED_TYPE : state.type != null ? state.type.name : UNKNOWN_TYPE;
+            offsets.setProperty(entry.getKey().getFileName().toString(),
+                state.offset + "," + state.lines + "," + type + "," + state.headCrc + "," + state.tailCrc);
+        }
+        Path temp = offsetsFile.resolveSibling(offsetsFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            offsets.store(out, "CCRM ingest offsets");
+        }
+        Files.move(temp, offsetsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private void saveOffsetsQuietly() {
+        try {
+            saveOffsets();
+        } catch (IOException e) {
+            System.err.println("Could not save ingest offsets: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stop watching, letting a file being imported finish first
+     * Must not be called while holding the state lock, as that import may be waiting for it.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread ingestThread;
+        synchronized (this) {
+            if (watcher == null) {
+                return;
+            }
+            running = false;
+            ingestThread = thread;
+            watcher.close();
+            watcher = null;
+        }
+        try {
+            ingestThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Watching %s%s: %d file passes, %d records imported, %d rejected; last: %s",
+            directory, running ? "" : " (stopped)", filesRead.get(), recordsImported.get(), recordsRejected.get(),
+            lastIngest);
+    }
+}
@@ -0,0 +1,90 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Handle on a CSV export being written in the background
+ * The records were copied when the export started; bytes count what has reached
+ * the file, which trails the records encoded by up to one write buffer.
+ */
+public class ExportJob {
+    private final String recordType;
+    private final Path file;
+    private final long totalRecords;
+    private final CompletableFuture<Path> future = new CompletableFuture<>();
+    private final LongAdder recordsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private volatile long elapsedNanos = -1;
+    
+    ExportJob(String recordType, Path file, long totalRecords) {
+        this.recordType = recordType;
+        this.file = file;
+        this.totalRecords = totalRecords;
+    }
+    
+    // Getters
+    public String getRecordType() { return recordType; }
+    public Path getFile() { return file; }
+    public long getTotalRecords() { return totalRecords; }
+    public long getRecordsWritten() { return recordsWritten.sum(); }
+    public long getBytesWritten() { return bytesWritten.sum(); }
+    
+    /**
+     * Completes with the exported file, or exceptionally if writing it failed
+     */
+    public CompletableFuture<Path> getFuture() {
+        return future;
+    }
+    
+    public boolean isDone() {
+        return future.isDone();
+    }
+    
+    /**
+     * Fraction of records written, from 0 to 1
+     */
+    public double getProgress() {
+        if (future.isDone()) {
+            return 1.0;
+        }
+        return totalRecords <= 0 ? 0.0 : Math.min(1.0, (double) recordsWritten.sum() / totalRecords);
+    }
+    
+    void recordsWritten(long count) {
+        recordsWritten.add(count);
+    }
+    
+    void bytesWritten(long count) {
+        bytesWritten.add(count);
+    }
+    
+    void complete() {
+        elapsedNanos = System.nanoTime() - startNanos;
+        future.complete(file);
+    }
+    
+    void fail(Throwable failure) {
+        elapsedNanos = System.nanoTime() - startNanos;
+        future.completeExceptionally(failure instanceof IOException ? failure
+            : new IOException("Export of " + recordType + " failed: " + failure, failure));
+    }
+    
+    @Override
+    public String toString() {
+        String state;
+        if (future.isCompletedExceptionally()) {
+            state = "failed - " + future.handle((file, failure) -> failure.getMessage()).join();
+        } else if (future.isDone()) {
+            state = String.format("done - %d records, %d bytes in %.2fs", getRecordsWritten(), getBytesWritten(),
+                elapsedNanos / 1_000_000_000.0);
+        } else {
+            state = String.format("%d of %d records (%.0f%%), %d bytes written", getRecordsWritten(), totalRecords,
+                getProgress() * 100, getBytesWritten());
+        }
+        return "Export of " + recordType + " to " + file + ": " + state;
+    }
+}
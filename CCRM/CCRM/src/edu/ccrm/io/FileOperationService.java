@@ -2,245 +2,770 @@ package edu.ccrm.io;
 
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.exceptions.BackupRestoreException;
+import edu.ccrm.exceptions.CCRMException;
+import edu.ccrm.exceptions.InvalidDataException;
 import edu.ccrm.service.*;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
 
 /**
  * File operations service using NIO.2
  * Demonstrates Path API, Files class, and Stream operations
  */
 public class FileOperationService {
+    static final String[] STUDENT_HEADER = {"ID", "RegNo", "FullName", "Email", "Status", "EnrollmentDate"};
+    static final String[] COURSE_HEADER = {"Code", "Title", "Credits", "Instructor", "Department", "Semester"};
+    static final String[] ENROLLMENT_HEADER =
+        {"EnrollmentId", "StudentId", "CourseCode", "EnrollmentDate", "Grade", "Marks"};
+    
+    // Grade labels such as "A (9.0)", built once rather than per row
+    private static final String[] GRADE_LABELS = new String[Grade.values().length];
+    
+    static {
+        for (Grade grade : Grade.values()) {
+            GRADE_LABELS[grade.ordinal()] = grade.toString();
+        }
+    }
+    
+    // Rows written between progress updates of a background export
+    private static final int EXPORT_PROGRESS_BATCH = 1000;
+    
     private final AppConfig config;
+    private final BackupManager backups;
+    private final ExecutorService exporters = BackupManager.daemonExecutor("export-writer", 2);
+    private final Set<ExportJob> runningExports = ConcurrentHashMap.newKeySet();
+    private volatile RetentionPolicy retentionPolicy;
     
     public FileOperationService() {
         this.config = AppConfig.getInstance();
+        this.backups = new BackupManager(config);
+        this.retentionPolicy = RetentionPolicy.defaults();
+    }
+    
+    public RetentionPolicy getRetentionPolicy() { return retentionPolicy; }
+    
+    /**
+     * Policy applied when old backups are pruned after each backup
+     */
+    public void setRetentionPolicy(RetentionPolicy retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
     }
     
     /**
      * Import students from CSV file using NIO.2
+     * Streams record by record and commits in batches, so the file is never held in memory
+     */
+    public ImportReport importStudents(String filename, StudentService studentService) throws IOException {
+        return importStudents(filename, studentService, ImportOptions.defaults());
+    }
+    
+    /**
+     * Import students with explicit options (streaming, pipeline or memory-mapped)
+     * @return Counts, throughput per stage and the reject file, if any
      */
-    public void importStudents(String filename, StudentService studentService) throws IOException {
+    public ImportReport importStudents(String filename, StudentService studentService,
+                                       ImportOptions options) throws IOException {
+        return runImport(filename, "student", this::toStudent,
+            (batch, onError) -> studentService.addStudents(batch, options.getDuplicatePolicy(), onError), options);
+    }
+    
+    /**
+     * Import courses from CSV file
+     * Streams record by record and commits in batches, so the file is never held in memory
+     */
+    public ImportReport importCourses(String filename, CourseService courseService) throws IOException {
+        return importCourses(filename, courseService, ImportOptions.defaults());
+    }
+    
+    /**
+     * Import courses with explicit options (streaming, pipeline or memory-mapped)
+     * @return Counts, throughput per stage and the reject file, if any
+     */
+    public ImportReport importCourses(String filename, CourseService courseService,
+                                      ImportOptions options) throws IOException {
+        return runImport(filename, "course", this::toCourse, courseService::addCourses, options);
+    }
+    
+    /**
+     * Import enrollments in the export layout, keeping their original dates and grades
+     * Students and courses must already exist; they are looked up by ID and code.
+     * Streams record by record and commits in batches, so the file is never held in memory
+     */
+    public ImportReport importEnrollments(String filename, StudentService studentService,
+                                          CourseService courseService,
+                                          EnrollmentService enrollmentService) throws IOException {
+        return importEnrollments(filename, studentService, courseService, enrollmentService,
+            ImportOptions.defaults());
+    }
+    
+    /**
+     * Import enrollments with explicit options (streaming, pipeline or memory-mapped)
+     * @return Counts, throughput per stage and the reject file, if any
+     */
+    public ImportReport importEnrollments(String filename, StudentService studentService,
+                                          CourseService courseService, EnrollmentService enrollmentService,
+                                          ImportOptions options) throws IOException {
+        return runImport(filename, "enrollment", enrollmentMapper(courseService),
+            (batch, onError) -> enrollmentService.addEnrollments(batch, studentService, onError), options);
+    }
+    
+    /**
+     * Watcher that imports students, courses and enrollments dropped into the data directory
+     * Not started; records are applied while holding the given lock.
+     */
+    public DirectoryIngester createIngester(StudentService studentService, CourseService courseService,
+                                            EnrollmentService enrollmentService, Lock stateLock) {
+        DirectoryIngester ingester = new DirectoryIngester(config.getDataPath(), config.getIngestOffsetsPath(),
+            stateLock, config.getIngestDebounceMillis(), config.getImportBatchSize());
+        ingester.addRecordType(new DirectoryIngester.RecordType<>("student", Arrays.copyOf(STUDENT_HEADER, 4),
+            this::toStudent, studentService::addStudents));
+        ingester.addRecordType(new DirectoryIngester.RecordType<>("course", COURSE_HEADER,
+            this::toCourse, courseService::addCourses));
+        ingester.addRecordType(new DirectoryIngester.RecordType<>("enrollment", ENROLLMENT_HEADER,
+            enrollmentMapper(courseService),
+            (batch, onError) -> enrollmentService.addEnrollments(batch, studentService, onError)));
+        return ingester;
+    }
+    
+    private <T> ImportReport runImport(String filename, String recordType, RecordMapper<T> mapper,
+                                       BatchCommitter<T> committer, ImportOptions options)
+            throws IOException {
         Path filePath = Paths.get(filename);
         
         if (!Files.exists(filePath)) {
             throw new FileNotFoundException("File not found: " + filename);
         }
         
-        try (Stream<String> lines = Files.lines(filePath)) {
-            List<String> dataLines = lines
-                .skip(1) // Skip header
-                .filter(line -> !line.trim().isEmpty())
-                .collect(Collectors.toList());
-                
-            for (String line : dataLines) {
-                try {
-                    List<String> fields = CSVParser.parseLine(line);
-                    if (fields.size() >= 4) {
-                        Student student = new Student(
-                            fields.get(0), // ID
-                            fields.get(1), // RegNo
-                            fields.get(2), // FullName
-                            fields.get(3)  // Email
-                        );
-                        studentService.addStudent(student);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error importing student from line: " + line);
-                    System.err.println("Error: " + e.getMessage());
-                }
+        long startNanos = System.nanoTime();
+        LongAdder read = new LongAdder();
+        LongAdder imported = new LongAdder();
+        LongAdder skipped = new LongAdder();
+        AtomicLong rejected = new AtomicLong();
+        RecordMapper<T> countingMapper = fields -> {
+            read.increment();
+            return mapper.map(fields);
+        };
+        BatchCommitter<T> countingCommitter = (batch, onError) -> {
+            int[] failed = new int[1];
+            int added = committer.commit(batch, (record, e) -> {
+                failed[0]++;
+                onError.accept(record, e);
+            });
+            imported.add(added);
+            skipped.add(batch.size() - added - failed[0]); // Duplicates left alone by the policy
+            return added;
+        };
+        
+        RejectFileWriter rejectFile = null;
+        if (options.getRejectDirectory() != null) {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS"));
+            rejectFile = new RejectFileWriter(options.getRejectDirectory()
+                .resolve(recordType + "_rejects_" + timestamp + ".csv"));
+        }
+        RejectFileWriter rejectSink = rejectFile;
+        int logLimit = options.getErrorLogLimit();
+        
+        // Rejects may arrive from several pipeline threads at once
+        RejectHandler rejects = (lineNumber, fields, reason) -> {
+            long count = rejected.incrementAndGet();
+            if (count <= logLimit) {
+                System.err.println("Error importing " + recordType + " from line " + lineNumber + ": " + reason);
+            } else if (count == logLimit + 1) {
+                System.err.println("Further " + recordType + " import errors are not logged"
+                    + (rejectSink != null ? " (see reject file)" : ""));
             }
+            if (rejectSink != null) {
+                rejectSink.reject(lineNumber, fields, reason);
+            }
+        };
+        
+        ImportCheckpoint checkpoint = openCheckpoint(filePath, recordType, options);
+        ImportCheckpoint resumedFrom = checkpoint != null && checkpoint.isResumed() ? checkpoint.copy() : null;
+        if (resumedFrom != null) {
+            System.out.println("Resuming " + recordType + " import after line " + resumedFrom.getLineNumber()
+                + " (checkpoint saved " + resumedFrom.getSavedAt() + ")");
+        }
+        
+        List<BatchProgress> stages;
+        try {
+            stages = runMode(filePath, countingMapper, countingCommitter, rejects, options, checkpoint);
+        } finally {
+            if (rejectFile != null) {
+                rejectFile.close();
+            }
+        }
+        if (checkpoint != null) {
+            checkpoint.delete(); // Finished; a later import of the file starts over
         }
+        
+        return new ImportReport(recordType, filePath, read.sum(), imported.sum(), rejected.get(), skipped.sum(),
+            System.nanoTime() - startNanos, stages, rejectFile != null ? rejectFile.getFilePath() : null,
+            resumedFrom);
     }
     
     /**
-     * Import courses from CSV file
+     * The checkpoint to continue from, a fresh one, or null if the import is not checkpointed
      */
-    public void importCourses(String filename, CourseService courseService) throws IOException {
-        Path filePath = Paths.get(filename);
+    private ImportCheckpoint openCheckpoint(Path filePath, String recordType, ImportOptions options)
+            throws IOException {
+        if (options.getCheckpointDirectory() == null || options.getMode() == ImportOptions.Mode.PIPELINE) {
+            return null;
+        }
+        Path checkpointFile = ImportCheckpoint.fileFor(options.getCheckpointDirectory(), filePath, recordType);
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ImportCheckpoint resumed = ImportCheckpoint.resume(checkpointFile, filePath, channel);
+            return resumed != null ? resumed : ImportCheckpoint.start(checkpointFile, filePath);
+        }
+    }
+    
+    private <T> List<BatchProgress> runMode(Path filePath, RecordMapper<T> mapper, BatchCommitter<T> committer,
+                                            RejectHandler rejects, ImportOptions options,
+                                            ImportCheckpoint checkpoint) throws IOException {
+        if (options.getMode() == ImportOptions.Mode.MAPPED) {
+            return new MappedImport<>(options, mapper, committer, rejects).run(filePath, checkpoint);
+        }
+        if (checkpoint != null) {
+            return List.of(checkpointedImport(filePath, mapper, committer, rejects, options.getBatchSize(),
+                checkpoint));
+        }
         
-        if (!Files.exists(filePath)) {
-            throw new FileNotFoundException("File not found: " + filename);
+        try (CSVParser parser = new CSVParser(Files.newBufferedReader(filePath))) {
+            parser.nextRecord(); // Skip header
+            
+            if (options.getMode() == ImportOptions.Mode.PIPELINE) {
+                return new ImportPipeline<>(options, mapper, committer, rejects).run(parser);
+            }
+            return List.of(streamImport(parser, mapper, committer, rejects, options.getBatchSize()));
         }
+    }
+    
+    /**
+     * Stream records through a mapper into batched service inserts on the calling thread
+     * Memory use is bounded by the batch size, independent of the file size
+     */
+    private <T> BatchProgress streamImport(CSVParser parser, RecordMapper<T> mapper, BatchCommitter<T> committer,
+                                           RejectHandler rejects, int batchSize) throws IOException {
+        long startNanos = System.nanoTime();
+        long records = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        Map<T, String[]> batchRows = new IdentityHashMap<>(batchSize * 2);
+        Map<T, Long> batchLines = new IdentityHashMap<>(batchSize * 2);
+        OrderedRejects batchRejects = new OrderedRejects(rejects);
+        BiConsumer<T, CCRMException> onError = (record, e) ->
+            batchRejects.reject(batchLines.get(record), batchRows.get(record), e.getMessage());
         
-        try (Stream<String> lines = Files.lines(filePath)) {
-            List<String> dataLines = lines
-                .skip(1) // Skip header
-                .filter(line -> !line.trim().isEmpty())
-                .collect(Collectors.toList());
-                
-            for (String line : dataLines) {
-                try {
-                    List<String> fields = CSVParser.parseLine(line);
-                    if (fields.size() >= 6) {
-                        // Create instructor
-                        Instructor instructor = new Instructor(
-                            "INST_" + System.currentTimeMillis(),
-                            "I" + System.currentTimeMillis(),
-                            fields.get(3), // Instructor name
-                            fields.get(3).toLowerCase().replace(" ", ".") + "@university.edu"
-                        );
-                        
-                        // Parse semester
-                        Semester semester = Semester.valueOf(fields.get(5).toUpperCase());
-                        
-                        Course course = new Course.Builder()
-                            .setCode(fields.get(0))
-                            .setTitle(fields.get(1))
-                            .setCredits(Integer.parseInt(fields.get(2)))
-                            .setInstructor(instructor)
-                            .setDepartment(fields.get(4))
-                            .setSemester(semester)
-                            .build();
-                            
-                        courseService.addCourse(course);
+        while (parser.nextRecord()) {
+            records++;
+            String[] fields = parser.getFieldArray();
+            try {
+                T record = mapper.map(fields);
+                batch.add(record);
+                batchRows.put(record, fields);
+                batchLines.put(record, parser.getRecordLineNumber());
+            } catch (InvalidDataException e) {
+                batchRejects.reject(parser.getRecordLineNumber(), fields, e.getMessage());
+            }
+            
+            if (batch.size() + batchRejects.size() >= batchSize) {
+                committer.commit(batch, onError);
+                batchRejects.flush();
+                batch.clear();
+                batchRows.clear();
+                batchLines.clear();
+            }
+        }
+        committer.commit(batch, onError);
+        batchRejects.flush();
+        return new BatchProgress("Import", records, records, System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Streaming import that reads the file's bytes directly, so the offset after each
+     * committed batch can be saved and a later run can seek straight back to it
+     */
+    private <T> BatchProgress checkpointedImport(Path filePath, RecordMapper<T> mapper, BatchCommitter<T> committer,
+                                                 RejectHandler rejects, int batchSize,
+                                                 ImportCheckpoint checkpoint) throws IOException {
+        long startNanos = System.nanoTime();
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            ByteCsvReader reader = new ByteCsvReader(channel, checkpoint.getOffset(), checkpoint.getLineNumber(),
+                channel.size(), false);
+            if (!checkpoint.isResumed()) {
+                reader.nextRecord(); // Skip header
+            }
+            List<T> batch = new ArrayList<>(batchSize);
+            Map<T, String[]> batchRows = new IdentityHashMap<>(batchSize * 2);
+            Map<T, Long> batchLines = new IdentityHashMap<>(batchSize * 2);
+            OrderedRejects batchRejects = new OrderedRejects(rejects);
+            BiConsumer<T, CCRMException> onError = (record, e) ->
+                batchRejects.reject(batchLines.get(record), batchRows.get(record), e.getMessage());
+            long batchRead = 0;
+            boolean more;
+            do {
+                more = reader.nextRecord();
+                if (more) {
+                    records++;
+                    batchRead++;
+                    String[] fields = reader.getFieldArray();
+                    try {
+                        T record = mapper.map(fields);
+                        batch.add(record);
+                        batchRows.put(record, fields);
+                        batchLines.put(record, reader.getRecordLineNumber());
+                    } catch (InvalidDataException e) {
+                        batchRejects.reject(reader.getRecordLineNumber(), fields, e.getMessage());
                     }
-                } catch (Exception e) {
-                    System.err.println("Error importing course from line: " + line);
-                    System.err.println("Error: " + e.getMessage());
                 }
+                if (batchRead >= batchSize || !more) {
+                    int added = committer.commit(batch, onError);
+                    batchRejects.flush();
+                    checkpoint.save(channel, reader.getOffset(), reader.getLineNumber(), batchRead, added,
+                        batchRead - added);
+                    batch.clear();
+                    batchRows.clear();
+                    batchLines.clear();
+                    batchRead = 0;
+                }
+            } while (more);
+        }
+        return new BatchProgress("Import (checkpointed)", records, records, System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Map an enrollment row, rejecting courses that do not exist
+     */
+    private static RecordMapper<Enrollment> enrollmentMapper(CourseService courseService) {
+        return fields -> {
+            Enrollment enrollment = toEnrollment(fields);
+            if (courseService.findCourseByCode(enrollment.getCourseCode()) == null) {
+                throw new InvalidDataException("Course not found: " + enrollment.getCourseCode());
+            }
+            return enrollment;
+        };
+    }
+    
+    /**
+     * Map ID,RegNo,FullName,Email to a student
+     */
+    Student toStudent(String[] fields) throws InvalidDataException {
+        if (fields.length < 4) {
+            throw new InvalidDataException("Expected 4 fields (ID,RegNo,FullName,Email) but found " + fields.length);
+        }
+        return new Student(
+            fields[0], // ID
+            fields[1], // RegNo
+            fields[2], // FullName
+            fields[3]  // Email
+        );
+    }
+    
+    /**
+     * Map Code,Title,Credits,Instructor,Department,Semester to a course
+     */
+    Course toCourse(String[] fields) throws InvalidDataException {
+        if (fields.length < 6) {
+            throw new InvalidDataException(
+                "Expected 6 fields (Code,Title,Credits,Instructor,Department,Semester) but found " + fields.length);
+        }
+        try {
+            // Create instructor
+            Instructor instructor = new Instructor(
+                "INST_" + System.currentTimeMillis(),
+                "I" + System.currentTimeMillis(),
+                fields[3], // Instructor name
+                fields[3].toLowerCase().replace(" ", ".") + "@university.edu"
+            );
+            
+            // Parse semester
+            Semester semester = Semester.valueOf(fields[5].toUpperCase());
+            
+            return new Course.Builder()
+                .setCode(fields[0])
+                .setTitle(fields[1])
+                .setCredits(Integer.parseInt(fields[2]))
+                .setInstructor(instructor)
+                .setDepartment(fields[4])
+                .setSemester(semester)
+                .build();
+        } catch (IllegalArgumentException e) { // Includes NumberFormatException
+            throw new InvalidDataException(e.getMessage());
+        }
+    }
+    
+    /**
+     * Map EnrollmentId,StudentId,CourseCode,EnrollmentDate,Grade,Marks to an enrollment
+     * Grades are written as "A (9.0)"; only the name before the points is read back.
+     */
+    static Enrollment toEnrollment(String[] fields) throws InvalidDataException {
+        if (fields.length < 6) {
+            throw new InvalidDataException("Expected 6 fields "
+                + "(EnrollmentId,StudentId,CourseCode,EnrollmentDate,Grade,Marks) but found " + fields.length);
+        }
+        try {
+            Grade grade = null;
+            if (!fields[4].isEmpty()) {
+                int space = fields[4].indexOf(' ');
+                grade = Grade.valueOf(space < 0 ? fields[4] : fields[4].substring(0, space));
             }
+            Double marks = fields[5].isEmpty() ? null : Double.valueOf(fields[5]);
+            return new Enrollment(fields[0], fields[1], fields[2], LocalDateTime.parse(fields[3]),
+                grade, marks, LocalDateTime.now());
+        } catch (IllegalArgumentException | DateTimeParseException e) { // Includes NumberFormatException
+            throw new InvalidDataException(e.getMessage());
         }
     }
     
     /**
      * Export students to CSV file using NIO.2
+     * A filename ending in .gz is gzip-compressed while it is written
      */
     public void exportStudents(List<Student> students, String filename) throws IOException {
-        Path filePath = Paths.get(filename);
-        Files.createDirectories(filePath.getParent());
-        
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            // Write header
-            writer.write("ID,RegNo,FullName,Email,Status,EnrollmentDate");
-            writer.newLine();
-            
-            // Write data
-            for (Student student : students) {
-                String line = String.join(",",
-                    student.getId(),
-                    student.getRegNo(),
-                    "\"" + student.getFullName() + "\"",
-                    student.getEmail(),
-                    student.getStatus().toString(),
-                    student.getEnrollmentDate().toString()
-                );
-                writer.write(line);
-                writer.newLine();
-            }
+        try (CsvWriter csv = CsvWriter.open(Paths.get(filename))) {
+            csv.writeRecord(STUDENT_HEADER);
+            writeStudentRows(students, csv);
+        }
+    }
+    
+    /**
+     * Export students to CSV in the background
+     * The students are copied before this returns; see startExport.
+     */
+    public ExportJob exportStudentsAsync(List<Student> students, String filename) {
+        return startExport("students", Paths.get(filename), STUDENT_HEADER, StateSnapshot.copyStudents(students),
+            FileOperationService::writeStudentRows);
+    }
+    
+    static void writeStudentRows(List<Student> students, CsvWriter csv) throws IOException {
+        for (Student student : students) {
+            csv.field(student.getId())
+                .field(student.getRegNo())
+                .field(student.getFullName())
+                .field(student.getEmail())
+                .field(student.getStatus())
+                .field(student.getEnrollmentDate());
+            csv.endRecord();
         }
     }
     
     /**
      * Export courses to CSV file
+     * A filename ending in .gz is gzip-compressed while it is written
      */
     public void exportCourses(List<Course> courses, String filename) throws IOException {
-        Path filePath = Paths.get(filename);
-        Files.createDirectories(filePath.getParent());
-        
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            // Write header
-            writer.write("Code,Title,Credits,Instructor,Department,Semester");
-            writer.newLine();
-            
-            // Write data
-            for (Course course : courses) {
-                String line = String.join(",",
-                    course.getCode(),
-                    "\"" + course.getTitle() + "\"",
-                    String.valueOf(course.getCredits()),
-                    course.getInstructor() != null ? 
-                        "\"" + course.getInstructor().getFullName() + "\"" : "\"\"",
-                    course.getDepartment() != null ? course.getDepartment() : "",
-                    course.getSemester() != null ? course.getSemester().toString() : ""
-                );
-                writer.write(line);
-                writer.newLine();
-            }
+        try (CsvWriter csv = CsvWriter.open(Paths.get(filename))) {
+            csv.writeRecord(COURSE_HEADER);
+            writeCourseRows(courses, csv);
         }
     }
     
+    /**
+     * Export courses to CSV in the background
+     * The courses are copied before this returns; see startExport.
+     */
+    public ExportJob exportCoursesAsync(List<Course> courses, String filename) {
+        return startExport("courses", Paths.get(filename), COURSE_HEADER, StateSnapshot.copyCourses(courses),
+            FileOperationService::writeCourseRows);
+    }
+    
+    static void writeCourseRows(List<Course> courses, CsvWriter csv) throws IOException {
+        for (Course course : courses) {
+            csv.field(course.getCode())
+                .field(course.getTitle())
+                .field(course.getCredits())
+                .field(course.getInstructor() != null ? course.getInstructor().getFullName() : null)
+                .field(course.getDepartment())
+                .field(course.getSemester());
+            csv.endRecord();
+        }
+    }
+    
+    /**
+     * Save the full state to the binary snapshot in the data directory
+     */
+    public SnapshotInfo saveSnapshot(StudentService studentService, CourseService courseService,
+                                     EnrollmentService enrollmentService) throws IOException {
+        return new BinarySnapshot().save(config.getSnapshotPath(), studentService, courseService, enrollmentService);
+    }
+    
+    /**
+     * Replace the full state with the binary snapshot in the data directory
+     */
+    public SnapshotInfo loadSnapshot(StudentService studentService, CourseService courseService,
+                                     EnrollmentService enrollmentService) throws IOException {
+        return new BinarySnapshot().load(config.getSnapshotPath(), studentService, courseService, enrollmentService);
+    }
+    
+    /**
+     * Open the disk-backed page store in the data directory, recovering it if needed
+     * Tables for students, courses and enrollments use the codecs in RecordCodecs.
+     */
+    public PagedStore openStore() throws IOException {
+        return PagedStore.open(config.getStorePath(), config.getPageCacheSize());
+    }
+    
+    /**
+     * Check whether a snapshot exists to start from
+     */
+    public boolean hasSnapshot() {
+        return Files.isRegularFile(config.getSnapshotPath());
+    }
+    
     /**
      * Create backup with timestamp using NIO.2
+     * Incremental on top of the latest backup when possible; see BackupManager
      */
-    public void createBackup(StudentService studentService, CourseService courseService, 
-                           EnrollmentService enrollmentService) throws IOException {
-        
-        // Create timestamped backup directory
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        Path backupDir = config.getBackupPath().resolve("backup_" + timestamp);
-        Files.createDirectories(backupDir);
-        
-        // Export all data to backup directory
-        exportStudents(studentService.getAllStudents(), 
-            backupDir.resolve("students.csv").toString());
-        exportCourses(courseService.getAllCourses(), 
-            backupDir.resolve("courses.csv").toString());
-        
-        // Export enrollments
-        exportEnrollments(enrollmentService.getAllEnrollments(), 
-            backupDir.resolve("enrollments.csv").toString());
-        
-        System.out.println("Backup created in: " + backupDir.toAbsolutePath());
+    public BackupManifest createBackup(StudentService studentService, CourseService courseService, 
+                                       EnrollmentService enrollmentService) throws IOException {
+        BackupManifest manifest = startBackup(studentService, courseService, enrollmentService).await();
+        System.out.println("Backup created in: " + config.getBackupPath().resolve(manifest.getName()).toAbsolutePath());
+        return manifest;
     }
     
     /**
-     * Export enrollments to CSV
+     * Create a full backup regardless of the incremental schedule
      */
-    private void exportEnrollments(List<Enrollment> enrollments, String filename) throws IOException {
-        Path filePath = Paths.get(filename);
-        
-        try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
-            // Write header
-            writer.write("EnrollmentId,StudentId,CourseCode,EnrollmentDate,Grade,Marks");
-            writer.newLine();
-            
-            // Write data
-            for (Enrollment enrollment : enrollments) {
-                String line = String.join(",",
-                    enrollment.getEnrollmentId(),
-                    enrollment.getStudentId(),
-                    enrollment.getCourseCode(),
-                    enrollment.getEnrollmentDate().toString(),
-                    enrollment.getGrade() != null ? enrollment.getGrade().toString() : "",
-                    enrollment.getMarks() != null ? enrollment.getMarks().toString() : ""
-                );
-                writer.write(line);
-                writer.newLine();
+    public BackupManifest createFullBackup(StudentService studentService, CourseService courseService,
+                                           EnrollmentService enrollmentService) throws IOException {
+        BackupManifest manifest = startFullBackup(studentService, courseService, enrollmentService).await();
+        System.out.println("Backup created in: " + config.getBackupPath().resolve(manifest.getName()).toAbsolutePath());
+        return manifest;
+    }
+    
+    /**
+     * Capture the current state and back it up in the background
+     * Later changes to the services are not part of this backup.
+     */
+    public BackupJob startBackup(StudentService studentService, CourseService courseService,
+                                 EnrollmentService enrollmentService) {
+        return whenWritten(backups.startBackup(studentService, courseService, enrollmentService, false));
+    }
+    
+    /**
+     * Like startBackup, but always a full backup
+     */
+    public BackupJob startFullBackup(StudentService studentService, CourseService courseService,
+                                     EnrollmentService enrollmentService) {
+        return whenWritten(backups.startBackup(studentService, courseService, enrollmentService, true));
+    }
+    
+    private BackupJob whenWritten(BackupJob job) {
+        job.getFuture().thenRun(() -> backups.pruneInBackground(retentionPolicy));
+        return job;
+    }
+    
+    /**
+     * Wait for every backup started so far to finish
+     */
+    public void awaitBackups() throws InterruptedException {
+        backups.awaitBackups();
+    }
+    
+    /**
+     * Merge the latest full backup and its incrementals into a new full backup
+     */
+    public BackupManifest compactBackups() throws IOException {
+        BackupManifest compacted = backups.compactLatestChain();
+        backups.pruneInBackground(retentionPolicy);
+        return compacted;
+    }
+    
+    /**
+     * Prune old backups now with the current retention policy
+     * @return The deleted backups, oldest first
+     */
+    public List<BackupManifest> pruneBackups() throws IOException {
+        return backups.prune(retentionPolicy);
+    }
+    
+    /**
+     * Complete backups in the backup directory, oldest first
+     */
+    public List<BackupManifest> listBackups() throws IOException {
+        return backups.listBackups();
+    }
+    
+    /**
+     * Replace the full state with a backup, replaying its chain of incrementals
+     * A bare name refers to a directory inside the backup directory. Nothing is changed
+     * unless every file matches its checksum and every record is valid.
+     */
+    public SnapshotInfo restoreBackup(Path backup, StudentService studentService, CourseService courseService,
+                                      EnrollmentService enrollmentService) throws IOException, BackupRestoreException {
+        Path directory = backup.getNameCount() == 1 && !backup.isAbsolute()
+            ? config.getBackupPath().resolve(backup) : backup;
+        return backups.restore(directory, studentService, courseService, enrollmentService);
+    }
+    
+    /**
+     * Export enrollments to CSV, in the layout importEnrollments reads
+     * A filename ending in .gz is gzip-compressed while it is written
+     */
+    public void exportEnrollments(List<Enrollment> enrollments, String filename) throws IOException {
+        try (CsvWriter csv = CsvWriter.open(Paths.get(filename))) {
+            csv.writeRecord(ENROLLMENT_HEADER);
+            writeEnrollmentRows(enrollments, csv);
+        }
+    }
+    
+    /**
+     * Export enrollments to CSV in the background
+     * The enrollments are copied before this returns; see startExport.
+     */
+    public ExportJob exportEnrollmentsAsync(List<Enrollment> enrollments, String filename) {
+        return startExport("enrollments", Paths.get(filename), ENROLLMENT_HEADER,
+            StateSnapshot.copyEnrollments(enrollments), FileOperationService::writeEnrollmentRows);
+    }
+    
+    /**
+     * Write copied rows to a CSV on the export pool
+     * Rows are encoded on the pool thread into one buffer of an AsyncFileOutput
+     * while the other is written, so encoding and disk writes overlap. The rows
+     * must be copies: the services are not thread-safe and may change meanwhile.
+     */
+    private <T> ExportJob startExport(String recordType, Path file, String[] header, List<T> rows,
+                                      BackupManager.RowWriter<T> rowWriter) {
+        ExportJob job = new ExportJob(recordType, file, rows.size());
+        runningExports.add(job);
+        job.getFuture().whenComplete((exported, failure) -> runningExports.remove(job));
+        exporters.execute(() -> {
+            try (CsvWriter csv = CsvWriter.openAsync(file, job::bytesWritten)) {
+                csv.writeRecord(header);
+                for (int from = 0; from < rows.size(); from += EXPORT_PROGRESS_BATCH) {
+                    List<T> batch = rows.subList(from, Math.min(rows.size(), from + EXPORT_PROGRESS_BATCH));
+                    rowWriter.write(batch, csv);
+                    job.recordsWritten(batch.size());
+                }
+            } catch (IOException | RuntimeException e) {
+                job.fail(e);
+                return;
+            }
+            job.complete();
+        });
+        return job;
+    }
+    
+    /**
+     * Wait for every background export started so far to finish
+     */
+    public void awaitExports() throws InterruptedException {
+        for (ExportJob job : List.copyOf(runningExports)) {
+            try {
+                job.getFuture().get();
+            } catch (ExecutionException e) {
+                // Reported through the job's future
             }
         }
     }
     
+    public int getRunningExportCount() {
+        return runningExports.size();
+    }
+    
+    static void writeEnrollmentRows(List<Enrollment> enrollments, CsvWriter csv) throws IOException {
+        for (Enrollment enrollment : enrollments) {
+            csv.field(enrollment.getEnrollmentId())
+                .field(enrollment.getStudentId())
+                .field(enrollment.getCourseCode())
+                .field(enrollment.getEnrollmentDate())
+                .field(enrollment.getGrade() != null ? GRADE_LABELS[enrollment.getGrade().ordinal()] : null)
+                .field(enrollment.getMarks());
+            csv.endRecord();
+        }
+    }
+    
+    /**
+     * Export students, courses and enrollments as columnar table files for analytics
+     * Writes students.ccol, courses.ccol and enrollments.ccol to the directory; read
+     * them with ColumnarReader. Enrollments are sorted by course, so a per-course
+     * scan touches only the blocks of that course.
+     */
+    public SnapshotInfo exportColumnar(StudentService studentService, CourseService courseService,
+                                       EnrollmentService enrollmentService, Path directory) throws IOException {
+        long startNanos = System.nanoTime();
+        List<Student> students = studentService.getAllStudents();
+        List<Course> courses = courseService.getAllCourses();
+        List<Enrollment> enrollments = new ArrayList<>(enrollmentService.getAllEnrollments());
+        enrollments.sort(Comparator.comparing(Enrollment::getCourseCode).thenComparing(Enrollment::getStudentId));
+        int blockRows = ColumnarWriter.DEFAULT_BLOCK_ROWS;
+        
+        long size = new ColumnarWriter<>(students, blockRows)
+            .addStrings("id", Student::getId)
+            .addStrings("regNo", Student::getRegNo)
+            .addStrings("fullName", Student::getFullName)
+            .addStrings("email", Student::getEmail)
+            .addStrings("status", student -> nameOf(student.getStatus()))
+            .addLongs("enrollmentDate", student -> ColumnarWriter.epochDay(student.getEnrollmentDate()))
+            .addLongs("createdAt", student -> ColumnarWriter.millis(student.getCreatedAt()))
+            .write(directory.resolve("students.ccol"));
+        size += new ColumnarWriter<>(courses, blockRows)
+            .addStrings("code", Course::getCode)
+            .addStrings("title", Course::getTitle)
+            .addLongs("credits", Course::getCredits)
+            .addStrings("department", Course::getDepartment)
+            .addStrings("semester", course -> nameOf(course.getSemester()))
+            .addStrings("instructorId",
+                course -> course.getInstructor() != null ? course.getInstructor().getId() : null)
+            .addStrings("instructorName",
+                course -> course.getInstructor() != null ? course.getInstructor().getFullName() : null)
+            .write(directory.resolve("courses.ccol"));
+        size += new ColumnarWriter<>(enrollments, blockRows)
+            .addStrings("courseCode", Enrollment::getCourseCode)
+            .addStrings("studentId", Enrollment::getStudentId)
+            .addStrings("enrollmentId", Enrollment::getEnrollmentId)
+            .addLongs("enrollmentDate", enrollment -> ColumnarWriter.millis(enrollment.getEnrollmentDate()))
+            .addStrings("grade", enrollment -> nameOf(enrollment.getGrade()))
+            .addDoubles("marks", enrollment -> enrollment.getMarks() != null ? enrollment.getMarks() : Double.NaN)
+            .addLongs("updatedAt", enrollment -> ColumnarWriter.millis(enrollment.getUpdatedAt()))
+            .write(directory.resolve("enrollments.ccol"));
+        
+        long instructors = courses.stream().map(Course::getInstructor).filter(Objects::nonNull).distinct().count();
+        return new SnapshotInfo(directory, students.size(), courses.size(), (int) instructors, enrollments.size(),
+            size, System.nanoTime() - startNanos);
+    }
+    
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+    
     /**
-     * Recursively calculate backup directory size
-     * Demonstrates recursion and NIO.2 file walking
+     * Logical versus physical size of the backup directory
+     * Backups share content-addressed chunks, so the bytes on disk are usually far
+     * fewer than the backups would take as full copies.
      */
-    public long calculateBackupDirectorySize() {
+    public BackupUsage calculateBackupDirectorySize() {
         try {
-            Path backupPath = config.getBackupPath();
-            if (!Files.exists(backupPath)) {
-                return 0;
-            }
-            
-            return Files.walk(backupPath)
-                .filter(Files::isRegularFile)
-                .mapToLong(this::getFileSize)
-                .sum();
-                
+            return backups.measureUsage();
         } catch (IOException e) {
             System.err.println("Error calculating backup size: " + e.getMessage());
-            return 0;
+            return new BackupUsage(0, 0, 0, 0);
         }
     }
     
     /**
-     * Recursively list backup files by depth
+     * List backup files by depth from the backup catalog
+     * Chunk files are summarised rather than listed one by one.
      */
     public void listBackupFiles() {
         try {
@@ -250,35 +775,28 @@ public class FileOperationService {
                 return;
             }
             
+            BackupCatalog catalog = backups.scanCatalog();
             System.out.println("\n=== BACKUP FILES ===");
-            Files.walk(backupPath)
-                .sorted()
-                .forEach(path -> {
-                    int depth = path.getNameCount() - backupPath.getNameCount();
-                    String indent = "  ".repeat(depth);
-                    String name = path.getFileName().toString();
-                    
-                    if (Files.isDirectory(path)) {
-                        System.out.println(indent + "[DIR] " + name);
-                    } else {
-                        long size = getFileSize(path);
-                        System.out.println(indent + "[FILE] " + name + " (" + formatFileSize(size) + ")");
-                    }
-                });
-                
+            System.out.println("[DIR] " + backupPath.getFileName());
+            for (BackupCatalog.DirectoryInfo directory : catalog.getDirectories()) {
+                System.out.println("  [DIR] " + directory.getName() + " (" + formatFileSize(directory.getBytes()) + ")");
+                for (BackupCatalog.FileInfo file : directory.getFiles()) {
+                    System.out.println("    [FILE] " + file.getName() + " (" + formatFileSize(file.getSize()) + ")");
+                }
+            }
+            if (catalog.getChunkCount() > 0) {
+                System.out.println("  [CHUNKS] " + ChunkStore.DIRECTORY + " (" + catalog.getChunkCount() + " chunks, "
+                    + formatFileSize(catalog.getChunkBytes()) + ")");
+            }
+            for (BackupCatalog.FileInfo file : catalog.getRootFiles()) {
+                System.out.println("  [FILE] " + file.getName() + " (" + formatFileSize(file.getSize()) + ")");
+            }
+            
         } catch (IOException e) {
             System.err.println("Error listing backup files: " + e.getMessage());
         }
     }
     
-    private long getFileSize(Path path) {
-        try {
-            return Files.size(path);
-        } catch (IOException e) {
-            return 0;
-        }
-    }
-    
     /**
      * Format file size in human readable format
      */
@@ -0,0 +1,191 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * How far an import into the services has been committed, saved so that a later run can resume
+ *
+ * Saved after every committed batch, so a crash repeats at most the batch in flight.
+ * The file is recognised by the CRC32 of its first 64KB and of the 64KB before the
+ * offset; a source that was changed there is imported from the start instead.
+ * Only meaningful when the services keep what was committed (a persistent storage
+ * backend), since resuming skips everything before the offset.
+ */
+public class ImportCheckpoint {
+    static final int FINGERPRINT_BYTES = 64 * 1024;
+    
+    private final Path checkpointFile;
+    private final Path sourceFile;
+    private long offset;
+    private long lineNumber;
+    private long recordsRead;
+    private long imported;
+    private long rejected;
+    private long headCrc = -1;
+    private long tailCrc = -1;
+    private LocalDateTime savedAt;
+    
+    private ImportCheckpoint(Path checkpointFile, Path sourceFile) {
+        this.checkpointFile = checkpointFile;
+        this.sourceFile = sourceFile;
+    }
+    
+    /**
+     * Checkpoint kept for a source file and record type in the directory
+     */
+    static Path fileFor(Path directory, Path sourceFile, String recordType) {
+        String absolute = sourceFile.toAbsolutePath().normalize().toString();
+        return directory.resolve(sourceFile.getFileName() + "." + recordType + "."
+            + Integer.toHexString(absolute.hashCode()) + ".ckpt");
+    }
+    
+    /**
+     * A fresh checkpoint at the start of the file; nothing is written until the first save
+     */
+    static ImportCheckpoint start(Path checkpointFile, Path sourceFile) {
+        return new ImportCheckpoint(checkpointFile, sourceFile);
+    }
+    
+    /**
+     * The saved checkpoint, if there is one and the source still matches it
+     * @return null if the import has to start from the beginning
+     */
+    static ImportCheckpoint resume(Path checkpointFile, Path sourceFile, FileChannel source) throws IOException {
+        if (!Files.isRegularFile(checkpointFile)) {
+            return null;
+        }
+        Properties saved = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            saved.load(in);
+        }
+        ImportCheckpoint checkpoint = new ImportCheckpoint(checkpointFile, sourceFile);
+        try {
+            checkpoint.offset = Long.parseLong(saved.getProperty("offset"));
+            checkpoint.lineNumber = Long.parseLong(saved.getProperty("lineNumber"));
+            checkpoint.recordsRead = Long.parseLong(saved.getProperty("recordsRead"));
+            checkpoint.imported = Long.parseLong(saved.getProperty("imported"));
+            checkpoint.rejected = Long.parseLong(saved.getProperty("rejected"));
+            checkpoint.headCrc = Long.parseLong(saved.getProperty("headCrc"));
+            checkpoint.tailCrc = Long.parseLong(saved.getProperty("tailCrc"));
+            checkpoint.savedAt = LocalDateTime.parse(saved.getProperty("savedAt"));
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring unreadable import checkpoint " + checkpointFile + ": " + e.getMessage());
+            return null;
+        }
+        if (source.size() < checkpoint.offset
+                || crc(source, 0, Math.min(FINGERPRINT_BYTES, checkpoint.offset)) != checkpoint.headCrc
+                || crc(source, Math.max(0, checkpoint.offset - FINGERPRINT_BYTES), checkpoint.offset)
+                    != checkpoint.tailCrc) {
+            System.err.println("Import checkpoint " + checkpointFile.getFileName()
+                + " no longer matches " + sourceFile + "; importing from the start");
+            return null;
+        }
+        return checkpoint;
+    }
+    
+    /**
+     * Copy of the progress so far, unaffected by later saves
+     */
+    ImportCheckpoint copy() {
+        ImportCheckpoint copy = new ImportCheckpoint(checkpointFile, sourceFile);
+        copy.offset = offset;
+        copy.lineNumber = lineNumber;
+        copy.recordsRead = recordsRead;
+        copy.imported = imported;
+        copy.rejected = rejected;
+        copy.headCrc = headCrc;
+        copy.tailCrc = tailCrc;
+        copy.savedAt = savedAt;
+        return copy;
+    }
+    
+    // Getters
+    public Path getSourceFile() { return sourceFile; }
+    public long getOffset() { return offset; }
+    public long getLineNumber() { return lineNumber; }
+    public long getRecordsRead() { return recordsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public LocalDateTime getSavedAt() { return savedAt; }
+    
+    /**
+     * Whether an earlier run got this far
+     */
+    public boolean isResumed() {
+        return offset > 0;
+    }
+    
+    /**
+     * Record that everything before the offset is committed, and save
+     * @param read Records read, imported and rejected since this checkpoint was loaded or started
+     */
+    void save(FileChannel source, long offset, long lineNumber, long read, long imported, long rejected)
+            throws IOException {
+        if (headCrc < 0 || this.offset < FINGERPRINT_BYTES) {
+            headCrc = crc(source, 0, Math.min(FINGERPRINT_BYTES, offset));
+        }
+        tailCrc = crc(source, Math.max(0, offset - FINGERPRINT_BYTES), offset);
+        this.offset = offset;
+        this.lineNumber = lineNumber;
+        this.recordsRead += read;
+        this.imported += imported;
+        this.rejected += rejected;
+        this.savedAt = LocalDateTime.now();
+        
+        Properties saved = new Properties();
+        saved.setProperty("source", sourceFile.toAbsolutePath().toString());
+        saved.setProperty("offset", Long.toString(offset));
+        saved.setProperty("lineNumber", Long.toString(lineNumber));
+        saved.setProperty("recordsRead", Long.toString(recordsRead));
+        saved.setProperty("imported", Long.toString(this.imported));
+        saved.setProperty("rejected", Long.toString(this.rejected));
+        saved.setProperty("headCrc", Long.toString(headCrc));
+        saved.setProperty("tailCrc", Long.toString(tailCrc));
+        saved.setProperty("savedAt", savedAt.toString());
+        Files.createDirectories(checkpointFile.getParent());
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            saved.store(out, "CCRM import checkpoint");
+        }
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Forget the checkpoint once the import has finished
+     */
+    void delete() throws IOException {
+        Files.deleteIfExists(checkpointFile);
+    }
+    
+    /**
+     * CRC32 of the bytes from one position to another, as far as the file reaches
+     */
+    static long crc(FileChannel channel, long from, long to) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d records read (%d imported, %d rejected) up to line %d, saved %s",
+            sourceFile.getFileName(), recordsRead, imported, rejected, lineNumber, savedAt);
+    }
+}
@@ -0,0 +1,159 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.service.DuplicatePolicy;
+
+import java.nio.file.Path;
+
+/**
+ * Options for CSV imports, created with the Builder
+ */
+public class ImportOptions {
+    
+    /**
+     * How records flow from the file into the services
+     */
+    public enum Mode {
+        STREAMING,  // Single thread: read, map and commit in batches
+        PIPELINE,   // Reader -> parallel mappers -> single committer
+        MAPPED      // Memory-mapped file split into chunks parsed in parallel
+    }
+    
+    private final Mode mode;
+    private final int batchSize;
+    private final int workers;
+    private final int queueCapacity;
+    private final int chunkSize;
+    private final Path rejectDirectory;
+    private final int errorLogLimit;
+    private final Path checkpointDirectory;
+    private final DuplicatePolicy duplicatePolicy;
+    
+    private ImportOptions(Builder builder) {
+        this.mode = builder.mode;
+        this.batchSize = builder.batchSize;
+        this.workers = builder.workers;
+        this.queueCapacity = builder.queueCapacity;
+        this.chunkSize = builder.chunkSize;
+        this.rejectDirectory = builder.rejectDirectory;
+        this.errorLogLimit = builder.errorLogLimit;
+        this.checkpointDirectory = builder.checkpointDirectory;
+        this.duplicatePolicy = builder.duplicatePolicy;
+    }
+    
+    /**
+     * Streaming import with the configured batch size
+     */
+    public static ImportOptions defaults() {
+        return new Builder().build();
+    }
+    
+    // Getters
+    public Mode getMode() { return mode; }
+    public int getBatchSize() { return batchSize; }
+    public int getWorkers() { return workers; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public int getChunkSize() { return chunkSize; }
+    public Path getRejectDirectory() { return rejectDirectory; }
+    public int getErrorLogLimit() { return errorLogLimit; }
+    public Path getCheckpointDirectory() { return checkpointDirectory; }
+    public DuplicatePolicy getDuplicatePolicy() { return duplicatePolicy; }
+    
+    public static class Builder {
+        private Mode mode = Mode.STREAMING;
+        private int batchSize = AppConfig.getInstance().getImportBatchSize();
+        private int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        private int queueCapacity = 4;
+        private int chunkSize = 8 * 1024 * 1024;
+        private Path rejectDirectory = AppConfig.getInstance().getExportPath().resolve("rejects");
+        private int errorLogLimit = 10;
+        private Path checkpointDirectory;
+        private DuplicatePolicy duplicatePolicy = DuplicatePolicy.REJECT;
+        
+        public Builder setMode(Mode mode) {
+            this.mode = mode;
+            return this;
+        }
+        
+        /**
+         * Records per batch handed between stages and committed at once
+         */
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+        
+        /**
+         * Parser/validator threads in pipeline mode
+         */
+        public Builder setWorkers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+        
+        /**
+         * Batches each pipeline queue holds before the upstream stage blocks (backpressure)
+         */
+        public Builder setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+        
+        /**
+         * Target bytes per chunk in mapped mode (chunks end at the next record boundary)
+         */
+        public Builder setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+            return this;
+        }
+        
+        /**
+         * Where reject CSVs are written; null disables the reject file
+         */
+        public Builder setRejectDirectory(Path rejectDirectory) {
+            this.rejectDirectory = rejectDirectory;
+            return this;
+        }
+        
+        /**
+         * Rejected rows echoed to System.err before further errors are only counted
+         */
+        public Builder setErrorLogLimit(int errorLogLimit) {
+            this.errorLogLimit = errorLogLimit;
+            return this;
+        }
+        
+        /**
+         * Where import checkpoints are kept, making streaming and mapped imports resumable;
+         * null (the default) disables them. Pipeline imports are not checkpointed.
+         */
+        public Builder setCheckpointDirectory(Path checkpointDirectory) {
+            this.checkpointDirectory = checkpointDirectory;
+            return this;
+        }
+        
+        /**
+         * Handling of students that already exist; imports of other records always reject duplicates
+         */
+        public Builder setDuplicatePolicy(DuplicatePolicy duplicatePolicy) {
+            this.duplicatePolicy = duplicatePolicy;
+            return this;
+        }
+        
+        public ImportOptions build() {
+            if (mode == null) {
+                throw new IllegalArgumentException("Import mode is required");
+            }
+            if (duplicatePolicy == null) {
+                throw new IllegalArgumentException("Duplicate policy is required");
+            }
+            if (batchSize <= 0 || workers <= 0 || queueCapacity <= 0 || chunkSize <= 0) {
+                throw new IllegalArgumentException("Batch size, workers, queue capacity and chunk size must be positive");
+            }
+            if (errorLogLimit < 0) {
+                throw new IllegalArgumentException("Error log limit cannot be negative");
+            }
+            return new ImportOptions(this);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package edu.ccrm.io;
+
+import edu.ccrm.service.BatchProgress;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multi-threaded CSV import pipeline
+ * A reader stage tokenizes records into batches on the calling thread, parallel
+ * workers map and validate them, and a single committer applies the batches to
+ * the service in file order. Bounded queues between the stages provide
+ * backpressure, and the number of batches in flight is capped so a slow batch
+ * cannot make the reorder buffer grow without limit.
+ */
+public class ImportPipeline<T> {
+    private static final RawBatch END = new RawBatch(-1, 0);
+    
+    private final ImportOptions options;
+    private final RecordMapper<T> mapper;
+    private final BatchCommitter<T> committer;
+    private final RejectHandler rejectHandler;
+    
+    public ImportPipeline(ImportOptions options, RecordMapper<T> mapper, BatchCommitter<T> committer,
+                          RejectHandler rejectHandler) {
+        this.options = options;
+        this.mapper = mapper;
+        this.committer = committer;
+        this.rejectHandler = rejectHandler;
+    }
+    
+    /**
+     * Import all remaining records of the parser
+     * @return Throughput of the read, map and commit stages (busy time only)
+     */
+    public List<BatchProgress> run(CSVParser parser) throws IOException {
+        int workers = options.getWorkers();
+        BlockingQueue<RawBatch> rawQueue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        BlockingQueue<MappedBatch<T>> mappedQueue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+        Semaphore inFlight = new Semaphore(options.getQueueCapacity() * 2 + workers);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        
+        AtomicLong mapNanos = new AtomicLong();
+        AtomicLong mapped = new AtomicLong();
+        long[] commitStats = new long[2]; // records added, busy nanos
+        
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        List<Future<?>> workerFutures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            workerFutures.add(executor.submit(() -> {
+                mapBatches(rawQueue, mappedQueue, mapNanos, mapped);
+                return null;
+            }));
+        }
+        Future<?> committerFuture = executor.submit(() -> {
+            commitBatches(mappedQueue, inFlight, commitStats);
+            return null;
+        });
+        
+        long readRecords = 0;
+        long readNanos = 0;
+        try {
+            long sequence = 0;
+            boolean more = true;
+            while (more) {
+                inFlight.acquire();
+                long start = System.nanoTime();
+                RawBatch batch = new RawBatch(sequence++, options.getBatchSize());
+                while (batch.size() < options.getBatchSize() && (more = parser.nextRecord())) {
+                    batch.add(parser.getFieldArray(), parser.getRecordLineNumber());
+                }
+                readRecords += batch.size();
+                readNanos += System.nanoTime() - start;
+                putOrFail(rawQueue, batch, workerFutures, committerFuture);
+            }
+            for (int i = 0; i < workers; i++) {
+                putOrFail(rawQueue, END, workerFutures, committerFuture);
+            }
+            for (Future<?> future : workerFutures) {
+                while (!future.isDone()) {
+                    checkCommitter(committerFuture);
+                    Thread.sleep(10);
+                }
+                future.get();
+            }
+            while (!mappedQueue.offer(MappedBatch.end(), 100, TimeUnit.MILLISECONDS)) {
+                checkCommitter(committerFuture);
+            }
+            committerFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (ExecutionException e) {
+            failure.compareAndSet(null, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        Throwable error = failure.get();
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error != null) {
+            throw new IOException("Import pipeline failed: " + error.getMessage(), error);
+        }
+        
+        List<BatchProgress> stages = new ArrayList<>();
+        stages.add(new BatchProgress("Read", readRecords, readRecords, readNanos));
+        stages.add(new BatchProgress("Map (" + workers + " workers)", mapped.get(), readRecords,
+            mapNanos.get() / workers));
+        stages.add(new BatchProgress("Commit", commitStats[0], readRecords, commitStats[1]));
+        return stages;
+    }
+    
+    // Blocks for backpressure but gives up if a downstream stage died
+    private void putOrFail(BlockingQueue<RawBatch> queue, RawBatch batch, List<Future<?>> workers,
+                           Future<?> committer) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            checkCommitter(committer);
+            for (Future<?> worker : workers) {
+                if (worker.isDone()) {
+                    worker.get();
+                }
+            }
+        }
+    }
+    
+    // The committer only finishes after the end marker, so finishing earlier means it failed
+    private void checkCommitter(Future<?> committer) throws InterruptedException, ExecutionException {
+        if (committer.isDone()) {
+            committer.get();
+            throw new ExecutionException(new IllegalStateException("Committer stopped early"));
+        }
+    }
+    
+    private void mapBatches(BlockingQueue<RawBatch> rawQueue, BlockingQueue<MappedBatch<T>> mappedQueue,
+                            AtomicLong mapNanos, AtomicLong mapped) throws InterruptedException {
+        while (true) {
+            RawBatch raw = rawQueue.take();
+            if (raw == END) {
+                return;
+            }
+            long start = System.nanoTime();
+            MappedBatch<T> result = new MappedBatch<>(raw);
+            for (int i = 0; i < raw.size(); i++) {
+                try {
+                    result.add(mapper.map(raw.rows.get(i)), i);
+                } catch (Exception e) {
+                    result.reject(i, e.getMessage());
+                }
+            }
+            mapNanos.addAndGet(System.nanoTime() - start);
+            mapped.addAndGet(raw.size());
+            mappedQueue.put(result);
+        }
+    }
+    
+    private void commitBatches(BlockingQueue<MappedBatch<T>> mappedQueue, Semaphore inFlight,
+                               long[] stats) throws InterruptedException {
+        Map<Long, MappedBatch<T>> pending = new HashMap<>();
+        long nextSequence = 0;
+        
+        while (true) {
+            MappedBatch<T> batch = mappedQueue.take();
+            if (batch.raw == END) {
+                return;
+            }
+            pending.put(batch.raw.sequence, batch);
+            
+            // Apply batches strictly in file order for deterministic duplicate handling
+            MappedBatch<T> next;
+            while ((next = pending.remove(nextSequence)) != null) {
+                long start = System.nanoTime();
+                stats[0] += commit(next);
+                stats[1] += System.nanoTime() - start;
+                nextSequence++;
+                inFlight.release();
+            }
+        }
+    }
+    
+    private int commit(MappedBatch<T> batch) {
+        OrderedRejects rejects = new OrderedRejects(rejectHandler);
+        for (int i = 0; i < batch.rejectedRows.size(); i++) {
+            int row = batch.rejectedRows.get(i);
+            rejects.reject(batch.raw.lines[row], batch.raw.rows.get(row), batch.rejectReasons.get(i));
+        }
+        
+        Map<T, Integer> rowOf = new IdentityHashMap<>(batch.records.size() * 2);
+        for (int i = 0; i < batch.records.size(); i++) {
+            rowOf.put(batch.records.get(i), batch.recordRows[i]);
+        }
+        int added = committer.commit(batch.records, (record, e) -> {
+            int row = rowOf.get(record);
+            rejects.reject(batch.raw.lines[row], batch.raw.rows.get(row), e.getMessage());
+        });
+        rejects.flush();
+        return added;
+    }
+    
+    /**
+     * Tokenized records as read from the file
+     */
+    private static final class RawBatch {
+        private final long sequence;
+        private final List<String[]> rows;
+        private final long[] lines;
+        
+        private RawBatch(long sequence, int capacity) {
+            this.sequence = sequence;
+            this.rows = new ArrayList<>(capacity);
+            this.lines = new long[capacity];
+        }
+        
+        private void add(String[] fields, long line) {
+            lines[rows.size()] = line;
+            rows.add(fields);
+        }
+        
+        private int size() {
+            return rows.size();
+        }
+    }
+    
+    /**
+     * Mapped objects of one raw batch plus the rows that failed mapping
+     */
+    private static final class MappedBatch<T> {
+        private final RawBatch raw;
+        private final List<T> records;
+        private final int[] recordRows;
+        private final List<Integer> rejectedRows = new ArrayList<>();
+        private final List<String> rejectReasons = new ArrayList<>();
+        
+        private MappedBatch(RawBatch raw) {
+            this.raw = raw;
+            this.records = new ArrayList<>(raw.size());
+            this.recordRows = new int[raw.size()];
+        }
+        
+        private static <T> MappedBatch<T> end() {
+            return new MappedBatch<>(END);
+        }
+        
+        private void add(T record, int row) {
+            recordRows[records.size()] = row;
+            records.add(record);
+        }
+        
+        private void reject(int row, String reason) {
+            rejectedRows.add(row);
+            rejectReasons.add(reason);
+        }
+    }
+}
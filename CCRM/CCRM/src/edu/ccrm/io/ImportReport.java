@@ -0,0 +1,104 @@
+package edu.ccrm.io;
+
+import edu.ccrm.service.BatchProgress;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable outcome of a CSV import
+ */
+public class ImportReport {
+    private final String recordType;
+    private final Path sourceFile;
+    private final long recordsRead;
+    private final long imported;
+    private final long rejected;
+    private final long skipped;
+    private final long elapsedNanos;
+    private final List<BatchProgress> stages;
+    private final Path rejectFile;
+    private final ImportCheckpoint resumedFrom;
+    
+    public ImportReport(String recordType, Path sourceFile, long recordsRead, long imported, long rejected,
+                        long elapsedNanos, List<BatchProgress> stages, Path rejectFile) {
+        this(recordType, sourceFile, recordsRead, imported, rejected, elapsedNanos, stages, rejectFile, null);
+    }
+    
+    /**
+     * @param resumedFrom Checkpoint of an earlier run this import continued from, or null
+     */
+    public ImportReport(String recordType, Path sourceFile, long recordsRead, long imported, long rejected,
+                        long elapsedNanos, List<BatchProgress> stages, Path rejectFile,
+                        ImportCheckpoint resumedFrom) {
+        this(recordType, sourceFile, recordsRead, imported, rejected, 0, elapsedNanos, stages, rejectFile,
+            resumedFrom);
+    }
+    
+    /**
+     * @param skipped Records that already existed and were left alone by the duplicate policy
+     */
+    public ImportReport(String recordType, Path sourceFile, long recordsRead, long imported, long rejected,
+                        long skipped, long elapsedNanos, List<BatchProgress> stages, Path rejectFile,
+                        ImportCheckpoint resumedFrom) {
+        this.recordType = recordType;
+        this.sourceFile = sourceFile;
+        this.recordsRead = recordsRead;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.skipped = skipped;
+        this.elapsedNanos = elapsedNanos;
+        this.stages = new ArrayList<>(stages);
+        this.rejectFile = rejectFile;
+        this.resumedFrom = resumedFrom;
+    }
+    
+    // Getters
+    public String getRecordType() { return recordType; }
+    public Path getSourceFile() { return sourceFile; }
+    public long getRecordsRead() { return recordsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public long getSkipped() { return skipped; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public List<BatchProgress> getStages() { return new ArrayList<>(stages); }
+    
+    /**
+     * CSV of rejected rows, or null when every row was imported
+     */
+    public Path getRejectFile() { return rejectFile; }
+    
+    /**
+     * Where an earlier, interrupted run had got to, or null if this import started at the beginning
+     * The counts of this report only cover this run.
+     */
+    public ImportCheckpoint getResumedFrom() { return resumedFrom; }
+    
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+    
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? recordsRead / getElapsedSeconds() : 0.0;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Imported %d of %d %s records (%d rejected%s) in %.2fs - %.0f rows/sec",
+            imported, recordsRead, recordType, rejected, skipped > 0 ? ", " + skipped + " already present" : "",
+            getElapsedSeconds(), getRowsPerSecond()));
+        if (resumedFrom != null) {
+            sb.append(String.format("\n  Resumed after line %d: %d records (%d imported) were done by an earlier run",
+                resumedFrom.getLineNumber(), resumedFrom.getRecordsRead(), resumedFrom.getImported()));
+        }
+        for (BatchProgress stage : stages) {
+            sb.append("\n  ").append(stage);
+        }
+        if (rejectFile != null) {
+            sb.append("\n  Rejected rows: ").append(rejectFile);
+        }
+        return sb.toString();
+    }
+}
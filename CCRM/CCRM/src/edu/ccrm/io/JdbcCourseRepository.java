@@ -0,0 +1,174 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.service.CourseRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Courses in the courses table, with the instructor's fields inlined
+ * Department queries go through the index on the lowercased department.
+ */
+final class JdbcCourseRepository implements CourseRepository {
+    private static final String COLUMNS =
+        "code, title, credits, department, department_key, semester, created_at, updated_at, "
+            + "instructor_id, instructor_reg_no, instructor_name, instructor_email, instructor_department, "
+            + "instructor_created_at, instructor_updated_at, instructor_course_ids";
+    private static final String PARAMETERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+    private static final String UPSERT = "MERGE INTO courses (" + COLUMNS + ") KEY (code) VALUES (" + PARAMETERS + ")";
+    private static final String INSERT = "INSERT INTO courses (" + COLUMNS + ") VALUES (" + PARAMETERS + ")";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM courses";
+    
+    private final ConnectionPool pool;
+    private final int batchSize;
+    
+    JdbcCourseRepository(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+    
+    @Override
+    public Course findByCode(String code) {
+        List<Course> found = query(SELECT + " WHERE code = ?", code);
+        return found.isEmpty() ? null : found.get(0);
+    }
+    
+    @Override
+    public boolean exists(String code) {
+        return pool.withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT 1 FROM courses WHERE code = ?")) {
+                statement.setString(1, code);
+                try (ResultSet rows = statement.executeQuery()) {
+                    return rows.next();
+                }
+            }
+        });
+    }
+    
+    @Override
+    public Collection<Course> findAll() {
+        return query(SELECT, null);
+    }
+    
+    @Override
+    public Collection<Course> findByDepartment(String department) {
+        return query(SELECT + " WHERE department_key = ?", departmentKey(department));
+    }
+    
+    @Override
+    public Collection<Course> findBySemester(Semester semester) {
+        return query(SELECT + " WHERE semester = ?", JdbcSchema.nameOf(semester));
+    }
+    
+    @Override
+    public int count() {
+        return pool.withConnection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM courses")) {
+                rows.next();
+                return rows.getInt(1);
+            }
+        });
+    }
+    
+    @Override
+    public void save(Course course) {
+        saveAll(List.of(course));
+    }
+    
+    @Override
+    public void saveAll(Collection<Course> courses) {
+        if (courses.isEmpty()) {
+            return;
+        }
+        pool.inTransaction(connection -> {
+            JdbcSchema.executeBatched(connection, UPSERT, courses, JdbcCourseRepository::bind, batchSize);
+            return null;
+        });
+    }
+    
+    @Override
+    public void replaceAll(Collection<Course> courses) {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM courses");
+            }
+            JdbcSchema.executeBatched(connection, INSERT, courses, JdbcCourseRepository::bind, batchSize);
+            return null;
+        });
+    }
+    
+    /**
+     * Run a query with at most one string parameter
+     */
+    private List<Course> query(String sql, String parameter) {
+        return pool.withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                if (parameter != null) {
+                    statement.setString(1, parameter);
+                }
+                List<Course> courses = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        courses.add(read(rows));
+                    }
+                }
+                return courses;
+            }
+        });
+    }
+    
+    private static String departmentKey(String department) {
+        return department != null ? department.toLowerCase(Locale.ROOT) : null;
+    }
+    
+    private static void bind(PreparedStatement statement, Course course) throws SQLException {
+        statement.setString(1, course.getCode());
+        statement.setString(2, course.getTitle());
+        statement.setInt(3, course.getCredits());
+        statement.setString(4, course.getDepartment());
+        statement.setString(5, departmentKey(course.getDepartment()));
+        statement.setString(6, JdbcSchema.nameOf(course.getSemester()));
+        JdbcSchema.setTimestamp(statement, 7, course.getCreatedAt());
+        JdbcSchema.setTimestamp(statement, 8, course.getUpdatedAt());
+        Instructor instructor = course.getInstructor();
+        statement.setString(9, instructor != null ? instructor.getId() : null);
+        statement.setString(10, instructor != null ? instructor.getRegNo() : null);
+        statement.setString(11, instructor != null ? instructor.getFullName() : null);
+        statement.setString(12, instructor != null ? instructor.getEmail() : null);
+        statement.setString(13, instructor != null ? instructor.getDepartment() : null);
+        JdbcSchema.setTimestamp(statement, 14, instructor != null ? instructor.getCreatedAt() : null);
+        JdbcSchema.setTimestamp(statement, 15, instructor != null ? instructor.getUpdatedAt() : null);
+        statement.setString(16, instructor != null ? String.join(",", instructor.getAssignedCourseIds()) : null);
+    }
+    
+    private static Course read(ResultSet rows) throws SQLException {
+        Course.Builder builder = new Course.Builder()
+            .setCode(rows.getString("code"))
+            .setTitle(rows.getString("title"))
+            .setCredits(rows.getInt("credits"))
+            .setDepartment(rows.getString("department"))
+            .setSemester(JdbcSchema.enumOf(Semester.class, rows.getString("semester")))
+            .setTimestamps(JdbcSchema.getTimestamp(rows, "created_at"), JdbcSchema.getTimestamp(rows, "updated_at"));
+        String instructorId = rows.getString("instructor_id");
+        if (instructorId != null) {
+            String courseIds = rows.getString("instructor_course_ids");
+            builder.setInstructor(new Instructor(instructorId, rows.getString("instructor_reg_no"),
+                rows.getString("instructor_name"), rows.getString("instructor_email"),
+                rows.getString("instructor_department"), JdbcSchema.getTimestamp(rows, "instructor_created_at"),
+                JdbcSchema.getTimestamp(rows, "instructor_updated_at"),
+                courseIds == null || courseIds.isEmpty() ? List.of() : Arrays.asList(courseIds.split(","))));
+        }
+        return builder.build();
+    }
+}
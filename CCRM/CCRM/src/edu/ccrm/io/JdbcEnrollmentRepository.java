@@ -0,0 +1,159 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.service.EnrollmentRepository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Enrollments in the enrollments table, keyed by student and course
+ * Per-student queries use the primary key and per-course queries the course index.
+ */
+final class JdbcEnrollmentRepository implements EnrollmentRepository {
+    private static final String COLUMNS =
+        "student_id, course_code, enrollment_id, enrollment_date, grade, marks, updated_at";
+    private static final String UPSERT =
+        "MERGE INTO enrollments (" + COLUMNS + ") KEY (student_id, course_code) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT =
+        "INSERT INTO enrollments (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM enrollments";
+    
+    private final ConnectionPool pool;
+    private final int batchSize;
+    
+    JdbcEnrollmentRepository(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+    
+    @Override
+    public Enrollment find(String studentId, String courseCode) {
+        List<Enrollment> found = query(SELECT + " WHERE student_id = ? AND course_code = ?", studentId, courseCode);
+        return found.isEmpty() ? null : found.get(0);
+    }
+    
+    @Override
+    public Collection<Enrollment> findByStudent(String studentId) {
+        return query(SELECT + " WHERE student_id = ?", studentId);
+    }
+    
+    @Override
+    public Collection<Enrollment> findByCourse(String courseCode) {
+        return query(SELECT + " WHERE course_code = ?", courseCode);
+    }
+    
+    @Override
+    public Collection<Enrollment> findAll() {
+        return query(SELECT + " ORDER BY seq");
+    }
+    
+    @Override
+    public int count() {
+        return pool.withConnection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM enrollments")) {
+                rows.next();
+                return rows.getInt(1);
+            }
+        });
+    }
+    
+    @Override
+    public void save(Enrollment enrollment) {
+        saveAll(List.of(enrollment));
+    }
+    
+    @Override
+    public void saveAll(Collection<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) {
+            return;
+        }
+        pool.inTransaction(connection -> {
+            JdbcSchema.executeBatched(connection, UPSERT, enrollments, JdbcEnrollmentRepository::bind, batchSize);
+            return null;
+        });
+    }
+    
+    @Override
+    public Enrollment delete(String studentId, String courseCode) {
+        return pool.inTransaction(connection -> {
+            Enrollment removed = null;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    SELECT + " WHERE student_id = ? AND course_code = ? FOR UPDATE")) {
+                statement.setString(1, studentId);
+                statement.setString(2, courseCode);
+                try (ResultSet rows = statement.executeQuery()) {
+                    if (rows.next()) {
+                        removed = read(rows);
+                    }
+                }
+            }
+            if (removed != null) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM enrollments WHERE student_id = ? AND course_code = ?")) {
+                    statement.setString(1, studentId);
+                    statement.setString(2, courseCode);
+                    statement.executeUpdate();
+                }
+            }
+            return removed;
+        });
+    }
+    
+    @Override
+    public void replaceAll(Collection<Enrollment> enrollments) {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM enrollments");
+            }
+            JdbcSchema.executeBatched(connection, INSERT, enrollments, JdbcEnrollmentRepository::bind, batchSize);
+            return null;
+        });
+    }
+    
+    private List<Enrollment> query(String sql, String... parameters) {
+        return pool.withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setString(i + 1, parameters[i]);
+                }
+                List<Enrollment> enrollments = new ArrayList<>();
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        enrollments.add(read(rows));
+                    }
+                }
+                return enrollments;
+            }
+        });
+    }
+    
+    private static void bind(PreparedStatement statement, Enrollment enrollment) throws SQLException {
+        statement.setString(1, enrollment.getStudentId());
+        statement.setString(2, enrollment.getCourseCode());
+        statement.setString(3, enrollment.getEnrollmentId());
+        JdbcSchema.setTimestamp(statement, 4, enrollment.getEnrollmentDate());
+        statement.setString(5, JdbcSchema.nameOf(enrollment.getGrade()));
+        if (enrollment.getMarks() != null) {
+            statement.setDouble(6, enrollment.getMarks());
+        } else {
+            statement.setNull(6, Types.DOUBLE);
+        }
+        JdbcSchema.setTimestamp(statement, 7, enrollment.getUpdatedAt());
+    }
+    
+    private static Enrollment read(ResultSet rows) throws SQLException {
+        return new Enrollment(rows.getString("enrollment_id"), rows.getString("student_id"),
+            rows.getString("course_code"), JdbcSchema.getTimestamp(rows, "enrollment_date"),
+            JdbcSchema.enumOf(Grade.class, rows.getString("grade")), rows.getObject("marks", Double.class),
+            JdbcSchema.getTimestamp(rows, "updated_at"));
+    }
+}
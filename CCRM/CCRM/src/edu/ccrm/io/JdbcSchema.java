@@ -0,0 +1,121 @@
+package edu.ccrm.io;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Tables and indexes of the JDBC backend, plus column conversions
+ *
+ * Written for H2 (MERGE ... KEY is H2's upsert); a student's enrolled course IDs are
+ * not stored but read from the enrollments table. Indexes serve the lookups the
+ * services make: registration number, course department and semester, and
+ * enrollments by course (by student is the primary key's prefix). Enrollments keep
+ * an identity column so they can be listed in the order they were first saved.
+ */
+final class JdbcSchema {
+    private static final String[] DDL = {
+        "CREATE TABLE IF NOT EXISTS students ("
+            + "id VARCHAR(64) PRIMARY KEY, reg_no VARCHAR(64) NOT NULL, full_name VARCHAR(255), "
+            + "email VARCHAR(255), status VARCHAR(16), enrollment_date DATE, "
+            + "created_at TIMESTAMP, updated_at TIMESTAMP)",
+        "CREATE UNIQUE INDEX IF NOT EXISTS students_reg_no ON students (reg_no)",
+        "CREATE TABLE IF NOT EXISTS courses ("
+            + "code VARCHAR(32) PRIMARY KEY, title VARCHAR(255), credits INT, "
+            + "department VARCHAR(255), department_key VARCHAR(255), semester VARCHAR(16), "
+            + "created_at TIMESTAMP, updated_at TIMESTAMP, "
+            + "instructor_id VARCHAR(64), instructor_reg_no VARCHAR(64), instructor_name VARCHAR(255), "
+            + "instructor_email VARCHAR(255), instructor_department VARCHAR(255), "
+            + "instructor_created_at TIMESTAMP, instructor_updated_at TIMESTAMP, "
+            + "instructor_course_ids VARCHAR(4096))",
+        "CREATE INDEX IF NOT EXISTS courses_department ON courses (department_key)",
+        "CREATE INDEX IF NOT EXISTS courses_semester ON courses (semester)",
+        "CREATE TABLE IF NOT EXISTS enrollments ("
+            + "student_id VARCHAR(64) NOT NULL, course_code VARCHAR(32) NOT NULL, "
+            + "enrollment_id VARCHAR(128), enrollment_date TIMESTAMP, grade VARCHAR(4), marks DOUBLE, "
+            + "updated_at TIMESTAMP, seq BIGINT AUTO_INCREMENT, "
+            + "PRIMARY KEY (student_id, course_code))",
+        "CREATE INDEX IF NOT EXISTS enrollments_course ON enrollments (course_code)"
+    };
+    
+    /**
+     * Sets the parameters of a prepared statement from one record
+     */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement statement, T record) throws SQLException;
+    }
+    
+    private JdbcSchema() {} // Utility class
+    
+    static void create(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String ddl : DDL) {
+                statement.execute(ddl);
+            }
+        }
+    }
+    
+    /**
+     * Run the statement once per record, sending the rows in batches of the given size
+     */
+    static <T> void executeBatched(Connection connection, String sql, Collection<? extends T> records,
+                                   Binder<T> binder, int batchSize) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (T record : records) {
+                binder.bind(statement, record);
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+    
+    static void setTimestamp(PreparedStatement statement, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            statement.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            statement.setNull(index, Types.TIMESTAMP);
+        }
+    }
+    
+    static LocalDateTime getTimestamp(ResultSet rows, String column) throws SQLException {
+        Timestamp value = rows.getTimestamp(column);
+        return value != null ? value.toLocalDateTime() : null;
+    }
+    
+    static void setDate(PreparedStatement statement, int index, LocalDate value) throws SQLException {
+        if (value != null) {
+            statement.setDate(index, Date.valueOf(value));
+        } else {
+            statement.setNull(index, Types.DATE);
+        }
+    }
+    
+    static LocalDate getDate(ResultSet rows, String column) throws SQLException {
+        Date value = rows.getDate(column);
+        return value != null ? value.toLocalDate() : null;
+    }
+    
+    static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+    
+    static <E extends Enum<E>> E enumOf(Class<E> type, String name) {
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+}
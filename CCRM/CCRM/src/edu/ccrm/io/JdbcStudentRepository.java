@@ -0,0 +1,171 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentRepository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Students in the students table; enrolled course IDs come from the enrollments table
+ */
+final class JdbcStudentRepository implements StudentRepository {
+    private static final String COLUMNS =
+        "id, reg_no, full_name, email, status, enrollment_date, created_at, updated_at";
+    private static final String UPSERT =
+        "MERGE INTO students (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT =
+        "INSERT INTO students (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final ConnectionPool pool;
+    private final int batchSize;
+    
+    JdbcStudentRepository(ConnectionPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+    
+    @Override
+    public Student findById(String id) {
+        return findOne("SELECT " + COLUMNS + " FROM students WHERE id = ?", id);
+    }
+    
+    @Override
+    public Student findByRegNo(String regNo) {
+        return findOne("SELECT " + COLUMNS + " FROM students WHERE reg_no = ?", regNo);
+    }
+    
+    @Override
+    public boolean exists(String id) {
+        return exists("SELECT 1 FROM students WHERE id = ?", id);
+    }
+    
+    @Override
+    public boolean existsByRegNo(String regNo) {
+        return exists("SELECT 1 FROM students WHERE reg_no = ?", regNo);
+    }
+    
+    @Override
+    public Collection<Student> findAll() {
+        return pool.withConnection(connection -> {
+            Map<String, List<String>> courses = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT student_id, course_code FROM enrollments")) {
+                while (rows.next()) {
+                    courses.computeIfAbsent(rows.getString(1), id -> new ArrayList<>()).add(rows.getString(2));
+                }
+            }
+            List<Student> students = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT " + COLUMNS + " FROM students")) {
+                while (rows.next()) {
+                    students.add(read(rows, courses.getOrDefault(rows.getString("id"), List.of())));
+                }
+            }
+            return students;
+        });
+    }
+    
+    @Override
+    public int count() {
+        return pool.withConnection(connection -> {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM students")) {
+                rows.next();
+                return rows.getInt(1);
+            }
+        });
+    }
+    
+    @Override
+    public void save(Student student) {
+        saveAll(List.of(student));
+    }
+    
+    @Override
+    public void saveAll(Collection<Student> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        pool.inTransaction(connection -> {
+            JdbcSchema.executeBatched(connection, UPSERT, students, JdbcStudentRepository::bind, batchSize);
+            return null;
+        });
+    }
+    
+    @Override
+    public void replaceAll(Collection<Student> students) {
+        pool.inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM students");
+            }
+            JdbcSchema.executeBatched(connection, INSERT, students, JdbcStudentRepository::bind, batchSize);
+            return null;
+        });
+    }
+    
+    private Student findOne(String sql, String value) {
+        return pool.withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, value);
+                try (ResultSet rows = statement.executeQuery()) {
+                    if (!rows.next()) {
+                        return null;
+                    }
+                    return read(rows, findCourseCodes(connection, rows.getString("id")));
+                }
+            }
+        });
+    }
+    
+    private boolean exists(String sql, String value) {
+        return pool.withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, value);
+                try (ResultSet rows = statement.executeQuery()) {
+                    return rows.next();
+                }
+            }
+        });
+    }
+    
+    private static List<String> findCourseCodes(Connection connection, String studentId) throws SQLException {
+        List<String> codes = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT course_code FROM enrollments WHERE student_id = ?")) {
+            statement.setString(1, studentId);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    codes.add(rows.getString(1));
+                }
+            }
+        }
+        return codes;
+    }
+    
+    private static void bind(PreparedStatement statement, Student student) throws SQLException {
+        statement.setString(1, student.getId());
+        statement.setString(2, student.getRegNo());
+        statement.setString(3, student.getFullName());
+        statement.setString(4, student.getEmail());
+        statement.setString(5, JdbcSchema.nameOf(student.getStatus()));
+        JdbcSchema.setDate(statement, 6, student.getEnrollmentDate());
+        JdbcSchema.setTimestamp(statement, 7, student.getCreatedAt());
+        JdbcSchema.setTimestamp(statement, 8, student.getUpdatedAt());
+    }
+    
+    private static Student read(ResultSet rows, List<String> courseCodes) throws SQLException {
+        return new Student(rows.getString("id"), rows.getString("reg_no"), rows.getString("full_name"),
+            rows.getString("email"), JdbcSchema.enumOf(Student.StudentStatus.class, rows.getString("status")),
+            JdbcSchema.getDate(rows, "enrollment_date"), JdbcSchema.getTimestamp(rows, "created_at"),
+            JdbcSchema.getTimestamp(rows, "updated_at"), courseCodes);
+    }
+}
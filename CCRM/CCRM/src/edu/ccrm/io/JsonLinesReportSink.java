@@ -0,0 +1,76 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * JSON Lines report sink - one JSON object per row keyed by column name
+ */
+public class JsonLinesReportSink extends AbstractReportSink {
+    private String[] keyPrefixes = new String[0];
+    
+    public JsonLinesReportSink(Writer writer) {
+        super(writer);
+    }
+    
+    @Override
+    protected void writeHeader(String title) {
+        // Pre-render the escaped "key": part of every column once per report
+        keyPrefixes = new String[columns.length];
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            key.setLength(0);
+            key.append(i == 0 ? "{" : ",");
+            appendJsonString(key, columns[i].getName());
+            key.append(':');
+            keyPrefixes[i] = key.toString();
+        }
+    }
+    
+    @Override
+    protected void appendText(String value) {
+        beforeCell();
+        appendJsonString(row, value);
+    }
+    
+    @Override
+    protected void beforeCell() {
+        if (cellIndex < keyPrefixes.length) {
+            row.append(keyPrefixes[cellIndex]);
+        } else {
+            row.append(cellIndex == 0 ? "{" : ",").append("\"col").append(cellIndex).append("\":");
+        }
+    }
+    
+    @Override
+    protected void afterNumber(int start) {
+    }
+    
+    @Override
+    protected void finishRow() {
+        row.append(row.length() == 0 ? "{}" : "}");
+    }
+    
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,277 @@
+package edu.ccrm.io;
+
+import edu.ccrm.service.BatchProgress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Memory-mapped parallel CSV import for very large files
+ * The file is mapped with FileChannel.map and split into chunks that end on a
+ * record boundary (a line break outside quotes). Chunks are tokenized directly
+ * from the mapped bytes on a worker pool, then merged and committed strictly in
+ * file order so duplicate handling matches a sequential import. Only a window of
+ * chunks is in flight at once, which bounds memory.
+ */
+public class MappedImport<T> {
+    private static final long SCAN_WINDOW = 256L * 1024 * 1024;
+    
+    private final ImportOptions options;
+    private final RecordMapper<T> mapper;
+    private final BatchCommitter<T> committer;
+    private final RejectHandler rejectHandler;
+    
+    public MappedImport(ImportOptions options, RecordMapper<T> mapper, BatchCommitter<T> committer,
+                        RejectHandler rejectHandler) {
+        this.options = options;
+        this.mapper = mapper;
+        this.committer = committer;
+        this.rejectHandler = rejectHandler;
+    }
+    
+    /**
+     * Import every record after the header line
+     * @return Throughput of the scan, parse and commit stages
+     */
+    public List<BatchProgress> run(Path filePath) throws IOException {
+        return run(filePath, null);
+    }
+    
+    /**
+     * Import the records after the checkpoint's offset (or the header), saving the
+     * checkpoint after each committed batch
+     * @param checkpoint Progress to continue from and keep up to date; null for none
+     */
+    List<BatchProgress> run(Path filePath, ImportCheckpoint checkpoint) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            
+            long scanStart = System.nanoTime();
+            ChunkBoundaries boundaries = findBoundaries(channel, size, checkpoint);
+            long scanNanos = System.nanoTime() - scanStart;
+            
+            int workers = options.getWorkers();
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            Deque<Future<ChunkResult<T>>> window = new ArrayDeque<>();
+            int windowSize = workers + options.getQueueCapacity();
+            long parseNanos = 0;
+            long commitNanos = 0;
+            long records = 0;
+            long committed = 0;
+            long lineBase = boundaries.headerLines;
+            
+            try {
+                int nextChunk = 0;
+                while (nextChunk < boundaries.count() || !window.isEmpty()) {
+                    while (nextChunk < boundaries.count() && window.size() < windowSize) {
+                        long start = boundaries.starts.get(nextChunk);
+                        long end = boundaries.ends.get(nextChunk);
+                        window.add(executor.submit(() -> parseChunk(channel, start, end)));
+                        nextChunk++;
+                    }
+                    
+                    long chunkStart = boundaries.starts.get(nextChunk - window.size());
+                    ChunkResult<T> chunk = window.removeFirst().get();
+                    parseNanos += chunk.parseNanos;
+                    records += chunk.rows.size();
+                    
+                    long commitStart = System.nanoTime();
+                    committed += commit(chunk, lineBase, chunkStart, channel, checkpoint);
+                    lineBase += chunk.lineCount;
+                    commitNanos += System.nanoTime() - commitStart;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Mapped import interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof IOException ? (IOException) cause
+                    : new IOException("Mapped import failed: " + cause.getMessage(), cause);
+            } finally {
+                executor.shutdownNow();
+            }
+            
+            List<BatchProgress> stages = new ArrayList<>();
+            stages.add(new BatchProgress("Scan (" + boundaries.count() + " chunks)", size, size, scanNanos));
+            stages.add(new BatchProgress("Parse (" + workers + " workers)", records, records, parseNanos / workers));
+            stages.add(new BatchProgress("Commit", committed, records, commitNanos));
+            return stages;
+        }
+    }
+    
+    /**
+     * Skip the header record, or everything before a checkpoint, and cut the rest into
+     * chunks of about chunkSize bytes
+     * A single sequential pass tracks quote parity so boundaries never fall inside a quoted field.
+     */
+    private ChunkBoundaries findBoundaries(FileChannel channel, long size, ImportCheckpoint checkpoint)
+            throws IOException {
+        ChunkBoundaries boundaries = new ChunkBoundaries();
+        if (size == 0) {
+            return boundaries;
+        }
+        
+        long dataStart;
+        if (checkpoint != null && checkpoint.isResumed()) {
+            // A checkpoint is always at a record boundary, perhaps between the CR and LF
+            dataStart = checkpoint.getOffset();
+            ByteBuffer around = ByteBuffer.allocate(2);
+            if (dataStart > 0 && channel.read(around, dataStart - 1) == 2
+                    && around.get(0) == '\r' && around.get(1) == '\n') {
+                dataStart++;
+            }
+            boundaries.headerLines = checkpoint.getLineNumber();
+        } else {
+            // Header: first record, tokenized like the data
+            MappedByteBuffer first = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, SCAN_WINDOW));
+            ByteCsvTokenizer header = new ByteCsvTokenizer(first);
+            dataStart = header.nextRecord() ? header.getPosition() : size;
+            if (dataStart > 0 && dataStart < first.limit() && first.get((int) dataStart - 1) == '\r'
+                    && first.get((int) dataStart) == '\n') {
+                dataStart++; // Header ended with CRLF
+            }
+            boundaries.headerLines = header.getLineNumber();
+        }
+        
+        long chunkStart = dataStart;
+        long target = chunkStart + options.getChunkSize();
+        boolean inQuotes = false;
+        for (long windowStart = dataStart; windowStart < size; windowStart += SCAN_WINDOW) {
+            long windowLength = Math.min(SCAN_WINDOW, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes && windowStart + i >= target) {
+                    long end = windowStart + i + 1;
+                    boundaries.add(chunkStart, end);
+                    chunkStart = end;
+                    target = chunkStart + options.getChunkSize();
+                }
+            }
+        }
+        if (chunkStart < size) {
+            boundaries.add(chunkStart, size);
+        }
+        return boundaries;
+    }
+    
+    private ChunkResult<T> parseChunk(FileChannel channel, long start, long end) throws IOException {
+        long startNanos = System.nanoTime();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ByteCsvTokenizer tokenizer = new ByteCsvTokenizer(buffer);
+        ChunkResult<T> result = new ChunkResult<>();
+        
+        while (tokenizer.nextRecord()) {
+            String[] fields = tokenizer.getFieldArray();
+            long line = tokenizer.getRecordLineNumber();
+            try {
+                result.addRecord(mapper.map(fields), fields, line);
+            } catch (Exception e) {
+                result.addReject(fields, line, e.getMessage());
+            }
+            result.markEnd(tokenizer.getPosition(), tokenizer.getLineNumber());
+        }
+        result.lineCount = tokenizer.getLineNumber();
+        result.parseNanos = System.nanoTime() - startNanos;
+        return result;
+    }
+    
+    // Commit one chunk in batches; chunk-relative line numbers and offsets become absolute here
+    private long commit(ChunkResult<T> chunk, long lineBase, long chunkStart, FileChannel channel,
+                        ImportCheckpoint checkpoint) throws IOException {
+        long added = 0;
+        int batchSize = options.getBatchSize();
+        OrderedRejects rejects = new OrderedRejects(rejectHandler);
+        int row = 0;
+        while (row < chunk.rows.size()) {
+            int end = Math.min(row + batchSize, chunk.rows.size());
+            List<T> batch = new ArrayList<>(end - row);
+            Map<T, Integer> rowOf = new IdentityHashMap<>((end - row) * 2);
+            for (int i = row; i < end; i++) {
+                if (chunk.rejectReasons.get(i) != null) {
+                    rejects.reject(lineBase + chunk.lines[i], chunk.rows.get(i), chunk.rejectReasons.get(i));
+                } else {
+                    batch.add(chunk.records.get(i));
+                    rowOf.put(chunk.records.get(i), i);
+                }
+            }
+            long batchAdded = committer.commit(batch, (record, e) -> {
+                int index = rowOf.get(record);
+                rejects.reject(lineBase + chunk.lines[index], chunk.rows.get(index), e.getMessage());
+            });
+            rejects.flush();
+            added += batchAdded;
+            if (checkpoint != null) {
+                checkpoint.save(channel, chunkStart + chunk.ends[end - 1], lineBase + chunk.lineEnds[end - 1],
+                    end - row, batchAdded, end - row - batchAdded);
+            }
+            row = end;
+        }
+        return added;
+    }
+    
+    private static final class ChunkBoundaries {
+        private final List<Long> starts = new ArrayList<>();
+        private final List<Long> ends = new ArrayList<>();
+        private long headerLines;
+        
+        private void add(long start, long end) {
+            starts.add(start);
+            ends.add(end);
+        }
+        
+        private int count() {
+            return starts.size();
+        }
+    }
+    
+    /**
+     * Parsed rows of one chunk in file order; each row has a record or a reject reason
+     */
+    private static final class ChunkResult<T> {
+        private final List<T> records = new ArrayList<>();
+        private final List<String[]> rows = new ArrayList<>();
+        private final List<String> rejectReasons = new ArrayList<>();
+        private long[] lines = new long[64];
+        private long[] ends = new long[64];
+        private long[] lineEnds = new long[64];
+        private long lineCount;
+        private long parseNanos;
+        
+        private void addRecord(T record, String[] fields, long line) {
+            add(record, fields, line, null);
+        }
+        
+        private void addReject(String[] fields, long line, String reason) {
+            add(null, fields, line, reason);
+        }
+        
+        private void add(T record, String[] fields, long line, String reason) {
+            if (rows.size() == lines.length) {
+                lines = Arrays.copyOf(lines, lines.length * 2);
+                ends = Arrays.copyOf(ends, lines.length);
+                lineEnds = Arrays.copyOf(lineEnds, lines.length);
+            }
+            lines[rows.size()] = line;
+            records.add(record);
+            rows.add(fields);
+            rejectReasons.add(reason);
+        }
+        
+        /**
+         * Where the last row added ends: chunk offset and lines read
+         */
+        private void markEnd(int offset, long lineNumber) {
+            ends[rows.size() - 1] = offset;
+            lineEnds[rows.size() - 1] = lineNumber;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package edu.ccrm.io;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Holds back the rejects of one batch and passes them on in line order
+ * Mapping rejects are known before the batch is committed and commit rejects only
+ * after, so without this the reject file's order would depend on the import mode.
+ * Not thread-safe; each batch is flushed by the thread that commits it.
+ */
+final class OrderedRejects implements RejectHandler {
+    private final RejectHandler target;
+    private final List<Reject> held = new ArrayList<>();
+    
+    OrderedRejects(RejectHandler target) {
+        this.target = target;
+    }
+    
+    @Override
+    public void reject(long lineNumber, String[] fields, String reason) {
+        held.add(new Reject(lineNumber, fields, reason));
+    }
+    
+    /**
+     * Rejects held since the last flush
+     */
+    int size() {
+        return held.size();
+    }
+    
+    /**
+     * Pass on the rejects held so far, lowest line first
+     */
+    void flush() {
+        held.sort(Comparator.comparingLong(reject -> reject.lineNumber));
+        for (Reject reject : held) {
+            target.reject(reject.lineNumber, reject.fields, reject.reason);
+        }
+        held.clear();
+    }
+    
+    private static final class Reject {
+        private final long lineNumber;
+        private final String[] fields;
+        private final String reason;
+        
+        private Reject(long lineNumber, String[] fields, String reason) {
+            this.lineNumber = lineNumber;
+            this.fields = fields;
+            this.reason = reason;
+        }
+    }
+}
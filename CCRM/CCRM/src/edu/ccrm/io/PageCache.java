@@ -0,0 +1,151 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed number of page frames in front of a PageFile, evicted with the clock algorithm
+ *
+ * Each frame has a reference bit set on access; the clock hand clears it on its
+ * first pass and evicts the frame on the next, so recently used pages get a second
+ * chance. Pages changed since the last commit are never evicted: their images are
+ * not in the write-ahead log yet, so they must not reach the page file either.
+ * Dirty pages that are committed are written back when evicted or flushed.
+ */
+final class PageCache {
+    private final PageFile file;
+    private final Frame[] frames;
+    private final Map<Integer, Frame> resident = new HashMap<>();
+    private final List<Frame> uncommitted = new ArrayList<>();
+    private int hand;
+    private long hits;
+    private long misses;
+    private long evictions;
+    
+    private static final class Frame {
+        private final byte[] data = new byte[PageFile.PAGE_SIZE];
+        private int pageId = -1;
+        private boolean referenced;
+        private boolean dirty;
+        private boolean pending;
+    }
+    
+    PageCache(PageFile file, int capacity) {
+        if (capacity < 8) {
+            throw new IllegalArgumentException("Page cache needs at least 8 frames: " + capacity);
+        }
+        this.file = file;
+        this.frames = new Frame[capacity];
+        for (int i = 0; i < capacity; i++) {
+            frames[i] = new Frame();
+        }
+    }
+    
+    // Getters
+    int getCapacity() { return frames.length; }
+    int getUncommittedCount() { return uncommitted.size(); }
+    long getHits() { return hits; }
+    long getMisses() { return misses; }
+    long getEvictions() { return evictions; }
+    
+    /**
+     * The cached contents of a page
+     * The array belongs to the cache and is only valid until the next call.
+     */
+    byte[] read(int pageId) throws IOException {
+        Frame frame = resident.get(pageId);
+        if (frame != null) {
+            hits++;
+            frame.referenced = true;
+            return frame.data;
+        }
+        misses++;
+        frame = evict();
+        file.read(pageId, frame.data);
+        load(frame, pageId);
+        return frame.data;
+    }
+    
+    /**
+     * Replace the contents of a page; it stays in the cache until committed
+     */
+    void write(int pageId, byte[] page) throws IOException {
+        Frame frame = resident.get(pageId);
+        if (frame == null) {
+            frame = evict();
+            load(frame, pageId);
+        }
+        System.arraycopy(page, 0, frame.data, 0, PageFile.PAGE_SIZE);
+        frame.referenced = true;
+        frame.dirty = true;
+        if (!frame.pending) {
+            frame.pending = true;
+            uncommitted.add(frame);
+        }
+    }
+    
+    /**
+     * Log the images of every page changed since the last commit, then make them evictable
+     */
+    void commit(WriteAheadLog wal) throws IOException {
+        if (uncommitted.isEmpty()) {
+            return;
+        }
+        for (Frame frame : uncommitted) {
+            wal.append(frame.pageId, frame.data);
+        }
+        wal.commit();
+        for (Frame frame : uncommitted) {
+            frame.pending = false;
+        }
+        uncommitted.clear();
+    }
+    
+    /**
+     * Write every committed dirty page back to the page file
+     */
+    void flush() throws IOException {
+        for (Frame frame : frames) {
+            if (frame.dirty && !frame.pending) {
+                file.write(frame.pageId, frame.data);
+                frame.dirty = false;
+            }
+        }
+    }
+    
+    private void load(Frame frame, int pageId) {
+        frame.pageId = pageId;
+        frame.referenced = true;
+        resident.put(pageId, frame);
+    }
+    
+    private Frame evict() throws IOException {
+        for (int step = 0; step < frames.length * 2; step++) {
+            Frame frame = frames[hand];
+            hand = (hand + 1) % frames.length;
+            if (frame.pageId < 0) {
+                return frame;
+            }
+            if (frame.pending) {
+                continue;
+            }
+            if (frame.referenced) {
+                frame.referenced = false;
+                continue;
+            }
+            if (frame.dirty) {
+                file.write(frame.pageId, frame.data);
+                frame.dirty = false;
+            }
+            resident.remove(frame.pageId);
+            frame.pageId = -1;
+            evictions++;
+            return frame;
+        }
+        throw new IOException("Page cache is full: " + uncommitted.size() + " of " + frames.length
+            + " pages are changed but not committed");
+    }
+}
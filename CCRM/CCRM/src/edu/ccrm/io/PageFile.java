@@ -0,0 +1,61 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file of fixed-size pages addressed by page number
+ */
+final class PageFile implements Closeable {
+    static final int PAGE_SIZE = 4096;
+    
+    private final FileChannel channel;
+    
+    PageFile(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    }
+    
+    /**
+     * Pages written so far; pages allocated but still only in the cache are not counted
+     */
+    int getPageCount() throws IOException {
+        return (int) (channel.size() / PAGE_SIZE);
+    }
+    
+    /**
+     * Read a page; the part past the end of the file reads as zeros
+     */
+    void read(int pageId, byte[] page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(page);
+        long position = (long) pageId * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                Arrays.fill(page, buffer.position(), PAGE_SIZE, (byte) 0);
+                break;
+            }
+        }
+    }
+    
+    void write(int pageId, byte[] page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(page, 0, PAGE_SIZE);
+        long position = (long) pageId * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+    
+    void force() throws IOException {
+        channel.force(false);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
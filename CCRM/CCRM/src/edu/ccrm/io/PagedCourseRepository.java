@@ -0,0 +1,101 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.service.CourseRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Courses in a PagedStore table keyed by code
+ * Department and semester queries scan the table; course catalogues stay small.
+ * Instructors' assigned course IDs are not stored but derived from the table by the
+ * scanning queries, so findByCode returns instructors without them.
+ */
+final class PagedCourseRepository extends PagedRepository implements CourseRepository {
+    private final StoreTable<Course> courses;
+    
+    PagedCourseRepository(PagedStore store) {
+        super(store);
+        this.courses = call(() -> store.table("courses", RecordCodecs.COURSES));
+    }
+    
+    @Override
+    public Course findByCode(String code) {
+        return call(() -> courses.get(code));
+    }
+    
+    @Override
+    public boolean exists(String code) {
+        return findByCode(code) != null;
+    }
+    
+    @Override
+    public Collection<Course> findAll() {
+        return findWhere(course -> true);
+    }
+    
+    @Override
+    public Collection<Course> findByDepartment(String department) {
+        return findWhere(course -> course.getDepartment() != null && course.getDepartment().equalsIgnoreCase(department));
+    }
+    
+    @Override
+    public Collection<Course> findBySemester(Semester semester) {
+        return findWhere(course -> course.getSemester() == semester);
+    }
+    
+    @Override
+    public int count() {
+        return (int) courses.size();
+    }
+    
+    @Override
+    public void save(Course course) {
+        call(() -> courses.put(course));
+    }
+    
+    @Override
+    public void saveAll(Collection<Course> batch) {
+        call(() -> courses.putAll(batch));
+    }
+    
+    @Override
+    public void replaceAll(Collection<Course> restored) {
+        call(() -> {
+            synchronized (store) {
+                courses.clear();
+                return courses.putAll(restored);
+            }
+        });
+    }
+    
+    private List<Course> findWhere(Predicate<Course> filter) {
+        return call(() -> {
+            List<Course> found = new ArrayList<>();
+            Map<String, List<String>> coursesByInstructor = new LinkedHashMap<>();
+            courses.forEach(course -> {
+                if (course.getInstructor() != null) {
+                    coursesByInstructor.computeIfAbsent(course.getInstructor().getId(), id -> new ArrayList<>())
+                        .add(course.getCode());
+                }
+                if (filter.test(course)) {
+                    found.add(course);
+                }
+            });
+            for (Course course : found) {
+                Instructor instructor = course.getInstructor();
+                if (instructor != null) {
+                    coursesByInstructor.get(instructor.getId()).forEach(instructor::assignCourse);
+                }
+            }
+            return found;
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.service.EnrollmentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Enrollments in a PagedStore table keyed by student and course
+ * A second table keyed by course and student indexes them by course, so both
+ * per-student and per-course queries are prefix scans. findAll lists them in
+ * key order, not the order they were saved.
+ */
+final class PagedEnrollmentRepository extends PagedRepository implements EnrollmentRepository {
+    private final StoreTable<Enrollment> enrollments;
+    private final StoreTable<String[]> byCourse;
+    
+    PagedEnrollmentRepository(PagedStore store) {
+        super(store);
+        this.enrollments = call(() -> store.table("enrollments", RecordCodecs.ENROLLMENTS));
+        this.byCourse = call(() -> store.table("course_enrollments", RecordCodecs.KEY_PAIRS));
+    }
+    
+    /**
+     * The enrollments table, for deriving students' enrolled courses
+     */
+    StoreTable<Enrollment> getTable() { return enrollments; }
+    
+    @Override
+    public Enrollment find(String studentId, String courseCode) {
+        return call(() -> enrollments.get(RecordCodecs.enrollmentKey(studentId, courseCode)));
+    }
+    
+    @Override
+    public Collection<Enrollment> findByStudent(String studentId) {
+        return call(() -> enrollments.findByPrefix(RecordCodecs.enrollmentPrefix(studentId)));
+    }
+    
+    @Override
+    public Collection<Enrollment> findByCourse(String courseCode) {
+        return call(() -> {
+            synchronized (store) {
+                List<Enrollment> found = new ArrayList<>();
+                for (String[] entry : byCourse.findByPrefix(RecordCodecs.enrollmentPrefix(courseCode))) {
+                    Enrollment enrollment = enrollments.get(entry[1]);
+                    if (enrollment != null) {
+                        found.add(enrollment);
+                    }
+                }
+                return found;
+            }
+        });
+    }
+    
+    @Override
+    public Collection<Enrollment> findAll() {
+        return call(() -> {
+            List<Enrollment> all = new ArrayList<>();
+            enrollments.forEach(all::add);
+            return all;
+        });
+    }
+    
+    @Override
+    public int count() {
+        return (int) enrollments.size();
+    }
+    
+    @Override
+    public void save(Enrollment enrollment) {
+        saveAll(List.of(enrollment));
+    }
+    
+    @Override
+    public void saveAll(Collection<Enrollment> batch) {
+        // Each enrollment and its by-course entry reach the log in the same commit
+        call(() -> store.atomically(() -> {
+            for (Enrollment enrollment : batch) {
+                enrollments.put(enrollment);
+                byCourse.put(courseEntry(enrollment.getStudentId(), enrollment.getCourseCode()));
+                store.commitAtomicIfCacheFilling();
+            }
+            return null;
+        }));
+    }
+    
+    @Override
+    public Enrollment delete(String studentId, String courseCode) {
+        return call(() -> store.atomically(() -> {
+            String key = RecordCodecs.enrollmentKey(studentId, courseCode);
+            Enrollment removed = enrollments.get(key);
+            if (removed != null) {
+                enrollments.delete(key);
+                byCourse.delete(courseEntry(studentId, courseCode)[0]);
+            }
+            return removed;
+        }));
+    }
+    
+    @Override
+    public void replaceAll(Collection<Enrollment> restored) {
+        call(() -> {
+            synchronized (store) {
+                enrollments.clear();
+                byCourse.clear();
+                saveAll(restored);
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * Index entry {course code + student ID, enrollment key}
+     */
+    private static String[] courseEntry(String studentId, String courseCode) {
+        return new String[] {RecordCodecs.enrollmentKey(courseCode, studentId),
+            RecordCodecs.enrollmentKey(studentId, courseCode)};
+    }
+}
@@ -0,0 +1,33 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exceptions.RepositoryException;
+
+import java.io.IOException;
+
+/**
+ * Base of the repositories kept in a PagedStore
+ * Store failures surface as RepositoryException.
+ */
+abstract class PagedRepository {
+    /**
+     * Work on the store's tables
+     */
+    @FunctionalInterface
+    interface StoreWork<T> {
+        T run() throws IOException;
+    }
+    
+    protected final PagedStore store;
+    
+    PagedRepository(PagedStore store) {
+        this.store = store;
+    }
+    
+    protected static <T> T call(StoreWork<T> work) {
+        try {
+            return work.run();
+        } catch (IOException e) {
+            throw new RepositoryException("Page store error: " + e.getMessage(), e);
+        }
+    }
+}
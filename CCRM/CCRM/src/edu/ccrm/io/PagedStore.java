@@ -0,0 +1,271 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk-backed record store of named B+trees in fixed-size pages
+ *
+ * Pages are read through a PageCache with clock eviction, so the data can be far
+ * larger than the heap and a point lookup costs one page read per tree level.
+ * Changes are made crash-safe by the write-ahead log "&lt;file&gt;.wal": page images
+ * are logged and forced on commit, and written to the page file lazily. save()
+ * checkpoints (the log is emptied once the page file holds everything) and load()
+ * opens the file, first replaying the log if the last run did not shut down cleanly.
+ *
+ * Page 0 is the header: "CCRMPAGE" magic, int version, int page size, int page
+ * count, short table count, then per table short name length, UTF-8 name, int
+ * root page and long record count.
+ */
+public class PagedStore implements Persistable, Closeable {
+    private static final byte[] MAGIC = "CCRMPAGE".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final String WAL_EXTENSION = ".wal";
+    // Checkpoint once the log holds this many bytes, so recovery stays short
+    private static final long CHECKPOINT_BYTES = 64L * 1024 * 1024;
+    
+    private final Path file;
+    private final int cacheFrames;
+    private final Map<String, BPlusTree> trees = new LinkedHashMap<>();
+    private PageFile pages;
+    private PageCache cache;
+    private WriteAheadLog wal;
+    private int pageCount;
+    private int recoveredCommits;
+    private int atomicDepth;
+    
+    /**
+     * @param cacheFrames Pages kept in memory
+     */
+    public PagedStore(Path file, int cacheFrames) {
+        this.file = file;
+        this.cacheFrames = cacheFrames;
+    }
+    
+    /**
+     * Open a store, creating the file if needed
+     */
+    public static PagedStore open(Path file, int cacheFrames) throws IOException {
+        PagedStore store = new PagedStore(file, cacheFrames);
+        store.load();
+        return store;
+    }
+    
+    /**
+     * Open the page file, recovering committed changes from the write-ahead log
+     */
+    @Override
+    public synchronized void load() throws IOException {
+        closeFiles();
+        trees.clear();
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Path walFile = walPath();
+        pages = new PageFile(file);
+        recoveredCommits = WriteAheadLog.recover(walFile, pages);
+        wal = new WriteAheadLog(walFile);
+        cache = new PageCache(pages, cacheFrames);
+        if (pages.getPageCount() == 0) {
+            pageCount = 1;
+            writeHeader();
+            commit();
+        } else {
+            readHeader();
+        }
+    }
+    
+    /**
+     * Checkpoint: write every cached change to the page file and empty the log
+     */
+    @Override
+    public synchronized void save() throws IOException {
+        requireOpen();
+        logChanges();
+        cache.flush();
+        pages.force();
+        wal.reset();
+    }
+    
+    @Override
+    public String getId() {
+        return file.getFileName().toString();
+    }
+    
+    /**
+     * The named table, created empty if it does not exist
+     * The same name must always be used with the same codec.
+     */
+    public synchronized <T> StoreTable<T> table(String name, RecordCodec<T> codec) throws IOException {
+        requireOpen();
+        BPlusTree tree = trees.get(name);
+        if (tree == null) {
+            tree = BPlusTree.create(cache, this::allocatePage);
+            trees.put(name, tree);
+            commit();
+        }
+        return new StoreTable<>(this, name, tree, codec);
+    }
+    
+    // Getters
+    public Path getFile() { return file; }
+    public synchronized int getPageCount() { return pageCount; }
+    
+    /**
+     * Commits replayed from the log when the store was last loaded
+     */
+    public synchronized int getRecoveredCommits() { return recoveredCommits; }
+    
+    /**
+     * Run work on several tables as one commit, so a crash keeps all of its changes or none
+     * Table methods called inside do not commit on their own. Long work should call
+     * commitAtomicIfCacheFilling() wherever its tables agree, so it never outgrows the cache.
+     */
+    synchronized <T> T atomically(PagedRepository.StoreWork<T> work) throws IOException {
+        atomicDepth++;
+        T result;
+        try {
+            result = work.run();
+        } finally {
+            atomicDepth--;
+        }
+        commit();
+        return result;
+    }
+    
+    /**
+     * Make every change so far durable in the log (deferred inside atomically())
+     */
+    synchronized void commit() throws IOException {
+        if (atomicDepth == 0) {
+            commitNow();
+        }
+    }
+    
+    /**
+     * Commit early when a long batch has changed half of the cache, which cannot be evicted until then
+     */
+    synchronized void commitIfCacheFilling() throws IOException {
+        if (atomicDepth == 0) {
+            commitAtomicIfCacheFilling();
+        }
+    }
+    
+    /**
+     * Inside atomically(): commit early when half of the cache is changed
+     * Only call where every table the work changes is consistent with the others.
+     */
+    synchronized void commitAtomicIfCacheFilling() throws IOException {
+        if (cache.getUncommittedCount() > cache.getCapacity() / 2) {
+            commitNow();
+        }
+    }
+    
+    private void commitNow() throws IOException {
+        logChanges();
+        if (wal.size() > CHECKPOINT_BYTES) {
+            save();
+        }
+    }
+    
+    private void logChanges() throws IOException {
+        writeHeader();
+        cache.commit(wal);
+    }
+    
+    private int allocatePage() {
+        return pageCount++;
+    }
+    
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+        header.put(MAGIC).putInt(VERSION).putInt(PageFile.PAGE_SIZE).putInt(pageCount).putShort((short) trees.size());
+        for (Map.Entry<String, BPlusTree> table : trees.entrySet()) {
+            byte[] name = table.getKey().getBytes(StandardCharsets.UTF_8);
+            header.putShort((short) name.length).put(name)
+                .putInt(table.getValue().getRoot()).putLong(table.getValue().size());
+        }
+        byte[] page = header.array();
+        if (!Arrays.equals(page, cache.read(0))) {
+            cache.write(0, page);
+        }
+    }
+    
+    private void readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(cache.read(0).clone());
+        byte[] magic = new byte[MAGIC.length];
+        header.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a CCRM page store: " + file);
+        }
+        int version = header.getInt();
+        int pageSize = header.getInt();
+        if (version != VERSION || pageSize != PageFile.PAGE_SIZE) {
+            throw new IOException("Unsupported page store version " + version + " with page size " + pageSize
+                + ": " + file);
+        }
+        pageCount = header.getInt();
+        int tables = header.getShort();
+        for (int i = 0; i < tables; i++) {
+            byte[] name = new byte[header.getShort()];
+            header.get(name);
+            int root = header.getInt();
+            long size = header.getLong();
+            trees.put(new String(name, StandardCharsets.UTF_8), BPlusTree.open(cache, this::allocatePage, root, size));
+        }
+    }
+    
+    private Path walPath() {
+        return file.resolveSibling(file.getFileName() + WAL_EXTENSION);
+    }
+    
+    private void requireOpen() throws IOException {
+        if (cache == null) {
+            throw new IOException("Page store is not open: " + file);
+        }
+    }
+    
+    private void closeFiles() throws IOException {
+        if (wal != null) {
+            wal.close();
+            pages.close();
+            wal = null;
+            pages = null;
+            cache = null;
+        }
+    }
+    
+    /**
+     * Checkpoint and close; load() reopens the store
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (cache != null) {
+            save();
+        }
+        closeFiles();
+    }
+    
+    @Override
+    public synchronized String toString() {
+        if (cache == null) {
+            return "Page store " + file + " (closed)";
+        }
+        StringBuilder text = new StringBuilder("Page store " + file + ": " + pageCount + " pages of "
+            + PageFile.PAGE_SIZE + " bytes");
+        for (Map.Entry<String, BPlusTree> table : trees.entrySet()) {
+            text.append(", ").append(table.getValue().size()).append(' ').append(table.getKey());
+        }
+        long reads = cache.getHits() + cache.getMisses();
+        text.append(String.format(" | cache %d frames, %.1f%% hits, %d evictions", cache.getCapacity(),
+            reads > 0 ? 100.0 * cache.getHits() / reads : 0.0, cache.getEvictions()));
+        return text.toString();
+    }
+}
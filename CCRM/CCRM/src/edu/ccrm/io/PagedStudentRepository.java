@@ -0,0 +1,119 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Students in a PagedStore table keyed by ID, with a second table indexing registration numbers
+ * Enrolled course IDs are read from the enrollments table rather than stored.
+ */
+final class PagedStudentRepository extends PagedRepository implements StudentRepository {
+    private final StoreTable<Student> students;
+    private final StoreTable<String[]> regNos;
+    private final StoreTable<Enrollment> enrollments;
+    
+    PagedStudentRepository(PagedStore store, StoreTable<Enrollment> enrollments) {
+        super(store);
+        this.students = call(() -> store.table("students", RecordCodecs.STUDENTS));
+        this.regNos = call(() -> store.table("student_reg_nos", RecordCodecs.KEY_PAIRS));
+        this.enrollments = enrollments;
+    }
+    
+    @Override
+    public Student findById(String id) {
+        return call(() -> {
+            Student student = students.get(id);
+            if (student == null) {
+                return null;
+            }
+            List<String> courses = new ArrayList<>();
+            for (Enrollment enrollment : enrollments.findByPrefix(RecordCodecs.enrollmentPrefix(id))) {
+                courses.add(enrollment.getCourseCode());
+            }
+            return withCourses(student, courses);
+        });
+    }
+    
+    @Override
+    public Student findByRegNo(String regNo) {
+        String[] entry = call(() -> regNos.get(regNo));
+        return entry != null ? findById(entry[1]) : null;
+    }
+    
+    @Override
+    public boolean exists(String id) {
+        return call(() -> students.get(id) != null);
+    }
+    
+    @Override
+    public boolean existsByRegNo(String regNo) {
+        return call(() -> regNos.get(regNo) != null);
+    }
+    
+    @Override
+    public Collection<Student> findAll() {
+        return call(() -> {
+            Map<String, List<String>> courses = new HashMap<>();
+            enrollments.forEach(e -> courses.computeIfAbsent(e.getStudentId(), id -> new ArrayList<>())
+                .add(e.getCourseCode()));
+            List<Student> all = new ArrayList<>();
+            students.forEach(s -> all.add(withCourses(s, courses.getOrDefault(s.getId(), List.of()))));
+            return all;
+        });
+    }
+    
+    @Override
+    public int count() {
+        return (int) students.size();
+    }
+    
+    @Override
+    public void save(Student student) {
+        saveAll(List.of(student));
+    }
+    
+    @Override
+    public void saveAll(Collection<Student> batch) {
+        // Each student and its index entry reach the log in the same commit
+        call(() -> store.atomically(() -> {
+            for (Student student : batch) {
+                Student previous = students.get(student.getId());
+                students.put(student);
+                if (previous != null && !previous.getRegNo().equals(student.getRegNo())) {
+                    regNos.delete(previous.getRegNo());
+                }
+                regNos.put(new String[] {student.getRegNo(), student.getId()});
+                store.commitAtomicIfCacheFilling();
+            }
+            return null;
+        }));
+    }
+    
+    @Override
+    public void replaceAll(Collection<Student> restored) {
+        call(() -> {
+            synchronized (store) {
+                students.clear();
+                regNos.clear();
+                saveAll(restored);
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * The student as stored, with its enrolled course IDs replaced
+     */
+    private static Student withCourses(Student student, List<String> courseIds) {
+        return new Student(student.getId(), student.getRegNo(), student.getFullName(), student.getEmail(),
+            student.getStatus(), student.getEnrollmentDate(), student.getCreatedAt(), student.getUpdatedAt(),
+            courseIds);
+    }
+}
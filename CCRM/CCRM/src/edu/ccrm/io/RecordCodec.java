@@ -0,0 +1,19 @@
+package edu.ccrm.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Converts records of one type to and from the bytes a StoreTable keeps
+ */
+public interface RecordCodec<T> {
+    /**
+     * Key the record is stored under; keys sort as their UTF-8 bytes
+     */
+    String keyOf(T record);
+    
+    void write(T record, DataOutput out) throws IOException;
+    
+    T read(DataInput in) throws IOException;
+}
@@ -0,0 +1,219 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codecs for the domain records kept in a PagedStore
+ * Strings are nullable modified UTF-8, enums are ordinal + 1 (0 = null) and times
+ * are epoch seconds plus nanos in UTC.
+ */
+public final class RecordCodecs {
+    /**
+     * Students keyed by ID
+     */
+    public static final RecordCodec<Student> STUDENTS = new RecordCodec<>() {
+        @Override
+        public String keyOf(Student student) {
+            return student.getId();
+        }
+        
+        @Override
+        public void write(Student student, DataOutput out) throws IOException {
+            writeString(out, student.getId());
+            writeString(out, student.getRegNo());
+            writeString(out, student.getFullName());
+            writeString(out, student.getEmail());
+            out.writeByte(student.getStatus() != null ? student.getStatus().ordinal() + 1 : 0);
+            out.writeLong(student.getEnrollmentDate() != null ? student.getEnrollmentDate().toEpochDay() : Long.MIN_VALUE);
+            writeTime(out, student.getCreatedAt());
+            writeTime(out, student.getUpdatedAt());
+            writeStrings(out, student.getEnrolledCourseIds());
+        }
+        
+        @Override
+        public Student read(DataInput in) throws IOException {
+            String id = readString(in);
+            String regNo = readString(in);
+            String fullName = readString(in);
+            String email = readString(in);
+            int status = in.readByte();
+            long enrollmentDay = in.readLong();
+            return new Student(id, regNo, fullName, email,
+                status > 0 ? Student.StudentStatus.values()[status - 1] : null,
+                enrollmentDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(enrollmentDay) : null,
+                readTime(in), readTime(in), readStrings(in));
+        }
+    };
+    
+    /**
+     * Courses keyed by code, each with its own copy of its instructor
+     * The instructor's assigned course IDs are written as an empty list: repeated in every
+     * course of a busy instructor they would outgrow a page, and the courses table has them.
+     */
+    public static final RecordCodec<Course> COURSES = new RecordCodec<>() {
+        @Override
+        public String keyOf(Course course) {
+            return course.getCode();
+        }
+        
+        @Override
+        public void write(Course course, DataOutput out) throws IOException {
+            writeString(out, course.getCode());
+            writeString(out, course.getTitle());
+            out.writeInt(course.getCredits());
+            Instructor instructor = course.getInstructor();
+            out.writeBoolean(instructor != null);
+            if (instructor != null) {
+                writeString(out, instructor.getId());
+                writeString(out, instructor.getRegNo());
+                writeString(out, instructor.getFullName());
+                writeString(out, instructor.getEmail());
+                writeString(out, instructor.getDepartment());
+                writeTime(out, instructor.getCreatedAt());
+                writeTime(out, instructor.getUpdatedAt());
+                writeStrings(out, List.of()); // Layout kept; PagedCourseRepository derives them
+            }
+            writeString(out, course.getDepartment());
+            out.writeByte(course.getSemester() != null ? course.getSemester().ordinal() + 1 : 0);
+            writeTime(out, course.getCreatedAt());
+            writeTime(out, course.getUpdatedAt());
+        }
+        
+        @Override
+        public Course read(DataInput in) throws IOException {
+            Course.Builder builder = new Course.Builder()
+                .setCode(readString(in))
+                .setTitle(readString(in))
+                .setCredits(in.readInt());
+            if (in.readBoolean()) {
+                builder.setInstructor(new Instructor(readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readTime(in), readTime(in), readStrings(in)));
+            }
+            builder.setDepartment(readString(in));
+            int semester = in.readByte();
+            if (semester > 0) {
+                builder.setSemester(Semester.values()[semester - 1]);
+            }
+            return builder.setTimestamps(readTime(in), readTime(in)).build();
+        }
+    };
+    
+    /**
+     * Enrollments keyed by student ID and course code, so one student's enrollments
+     * are adjacent and can be read with StoreTable.findByPrefix(enrollmentPrefix(id))
+     */
+    public static final RecordCodec<Enrollment> ENROLLMENTS = new RecordCodec<>() {
+        @Override
+        public String keyOf(Enrollment enrollment) {
+            return enrollmentKey(enrollment.getStudentId(), enrollment.getCourseCode());
+        }
+        
+        @Override
+        public void write(Enrollment enrollment, DataOutput out) throws IOException {
+            writeString(out, enrollment.getEnrollmentId());
+            writeString(out, enrollment.getStudentId());
+            writeString(out, enrollment.getCourseCode());
+            writeTime(out, enrollment.getEnrollmentDate());
+            out.writeByte(enrollment.getGrade() != null ? enrollment.getGrade().ordinal() + 1 : 0);
+            out.writeBoolean(enrollment.getMarks() != null);
+            if (enrollment.getMarks() != null) {
+                out.writeDouble(enrollment.getMarks());
+            }
+            writeTime(out, enrollment.getUpdatedAt());
+        }
+        
+        @Override
+        public Enrollment read(DataInput in) throws IOException {
+            String enrollmentId = readString(in);
+            String studentId = readString(in);
+            String courseCode = readString(in);
+            LocalDateTime enrollmentDate = readTime(in);
+            int grade = in.readByte();
+            Double marks = in.readBoolean() ? in.readDouble() : null;
+            return new Enrollment(enrollmentId, studentId, courseCode, enrollmentDate,
+                grade > 0 ? Grade.values()[grade - 1] : null, marks, readTime(in));
+        }
+    };
+    
+    /**
+     * Secondary index entries {key, primary key}, keyed by the first
+     */
+    public static final RecordCodec<String[]> KEY_PAIRS = new RecordCodec<>() {
+        @Override
+        public String keyOf(String[] pair) {
+            return pair[0];
+        }
+        
+        @Override
+        public void write(String[] pair, DataOutput out) throws IOException {
+            out.writeUTF(pair[0]);
+            out.writeUTF(pair[1]);
+        }
+        
+        @Override
+        public String[] read(DataInput in) throws IOException {
+            return new String[] {in.readUTF(), in.readUTF()};
+        }
+    };
+    
+    private RecordCodecs() {} // Utility class
+    
+    public static String enrollmentKey(String studentId, String courseCode) {
+        return enrollmentPrefix(studentId) + courseCode;
+    }
+    
+    /**
+     * Common prefix of the keys of a student's enrollments
+     */
+    public static String enrollmentPrefix(String studentId) {
+        return studentId + '\u0000';
+    }
+    
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void writeStrings(DataOutput out, List<String> values) throws IOException {
+        out.writeShort(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static List<String> readStrings(DataInput in) throws IOException {
+        int count = in.readUnsignedShort();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+    
+    private static void writeTime(DataOutput out, LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+    
+    private static LocalDateTime readTime(DataInput in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+}
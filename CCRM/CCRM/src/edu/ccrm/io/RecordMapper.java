@@ -0,0 +1,16 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exceptions.InvalidDataException;
+
+/**
+ * Maps the fields of one CSV record to a domain object
+ */
+@FunctionalInterface
+public interface RecordMapper<T> {
+    /**
+     * @param fields Parsed field values of the record
+     * @return Mapped object
+     * @throws InvalidDataException if the record cannot be mapped
+     */
+    T map(String[] fields) throws InvalidDataException;
+}
@@ -0,0 +1,124 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes rejected import rows to a CSV file on a background thread
+ * Layout: LineNumber,Reason,Row where Row is the original record re-encoded as CSV.
+ * The file is only created once the first reject arrives.
+ */
+public class RejectFileWriter implements RejectHandler, Closeable {
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final Reject END = new Reject(-1, null, null);
+    
+    private final Path filePath;
+    private final BlockingQueue<Reject> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+    private volatile IOException failure;
+    private volatile boolean created;
+    
+    public RejectFileWriter(Path filePath) {
+        this.filePath = filePath;
+        this.writerThread = new Thread(this::writeLoop, "reject-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+    
+    /**
+     * Queue a rejected row; blocks only if the writer falls far behind
+     */
+    @Override
+    public void reject(long lineNumber, String[] fields, String reason) {
+        if (failure != null) {
+            return; // Reject file unusable - rows are still counted by the caller
+        }
+        try {
+            queue.put(new Reject(lineNumber, fields, reason));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Reject file path, or null if nothing was rejected
+     */
+    public Path getFilePath() {
+        return created ? filePath : null;
+    }
+    
+    /**
+     * Flush outstanding rejects and stop the writer thread
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing reject file", e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+    
+    private void writeLoop() {
+        CsvWriter writer = null;
+        StringBuilder row = new StringBuilder(256);
+        try {
+            while (true) {
+                Reject reject = queue.take();
+                if (reject == END) {
+                    break;
+                }
+                if (writer == null) {
+                    writer = CsvWriter.open(filePath);
+                    writer.writeRecord("LineNumber", "Reason", "Row");
+                    created = true;
+                }
+                
+                row.setLength(0);
+                for (int i = 0; reject.fields != null && i < reject.fields.length; i++) {
+                    if (i > 0) {
+                        row.append(',');
+                    }
+                    CsvWriter.appendEscaped(row, reject.fields[i]);
+                }
+                writer.field(reject.lineNumber).field(reject.reason).field(row.toString());
+                writer.endRecord();
+            }
+        } catch (IOException e) {
+            failure = e;
+            queue.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+    }
+    
+    private static final class Reject {
+        private final long lineNumber;
+        private final String[] fields;
+        private final String reason;
+        
+        private Reject(long lineNumber, String[] fields, String reason) {
+            this.lineNumber = lineNumber;
+            this.fields = fields;
+            this.reason = reason;
+        }
+    }
+}
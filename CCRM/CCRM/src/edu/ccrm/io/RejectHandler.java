@@ -0,0 +1,14 @@
+package edu.ccrm.io;
+
+/**
+ * Receives import rows that could not be mapped or committed
+ */
+@FunctionalInterface
+public interface RejectHandler {
+    /**
+     * @param lineNumber Line in the source file where the record starts
+     * @param fields Raw field values of the record
+     * @param reason Why the record was rejected
+     */
+    void reject(long lineNumber, String[] fields, String reason);
+}
@@ -0,0 +1,32 @@
+package edu.ccrm.io;
+
+/**
+ * Output formats supported by report sinks
+ */
+public enum ReportFormat {
+    CONSOLE("Console", null),
+    CSV("CSV", ".csv"),
+    JSON_LINES("JSON Lines", ".jsonl"),
+    TEXT("Fixed-width Text", ".txt");
+    
+    private final String displayName;
+    private final String extension;
+    
+    ReportFormat(String displayName, String extension) {
+        this.displayName = displayName;
+        this.extension = extension;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,60 @@
+package edu.ccrm.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination for tabular report output
+ * Rows are written cell by cell so sinks never need String.format
+ */
+public interface ReportSink extends Closeable {
+    /**
+     * Start a report with the given title and columns
+     */
+    void beginReport(String title, Column... columns) throws IOException;
+    
+    /**
+     * Append a text cell to the current row
+     */
+    void cell(String value) throws IOException;
+    
+    /**
+     * Append an integer cell to the current row
+     */
+    void cell(long value) throws IOException;
+    
+    /**
+     * Append a decimal cell with a fixed number of decimals
+     */
+    void cell(double value, int decimals) throws IOException;
+    
+    /**
+     * Finish the current row
+     */
+    void endRow() throws IOException;
+    
+    /**
+     * Finish the report and flush buffered output
+     */
+    void endReport() throws IOException;
+    
+    /**
+     * Report column with a display width used by fixed-width sinks
+     */
+    class Column {
+        private final String name;
+        private final int width;
+        
+        public Column(String name, int width) {
+            this.name = name;
+            this.width = width;
+        }
+        
+        public static Column of(String name, int width) {
+            return new Column(name, width);
+        }
+        
+        public String getName() { return name; }
+        public int getWidth() { return width; }
+    }
+}
@@ -0,0 +1,68 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Factory for report sinks
+ * File sinks stream into the export directory through large buffers
+ */
+public class ReportSinks {
+    private static final int FILE_BUFFER_SIZE = 256 * 1024;
+    
+    private ReportSinks() {} // Utility class
+    
+    /**
+     * Buffered fixed-width sink on stdout
+     */
+    public static ReportSink console() {
+        return new ConsoleReportSink();
+    }
+    
+    /**
+     * Open a sink for the given format
+     * File formats create exports/&lt;reportName&gt;_yyyyMMdd_HHmmss.&lt;ext&gt;
+     */
+    public static ReportSink open(ReportFormat format, String reportName) throws IOException {
+        if (format == ReportFormat.CONSOLE) {
+            return console();
+        }
+        return open(format, exportFileFor(format, reportName));
+    }
+    
+    /**
+     * Open a file sink for the given format at an explicit path
+     */
+    public static ReportSink open(ReportFormat format, Path filePath) throws IOException {
+        if (format == ReportFormat.CONSOLE) {
+            return console();
+        }
+        if (filePath.getParent() != null) {
+            Files.createDirectories(filePath.getParent());
+        }
+        BufferedWriter writer = new BufferedWriter(
+            Files.newBufferedWriter(filePath, StandardCharsets.UTF_8), FILE_BUFFER_SIZE);
+        
+        return switch (format) {
+            case CSV -> new CsvReportSink(writer);
+            case JSON_LINES -> new JsonLinesReportSink(writer);
+            default -> new TextReportSink(writer);
+        };
+    }
+    
+    /**
+     * Resolve the timestamped export file for a report
+     */
+    public static Path exportFileFor(ReportFormat format, String reportName) {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        return AppConfig.getInstance().getExportPath()
+            .resolve(reportName + "_" + timestamp + format.getExtension());
+    }
+}
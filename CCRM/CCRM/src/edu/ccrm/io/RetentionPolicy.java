@@ -0,0 +1,78 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+
+/**
+ * Which backups to keep when old ones are pruned, created with the Builder
+ *
+ * The newest backup of each of the last keepDaily days that have backups is kept,
+ * as is the newest of each of the last keepWeekly ISO weeks. The newest backup is
+ * always kept, and so is every backup a kept incremental builds on. If the backups
+ * then still take more than sizeCap bytes on disk, the oldest chains are dropped too.
+ */
+public class RetentionPolicy {
+    private final int keepDaily;
+    private final int keepWeekly;
+    private final long sizeCap;
+    
+    private RetentionPolicy(Builder builder) {
+        this.keepDaily = builder.keepDaily;
+        this.keepWeekly = builder.keepWeekly;
+        this.sizeCap = builder.sizeCap;
+    }
+    
+    /**
+     * Policy from the application configuration
+     */
+    public static RetentionPolicy defaults() {
+        return new Builder().build();
+    }
+    
+    // Getters
+    public int getKeepDaily() { return keepDaily; }
+    public int getKeepWeekly() { return keepWeekly; }
+    public long getSizeCap() { return sizeCap; }
+    
+    @Override
+    public String toString() {
+        return "keep " + keepDaily + " daily, " + keepWeekly + " weekly"
+            + (sizeCap > 0 ? ", cap " + sizeCap + " bytes" : "");
+    }
+    
+    public static class Builder {
+        private int keepDaily = AppConfig.getInstance().getBackupKeepDaily();
+        private int keepWeekly = AppConfig.getInstance().getBackupKeepWeekly();
+        private long sizeCap = AppConfig.getInstance().getBackupSizeCap();
+        
+        /**
+         * Days, most recent first, whose newest backup is kept
+         */
+        public Builder setKeepDaily(int keepDaily) {
+            this.keepDaily = keepDaily;
+            return this;
+        }
+        
+        /**
+         * ISO weeks, most recent first, whose newest backup is kept
+         */
+        public Builder setKeepWeekly(int keepWeekly) {
+            this.keepWeekly = keepWeekly;
+            return this;
+        }
+        
+        /**
+         * Bytes the backups may take on disk; 0 for no cap
+         */
+        public Builder setSizeCap(long sizeCap) {
+            this.sizeCap = sizeCap;
+            return this;
+        }
+        
+        public RetentionPolicy build() {
+            if (keepDaily < 0 || keepWeekly < 0 || sizeCap < 0) {
+                throw new IllegalArgumentException("Retention counts and size cap cannot be negative");
+            }
+            return new RetentionPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package edu.ccrm.io;
+
+import java.nio.file.Path;
+
+/**
+ * Summary of state saved to or restored from disk (binary snapshot, backup or columnar export)
+ */
+public class SnapshotInfo {
+    private final Path file;
+    private final int students;
+    private final int courses;
+    private final int instructors;
+    private final int enrollments;
+    private final long sizeBytes;
+    private final long elapsedNanos;
+    
+    public SnapshotInfo(Path file, int students, int courses, int instructors, int enrollments,
+                        long sizeBytes, long elapsedNanos) {
+        this.file = file;
+        this.students = students;
+        this.courses = courses;
+        this.instructors = instructors;
+        this.enrollments = enrollments;
+        this.sizeBytes = sizeBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public Path getFile() { return file; }
+    public int getStudents() { return students; }
+    public int getCourses() { return courses; }
+    public int getInstructors() { return instructors; }
+    public int getEnrollments() { return enrollments; }
+    public long getSizeBytes() { return sizeBytes; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    @Override
+    public String toString() {
+        return String.format("%d students, %d courses, %d instructors, %d enrollments (%d bytes) in %.2fs - %s",
+            students, courses, instructors, enrollments, sizeBytes, elapsedNanos / 1_000_000_000.0, file);
+    }
+}
@@ -0,0 +1,145 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.ChangeJournal;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of the services' records and change journals
+ *
+ * Records are copied, not referenced, so later edits to the live objects cannot
+ * leak into a backup that is still being written on another thread. The services
+ * are not thread-safe, so capture must run on the thread that modifies them (the
+ * CLI thread); copying is cheap next to formatting and writing the files.
+ */
+final class StateSnapshot {
+    private final LocalDateTime takenAt;
+    private final List<Student> students;
+    private final List<Course> courses;
+    private final List<Enrollment> enrollments;
+    private final List<ChangeJournal> journals;
+    private final List<ChangeJournal.Removal> removals = new ArrayList<>();
+    private final List<LocalDateTime> resets = new ArrayList<>();
+    
+    private StateSnapshot(LocalDateTime takenAt, List<Student> students, List<Course> courses,
+                          List<Enrollment> enrollments, List<ChangeJournal> journals) {
+        this.takenAt = takenAt;
+        this.students = students;
+        this.courses = courses;
+        this.enrollments = enrollments;
+        this.journals = journals;
+    }
+    
+    static StateSnapshot capture(StudentService studentService, CourseService courseService,
+                                 EnrollmentService enrollmentService) {
+        LocalDateTime takenAt = LocalDateTime.now();
+        
+        List<Student> students = copyStudents(studentService.getAllStudents());
+        List<Course> courses = copyCourses(courseService.getAllCourses());
+        List<Enrollment> enrollments = copyEnrollments(enrollmentService.getAllEnrollments());
+        
+        List<ChangeJournal> journals = List.of(studentService.getChangeJournal(),
+            courseService.getChangeJournal(), enrollmentService.getChangeJournal());
+        StateSnapshot snapshot = new StateSnapshot(takenAt, students, courses, enrollments, journals);
+        for (ChangeJournal journal : journals) {
+            snapshot.removals.addAll(journal.getRemovalsSince(LocalDateTime.MIN));
+            if (journal.getLastReset() != null) {
+                snapshot.resets.add(journal.getLastReset());
+            }
+        }
+        return snapshot;
+    }
+    
+    static List<Student> copyStudents(List<Student> originals) {
+        List<Student> students = new ArrayList<>(originals.size());
+        for (Student student : originals) {
+            students.add(new Student(student.getId(), student.getRegNo(), student.getFullName(),
+                student.getEmail(), student.getStatus(), student.getEnrollmentDate(), student.getCreatedAt(),
+                student.getUpdatedAt(), student.getEnrolledCourseIds()));
+        }
+        return students;
+    }
+    
+    /**
+     * Copies of the courses; courses sharing an instructor share its copy too
+     */
+    static List<Course> copyCourses(List<Course> originals) {
+        Map<Instructor, Instructor> instructors = new IdentityHashMap<>();
+        List<Course> courses = new ArrayList<>(originals.size());
+        for (Course course : originals) {
+            Instructor instructor = course.getInstructor() == null ? null
+                : instructors.computeIfAbsent(course.getInstructor(), original -> new Instructor(original.getId(),
+                    original.getRegNo(), original.getFullName(), original.getEmail(), original.getDepartment(),
+                    original.getCreatedAt(), original.getUpdatedAt(), original.getAssignedCourseIds()));
+            courses.add(new Course.Builder()
+                .setCode(course.getCode())
+                .setTitle(course.getTitle())
+                .setCredits(course.getCredits())
+                .setInstructor(instructor)
+                .setDepartment(course.getDepartment())
+                .setSemester(course.getSemester())
+                .setTimestamps(course.getCreatedAt(), course.getUpdatedAt())
+                .build());
+        }
+        return courses;
+    }
+    
+    static List<Enrollment> copyEnrollments(List<Enrollment> originals) {
+        List<Enrollment> enrollments = new ArrayList<>(originals.size());
+        for (Enrollment enrollment : originals) {
+            enrollments.add(new Enrollment(enrollment.getEnrollmentId(), enrollment.getStudentId(),
+                enrollment.getCourseCode(), enrollment.getEnrollmentDate(), enrollment.getGrade(),
+                enrollment.getMarks(), enrollment.getUpdatedAt()));
+        }
+        return enrollments;
+    }
+    
+    // Getters
+    LocalDateTime getTakenAt() { return takenAt; }
+    List<Student> getStudents() { return students; }
+    List<Course> getCourses() { return courses; }
+    List<Enrollment> getEnrollments() { return enrollments; }
+    
+    int getRecordCount() {
+        return students.size() + courses.size() + enrollments.size();
+    }
+    
+    /**
+     * Removals at or after the given time, up to when the snapshot was taken
+     */
+    List<ChangeJournal.Removal> getRemovalsSince(LocalDateTime since) {
+        List<ChangeJournal.Removal> result = new ArrayList<>();
+        for (ChangeJournal.Removal removal : removals) {
+            if (!removal.getRemovedAt().isBefore(since)) {
+                result.add(removal);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Whether any service was wholesale replaced at or after the given time
+     */
+    boolean wasResetSince(LocalDateTime since) {
+        return resets.stream().anyMatch(reset -> !reset.isBefore(since));
+    }
+    
+    /**
+     * Drop journal entries a full backup of this snapshot has made redundant
+     * Entries recorded after the snapshot are newer than its time and are kept.
+     */
+    void compactJournals() {
+        journals.forEach(journal -> journal.compact(takenAt));
+    }
+}
@@ -0,0 +1,115 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.AppConfig;
+import edu.ccrm.config.StorageBackend;
+import edu.ccrm.exceptions.RepositoryException;
+import edu.ccrm.service.CourseRepository;
+import edu.ccrm.service.EnrollmentRepository;
+import edu.ccrm.service.InMemoryCourseRepository;
+import edu.ccrm.service.InMemoryEnrollmentRepository;
+import edu.ccrm.service.InMemoryStudentRepository;
+import edu.ccrm.service.StudentRepository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * The repositories of one storage backend, and whatever they share
+ * A deployment picks the backend with -Dccrm.storage=memory|paged|jdbc; the JDBC
+ * backend needs the database's driver on the classpath (the H2 jar in lib/).
+ */
+public class Storage implements Closeable {
+    private final StorageBackend backend;
+    private final StudentRepository students;
+    private final CourseRepository courses;
+    private final EnrollmentRepository enrollments;
+    private final Closeable resources;
+    
+    private Storage(StorageBackend backend, StudentRepository students, CourseRepository courses,
+                    EnrollmentRepository enrollments, Closeable resources) {
+        this.backend = backend;
+        this.students = students;
+        this.courses = courses;
+        this.enrollments = enrollments;
+        this.resources = resources;
+    }
+    
+    /**
+     * Open the backend the configuration names
+     */
+    public static Storage open(AppConfig config) throws IOException {
+        switch (config.getStorageBackend()) {
+            case PAGED:
+                return paged(config.getStorePath(), config.getPageCacheSize());
+            case JDBC:
+                return jdbc(config.getJdbcUrl(), config.getJdbcPoolSize(), config.getImportBatchSize());
+            default:
+                return inMemory();
+        }
+    }
+    
+    public static Storage inMemory() {
+        return new Storage(StorageBackend.MEMORY, new InMemoryStudentRepository(),
+            new InMemoryCourseRepository(), new InMemoryEnrollmentRepository(), () -> { });
+    }
+    
+    public static Storage paged(Path file, int cacheFrames) throws IOException {
+        PagedStore store = PagedStore.open(file, cacheFrames);
+        try {
+            PagedEnrollmentRepository enrollments = new PagedEnrollmentRepository(store);
+            return new Storage(StorageBackend.PAGED, new PagedStudentRepository(store, enrollments.getTable()),
+                new PagedCourseRepository(store), enrollments, store);
+        } catch (RepositoryException e) {
+            store.close();
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+    }
+    
+    /**
+     * Connect to a database, creating the tables it lacks
+     * @param batchSize Rows sent per JDBC batch when saving many records
+     */
+    public static Storage jdbc(String url, int poolSize, int batchSize) throws IOException {
+        ConnectionPool pool = new ConnectionPool(url, poolSize);
+        try {
+            pool.withConnection(connection -> {
+                JdbcSchema.create(connection);
+                return null;
+            });
+        } catch (RepositoryException e) {
+            pool.close();
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+        return new Storage(StorageBackend.JDBC, new JdbcStudentRepository(pool, batchSize),
+            new JdbcCourseRepository(pool, batchSize), new JdbcEnrollmentRepository(pool, batchSize), pool);
+    }
+    
+    // Getters
+    public StorageBackend getBackend() { return backend; }
+    public StudentRepository getStudents() { return students; }
+    public CourseRepository getCourses() { return courses; }
+    public EnrollmentRepository getEnrollments() { return enrollments; }
+    
+    public boolean isPersistent() {
+        return backend.isPersistent();
+    }
+    
+    /**
+     * Whether the backend holds no records yet
+     */
+    public boolean isEmpty() {
+        return students.count() == 0 && courses.count() == 0 && enrollments.count() == 0;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        resources.close();
+    }
+    
+    @Override
+    public String toString() {
+        return backend.getDescription() + " (" + students.count() + " students, " + courses.count()
+            + " courses, " + enrollments.count() + " enrollments)";
+    }
+}
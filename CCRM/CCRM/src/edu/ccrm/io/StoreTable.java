@@ -0,0 +1,176 @@
+package edu.ccrm.io;
+
+import edu.ccrm.exceptions.RecordTooLargeException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One named B+tree of records in a PagedStore
+ * Every change is committed to the write-ahead log before the method returns;
+ * putAll commits in batches instead of per record. Inside PagedStore.atomically()
+ * the commit is left to the enclosing work.
+ */
+public class StoreTable<T> {
+    private final PagedStore store;
+    private final String name;
+    private final BPlusTree tree;
+    private final RecordCodec<T> codec;
+    
+    StoreTable(PagedStore store, String name, BPlusTree tree, RecordCodec<T> codec) {
+        this.store = store;
+        this.name = name;
+        this.tree = tree;
+        this.codec = codec;
+    }
+    
+    public String getName() { return name; }
+    
+    public long size() {
+        synchronized (store) {
+            return tree.size();
+        }
+    }
+    
+    /**
+     * The record stored under the key, or null
+     */
+    public T get(String key) throws IOException {
+        synchronized (store) {
+            byte[] value = tree.get(encodeKey(key));
+            return value != null ? decode(value) : null;
+        }
+    }
+    
+    /**
+     * Insert or replace a record under its codec key
+     * @return true if no record had that key before
+     * @throws RecordTooLargeException If the record does not fit in a page; nothing is changed
+     */
+    public boolean put(T record) throws IOException {
+        byte[][] entry = encodeEntry(record);
+        synchronized (store) {
+            boolean inserted = tree.put(entry[0], entry[1]);
+            store.commit();
+            return inserted;
+        }
+    }
+    
+    /**
+     * Insert or replace many records, committing whenever half the page cache is changed
+     * @return Number of records that were new
+     * @throws RecordTooLargeException If any record does not fit in a page; nothing is changed
+     */
+    public int putAll(Collection<? extends T> records) throws IOException {
+        List<byte[][]> entries = new ArrayList<>(records.size());
+        for (T record : records) {
+            entries.add(encodeEntry(record));
+        }
+        synchronized (store) {
+            int inserted = 0;
+            for (byte[][] entry : entries) {
+                if (tree.put(entry[0], entry[1])) {
+                    inserted++;
+                }
+                store.commitIfCacheFilling();
+            }
+            store.commit();
+            return inserted;
+        }
+    }
+    
+    /**
+     * @return true if a record was deleted
+     */
+    public boolean delete(String key) throws IOException {
+        synchronized (store) {
+            boolean deleted = tree.delete(encodeKey(key));
+            store.commit();
+            return deleted;
+        }
+    }
+    
+    /**
+     * Delete every record; the emptied pages stay with the table for later inserts
+     */
+    public void clear() throws IOException {
+        synchronized (store) {
+            List<byte[]> keys = new ArrayList<>();
+            tree.scan(new byte[0], (key, value) -> keys.add(key));
+            for (byte[] key : keys) {
+                tree.delete(key);
+                store.commitIfCacheFilling();
+            }
+            store.commit();
+        }
+    }
+    
+    /**
+     * Records whose key starts with the prefix, in key order
+     */
+    public List<T> findByPrefix(String prefix) throws IOException {
+        byte[] from = encodeKey(prefix);
+        List<T> records = new ArrayList<>();
+        synchronized (store) {
+            tree.scan(from, (key, value) -> {
+                if (key.length < from.length || !Arrays.equals(key, 0, from.length, from, 0, from.length)) {
+                    return false;
+                }
+                records.add(decode(value));
+                return true;
+            });
+        }
+        return records;
+    }
+    
+    /**
+     * Visit every record in key order, holding the store's lock throughout
+     */
+    public void forEach(Consumer<? super T> action) throws IOException {
+        synchronized (store) {
+            tree.scan(new byte[0], (key, value) -> {
+                action.accept(decode(value));
+                return true;
+            });
+        }
+    }
+    
+    /**
+     * {key, value} of a record, checked against the page size before anything is written
+     */
+    private byte[][] encodeEntry(T record) throws IOException {
+        String key = codec.keyOf(record);
+        byte[] keyBytes = encodeKey(key);
+        byte[] value = encode(record);
+        if (!BPlusTree.fits(keyBytes, value)) {
+            throw new RecordTooLargeException("Record " + key + " is too large to store in " + name + ": "
+                + (keyBytes.length + value.length) + " bytes, at most " + BPlusTree.MAX_ENTRY + " fit in a page");
+        }
+        return new byte[][] {keyBytes, value};
+    }
+    
+    private static byte[] encodeKey(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private byte[] encode(T record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codec.write(record, out);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private T decode(byte[] value) throws IOException {
+        return codec.read(new DataInputStream(new ByteArrayInputStream(value)));
+    }
+}
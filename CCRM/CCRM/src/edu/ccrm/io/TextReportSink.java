@@ -0,0 +1,68 @@
+package edu.ccrm.io;
+
+import edu.ccrm.util.FormatUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Fixed-width text report sink
+ * Cells are padded to their column width; long text is cut with "..."
+ */
+public class TextReportSink extends AbstractReportSink {
+    
+    public TextReportSink(Writer writer) {
+        super(writer);
+    }
+    
+    @Override
+    protected void writeHeader(String title) throws IOException {
+        int totalWidth = 0;
+        for (Column column : columns) {
+            totalWidth += column.getWidth() + 1;
+        }
+        
+        row.append("\n=== ").append(title).append(" ===\n");
+        for (Column column : columns) {
+            appendText(column.getName());
+            cellIndex++;
+        }
+        trimTrailingSpaces();
+        row.append('\n').append("=".repeat(Math.max(totalWidth - 1, 0))).append('\n');
+        writer.append(row);
+        row.setLength(0);
+        cellIndex = 0;
+    }
+    
+    @Override
+    protected void appendText(String value) {
+        beforeCell();
+        FormatUtils.appendPadded(row, value, columnWidth());
+    }
+    
+    @Override
+    protected void beforeCell() {
+        if (cellIndex > 0) {
+            row.append(' ');
+        }
+    }
+    
+    @Override
+    protected void afterNumber(int start) {
+        int written = row.length() - start - (cellIndex > 0 ? 1 : 0);
+        FormatUtils.appendSpaces(row, columnWidth() - written);
+    }
+    
+    @Override
+    protected void finishRow() {
+        trimTrailingSpaces();
+    }
+    
+    private void trimTrailingSpaces() {
+        int length = row.length();
+        while (length > 0 && row.charAt(length - 1) == ' ') {
+            length--;
+        }
+        row.setLength(length);
+    }
+}
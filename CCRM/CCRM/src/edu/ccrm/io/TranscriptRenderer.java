@@ -0,0 +1,256 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.ClassStanding;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.domain.Transcript;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Low-allocation transcript renderer
+ * Writes the same fixed-width layout as Transcript.toString as UTF-8 bytes straight
+ * into a reusable ByteBuffer that is drained to a WritableByteChannel. Marks and grade
+ * points come from precomputed tables, so rendering an entry allocates nothing.
+ * Instances are not thread-safe; use one renderer per thread.
+ */
+public class TranscriptRenderer {
+    private static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    private static final int CODE_WIDTH = 10;
+    private static final int TITLE_WIDTH = 30;
+    private static final int MAX_MARKS_HUNDREDTHS = 10_000;
+    
+    // "%.2f" of every mark from 0.00 to 100.00, indexed by hundredths
+    private static final byte[][] MARKS_TEXT = new byte[MAX_MARKS_HUNDREDTHS + 1][];
+    // "<name> (" and ") - <%.1f points>" per grade, indexed by ordinal
+    private static final byte[][] GRADE_PREFIX = new byte[Grade.values().length][];
+    private static final byte[][] GRADE_SUFFIX = new byte[Grade.values().length][];
+    
+    private static final byte[] HEADER = ascii("=== TRANSCRIPT ===\nStudent: ");
+    private static final byte[] REG_NO = ascii("\nRegistration No: ");
+    private static final byte[] GENERATED = ascii("\nGenerated: ");
+    private static final byte[] GPA = ascii("\nOverall GPA: ");
+    private static final byte[] CREDITS = ascii("\nTotal Credits: ");
+    private static final byte[] CLASS_RANK = ascii("\nClass Rank: ");
+    private static final byte[] OF = ascii(" of ");
+    private static final byte[] IN = ascii(" in ");
+    private static final byte[] OVERALL = ascii(" overall (Percentile: ");
+    private static final byte[] DETAILS = ascii("\n\nCourse Details:\n================\n");
+    private static final byte[] SEPARATOR = ascii(" | ");
+    private static final byte[] CREDITS_SUFFIX = ascii(" credits | ");
+    private static final byte[] NOT_GRADED = ascii("Not Graded");
+    private static final byte[] NULL_TEXT = ascii("null");
+    
+    static {
+        for (int i = 0; i <= MAX_MARKS_HUNDREDTHS; i++) {
+            MARKS_TEXT[i] = ascii((i / 100) + "." + (i % 100 < 10 ? "0" : "") + (i % 100));
+        }
+        for (Grade grade : Grade.values()) {
+            GRADE_PREFIX[grade.ordinal()] = ascii(grade.name() + " (");
+            GRADE_SUFFIX[grade.ordinal()] = ascii(String.format(Locale.ROOT, ") - %.1f points",
+                grade.getGradePoints()));
+        }
+    }
+    
+    private final ByteBuffer buffer;
+    private WritableByteChannel channel;
+    
+    public TranscriptRenderer() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+    
+    public TranscriptRenderer(int bufferSize) {
+        // At least one full UTF-8 code point must always fit
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 64));
+    }
+    
+    /**
+     * Render the transcript and write all of it to the channel
+     */
+    public void render(Transcript transcript, WritableByteChannel target) throws IOException {
+        this.channel = target;
+        try {
+            Student student = transcript.getStudent();
+            put(HEADER);
+            putText(student.getFullName());
+            put(REG_NO);
+            putText(student.getRegNo());
+            put(GENERATED);
+            putText(transcript.getGeneratedAt().toString());
+            put(GPA);
+            putFixed2(transcript.getOverallGPA());
+            put(CREDITS);
+            putInt(transcript.getTotalCredits());
+            if (transcript.getStanding() != null) {
+                renderStanding(transcript.getStanding());
+            }
+            put(DETAILS);
+            
+            for (Transcript.TranscriptEntry entry : transcript.getEntries()) {
+                renderEntry(entry);
+            }
+            flush();
+        } finally {
+            this.channel = null;
+        }
+    }
+    
+    private void renderStanding(ClassStanding standing) throws IOException {
+        put(CLASS_RANK);
+        putInt(standing.getDepartmentRank());
+        put(OF);
+        putInt(standing.getDepartmentSize());
+        put(IN);
+        putText(standing.getDepartment());
+        putByte(',');
+        putByte(' ');
+        putInt(standing.getOverallRank());
+        put(OF);
+        putInt(standing.getOverallSize());
+        put(OVERALL);
+        putFixed2(standing.getPercentile());
+        putByte(')');
+    }
+    
+    private void renderEntry(Transcript.TranscriptEntry entry) throws IOException {
+        putPadded(entry.getCourseCode(), CODE_WIDTH);
+        put(SEPARATOR);
+        putPadded(entry.getCourseTitle(), TITLE_WIDTH);
+        put(SEPARATOR);
+        putInt(entry.getCredits());
+        put(CREDITS_SUFFIX);
+        
+        Grade grade = entry.getGrade();
+        if (grade == null) {
+            put(NOT_GRADED);
+        } else {
+            put(GRADE_PREFIX[grade.ordinal()]);
+            Double marks = entry.getMarks();
+            if (marks == null) {
+                put(NULL_TEXT);
+            } else {
+                putFixed2(marks);
+            }
+            put(GRADE_SUFFIX[grade.ordinal()]);
+        }
+        putByte('\n');
+    }
+    
+    private void putFixed2(double value) throws IOException {
+        double scaled = value * 100;
+        long hundredths = Math.round(scaled);
+        // Values sitting on a rounding tie go through String.format so HALF_UP matches exactly
+        boolean nearTie = Math.abs(scaled - Math.floor(scaled) - 0.5) < 1e-6;
+        if (hundredths >= 0 && hundredths <= MAX_MARKS_HUNDREDTHS && !nearTie && !Double.isNaN(value)) {
+            put(MARKS_TEXT[(int) hundredths]);
+        } else {
+            putText(String.format(Locale.ROOT, "%.2f", value)); // Out of table range or tie - rare
+        }
+    }
+    
+    private void putInt(int value) throws IOException {
+        if (value < 0) {
+            putByte('-');
+            if (value == Integer.MIN_VALUE) {
+                putText("2147483648");
+                return;
+            }
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            putByte('0' + (value / divisor) % 10);
+        }
+    }
+    
+    private void putPadded(String text, int width) throws IOException {
+        String value = text != null ? text : "null";
+        putText(value);
+        for (int i = value.length(); i < width; i++) {
+            putByte(' ');
+        }
+    }
+    
+    /**
+     * Encode chars as UTF-8 without allocating; unpaired surrogates become '?'
+     */
+    private void putText(String text) throws IOException {
+        if (text == null) {
+            put(NULL_TEXT);
+            return;
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                putByte(c);
+            } else {
+                if (buffer.remaining() < 4) {
+                    drain();
+                }
+                if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | (c >> 6)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                    buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | (c >> 12)));
+                    buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                    buffer.put((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+    }
+    
+    private void putByte(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+    
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) {
+            drain();
+            if (buffer.remaining() < bytes.length) {
+                for (byte b : bytes) {
+                    putByte(b);
+                }
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+    
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private void flush() throws IOException {
+        if (buffer.position() > 0) {
+            drain();
+        }
+    }
+    
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
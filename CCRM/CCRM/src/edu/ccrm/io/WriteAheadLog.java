@@ -0,0 +1,155 @@
+package edu.ccrm.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Redo log of page images for a PagedStore
+ *
+ * Record layout: byte type, int pageId, page bytes (PAGE records only), int CRC32 of
+ * the bytes before it. A commit appends the images of every changed page followed
+ * by a COMMIT record and forces the log to disk; the page file itself is written
+ * later. Recovery reapplies the pages of every complete commit and ignores a torn
+ * tail. A checkpoint forces the page file and then empties the log.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final byte PAGE = 1;
+    private static final byte COMMIT = 2;
+    private static final int RECORD_HEADER = 1 + Integer.BYTES;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private long size;
+    
+    /**
+     * Open the log for appending; recover from it first, as any existing content is discarded
+     */
+    WriteAheadLog(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    /**
+     * Bytes in the log since the last checkpoint
+     */
+    long size() {
+        return size + buffer.position();
+    }
+    
+    void append(int pageId, byte[] page) throws IOException {
+        ensureRoom(RECORD_HEADER + PageFile.PAGE_SIZE + Integer.BYTES);
+        int start = buffer.position();
+        buffer.put(PAGE).putInt(pageId).put(page, 0, PageFile.PAGE_SIZE);
+        putChecksum(start);
+    }
+    
+    /**
+     * Mark everything appended so far as one atomic change and force it to disk
+     */
+    void commit() throws IOException {
+        ensureRoom(RECORD_HEADER + Integer.BYTES);
+        int start = buffer.position();
+        buffer.put(COMMIT).putInt(-1);
+        putChecksum(start);
+        drain();
+        channel.force(false);
+    }
+    
+    /**
+     * Empty the log once the page file holds everything in it
+     */
+    void reset() throws IOException {
+        buffer.clear();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(false);
+        size = 0;
+    }
+    
+    /**
+     * Write the pages of every complete commit in the log to the page file
+     * @return Number of commits replayed
+     */
+    static int recover(Path file, PageFile pages) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        int commits = 0;
+        Map<Integer, byte[]> pending = new LinkedHashMap<>();
+        CRC32 crc = new CRC32();
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE))) {
+            while (true) {
+                byte type = in.readByte();
+                int pageId = in.readInt();
+                byte[] page = type == PAGE ? new byte[PageFile.PAGE_SIZE] : null;
+                if (page != null) {
+                    in.readFully(page);
+                } else if (type != COMMIT) {
+                    break;
+                }
+                crc.reset();
+                crc.update(type);
+                crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, pageId));
+                if (page != null) {
+                    crc.update(page);
+                }
+                if ((int) crc.getValue() != in.readInt()) {
+                    break; // Torn write at the tail: that commit never completed
+                }
+                if (page != null) {
+                    pending.put(pageId, page);
+                } else {
+                    for (Map.Entry<Integer, byte[]> image : pending.entrySet()) {
+                        pages.write(image.getKey(), image.getValue());
+                    }
+                    pending.clear();
+                    commits++;
+                }
+            }
+        } catch (EOFException e) {
+            // End of the log; any pages after the last commit are discarded
+        }
+        pages.force();
+        return commits;
+    }
+    
+    private void putChecksum(int start) {
+        crc.reset();
+        crc.update(buffer.array(), start, buffer.position() - start);
+        buffer.putInt((int) crc.getValue());
+    }
+    
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+    
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
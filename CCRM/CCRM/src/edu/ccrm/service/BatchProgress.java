@@ -0,0 +1,52 @@
+package edu.ccrm.service;
+
+/**
+ * Immutable progress snapshot for long-running batch operations
+ */
+public class BatchProgress {
+    private final String stage;
+    private final long processed;
+    private final long total;
+    private final long elapsedNanos;
+    
+    public BatchProgress(String stage, long processed, long total, long elapsedNanos) {
+        this.stage = stage;
+        this.processed = processed;
+        this.total = total;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    // Getters
+    public String getStage() { return stage; }
+    public long getProcessed() { return processed; }
+    public long getTotal() { return total; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public double getElapsedSeconds() {
+        return elapsedNanos / 1_000_000_000.0;
+    }
+    
+    /**
+     * Items processed per second (0 before any time has elapsed)
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? processed / getElapsedSeconds() : 0.0;
+    }
+    
+    /**
+     * Completion percentage, or -1 when the total is unknown
+     */
+    public double getPercentComplete() {
+        return total > 0 ? processed * 100.0 / total : -1;
+    }
+    
+    public boolean isComplete() {
+        return total > 0 && processed >= total;
+    }
+    
+    @Override
+    public String toString() {
+        String done = total > 0 ? processed + "/" + total : String.valueOf(processed);
+        return String.format("%s: %s (%.1f/s, %.2fs)", stage, done, getThroughput(), getElapsedSeconds());
+    }
+}
@@ -0,0 +1,73 @@
+package edu.ccrm.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Journal of changes that updatedAt timestamps cannot show
+ * Records removed keys, plus the time of the last wholesale replacement
+ * (after which an incremental backup would miss records and a full one is needed).
+ */
+public class ChangeJournal {
+    private final List<Removal> removals = new ArrayList<>();
+    private LocalDateTime lastReset;
+    
+    /**
+     * A record removed from a service
+     */
+    public static class Removal {
+        private final String recordType;
+        private final String key;
+        private final LocalDateTime removedAt;
+        
+        public Removal(String recordType, String key, LocalDateTime removedAt) {
+            this.recordType = recordType;
+            this.key = key;
+            this.removedAt = removedAt;
+        }
+        
+        public String getRecordType() { return recordType; }
+        public String getKey() { return key; }
+        public LocalDateTime getRemovedAt() { return removedAt; }
+    }
+    
+    public synchronized void recordRemoval(String recordType, String key) {
+        removals.add(new Removal(recordType, key, LocalDateTime.now()));
+    }
+    
+    /**
+     * Note that all records were replaced; earlier removals no longer matter
+     */
+    public synchronized void recordReset() {
+        removals.clear();
+        lastReset = LocalDateTime.now();
+    }
+    
+    /**
+     * Time of the last wholesale replacement, or null if there was none
+     */
+    public synchronized LocalDateTime getLastReset() {
+        return lastReset;
+    }
+    
+    /**
+     * Removals at or after the given time, oldest first
+     */
+    public synchronized List<Removal> getRemovalsSince(LocalDateTime since) {
+        List<Removal> result = new ArrayList<>();
+        for (Removal removal : removals) {
+            if (!removal.getRemovedAt().isBefore(since)) {
+                result.add(removal);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Drop removals before the given time, once a full backup covers them
+     */
+    public synchronized void compact(LocalDateTime before) {
+        removals.removeIf(removal -> removal.getRemovedAt().isBefore(before));
+    }
+}
@@ -0,0 +1,104 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.ClassStanding;
+import edu.ccrm.util.FenwickTree;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rank index over student GPAs, per department and overall
+ * GPAs are bucketed to hundredths (0.00 - 10.00) in Fenwick trees, so updates,
+ * ranks and percentiles are O(log buckets) instead of sorting all students.
+ */
+public class ClassRankIndex {
+    private static final int BUCKETS = 1001; // 0.00 .. 10.00
+    
+    private final FenwickTree overall = new FenwickTree(BUCKETS);
+    private final Map<String, FenwickTree> byDepartment = new HashMap<>();
+    private final Map<String, RankedStudent> students = new HashMap<>();
+    
+    /**
+     * Insert or move a student's GPA
+     */
+    public synchronized void update(String studentId, double gpa, String department) {
+        remove(studentId);
+        int bucket = toBucket(gpa);
+        students.put(studentId, new RankedStudent(bucket, department));
+        overall.add(bucket, 1);
+        byDepartment.computeIfAbsent(department, dept -> new FenwickTree(BUCKETS)).add(bucket, 1);
+    }
+    
+    /**
+     * Remove a student from the index (e.g. no graded courses left)
+     */
+    public synchronized void remove(String studentId) {
+        RankedStudent previous = students.remove(studentId);
+        if (previous == null) {
+            return;
+        }
+        overall.add(previous.bucket, -1);
+        FenwickTree departmentTree = byDepartment.get(previous.department);
+        departmentTree.add(previous.bucket, -1);
+        if (departmentTree.total() == 0) {
+            byDepartment.remove(previous.department);
+        }
+    }
+    
+    /**
+     * Drop every student from the index
+     */
+    public synchronized void clear() {
+        for (String studentId : students.keySet().toArray(new String[0])) {
+            remove(studentId);
+        }
+    }
+    
+    /**
+     * Standing of a student, or null when the student is not ranked
+     */
+    public synchronized ClassStanding getStanding(String studentId) {
+        RankedStudent student = students.get(studentId);
+        if (student == null) {
+            return null;
+        }
+        FenwickTree departmentTree = byDepartment.get(student.department);
+        
+        long overallSize = overall.total();
+        long below = overall.prefixSum(student.bucket - 1);
+        long tied = overall.prefixSum(student.bucket) - below;
+        double percentile = Math.round((below + tied / 2.0) * 10_000.0 / overallSize) / 100.0;
+        
+        return new ClassStanding(
+            student.department,
+            rankIn(departmentTree, student.bucket),
+            (int) departmentTree.total(),
+            rankIn(overall, student.bucket),
+            (int) overallSize,
+            percentile);
+    }
+    
+    public synchronized int size() {
+        return students.size();
+    }
+    
+    // Rank 1 is the highest GPA; tied students share a rank
+    private int rankIn(FenwickTree tree, int bucket) {
+        return (int) (tree.total() - tree.prefixSum(bucket)) + 1;
+    }
+    
+    private static int toBucket(double gpa) {
+        long bucket = Math.round(gpa * 100);
+        return (int) Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+    
+    private static class RankedStudent {
+        private final int bucket;
+        private final String department;
+        
+        private RankedStudent(int bucket, String department) {
+            this.bucket = bucket;
+            this.department = department;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package edu.ccrm.service;
+
+/**
+ * Listener notified when a course's details change
+ */
+@FunctionalInterface
+public interface CourseListener {
+    /**
+     * Called after an existing course was updated, e.g. its credits
+     */
+    void courseChanged(String courseCode);
+}
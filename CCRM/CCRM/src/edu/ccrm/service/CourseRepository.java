@@ -0,0 +1,43 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+
+import java.util.Collection;
+
+/**
+ * Storage for courses behind CourseService
+ * Implementations other than InMemoryCourseRepository hand out copies, so changes
+ * to a course only last once it is saved again.
+ */
+public interface CourseRepository {
+    Course findByCode(String code);
+    
+    boolean exists(String code);
+    
+    Collection<Course> findAll();
+    
+    /**
+     * Courses of a department, ignoring case
+     */
+    Collection<Course> findByDepartment(String department);
+    
+    Collection<Course> findBySemester(Semester semester);
+    
+    int count();
+    
+    /**
+     * Insert the course or replace the one with the same code
+     */
+    void save(Course course);
+    
+    /**
+     * Save many courses at once, batching the writes where the storage allows
+     */
+    void saveAll(Collection<Course> courses);
+    
+    /**
+     * Replace every stored course
+     */
+    void replaceAll(Collection<Course> courses);
+}
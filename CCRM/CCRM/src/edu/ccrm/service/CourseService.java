@@ -2,27 +2,69 @@ package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.exceptions.CCRMException;
 import edu.ccrm.exceptions.CourseNotFoundException;
 import edu.ccrm.exceptions.InvalidDataException;
+import edu.ccrm.exceptions.RecordTooLargeException;
 import edu.ccrm.util.ValidationUtils;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
  * Service class for course operations
  */
 public class CourseService {
-    private final Map<String, Course> courses;
+    private final CourseRepository repository;
+    private final ChangeJournal journal;
+    private final List<CourseListener> listeners;
     
     public CourseService() {
-        this.courses = new HashMap<>();
+        this(new InMemoryCourseRepository());
+    }
+    
+    public CourseService(CourseRepository repository) {
+        this.repository = repository;
+        this.journal = new ChangeJournal();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+    
+    /**
+     * Journal of wholesale replacements, used by incremental backups
+     */
+    public ChangeJournal getChangeJournal() {
+        return journal;
+    }
+    
+    /**
+     * Register a listener for course updates
+     */
+    public void addCourseListener(CourseListener listener) {
+        listeners.add(listener);
     }
     
     /**
      * Add a new course with validation
      */
     public void addCourse(Course course) throws InvalidDataException {
+        validateNew(course);
+        save(course);
+    }
+    
+    /**
+     * Save a course, rejecting one the storage cannot hold (e.g. an instructor with very many courses)
+     */
+    private void save(Course course) throws InvalidDataException {
+        try {
+            repository.save(course);
+        } catch (RecordTooLargeException e) {
+            throw new InvalidDataException(e.getMessage());
+        }
+    }
+    
+    private void validateNew(Course course) throws InvalidDataException {
         if (course == null) {
             throw new InvalidDataException("Course cannot be null");
         }
@@ -31,25 +73,71 @@ public class CourseService {
             throw new InvalidDataException("Invalid course code format");
         }
         
-        if (courses.containsKey(course.getCode())) {
+        if (repository.exists(course.getCode())) {
             throw new InvalidDataException("Course with code " + course.getCode() + " already exists");
         }
-        
-        courses.put(course.getCode(), course);
+    }
+    
+    /**
+     * Add a batch of courses, continuing past invalid or duplicate ones
+     * The valid courses are saved to the repository in one batch.
+     * @param batch Courses to add in order
+     * @param onError Receives each rejected course and the reason
+     * @return Number of courses added
+     */
+    public int addCourses(List<Course> batch, BiConsumer<Course, CCRMException> onError) {
+        List<Course> valid = new ArrayList<>(batch.size());
+        Set<String> codes = new HashSet<>();
+        for (Course course : batch) {
+            try {
+                validateNew(course);
+                if (!codes.add(course.getCode())) {
+                    throw new InvalidDataException("Course with code " + course.getCode() + " already exists");
+                }
+                valid.add(course);
+            } catch (InvalidDataException e) {
+                onError.accept(course, e);
+            }
+        }
+        try {
+            repository.saveAll(valid);
+        } catch (RecordTooLargeException e) {
+            // Nothing was saved; save one at a time so only the courses that do not fit are rejected
+            int added = 0;
+            for (Course course : valid) {
+                try {
+                    save(course);
+                    added++;
+                } catch (InvalidDataException tooLarge) {
+                    onError.accept(course, tooLarge);
+                }
+            }
+            return added;
+        }
+        return valid.size();
+    }
+    
+    /**
+     * Replace all courses with previously saved ones (snapshot load)
+     * Records are trusted and not re-validated
+     */
+    public void replaceAll(Collection<Course> restored) {
+        repository.replaceAll(restored);
+        journal.recordReset();
     }
     
     /**
      * Find course by code
      */
     public Course findCourseByCode(String code) {
-        return courses.get(code);
+        return repository.findByCode(code);
     }
     
     /**
      * Get all courses sorted by code
      */
     public List<Course> getAllCourses() {
-        return courses.values().stream()
+        return repository.findAll().stream()
             .sorted(Comparator.comparing(Course::getCode))
             .collect(Collectors.toList());
     }
@@ -58,9 +146,7 @@ public class CourseService {
      * Search courses by department using Stream API
      */
     public List<Course> searchByDepartment(String department) {
-        return courses.values().stream()
-            .filter(course -> course.getDepartment() != null && 
-                course.getDepartment().equalsIgnoreCase(department))
+        return repository.findByDepartment(department).stream()
             .sorted(Comparator.comparing(Course::getCode))
             .collect(Collectors.toList());
     }
@@ -69,7 +155,7 @@ public class CourseService {
      * Search courses by instructor name
      */
     public List<Course> searchByInstructor(String instructorName) {
-        return courses.values().stream()
+        return repository.findAll().stream()
             .filter(course -> course.getInstructor() != null && 
                 course.getInstructor().getFullName().toLowerCase()
                 .contains(instructorName.toLowerCase()))
@@ -81,27 +167,30 @@ public class CourseService {
      * Search courses by semester
      */
     public List<Course> searchBySemester(Semester semester) {
-        return courses.values().stream()
-            .filter(course -> course.getSemester() == semester)
+        return repository.findBySemester(semester).stream()
             .sorted(Comparator.comparing(Course::getCode))
             .collect(Collectors.toList());
     }
     
     /**
      * Update course information
+     * Listeners are told afterwards, since credits feed every enrolled student's GPA
      */
-    public void updateCourse(Course course) throws CourseNotFoundException {
-        if (!courses.containsKey(course.getCode())) {
+    public void updateCourse(Course course) throws CourseNotFoundException, InvalidDataException {
+        if (!repository.exists(course.getCode())) {
             throw new CourseNotFoundException("Course with code " + course.getCode() + " not found");
         }
-        courses.put(course.getCode(), course);
+        save(course);
+        for (CourseListener listener : listeners) {
+            listener.courseChanged(course.getCode());
+        }
     }
     
     /**
      * Get courses by credit range using Stream API
      */
     public List<Course> getCoursesByCreditRange(int minCredits, int maxCredits) {
-        return courses.values().stream()
+        return repository.findAll().stream()
             .filter(course -> course.getCredits() >= minCredits && 
                 course.getCredits() <= maxCredits)
             .sorted(Comparator.comparing(Course::getCode))
@@ -112,7 +201,7 @@ public class CourseService {
      * Get department statistics using Stream API grouping
      */
     public Map<String, Long> getDepartmentStatistics() {
-        return courses.values().stream()
+        return repository.findAll().stream()
             .filter(course -> course.getDepartment() != null)
             .collect(Collectors.groupingBy(
                 Course::getDepartment,
@@ -0,0 +1,12 @@
+package edu.ccrm.service;
+
+/**
+ * What a batch add of students does with a row whose ID or registration number is already taken
+ * SKIP and UPSERT only apply when the row names the stored student by both keys;
+ * a row that pairs either key with a different student is always rejected.
+ */
+public enum DuplicatePolicy {
+    REJECT,     // Report the row as a duplicate, as with any other invalid row
+    SKIP,       // Leave the stored student as it is and count the row as skipped
+    UPSERT      // Update the name and email of the stored student
+}
@@ -0,0 +1,19 @@
+package edu.ccrm.service;
+
+/**
+ * Listener notified when a student's enrollments or grades change
+ */
+@FunctionalInterface
+public interface EnrollmentListener {
+    /**
+     * Called after an enrollment of the student was added, removed or graded
+     */
+    void enrollmentsChanged(String studentId);
+    
+    /**
+     * Called after all enrollments were replaced at once, e.g. by a snapshot load
+     * Defaults to nothing; listeners holding derived state should rebuild it
+     */
+    default void enrollmentsReplaced() {
+    }
+}
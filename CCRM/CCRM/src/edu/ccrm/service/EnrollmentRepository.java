@@ -0,0 +1,45 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.Collection;
+
+/**
+ * Storage for enrollments behind EnrollmentService, keyed by student and course
+ * Implementations other than InMemoryEnrollmentRepository hand out copies, so
+ * changes to an enrollment only last once it is saved again.
+ */
+public interface EnrollmentRepository {
+    Enrollment find(String studentId, String courseCode);
+    
+    Collection<Enrollment> findByStudent(String studentId);
+    
+    Collection<Enrollment> findByCourse(String courseCode);
+    
+    /**
+     * Every enrollment, in the order they were first saved where the storage keeps it
+     */
+    Collection<Enrollment> findAll();
+    
+    int count();
+    
+    /**
+     * Insert the enrollment or replace the one for the same student and course
+     */
+    void save(Enrollment enrollment);
+    
+    /**
+     * Save many enrollments at once, batching the writes where the storage allows
+     */
+    void saveAll(Collection<Enrollment> enrollments);
+    
+    /**
+     * @return The removed enrollment, or null if there was none
+     */
+    Enrollment delete(String studentId, String courseCode);
+    
+    /**
+     * Replace every stored enrollment
+     */
+    void replaceAll(Collection<Enrollment> enrollments);
+}
@@ -5,18 +5,60 @@ import edu.ccrm.config.AppConfig;
 import edu.ccrm.exceptions.*;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
  * Service class for enrollment operations
  */
 public class EnrollmentService {
-    private final List<Enrollment> enrollments;
+    private final EnrollmentRepository repository;
     private final AppConfig config;
+    private final List<EnrollmentListener> listeners;
+    private final ChangeJournal journal;
     
     public EnrollmentService() {
-        this.enrollments = new ArrayList<>();
+        this(new InMemoryEnrollmentRepository());
+    }
+    
+    public EnrollmentService(EnrollmentRepository repository) {
+        this.repository = repository;
         this.config = AppConfig.getInstance();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.journal = new ChangeJournal();
+    }
+    
+    /**
+     * Journal of removed enrollments, used by incremental backups
+     */
+    public ChangeJournal getChangeJournal() {
+        return journal;
+    }
+    
+    /**
+     * Register a listener for enrollment and grade changes
+     */
+    public void addEnrollmentListener(EnrollmentListener listener) {
+        listeners.add(listener);
+    }
+    
+    private void fireEnrollmentsChanged(String studentId) {
+        for (EnrollmentListener listener : listeners) {
+            listener.enrollmentsChanged(studentId);
+        }
+    }
+    
+    /**
+     * Replace all enrollments with previously saved ones (snapshot load)
+     * Listeners get a single enrollmentsReplaced call instead of one per student
+     */
+    public void replaceAll(Collection<Enrollment> restored) {
+        repository.replaceAll(restored);
+        journal.recordReset();
+        for (EnrollmentListener listener : listeners) {
+            listener.enrollmentsReplaced();
+        }
     }
     
     /**
@@ -26,11 +68,7 @@ public class EnrollmentService {
             throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
         
         // Check for duplicate enrollment
-        boolean alreadyEnrolled = enrollments.stream()
-            .anyMatch(e -> e.getStudentId().equals(student.getId()) && 
-                e.getCourseCode().equals(course.getCode()));
-                
-        if (alreadyEnrolled) {
+        if (repository.find(student.getId(), course.getCode()) != null) {
             throw new DuplicateEnrollmentException(
                 "Student is already enrolled in course " + course.getCode());
         }
@@ -45,26 +83,70 @@ public class EnrollmentService {
         
         // Create enrollment
         Enrollment enrollment = new Enrollment(student.getId(), course.getCode());
-        enrollments.add(enrollment);
+        repository.save(enrollment);
         
         // Update student's enrolled courses
         student.enrollInCourse(course.getCode());
+        fireEnrollmentsChanged(student.getId());
+    }
+    
+    /**
+     * Add a batch of existing enrollments, e.g. from an import, keeping their dates and grades
+     * Historical records are not checked against the credit limit. Listeners hear once
+     * per student in the batch rather than once per enrollment.
+     * @param studentService Resolves each enrollment's student to record the course on it
+     * @param onError Receives every enrollment that was rejected and why
+     * @return Number of enrollments added
+     */
+    public int addEnrollments(List<Enrollment> batch, StudentService studentService,
+                              BiConsumer<Enrollment, CCRMException> onError) {
+        List<Enrollment> valid = new ArrayList<>(batch.size());
+        Set<String> keys = new HashSet<>();
+        Set<String> changedStudents = new LinkedHashSet<>();
+        for (Enrollment enrollment : batch) {
+            Student student = studentService.findStudentById(enrollment.getStudentId());
+            if (student == null) {
+                onError.accept(enrollment, new InvalidDataException(
+                    "Student not found: " + enrollment.getStudentId()));
+                continue;
+            }
+            // Not saved yet, so duplicates within the batch are checked here
+            if (!keys.add(enrollment.getStudentId() + '\u0000' + enrollment.getCourseCode())
+                    || repository.find(enrollment.getStudentId(), enrollment.getCourseCode()) != null) {
+                onError.accept(enrollment, new DuplicateEnrollmentException(
+                    "Student " + enrollment.getStudentId() + " is already enrolled in course "
+                        + enrollment.getCourseCode()));
+                continue;
+            }
+            valid.add(enrollment);
+            student.enrollInCourse(enrollment.getCourseCode());
+            changedStudents.add(student.getId());
+        }
+        repository.saveAll(valid);
+        changedStudents.forEach(this::fireEnrollmentsChanged);
+        return valid.size();
     }
     
     /**
      * Unenroll student from course
+     * @param studentService Resolves the student to drop the course from, as a restore would rebuild it
      */
-    public void unenrollStudent(String studentId, String courseCode) 
-            throws EnrollmentNotFoundException {
+    public void unenrollStudent(String studentId, String courseCode, StudentService studentService) 
+            throws EnrollmentNotFoundException, StudentNotFoundException {
         
-        boolean removed = enrollments.removeIf(e -> 
-            e.getStudentId().equals(studentId) && 
-            e.getCourseCode().equals(courseCode));
-            
-        if (!removed) {
+        Student student = studentService.findStudentById(studentId);
+        if (student == null) {
+            throw new StudentNotFoundException("Student with ID " + studentId + " not found");
+        }
+        Enrollment removed = repository.delete(studentId, courseCode);
+        if (removed == null) {
             throw new EnrollmentNotFoundException(
                 "No enrollment found for student " + studentId + " in course " + courseCode);
         }
+        journal.recordRemoval("enrollment", removed.getEnrollmentId());
+        student.unenrollFromCourse(courseCode);
+        studentService.updateStudent(student);
+        fireEnrollmentsChanged(studentId);
     }
     
     /**
@@ -80,14 +162,15 @@ public class EnrollmentService {
         }
         
         enrollment.setGrade(grade, marks);
+        repository.save(enrollment);
+        fireEnrollmentsChanged(studentId);
     }
     
     /**
      * Get student enrollments
      */
     public List<Enrollment> getStudentEnrollments(String studentId) {
-        return enrollments.stream()
-            .filter(e -> e.getStudentId().equals(studentId))
+        return repository.findByStudent(studentId).stream()
             .sorted(Comparator.comparing(Enrollment::getEnrollmentDate))
             .collect(Collectors.toList());
     }
@@ -96,8 +179,7 @@ public class EnrollmentService {
      * Get course enrollments
      */
     public List<Enrollment> getCourseEnrollments(String courseCode) {
-        return enrollments.stream()
-            .filter(e -> e.getCourseCode().equals(courseCode))
+        return repository.findByCourse(courseCode).stream()
             .sorted(Comparator.comparing(Enrollment::getEnrollmentDate))
             .collect(Collectors.toList());
     }
@@ -125,11 +207,7 @@ public class EnrollmentService {
     }
     
     private Enrollment findEnrollment(String studentId, String courseCode) {
-        return enrollments.stream()
-            .filter(e -> e.getStudentId().equals(studentId) && 
-                e.getCourseCode().equals(courseCode))
-            .findFirst()
-            .orElse(null);
+        return repository.find(studentId, courseCode);
     }
     
     private int getCurrentSemesterCredits(String studentId, Semester semester) {
@@ -141,6 +219,6 @@ public class EnrollmentService {
      * Get all enrollments
      */
     public List<Enrollment> getAllEnrollments() {
-        return new ArrayList<>(enrollments);
+        return new ArrayList<>(repository.findAll());
     }
 }
\ No newline at end of file
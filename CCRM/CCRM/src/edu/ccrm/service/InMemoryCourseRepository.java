@@ -0,0 +1,69 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Courses held in a hash map by code
+ * Department and semester queries scan every course.
+ */
+public class InMemoryCourseRepository implements CourseRepository {
+    private final Map<String, Course> courses = new HashMap<>();
+    
+    @Override
+    public Course findByCode(String code) {
+        return courses.get(code);
+    }
+    
+    @Override
+    public boolean exists(String code) {
+        return courses.containsKey(code);
+    }
+    
+    @Override
+    public Collection<Course> findAll() {
+        return Collections.unmodifiableCollection(courses.values());
+    }
+    
+    @Override
+    public Collection<Course> findByDepartment(String department) {
+        return courses.values().stream()
+            .filter(course -> course.getDepartment() != null &&
+                course.getDepartment().equalsIgnoreCase(department))
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public Collection<Course> findBySemester(Semester semester) {
+        return courses.values().stream()
+            .filter(course -> course.getSemester() == semester)
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public int count() {
+        return courses.size();
+    }
+    
+    @Override
+    public void save(Course course) {
+        courses.put(course.getCode(), course);
+    }
+    
+    @Override
+    public void saveAll(Collection<Course> batch) {
+        batch.forEach(this::save);
+    }
+    
+    @Override
+    public void replaceAll(Collection<Course> restored) {
+        courses.clear();
+        saveAll(restored);
+    }
+}
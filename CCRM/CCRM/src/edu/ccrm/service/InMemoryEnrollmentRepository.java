@@ -0,0 +1,71 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Enrollments held in insertion order, indexed by student and course
+ * Per-student and per-course queries scan every enrollment.
+ */
+public class InMemoryEnrollmentRepository implements EnrollmentRepository {
+    private final Map<String, Enrollment> enrollments = new LinkedHashMap<>();
+    
+    @Override
+    public Enrollment find(String studentId, String courseCode) {
+        return enrollments.get(keyOf(studentId, courseCode));
+    }
+    
+    @Override
+    public Collection<Enrollment> findByStudent(String studentId) {
+        return enrollments.values().stream()
+            .filter(e -> e.getStudentId().equals(studentId))
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public Collection<Enrollment> findByCourse(String courseCode) {
+        return enrollments.values().stream()
+            .filter(e -> e.getCourseCode().equals(courseCode))
+            .collect(Collectors.toList());
+    }
+    
+    @Override
+    public Collection<Enrollment> findAll() {
+        return Collections.unmodifiableCollection(enrollments.values());
+    }
+    
+    @Override
+    public int count() {
+        return enrollments.size();
+    }
+    
+    @Override
+    public void save(Enrollment enrollment) {
+        enrollments.put(keyOf(enrollment.getStudentId(), enrollment.getCourseCode()), enrollment);
+    }
+    
+    @Override
+    public void saveAll(Collection<Enrollment> batch) {
+        batch.forEach(this::save);
+    }
+    
+    @Override
+    public Enrollment delete(String studentId, String courseCode) {
+        return enrollments.remove(keyOf(studentId, courseCode));
+    }
+    
+    @Override
+    public void replaceAll(Collection<Enrollment> restored) {
+        enrollments.clear();
+        saveAll(restored);
+    }
+    
+    private static String keyOf(String studentId, String courseCode) {
+        return studentId + '\u0000' + courseCode;
+    }
+}
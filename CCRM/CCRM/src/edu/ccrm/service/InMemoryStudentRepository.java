@@ -0,0 +1,68 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Students held in hash maps by ID and registration number
+ * Hands out the stored objects themselves, so in-place changes are visible at once.
+ */
+public class InMemoryStudentRepository implements StudentRepository {
+    private final Map<String, Student> students = new HashMap<>();
+    private final Map<String, Student> studentsByRegNo = new HashMap<>();
+    
+    @Override
+    public Student findById(String id) {
+        return students.get(id);
+    }
+    
+    @Override
+    public Student findByRegNo(String regNo) {
+        return studentsByRegNo.get(regNo);
+    }
+    
+    @Override
+    public boolean exists(String id) {
+        return students.containsKey(id);
+    }
+    
+    @Override
+    public boolean existsByRegNo(String regNo) {
+        return studentsByRegNo.containsKey(regNo);
+    }
+    
+    @Override
+    public Collection<Student> findAll() {
+        return Collections.unmodifiableCollection(students.values());
+    }
+    
+    @Override
+    public int count() {
+        return students.size();
+    }
+    
+    @Override
+    public void save(Student student) {
+        Student existing = students.put(student.getId(), student);
+        if (existing != null) {
+            studentsByRegNo.remove(existing.getRegNo());
+        }
+        studentsByRegNo.put(student.getRegNo(), student);
+    }
+    
+    @Override
+    public void saveAll(Collection<Student> batch) {
+        batch.forEach(this::save);
+    }
+    
+    @Override
+    public void replaceAll(Collection<Student> restored) {
+        students.clear();
+        studentsByRegNo.clear();
+        saveAll(restored);
+    }
+}
@@ -1,11 +1,18 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.io.ReportSink;
+import edu.ccrm.io.ReportSink.Column;
+import edu.ccrm.io.ReportSinks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Service for generating reports using Stream API
+ * Every report can be written to any ReportSink (console, CSV, JSON Lines, text)
  */
 public class ReportService {
     
@@ -13,7 +20,16 @@ public class ReportService {
      * Show top students by GPA using Stream API
      */
     public void showTopStudentsByGPA(List<Student> students, EnrollmentService enrollmentService) {
-        System.out.println("\n=== TOP STUDENTS BY GPA ===");
+        printToConsole(sink -> writeTopStudentsByGPA(students, enrollmentService, sink));
+    }
+    
+    /**
+     * Write top students by GPA to a sink
+     */
+    public void writeTopStudentsByGPA(List<Student> students, EnrollmentService enrollmentService,
+                                      ReportSink sink) throws IOException {
+        sink.beginReport("TOP STUDENTS BY GPA",
+            Column.of("Name", 20), Column.of("Reg No", 15), Column.of("GPA", 5));
         
         Map<Student, Double> studentGPAs = students.stream()
             .collect(Collectors.toMap(
@@ -21,37 +37,50 @@ public class ReportService {
                 student -> enrollmentService.calculateStudentGPA(student.getId())
             ));
         
-        studentGPAs.entrySet().stream()
+        List<Map.Entry<Student, Double>> top = studentGPAs.entrySet().stream()
             .filter(entry -> entry.getValue() > 0.0)
             .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
             .limit(10)
-            .forEach(entry -> {
-                System.out.printf("%-20s %-15s GPA: %.2f%n", 
-                    entry.getKey().getFullName(),
-                    entry.getKey().getRegNo(),
-                    entry.getValue());
-            });
+            .collect(Collectors.toList());
+        
+        for (Map.Entry<Student, Double> entry : top) {
+            sink.cell(entry.getKey().getFullName());
+            sink.cell(entry.getKey().getRegNo());
+            sink.cell(entry.getValue(), 2);
+            sink.endRow();
+        }
+        sink.endReport();
     }
     
     /**
      * Show GPA distribution using Stream API grouping
      */
     public void showGPADistribution(List<Student> students, EnrollmentService enrollmentService) {
-        System.out.println("\n=== GPA DISTRIBUTION ===");
+        printToConsole(sink -> writeGPADistribution(students, enrollmentService, sink));
+    }
+    
+    /**
+     * Write GPA distribution to a sink
+     */
+    public void writeGPADistribution(List<Student> students, EnrollmentService enrollmentService,
+                                     ReportSink sink) throws IOException {
+        sink.beginReport("GPA DISTRIBUTION", Column.of("GPA Range", 25), Column.of("Students", 8));
         
         Map<String, Long> distribution = students.stream()
             .map(student -> enrollmentService.calculateStudentGPA(student.getId()))
             .filter(gpa -> gpa > 0.0)
             .collect(Collectors.groupingBy(
                 this::getGPARange,
+                TreeMap::new,
                 Collectors.counting()
             ));
         
-        distribution.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByKey())
-            .forEach(entry -> {
-                System.out.printf("%s: %d students%n", entry.getKey(), entry.getValue());
-            });
+        for (Map.Entry<String, Long> entry : distribution.entrySet()) {
+            sink.cell(entry.getKey());
+            sink.cell(entry.getValue());
+            sink.endRow();
+        }
+        sink.endReport();
     }
     
     private String getGPARange(Double gpa) {
@@ -66,44 +95,77 @@ public class ReportService {
      * Show course enrollment statistics
      */
     public void showCourseEnrollmentStats(List<Course> courses, EnrollmentService enrollmentService) {
-        System.out.println("\n=== COURSE ENROLLMENT STATISTICS ===");
-        System.out.printf("%-10s %-30s %-15s %-10s%n", "Code", "Title", "Department", "Enrolled");
-        System.out.println("=".repeat(70));
+        printToConsole(sink -> writeCourseEnrollmentStats(courses, enrollmentService, sink));
+    }
+    
+    /**
+     * Write course enrollment statistics to a sink
+     * Enrollment counts are gathered in a single pass over all enrollments
+     */
+    public void writeCourseEnrollmentStats(List<Course> courses, EnrollmentService enrollmentService,
+                                           ReportSink sink) throws IOException {
+        sink.beginReport("COURSE ENROLLMENT STATISTICS",
+            Column.of("Code", 10), Column.of("Title", 30), Column.of("Department", 20), Column.of("Enrolled", 10));
+        
+        Map<String, Long> enrollmentCounts = enrollmentService.getAllEnrollments().stream()
+            .collect(Collectors.groupingBy(Enrollment::getCourseCode, Collectors.counting()));
         
-        courses.stream()
-            .sorted(Comparator.comparing(Course::getCode))
-            .forEach(course -> {
-                int enrollmentCount = enrollmentService.getCourseEnrollments(course.getCode()).size();
-                System.out.printf("%-10s %-30s %-15s %-10d%n",
-                    course.getCode(),
-                    course.getTitle().length() > 30 ? 
-                        course.getTitle().substring(0, 27) + "..." : course.getTitle(),
-                    course.getDepartment() != null ? course.getDepartment() : "N/A",
-                    enrollmentCount);
-            });
+        List<Course> sorted = new ArrayList<>(courses);
+        sorted.sort(Comparator.comparing(Course::getCode));
+        
+        for (Course course : sorted) {
+            sink.cell(course.getCode());
+            sink.cell(course.getTitle());
+            sink.cell(course.getDepartment() != null ? course.getDepartment() : "N/A");
+            sink.cell(enrollmentCounts.getOrDefault(course.getCode(), 0L));
+            sink.endRow();
+        }
+        sink.endReport();
     }
     
     /**
      * Show department summary using Stream API
      */
     public void showDepartmentSummary(List<Course> courses) {
-        System.out.println("\n=== DEPARTMENT SUMMARY ===");
+        printToConsole(sink -> writeDepartmentSummary(courses, sink));
+    }
+    
+    /**
+     * Write department summary to a sink
+     */
+    public void writeDepartmentSummary(List<Course> courses, ReportSink sink) throws IOException {
+        sink.beginReport("DEPARTMENT SUMMARY",
+            Column.of("Department", 25), Column.of("Courses", 8), Column.of("Total Credits", 13));
         
         Map<String, List<Course>> departmentCourses = courses.stream()
             .filter(course -> course.getDepartment() != null)
-            .collect(Collectors.groupingBy(Course::getDepartment));
+            .collect(Collectors.groupingBy(Course::getDepartment, TreeMap::new, Collectors.toList()));
         
-        departmentCourses.entrySet().stream()
-            .sorted(Map.Entry.comparingByKey())
-            .forEach(entry -> {
-                String dept = entry.getKey();
-                List<Course> deptCourses = entry.getValue();
-                int totalCredits = deptCourses.stream().mapToInt(Course::getCredits).sum();
-                
-                System.out.printf("Department: %s%n", dept);
-                System.out.printf("  Courses: %d%n", deptCourses.size());
-                System.out.printf("  Total Credits: %d%n", totalCredits);
-                System.out.println();
-            });
+        for (Map.Entry<String, List<Course>> entry : departmentCourses.entrySet()) {
+            List<Course> deptCourses = entry.getValue();
+            int totalCredits = deptCourses.stream().mapToInt(Course::getCredits).sum();
+            
+            sink.cell(entry.getKey());
+            sink.cell(deptCourses.size());
+            sink.cell(totalCredits);
+            sink.endRow();
+        }
+        sink.endReport();
+    }
+    
+    /**
+     * Functional interface for a report body that writes to a sink
+     */
+    @FunctionalInterface
+    private interface ReportWriter {
+        void write(ReportSink sink) throws IOException;
+    }
+    
+    private void printToConsole(ReportWriter report) {
+        try (ReportSink sink = ReportSinks.console()) {
+            report.write(sink);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
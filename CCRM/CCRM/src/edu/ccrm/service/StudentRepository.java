@@ -0,0 +1,40 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.util.Collection;
+
+/**
+ * Storage for students behind StudentService
+ * Implementations other than InMemoryStudentRepository hand out copies, so changes
+ * to a student only last once it is saved again. A student's enrolled course IDs
+ * may be derived from the stored enrollments rather than stored with the student.
+ */
+public interface StudentRepository {
+    Student findById(String id);
+    
+    Student findByRegNo(String regNo);
+    
+    boolean exists(String id);
+    
+    boolean existsByRegNo(String regNo);
+    
+    Collection<Student> findAll();
+    
+    int count();
+    
+    /**
+     * Insert the student or replace the one with the same ID
+     */
+    void save(Student student);
+    
+    /**
+     * Save many students at once, batching the writes where the storage allows
+     */
+    void saveAll(Collection<Student> students);
+    
+    /**
+     * Replace every stored student
+     */
+    void replaceAll(Collection<Student> students);
+}
@@ -1,12 +1,15 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Student;
+import edu.ccrm.exceptions.CCRMException;
 import edu.ccrm.exceptions.DuplicateStudentException;
 import edu.ccrm.exceptions.StudentNotFoundException;
 import edu.ccrm.exceptions.InvalidDataException;
+import edu.ccrm.util.BloomFilter;
 import edu.ccrm.util.ValidationUtils;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -14,16 +17,56 @@ import java.util.stream.Collectors;
  * Demonstrates Collections, Stream API, Lambda expressions
  */
 public class StudentService {
-    private final Map<String, Student> students;
+    // Sizing of the filters over stored keys: false positives only cost an exact lookup
+    private static final double KNOWN_KEY_FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_KNOWN_KEYS = 16 * 1024;
+    
+    private final StudentRepository repository;
+    private final ChangeJournal journal;
+    
+    // IDs and registration numbers of stored students, built on the first batch add
+    private BloomFilter knownIds;
+    private BloomFilter knownRegNos;
     
     public StudentService() {
-        this.students = new HashMap<>();
+        this(new InMemoryStudentRepository());
+    }
+    
+    public StudentService(StudentRepository repository) {
+        this.repository = repository;
+        this.journal = new ChangeJournal();
+    }
+    
+    /**
+     * Journal of wholesale replacements, used by incremental backups
+     */
+    public ChangeJournal getChangeJournal() {
+        return journal;
     }
     
     /**
      * Add a new student with validation
      */
     public void addStudent(Student student) throws DuplicateStudentException, InvalidDataException {
+        validateNew(student);
+        repository.save(student);
+        rememberKeys(student);
+    }
+    
+    private void validateNew(Student student) throws DuplicateStudentException, InvalidDataException {
+        validateFields(student);
+        
+        if (repository.exists(student.getId())) {
+            throw new DuplicateStudentException("Student with ID " + student.getId() + " already exists");
+        }
+        
+        // Check for duplicate registration number via the hashed index
+        if (repository.existsByRegNo(student.getRegNo())) {
+            throw new DuplicateStudentException("Student with registration number " + student.getRegNo() + " already exists");
+        }
+    }
+    
+    private void validateFields(Student student) throws InvalidDataException {
         // Validation
         if (student == null) {
             throw new InvalidDataException("Student cannot be null");
@@ -36,44 +79,148 @@ public class StudentService {
         if (!ValidationUtils.isValidEmail(student.getEmail())) {
             throw new InvalidDataException("Invalid email format");
         }
-        
-        if (students.containsKey(student.getId())) {
-            throw new DuplicateStudentException("Student with ID " + student.getId() + " already exists");
+    }
+    
+    /**
+     * Add a batch of students, continuing past invalid or duplicate ones
+     * The valid students are saved to the repository in one batch.
+     * @param batch Students to add in order
+     * @param onError Receives each rejected student and the reason
+     * @return Number of students added
+     */
+    public int addStudents(List<Student> batch, BiConsumer<Student, CCRMException> onError) {
+        return addStudents(batch, DuplicatePolicy.REJECT, onError);
+    }
+    
+    /**
+     * Add a batch of students, handling ones that already exist by the policy
+     * Keys are first looked up in Bloom filters of the stored IDs and registration numbers:
+     * a miss proves the student is new without asking the repository, and only a hit is
+     * confirmed there. Skipped and upserted rows never build an exception.
+     * @param onError Receives each rejected student and the reason
+     * @return Number of students added or updated
+     */
+    public int addStudents(List<Student> batch, DuplicatePolicy policy, BiConsumer<Student, CCRMException> onError) {
+        ensureKnownKeys();
+        List<Student> saved = new ArrayList<>(batch.size());
+        // Not saved yet, so duplicates within the batch are found here
+        Map<String, Student> savedById = new HashMap<>();
+        Map<String, String> regNoOwners = new HashMap<>();
+        for (Student student : batch) {
+            try {
+                validateFields(student);
+                String id = student.getId();
+                String regNo = student.getRegNo();
+                Student earlier = savedById.get(id);
+                boolean idTaken = earlier != null || knownIds.mightContain(id) && repository.exists(id);
+                String regNoOwner = regNoOwner(regNo, regNoOwners);
+                if (!idTaken && regNoOwner == null) {
+                    saved.add(student);
+                    savedById.put(id, student);
+                    regNoOwners.put(regNo, id);
+                    continue;
+                }
+                
+                if (policy == DuplicatePolicy.REJECT) {
+                    throw new DuplicateStudentException(idTaken
+                        ? "Student with ID " + id + " already exists"
+                        : "Student with registration number " + regNo + " already exists");
+                }
+                // Skipped or updated only if both keys name the same stored student
+                if (regNoOwner != null && !regNoOwner.equals(id)) {
+                    throw new DuplicateStudentException("Student with registration number " + regNo
+                        + " already exists");
+                }
+                Student target = earlier != null ? earlier : repository.findById(id);
+                if (regNoOwner == null) {
+                    throw new DuplicateStudentException("Student with ID " + id
+                        + " already exists with registration number " + target.getRegNo());
+                }
+                if (policy == DuplicatePolicy.SKIP || Objects.equals(target.getFullName(), student.getFullName())
+                        && Objects.equals(target.getEmail(), student.getEmail())) {
+                    continue; // Left as stored
+                }
+                target.setFullName(student.getFullName());
+                target.setEmail(student.getEmail());
+                if (earlier == null) {
+                    saved.add(target);
+                    savedById.put(id, target);
+                }
+            } catch (DuplicateStudentException | InvalidDataException e) {
+                onError.accept(student, e);
+            }
         }
-        
-        // Check for duplicate registration number using Stream API
-        boolean regNoExists = students.values().stream()
-            .anyMatch(s -> s.getRegNo().equals(student.getRegNo()));
-            
-        if (regNoExists) {
-            throw new DuplicateStudentException("Student with registration number " + student.getRegNo() + " already exists");
+        repository.saveAll(saved);
+        saved.forEach(this::rememberKeys);
+        return saved.size();
+    }
+    
+    /**
+     * ID of the student holding the registration number, in the batch or the repository, or null
+     */
+    private String regNoOwner(String regNo, Map<String, String> batchOwners) {
+        String owner = batchOwners.get(regNo);
+        if (owner == null && (regNo == null || knownRegNos.mightContain(regNo))) {
+            Student stored = repository.findByRegNo(regNo);
+            owner = stored != null ? stored.getId() : null;
         }
-        
-        students.put(student.getId(), student);
+        return owner;
+    }
+    
+    /**
+     * Build the key filters from the repository, again with more room once they are full
+     */
+    private void ensureKnownKeys() {
+        if (knownIds != null && !knownIds.isSaturated() && !knownRegNos.isSaturated()) {
+            return;
+        }
+        Collection<Student> stored = repository.findAll();
+        long capacity = Math.max(MIN_KNOWN_KEYS, 2L * stored.size());
+        knownIds = new BloomFilter(capacity, KNOWN_KEY_FALSE_POSITIVE_RATE);
+        knownRegNos = new BloomFilter(capacity, KNOWN_KEY_FALSE_POSITIVE_RATE);
+        stored.forEach(this::rememberKeys);
+    }
+    
+    private void rememberKeys(Student student) {
+        if (knownIds == null) {
+            return; // Built from the repository when first needed
+        }
+        knownIds.add(student.getId());
+        if (student.getRegNo() != null) {
+            knownRegNos.add(student.getRegNo());
+        }
+    }
+    
+    /**
+     * Replace all students with previously saved ones (snapshot load)
+     * Records are trusted and not re-validated
+     */
+    public void replaceAll(Collection<Student> restored) {
+        repository.replaceAll(restored);
+        journal.recordReset();
+        knownIds = null; // Keys of the replaced students may be gone
+        knownRegNos = null;
     }
     
     /**
      * Find student by ID
      */
     public Student findStudentById(String id) {
-        return students.get(id);
+        return repository.findById(id);
     }
     
     /**
-     * Find student by registration number using Stream API
+     * Find student by registration number
      */
     public Student findStudentByRegNo(String regNo) {
-        return students.values().stream()
-            .filter(student -> student.getRegNo().equals(regNo))
-            .findFirst()
-            .orElse(null);
+        return repository.findByRegNo(regNo);
     }
     
     /**
      * Get all students sorted by name using lambda expressions
      */
     public List<Student> getAllStudents() {
-        return students.values().stream()
+        return repository.findAll().stream()
             .sorted((s1, s2) -> s1.getFullName().compareToIgnoreCase(s2.getFullName()))
             .collect(Collectors.toList());
     }
@@ -82,7 +229,7 @@ public class StudentService {
      * Get active students only
      */
     public List<Student> getActiveStudents() {
-        return students.values().stream()
+        return repository.findAll().stream()
             .filter(student -> student.getStatus() == Student.StudentStatus.ACTIVE)
             .sorted(Comparator.comparing(Student::getFullName))
             .collect(Collectors.toList());
@@ -93,7 +240,7 @@ public class StudentService {
      */
     public List<Student> searchStudentsByName(String namePattern) {
         String pattern = namePattern.toLowerCase();
-        return students.values().stream()
+        return repository.findAll().stream()
             .filter(student -> student.getFullName().toLowerCase().contains(pattern))
             .sorted(Comparator.comparing(Student::getFullName))
             .collect(Collectors.toList());
@@ -103,35 +250,37 @@ public class StudentService {
      * Update student information
      */
     public void updateStudent(Student student) throws StudentNotFoundException {
-        if (!students.containsKey(student.getId())) {
+        if (!repository.exists(student.getId())) {
             throw new StudentNotFoundException("Student with ID " + student.getId() + " not found");
         }
-        students.put(student.getId(), student);
+        repository.save(student);
+        rememberKeys(student);
     }
     
     /**
      * Deactivate a student
      */
     public void deactivateStudent(String studentId) throws StudentNotFoundException {
-        Student student = students.get(studentId);
+        Student student = repository.findById(studentId);
         if (student == null) {
             throw new StudentNotFoundException("Student with ID " + studentId + " not found");
         }
         student.setStatus(Student.StudentStatus.INACTIVE);
+        repository.save(student);
     }
     
     /**
      * Get total student count
      */
     public int getTotalStudentCount() {
-        return students.size();
+        return repository.count();
     }
     
     /**
      * Get student count by status using Stream API grouping
      */
     public Map<Student.StudentStatus, Long> getStudentCountByStatus() {
-        return students.values().stream()
+        return repository.findAll().stream()
             .collect(Collectors.groupingBy(
                 Student::getStatus,
                 Collectors.counting()
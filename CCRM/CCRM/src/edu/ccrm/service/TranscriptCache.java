@@ -0,0 +1,127 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Transcript;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of transcripts keyed by student ID
+ * Entries are dropped when the student's enrollments change (via invalidate)
+ * or when a referenced course's title or credits no longer match on lookup.
+ */
+public class TranscriptCache {
+    private final int capacity;
+    private final Map<String, Transcript> transcripts;
+    private long modificationCount;
+    
+    // Metrics
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+    
+    public TranscriptCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.transcripts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Transcript> eldest) {
+                if (size() > TranscriptCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Return the cached transcript or build, cache and return a new one
+     * @param studentId Student key
+     * @param courseLookup Resolves course codes to check that cached entries are still current
+     * @param loader Builds the transcript on a miss
+     */
+    public Transcript get(String studentId, Function<String, Course> courseLookup,
+                          Function<String, Transcript> loader) {
+        long stamp;
+        synchronized (this) {
+            Transcript cached = transcripts.get(studentId);
+            if (cached != null && isCurrent(cached, courseLookup)) {
+                hits++;
+                return cached;
+            }
+            if (cached != null) {
+                transcripts.remove(studentId);
+                invalidations++;
+            }
+            misses++;
+            stamp = modificationCount;
+        }
+        
+        // Build outside the lock; skip caching if anything was invalidated meanwhile
+        Transcript transcript = loader.apply(studentId);
+        synchronized (this) {
+            if (stamp == modificationCount) {
+                transcripts.put(studentId, transcript);
+            }
+        }
+        return transcript;
+    }
+    
+    /**
+     * Drop the cached transcript of one student
+     */
+    public synchronized void invalidate(String studentId) {
+        modificationCount++;
+        if (transcripts.remove(studentId) != null) {
+            invalidations++;
+        }
+    }
+    
+    /**
+     * Drop every cached transcript
+     */
+    public synchronized void invalidateAll() {
+        modificationCount++;
+        invalidations += transcripts.size();
+        transcripts.clear();
+    }
+    
+    private boolean isCurrent(Transcript transcript, Function<String, Course> courseLookup) {
+        for (Transcript.TranscriptEntry entry : transcript.getEntries()) {
+            Course course = courseLookup.apply(entry.getCourseCode());
+            if (course == null || course.getCredits() != entry.getCredits()
+                    || !course.getTitle().equals(entry.getCourseTitle())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Metrics
+    public synchronized int size() { return transcripts.size(); }
+    public int getCapacity() { return capacity; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getInvalidations() { return invalidations; }
+    
+    /**
+     * Fraction of lookups served from the cache (0.0 when unused)
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return String.format("TranscriptCache[size=%d/%d, hits=%d, misses=%d, hitRatio=%.1f%%, evictions=%d, invalidations=%d]",
+            transcripts.size(), capacity, hits, misses, getHitRatio() * 100, evictions, invalidations);
+    }
+}
@@ -1,42 +1,268 @@
 package edu.ccrm.service;
 
+import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.io.TranscriptRenderer;
 
-import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Service class for transcript generation
  */
 public class TranscriptService {
+    private static final int PROGRESS_INTERVAL = 500;
+    
     private final EnrollmentService enrollmentService;
     private final CourseService courseService;
+    private final TranscriptCache cache;
+    private final ClassRankIndex rankIndex;
     
     public TranscriptService() {
-        this.enrollmentService = new EnrollmentService();
-        this.courseService = new CourseService();
+        this(new EnrollmentService(), new CourseService());
     }
     
     public TranscriptService(EnrollmentService enrollmentService, CourseService courseService) {
         this.enrollmentService = enrollmentService;
         this.courseService = courseService;
+        this.cache = new TranscriptCache(AppConfig.getInstance().getTranscriptCacheSize());
+        this.rankIndex = new ClassRankIndex();
+        enrollmentService.addEnrollmentListener(new EnrollmentListener() {
+            @Override
+            public void enrollmentsChanged(String studentId) {
+                cache.invalidate(studentId);
+                updateRank(studentId);
+            }
+            
+            @Override
+            public void enrollmentsReplaced() {
+                cache.invalidateAll();
+                rebuildRankIndex();
+            }
+        });
+        // Cached transcripts notice course changes themselves; the ranks of the course's students do not
+        courseService.addCourseListener(courseCode -> {
+            for (Enrollment enrollment : enrollmentService.getCourseEnrollments(courseCode)) {
+                updateRank(enrollment.getStudentId());
+            }
+        });
+    }
+    
+    /**
+     * Get the student's transcript with class standing
+     * The transcript itself comes from the LRU cache when still current;
+     * the standing is looked up fresh since it depends on other students.
+     */
+    public Transcript getTranscript(Student student) {
+        Transcript transcript = cache.get(student.getId(), courseService::findCourseByCode,
+            studentId -> generateTranscript(student));
+        return transcript.withStanding(rankIndex.getStanding(student.getId()));
+    }
+    
+    public TranscriptCache getCache() {
+        return cache;
+    }
+    
+    /**
+     * Class standing of a student, or null when the student has no grades
+     */
+    public ClassStanding getStanding(String studentId) {
+        return rankIndex.getStanding(studentId);
+    }
+    
+    /**
+     * Rebuild the rank index from all enrollments in one pass
+     * Use after bulk loads; single course updates are applied as they happen
+     */
+    public void rebuildRankIndex() {
+        rebuildRankIndex(enrollmentService.getAllEnrollments().stream()
+            .collect(Collectors.groupingBy(Enrollment::getStudentId)));
+    }
+    
+    private void rebuildRankIndex(Map<String, List<Enrollment>> enrollmentsByStudent) {
+        rankIndex.clear();
+        enrollmentsByStudent.forEach((studentId, studentEnrollments) ->
+            updateRank(studentId, createTranscriptEntries(studentEnrollments)));
+    }
+    
+    private void updateRank(String studentId) {
+        updateRank(studentId, createTranscriptEntries(enrollmentService.getStudentEnrollments(studentId)));
+    }
+    
+    private void updateRank(String studentId, List<Transcript.TranscriptEntry> entries) {
+        if (Transcript.hasGrades(entries)) {
+            rankIndex.update(studentId, Transcript.calculateGPA(entries), Transcript.primaryDepartment(entries));
+        } else {
+            rankIndex.remove(studentId);
+        }
     }
     
     /**
      * Generate transcript for student using Builder pattern
      */
     public Transcript generateTranscript(Student student) {
-        List<Enrollment> studentEnrollments = enrollmentService.getStudentEnrollments(student.getId());
-        
-        List<Transcript.TranscriptEntry> entries = studentEnrollments.stream()
+        return generateTranscript(student, enrollmentService.getStudentEnrollments(student.getId()));
+    }
+    
+    /**
+     * Generate transcript from enrollments that were already looked up for the student
+     */
+    public Transcript generateTranscript(Student student, List<Enrollment> studentEnrollments) {
+        return new Transcript.Builder()
+            .setStudent(student)
+            .addEntries(createTranscriptEntries(studentEnrollments))
+            .build();
+    }
+    
+    private List<Transcript.TranscriptEntry> createTranscriptEntries(List<Enrollment> studentEnrollments) {
+        return studentEnrollments.stream()
             .map(this::createTranscriptEntry)
             .filter(entry -> entry != null)
             .collect(Collectors.toList());
+    }
+    
+    /**
+     * Generate transcripts for all students using a worker pool sized to the CPU count
+     * @see #generateAll(List, Path, int, Consumer)
+     */
+    public Map<String, Path> generateAll(List<Student> students, Consumer<BatchProgress> progress)
+            throws IOException {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        Path outputDir = AppConfig.getInstance().getExportPath().resolve("transcripts_" + timestamp);
+        return generateAll(students, outputDir, Runtime.getRuntime().availableProcessors(), progress);
+    }
+    
+    /**
+     * Generate transcripts for all students into one zip archive per department
+     * Enrollments are grouped by student in a single pass. At most two transcripts
+     * per worker are in flight at any time, so memory stays bounded regardless of
+     * the number of students. The progress callback is invoked from worker threads.
+     * @return archive path by department
+     */
+    public Map<String, Path> generateAll(List<Student> students, Path outputDir, int workers,
+                                         Consumer<BatchProgress> progress) throws IOException {
+        Files.createDirectories(outputDir);
         
-        return new Transcript.Builder()
-            .setStudent(student)
-            .addEntries(entries)
-            .build();
+        Map<String, List<Enrollment>> enrollmentsByStudent = enrollmentService.getAllEnrollments().stream()
+            .collect(Collectors.groupingBy(Enrollment::getStudentId));
+        rebuildRankIndex(enrollmentsByStudent);
+        
+        int threads = Math.max(1, workers);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 2);
+        Map<String, ZipOutputStream> archives = new ConcurrentHashMap<>();
+        Map<String, Path> archivePaths = new ConcurrentHashMap<>();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        AtomicLong completed = new AtomicLong();
+        ThreadLocal<RenderTarget> renderTargets = ThreadLocal.withInitial(RenderTarget::new);
+        long total = students.size();
+        long startNanos = System.nanoTime();
+        
+        try {
+            for (Student student : students) {
+                if (failure.get() != null) {
+                    break;
+                }
+                inFlight.acquire();
+                List<Enrollment> studentEnrollments =
+                    enrollmentsByStudent.getOrDefault(student.getId(), Collections.emptyList());
+                
+                executor.execute(() -> {
+                    try {
+                        Transcript transcript = generateTranscript(student, studentEnrollments)
+                            .withStanding(rankIndex.getStanding(student.getId()));
+                        RenderTarget target = renderTargets.get();
+                        target.bytes.reset();
+                        target.renderer.render(transcript, target.channel);
+                        String department = transcript.getPrimaryDepartment();
+                        
+                        ZipOutputStream archive = archives.computeIfAbsent(department,
+                            dept -> openArchive(outputDir, dept, archivePaths));
+                        synchronized (archive) {
+                            try {
+                                archive.putNextEntry(new ZipEntry(student.getId() + ".txt"));
+                                target.bytes.writeTo(archive);
+                            } finally {
+                                archive.closeEntry(); // Leaves the archive readable even if the write failed
+                            }
+                        }
+                        
+                        long done = completed.incrementAndGet();
+                        if (progress != null && (done % PROGRESS_INTERVAL == 0 || done == total)) {
+                            progress.accept(new BatchProgress("Transcripts", done, total,
+                                System.nanoTime() - startNanos));
+                        }
+                    } catch (IOException | UncheckedIOException e) {
+                        failure.compareAndSet(null, e instanceof UncheckedIOException
+                            ? ((UncheckedIOException) e).getCause() : (IOException) e);
+                    } catch (RuntimeException e) {
+                        // Fail the run rather than leave this student's transcript silently missing
+                        failure.compareAndSet(null,
+                            new IOException("Transcript of " + student.getId() + " failed: " + e, e));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IOException("Transcript generation interrupted", e);
+        } finally {
+            for (ZipOutputStream archive : archives.values()) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+        
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new TreeMap<>(archivePaths);
+    }
+    
+    /**
+     * Per-worker renderer and reusable output buffer
+     */
+    private static class RenderTarget {
+        private final TranscriptRenderer renderer = new TranscriptRenderer();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 * 1024);
+        private final WritableByteChannel channel = Channels.newChannel(bytes);
+    }
+    
+    private ZipOutputStream openArchive(Path outputDir, String department, Map<String, Path> archivePaths) {
+        String fileName = department.replaceAll("[^A-Za-z0-9]+", "_") + ".zip";
+        Path archivePath = outputDir.resolve(fileName);
+        try {
+            OutputStream out = Files.newOutputStream(archivePath);
+            archivePaths.put(department, archivePath);
+            return new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
     
     private Transcript.TranscriptEntry createTranscriptEntry(Enrollment enrollment) {
@@ -50,7 +276,8 @@ public class TranscriptService {
             course.getTitle(),
             course.getCredits(),
             enrollment.getGrade(),
-            enrollment.getMarks()
+            enrollment.getMarks(),
+            course.getDepartment()
         );
     }
 }
@@ -0,0 +1,100 @@
+package edu.ccrm.util;
+
+/**
+ * Bloom filter over strings: mightContain() never misses a key that was added, and
+ * wrongly reports an absent key at about the false positive rate it was sized for
+ * Each key sets k bits chosen by double hashing of one 64-bit hash. Not thread-safe.
+ */
+public class BloomFilter {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+    private long insertions;
+    
+    /**
+     * @param expectedInsertions Keys the filter is sized for; beyond that the false positive rate climbs
+     * @param falsePositiveRate Target rate once the expected keys have been added, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64)];
+        this.bitCount = (long) bits.length * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        this.expectedInsertions = expectedInsertions;
+    }
+    
+    public void add(String key) {
+        long hash = hash(key);
+        long step = (hash >>> 32) | 1; // Odd, so the k probes differ
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((hash + i * step) & Long.MAX_VALUE) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        insertions++;
+    }
+    
+    /**
+     * False only if the key was never added
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((hash + i * step) & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Getters
+    public long getBitCount() { return bitCount; }
+    public int getHashCount() { return hashCount; }
+    public long getExpectedInsertions() { return expectedInsertions; }
+    public long getInsertions() { return insertions; }
+    
+    /**
+     * More keys were added than the filter was sized for
+     */
+    public boolean isSaturated() {
+        return insertions > expectedInsertions;
+    }
+    
+    /**
+     * Expected false positive rate at the current number of keys
+     */
+    public double getFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+    
+    /**
+     * FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread the bits
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("BloomFilter[%d of %d keys, %d bits, %d hashes, ~%.2f%% false positives]",
+            insertions, expectedInsertions, bitCount, hashCount, getFalsePositiveRate() * 100);
+    }
+}
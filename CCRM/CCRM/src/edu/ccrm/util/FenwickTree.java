@@ -0,0 +1,61 @@
+package edu.ccrm.util;
+
+/**
+ * Fenwick (binary indexed) tree of counts over a fixed range of buckets
+ * Supports point updates and prefix sums in O(log n)
+ */
+public class FenwickTree {
+    private final long[] tree;
+    private long total;
+    
+    public FenwickTree(int bucketCount) {
+        if (bucketCount <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive");
+        }
+        this.tree = new long[bucketCount + 1];
+    }
+    
+    /**
+     * Add delta to the count of a bucket
+     * @param bucket Zero-based bucket index
+     */
+    public void add(int bucket, long delta) {
+        checkBucket(bucket);
+        total += delta;
+        for (int i = bucket + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+    
+    /**
+     * Sum of counts in buckets 0..bucket inclusive (0 for a negative bucket)
+     */
+    public long prefixSum(int bucket) {
+        if (bucket < 0) {
+            return 0;
+        }
+        checkBucket(bucket);
+        long sum = 0;
+        for (int i = bucket + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+    
+    /**
+     * Sum of counts in all buckets
+     */
+    public long total() {
+        return total;
+    }
+    
+    public int getBucketCount() {
+        return tree.length - 1;
+    }
+    
+    private void checkBucket(int bucket) {
+        if (bucket < 0 || bucket >= tree.length - 1) {
+            throw new IndexOutOfBoundsException("Bucket " + bucket + " out of range");
+        }
+    }
+}
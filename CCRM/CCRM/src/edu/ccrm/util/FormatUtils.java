@@ -0,0 +1,63 @@
+package edu.ccrm.util;
+
+/**
+ * Utility class for allocation-free text formatting
+ * Appends padded text and fixed-point numbers without String.format
+ */
+public class FormatUtils {
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+    
+    // Private constructor to prevent instantiation
+    private FormatUtils() {}
+    
+    /**
+     * Append a number with a fixed count of decimals (HALF_UP), like "%.2f"
+     * @param sb Target builder
+     * @param value Value to append
+     * @param decimals Digits after the decimal point (0-6)
+     */
+    public static void appendFixed(StringBuilder sb, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= 1e12) {
+            sb.append(value);
+            return;
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            sb.append('-');
+        }
+        sb.append(scaled / scale);
+        if (decimals > 0) {
+            sb.append('.');
+            long fraction = scaled % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                sb.append((char) ('0' + (fraction / p) % 10));
+            }
+        }
+    }
+    
+    /**
+     * Append text left-aligned in a field of the given width, like "%-Ns"
+     * Text longer than the width is cut and ends with "..."
+     */
+    public static void appendPadded(StringBuilder sb, CharSequence text, int width) {
+        int length = text.length();
+        if (length > width && width > 3) {
+            sb.append(text, 0, width - 3).append("...");
+            return;
+        }
+        sb.append(text);
+        appendSpaces(sb, width - length);
+    }
+    
+    /**
+     * Append the given number of spaces (nothing if count is not positive)
+     */
+    public static void appendSpaces(StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(' ');
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package edu.ccrm.io;
+
+import edu.ccrm.config.StorageBackend;
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseRepository;
+import edu.ccrm.service.EnrollmentRepository;
+import edu.ccrm.service.StudentRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Development check of a storage backend: every repository operation, then a reopen
+ * Lives outside src so it is not built into the application:
+ *
+ *   javac -d bin-test -cp bin test/edu/ccrm/io/StorageCheck.java
+ *   java -cp bin:bin-test edu.ccrm.io.StorageCheck paged
+ *   java -cp bin:bin-test:lib/h2.jar edu.ccrm.io.StorageCheck jdbc [jdbc-url]
+ *
+ * Works in a temporary directory (or the given database, which must be empty) and
+ * exits with status 1 if any check fails.
+ */
+public class StorageCheck {
+    // More rows than one JDBC batch or one leaf page, so batching and splits are exercised
+    private static final int BULK_STUDENTS = 2500;
+    
+    @FunctionalInterface
+    private interface Opener {
+        Storage open() throws IOException;
+    }
+    
+    private final List<String> failures = new ArrayList<>();
+    private int checks;
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: StorageCheck memory|paged|jdbc [jdbc-url]");
+            System.exit(2);
+        }
+        StorageBackend backend = StorageBackend.valueOf(args[0].toUpperCase());
+        Path directory = Files.createTempDirectory("ccrm-storage-check");
+        Opener opener = switch (backend) {
+            case PAGED -> () -> Storage.paged(directory.resolve("check.pages"), 64);
+            case JDBC -> {
+                String url = args.length > 1 ? args[1] : "jdbc:h2:" + directory.toAbsolutePath().resolve("check");
+                yield () -> Storage.jdbc(url, 4, 500);
+            }
+            default -> Storage::inMemory;
+        };
+        
+        StorageCheck check = new StorageCheck();
+        boolean opened = true;
+        try {
+            check.run(opener, backend.isPersistent());
+        } catch (IOException e) {
+            System.out.println("Could not open " + backend.getDescription().toLowerCase() + ": " + e.getMessage());
+            opened = false;
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        if (!opened) {
+            System.exit(1);
+        }
+        System.out.println(check.checks - check.failures.size() + " of " + check.checks + " checks passed on "
+            + backend.getDescription().toLowerCase());
+        check.failures.forEach(failure -> System.out.println("  FAILED: " + failure));
+        System.exit(check.failures.isEmpty() ? 0 : 1);
+    }
+    
+    private void run(Opener opener, boolean persistent) throws IOException {
+        try (Storage storage = opener.open()) {
+            expect("new storage is empty", storage.isEmpty(), true);
+            checkStudents(storage.getStudents());
+            checkCourses(storage.getCourses());
+            checkEnrollments(storage.getEnrollments(), storage.getStudents(), persistent);
+        }
+        if (!persistent) {
+            return;
+        }
+        try (Storage storage = opener.open()) {
+            expect("students after reopen", storage.getStudents().count(), BULK_STUDENTS + 2);
+            expect("courses after reopen", storage.getCourses().count(), 3);
+            expect("enrollments after reopen", storage.getEnrollments().count(), 4);
+            expect("registration number after reopen", idOf(storage.getStudents().findByRegNo("R2-NEW")), "S2");
+            Enrollment graded = storage.getEnrollments().find("S1", "CS101");
+            expect("grade after reopen", graded != null ? graded.getGrade() : null, Grade.A);
+            checkGradeAndMarks(" after reopen", storage.getEnrollments());
+            
+            storage.getEnrollments().replaceAll(List.of());
+            storage.getStudents().replaceAll(List.of(student("S9", "R9", "Replaced")));
+            expect("students after replaceAll", storage.getStudents().count(), 1);
+            expect("old registration number after replaceAll", storage.getStudents().existsByRegNo("R1"), false);
+        }
+    }
+    
+    private void checkStudents(StudentRepository students) {
+        students.save(student("S1", "R1", "Alice"));
+        students.save(student("S2", "R2", "Bob"));
+        expect("find student by ID", nameOf(students.findById("S1")), "Alice");
+        expect("find student by registration number", idOf(students.findByRegNo("R2")), "S2");
+        expect("student exists", students.exists("S2"), true);
+        expect("missing student", students.findById("S404"), null);
+        
+        students.save(student("S2", "R2-NEW", "Bobby"));
+        expect("updated student", nameOf(students.findById("S2")), "Bobby");
+        expect("old registration number dropped", students.existsByRegNo("R2"), false);
+        expect("new registration number indexed", idOf(students.findByRegNo("R2-NEW")), "S2");
+        
+        List<Student> bulk = new ArrayList<>();
+        for (int i = 0; i < BULK_STUDENTS; i++) {
+            bulk.add(student(String.format("B%05d", i), "RB" + i, "Bulk " + i));
+        }
+        students.saveAll(bulk);
+        expect("students after saveAll", students.count(), BULK_STUDENTS + 2);
+        expect("last student of saveAll", idOf(students.findByRegNo("RB" + (BULK_STUDENTS - 1))),
+            String.format("B%05d", BULK_STUDENTS - 1));
+        expect("findAll size", students.findAll().size(), BULK_STUDENTS + 2);
+    }
+    
+    private void checkCourses(CourseRepository courses) {
+        Instructor instructor = new Instructor("INST1", "I1", "Dr. Check", "check@university.edu", "Computer Science");
+        courses.saveAll(List.of(
+            course("CS101", "Computer Science", Semester.FALL, instructor),
+            course("CS102", "Computer Science", Semester.SPRING, instructor),
+            course("MA101", "Mathematics", Semester.FALL, null)));
+        Course found = courses.findByCode("CS101");
+        expect("find course", found != null ? found.getTitle() : null, "Course CS101");
+        expect("course instructor", found != null && found.getInstructor() != null
+            ? found.getInstructor().getFullName() : null, "Dr. Check");
+        expect("courses by department (any case)", courses.findByDepartment("computer science").size(), 2);
+        expect("courses by semester", courses.findBySemester(Semester.FALL).size(), 2);
+        expect("course exists", courses.exists("MA101"), true);
+    }
+    
+    /**
+     * @param derivedCourses Whether the backend derives students' enrolled courses from the enrollments
+     */
+    private void checkEnrollments(EnrollmentRepository enrollments, StudentRepository students,
+                                  boolean derivedCourses) {
+        Enrollment graded = new Enrollment("S1", "CS101");
+        graded.setGrade(Grade.A, 95.0);
+        Enrollment gradeOnly = new Enrollment("S2", "CS102");
+        gradeOnly.setGrade(Grade.A, null);
+        Enrollment marksOnly = new Enrollment("S2", "MA101");
+        marksOnly.setGrade(null, 85.0);
+        enrollments.saveAll(List.of(graded, new Enrollment("S1", "CS102"), new Enrollment("S2", "CS101"),
+            gradeOnly, marksOnly));
+        Enrollment found = enrollments.find("S1", "CS101");
+        expect("enrollment grade", found != null ? found.getGrade() : null, Grade.A);
+        expect("enrollment marks", found != null ? found.getMarks() : null, 95.0);
+        checkGradeAndMarks("", enrollments);
+        expect("enrollments by student", enrollments.findByStudent("S1").size(), 2);
+        expect("enrollments by course", enrollments.findByCourse("CS101").size(), 2);
+        if (derivedCourses) {
+            expect("student's enrolled courses", students.findById("S1").getEnrolledCourseIds().size(), 2);
+        }
+        
+        Enrollment removed = enrollments.delete("S1", "CS102");
+        expect("deleted enrollment", removed != null ? removed.getCourseCode() : null, "CS102");
+        expect("deleted enrollment gone", enrollments.find("S1", "CS102"), null);
+        expect("course index after delete", enrollments.findByCourse("CS102").size(), 1);
+        expect("enrollments after delete", enrollments.count(), 4);
+    }
+    
+    /**
+     * A grade without marks and marks without a grade come back as saved
+     */
+    private void checkGradeAndMarks(String when, EnrollmentRepository enrollments) {
+        Enrollment gradeOnly = enrollments.find("S2", "CS102");
+        expect("grade without marks" + when, gradeOnly != null ? gradeOnly.getGrade() : null, Grade.A);
+        expect("marks of grade without marks" + when, gradeOnly != null ? gradeOnly.getMarks() : Double.valueOf(0), null);
+        Enrollment marksOnly = enrollments.find("S2", "MA101");
+        expect("marks without grade" + when, marksOnly != null ? marksOnly.getMarks() : null, 85.0);
+        expect("grade of marks without grade" + when, marksOnly != null ? marksOnly.getGrade() : Grade.A, null);
+    }
+    
+    private void expect(String name, Object actual, Object expected) {
+        checks++;
+        if (!Objects.equals(actual, expected)) {
+            failures.add(name + ": expected " + expected + " but was " + actual);
+        }
+    }
+    
+    private static Student student(String id, String regNo, String name) {
+        return new Student(id, regNo, name, id.toLowerCase() + "@student.edu");
+    }
+    
+    private static Course course(String code, String department, Semester semester, Instructor instructor) {
+        return new Course.Builder()
+            .setCode(code)
+            .setTitle("Course " + code)
+            .setCredits(3)
+            .setInstructor(instructor)
+            .setDepartment(department)
+            .setSemester(semester)
+            .build();
+    }
+    
+    private static String idOf(Student student) {
+        return student != null ? student.getId() : null;
+    }
+    
+    private static String nameOf(Student student) {
+        return student != null ? student.getFullName() : null;
+    }
+}